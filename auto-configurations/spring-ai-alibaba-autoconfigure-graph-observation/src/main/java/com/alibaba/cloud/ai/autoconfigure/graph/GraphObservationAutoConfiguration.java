@@ -18,6 +18,9 @@ package com.alibaba.cloud.ai.autoconfigure.graph;
 import com.alibaba.cloud.ai.graph.CompileConfig;
 import com.alibaba.cloud.ai.graph.StateGraph;
 import com.alibaba.cloud.ai.graph.observation.GraphObservationLifecycleListener;
+import com.alibaba.cloud.ai.graph.observation.GraphObservationSampler;
+import com.alibaba.cloud.ai.graph.observation.export.BatchingGraphSpanExporter;
+import com.alibaba.cloud.ai.graph.observation.export.GraphSpanExporter;
 import com.alibaba.cloud.ai.graph.observation.edge.GraphEdgeObservationHandler;
 import com.alibaba.cloud.ai.graph.observation.graph.GraphObservationHandler;
 import com.alibaba.cloud.ai.graph.observation.node.GraphNodeObservationHandler;
@@ -50,16 +53,40 @@ import org.springframework.context.annotation.Configuration;
 		matchIfMissing = true)
 public class GraphObservationAutoConfiguration {
 
+	/**
+	 * Creates the sampling policy applied to node observations.
+	 * @param properties the graph observation properties
+	 * @return configured GraphObservationSampler
+	 */
+	@Bean
+	@ConditionalOnMissingBean
+	public GraphObservationSampler graphObservationSampler(GraphObservationProperties properties) {
+		GraphObservationProperties.Sampling sampling = properties.getSampling();
+		return new GraphObservationSampler(sampling.getRate(), sampling.isAlwaysOnError(),
+				sampling.getLatencyThreshold());
+	}
+
 	/**
 	 * Creates a GraphObservationLifecycleListener that monitors graph lifecycle events.
+	 * When a GraphSpanExporter bean is present, sampled node spans are exported to it in
+	 * batches from a background thread.
 	 * @param observationRegistry the observation registry for creating observations
+	 * @param sampler the sampling policy for node observations
+	 * @param spanExporter the optional exporter for sampled node spans
+	 * @param properties the graph observation properties
 	 * @return configured GraphObservationLifecycleListener
 	 */
 	@Bean
 	@ConditionalOnMissingBean
 	public GraphObservationLifecycleListener graphObservationLifecycleListener(
-			ObjectProvider<ObservationRegistry> observationRegistry) {
-		return new GraphObservationLifecycleListener(observationRegistry.getIfUnique(() -> ObservationRegistry.NOOP));
+			ObjectProvider<ObservationRegistry> observationRegistry, GraphObservationSampler sampler,
+			ObjectProvider<GraphSpanExporter> spanExporter, GraphObservationProperties properties) {
+		GraphObservationProperties.Export export = properties.getExport();
+		GraphSpanExporter delegate = spanExporter.getIfUnique();
+		GraphSpanExporter batchingExporter = delegate != null ? new BatchingGraphSpanExporter(delegate,
+				export.getQueueCapacity(), export.getBatchSize(), export.getFlushInterval()) : null;
+		return new GraphObservationLifecycleListener(observationRegistry.getIfUnique(() -> ObservationRegistry.NOOP),
+				sampler, batchingExporter);
 	}
 
 	/**
@@ -17,6 +17,8 @@ package com.alibaba.cloud.ai.autoconfigure.graph;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+
 /**
  * Configuration properties for Graph observation functionality.
  *
@@ -33,6 +35,16 @@ public class GraphObservationProperties {
 	 */
 	private boolean enabled = true;
 
+	/**
+	 * Sampling policy for node observations.
+	 */
+	private final Sampling sampling = new Sampling();
+
+	/**
+	 * Batched export of sampled node spans.
+	 */
+	private final Export export = new Export();
+
 	public boolean isEnabled() {
 		return enabled;
 	}
@@ -41,4 +53,99 @@ public class GraphObservationProperties {
 		this.enabled = enabled;
 	}
 
+	public Sampling getSampling() {
+		return sampling;
+	}
+
+	public Export getExport() {
+		return export;
+	}
+
+	public static class Sampling {
+
+		/**
+		 * Probability, between 0 and 1, that a node is sampled when it starts.
+		 */
+		private double rate = 1.0;
+
+		/**
+		 * Whether failed nodes are always sampled.
+		 */
+		private boolean alwaysOnError = true;
+
+		/**
+		 * Nodes running at least this long are always sampled. Unset disables latency
+		 * based sampling.
+		 */
+		private Duration latencyThreshold;
+
+		public double getRate() {
+			return rate;
+		}
+
+		public void setRate(double rate) {
+			this.rate = rate;
+		}
+
+		public boolean isAlwaysOnError() {
+			return alwaysOnError;
+		}
+
+		public void setAlwaysOnError(boolean alwaysOnError) {
+			this.alwaysOnError = alwaysOnError;
+		}
+
+		public Duration getLatencyThreshold() {
+			return latencyThreshold;
+		}
+
+		public void setLatencyThreshold(Duration latencyThreshold) {
+			this.latencyThreshold = latencyThreshold;
+		}
+
+	}
+
+	public static class Export {
+
+		/**
+		 * Maximum number of sampled spans buffered before new ones are dropped.
+		 */
+		private int queueCapacity = 2048;
+
+		/**
+		 * Maximum number of spans handed to the exporter at once.
+		 */
+		private int batchSize = 128;
+
+		/**
+		 * Maximum time a sampled span waits before its batch is exported.
+		 */
+		private Duration flushInterval = Duration.ofSeconds(1);
+
+		public int getQueueCapacity() {
+			return queueCapacity;
+		}
+
+		public void setQueueCapacity(int queueCapacity) {
+			this.queueCapacity = queueCapacity;
+		}
+
+		public int getBatchSize() {
+			return batchSize;
+		}
+
+		public void setBatchSize(int batchSize) {
+			this.batchSize = batchSize;
+		}
+
+		public Duration getFlushInterval() {
+			return flushInterval;
+		}
+
+		public void setFlushInterval(Duration flushInterval) {
+			this.flushInterval = flushInterval;
+		}
+
+	}
+
 }
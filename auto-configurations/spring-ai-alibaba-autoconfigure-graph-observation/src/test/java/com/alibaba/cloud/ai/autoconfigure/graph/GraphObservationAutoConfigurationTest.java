@@ -17,6 +17,7 @@ package com.alibaba.cloud.ai.autoconfigure.graph;
 
 import com.alibaba.cloud.ai.graph.CompileConfig;
 import com.alibaba.cloud.ai.graph.observation.GraphObservationLifecycleListener;
+import com.alibaba.cloud.ai.graph.observation.GraphObservationSampler;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.micrometer.observation.ObservationRegistry;
@@ -26,6 +27,8 @@ import org.springframework.boot.test.context.runner.ApplicationContextRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 /**
@@ -87,6 +90,22 @@ class GraphObservationAutoConfigurationTest {
 		});
 	}
 
+	@Test
+	void shouldConfigureSamplerFromProperties() {
+		this.contextRunner
+			.withPropertyValues("spring.ai.alibaba.graph.observation.sampling.rate=0.1",
+					"spring.ai.alibaba.graph.observation.sampling.always-on-error=false",
+					"spring.ai.alibaba.graph.observation.sampling.latency-threshold=2s")
+			.withUserConfiguration(TestConfiguration.class)
+			.run(context -> {
+				GraphObservationSampler sampler = context.getBean(GraphObservationSampler.class);
+				assertThat(sampler.getSampleRate()).isEqualTo(0.1);
+				assertThat(sampler.isAlwaysSampleErrors()).isFalse();
+				assertThat(sampler.sampleTail(Duration.ofSeconds(3).toNanos(), null)).isTrue();
+				assertThat(sampler.sampleTail(Duration.ofSeconds(1).toNanos(), new IllegalStateException())).isFalse();
+			});
+	}
+
 	@Configuration(proxyBeanMethods = false)
 	static class TestConfiguration {
 
@@ -30,6 +30,7 @@ import com.alibaba.cloud.ai.graph.internal.edge.Edge;
 import com.alibaba.cloud.ai.graph.internal.edge.EdgeValue;
 import com.alibaba.cloud.ai.graph.internal.node.CommandNode;
 import com.alibaba.cloud.ai.graph.internal.node.ParallelNode;
+import com.alibaba.cloud.ai.graph.profile.GraphProfiler;
 import com.alibaba.cloud.ai.graph.state.StateSnapshot;
 import com.alibaba.cloud.ai.graph.streaming.AsyncGeneratorUtils;
 import com.alibaba.cloud.ai.graph.utils.SystemClock;
@@ -197,7 +198,9 @@ public class CompiledGraph {
 					.map(target -> nodes.get(target.id()))
 					.toList();
 
-				var parallelNode = new ParallelNode(e.sourceId(), actions, keyStrategyMap);
+				var actionIds = parallelNodeStream.get().map(EdgeValue::id).toList();
+
+				var parallelNode = new ParallelNode(e.sourceId(), actionIds, actions, keyStrategyMap);
 
 				nodes.put(parallelNode.id(), parallelNode.actionFactory().apply(compileConfig));
 
@@ -367,8 +370,14 @@ public class CompiledGraph {
 	private Optional<Checkpoint> addCheckpoint(RunnableConfig config, String nodeId, Map<String, Object> state,
 			String nextNodeId) throws Exception {
 		if (compileConfig.checkpointSaver().isPresent()) {
+			long serializeStart = System.nanoTime();
 			var cp = Checkpoint.builder().nodeId(nodeId).state(cloneState(state)).nextNodeId(nextNodeId).build();
+			long saveStart = System.nanoTime();
 			compileConfig.checkpointSaver().get().put(config, cp);
+			config.profiler().ifPresent(profiler -> {
+				profiler.record(GraphProfiler.Phase.CHECKPOINT_SERIALIZE, nodeId, serializeStart, saveStart);
+				profiler.record(GraphProfiler.Phase.SAVER_IO, nodeId, saveStart);
+			});
 			return Optional.of(cp);
 		}
 		return Optional.empty();
@@ -608,6 +617,13 @@ public class CompiledGraph {
 		 */
 		boolean resumedFromEmbed = false;
 
+		/**
+		 * The time the previous step completed at, used to profile the wait before the
+		 * next step. Written by the thread completing the step and read by the one asking
+		 * for the next.
+		 */
+		volatile long lastStepEndNanos = 0L;
+
 		/**
 		 * Instantiates a new Async node generator.
 		 * @param overAllState the over all state
@@ -805,7 +821,9 @@ public class CompiledGraph {
 		private CompletableFuture<Data<Output>> evaluateAction(AsyncNodeActionWithConfig action,
 				OverAllState withState) {
 			doListeners(NODE_BEFORE, null);
+			long actionStart = System.nanoTime();
 			return action.apply(withState, config).thenApply(updateState -> {
+				profile(GraphProfiler.Phase.NODE_ACTION, currentNodeId, actionStart);
 				try {
 					if (action instanceof CommandNode.AsyncCommandNodeActionWithConfig) {
 						AsyncCommandAction commandAction = (AsyncCommandAction) updateState.get("command");
@@ -822,18 +840,26 @@ public class CompiledGraph {
 						return embed.get();
 					}
 
+					long mergeStart = System.nanoTime();
 					this.currentState = OverAllState.updateState(currentState, updateState, keyStrategyMap);
 					this.overAllState.updateState(updateState);
+					profile(GraphProfiler.Phase.STATE_MERGE, currentNodeId, mergeStart);
+
+					long edgeStart = System.nanoTime();
 					var nextNodeCommand = nextNodeId(currentNodeId, overAllState, currentState, config);
 					nextNodeId = nextNodeCommand.gotoNode();
 					this.currentState = nextNodeCommand.update();
+					profile(GraphProfiler.Phase.EDGE, currentNodeId, edgeStart);
 
 					return Data.of(getNodeOutput());
 				}
 				catch (Exception e) {
 					throw new CompletionException(e);
 				}
-			}).whenComplete((outputData, throwable) -> doListeners(NODE_AFTER, null));
+			}).whenComplete((outputData, throwable) -> {
+				doListeners(NODE_AFTER, null);
+				lastStepEndNanos = System.nanoTime();
+			});
 		}
 
 		private Command nextNodeId(String nodeId, OverAllState overAllState, Map<String, Object> state,
@@ -897,6 +923,10 @@ public class CompiledGraph {
 
 		@Override
 		public Data<Output> next() {
+			if (lastStepEndNanos != 0L) {
+				profile(GraphProfiler.Phase.QUEUE_WAIT, "step", lastStepEndNanos);
+				lastStepEndNanos = 0L;
+			}
 			try {
 				// GUARD: CHECK MAX ITERATION REACHED
 				if (++iteration > maxIterations) {
@@ -969,7 +999,13 @@ public class CompiledGraph {
 		private void doListeners(String scene, Exception e) {
 			Deque<GraphLifecycleListener> listeners = new LinkedBlockingDeque<>(compileConfig.lifecycleListeners());
 
+			long listenersStart = System.nanoTime();
 			processListenersLIFO(listeners, scene, e);
+			profile(GraphProfiler.Phase.LISTENER, scene, listenersStart);
+		}
+
+		private void profile(GraphProfiler.Phase phase, String name, long startNanos) {
+			config.profiler().ifPresent(profiler -> profiler.record(phase, name, startNanos));
 		}
 
 		private void processListenersLIFO(Deque<GraphLifecycleListener> listeners, String scene, Exception e) {
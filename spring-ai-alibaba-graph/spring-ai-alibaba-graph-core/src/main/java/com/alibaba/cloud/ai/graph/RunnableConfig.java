@@ -15,6 +15,8 @@
  */
 package com.alibaba.cloud.ai.graph;
 
+import com.alibaba.cloud.ai.graph.profile.GraphProfiler;
+
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -40,6 +42,8 @@ public final class RunnableConfig implements HasMetadata<RunnableConfig.Builder>
 
 	private final Map<String, Object> metadata;
 
+	private final GraphProfiler profiler;
+
 	/**
 	 * Returns the stream mode of the compiled graph.
 	 * @return {@code StreamMode} representing the current stream mode.
@@ -75,6 +79,15 @@ public final class RunnableConfig implements HasMetadata<RunnableConfig.Builder>
 		return ofNullable(nextNode);
 	}
 
+	/**
+	 * Returns the profiler recording this run, if profiling is enabled.
+	 * @return an {@code Optional} containing the profiler, or an empty {@code Optional}
+	 * if the run is not profiled
+	 */
+	public Optional<GraphProfiler> profiler() {
+		return ofNullable(profiler);
+	}
+
 	/**
 	 * Create a new RunnableConfig with the same attributes as this one but with a
 	 * different {@link CompiledGraph.StreamMode}.
@@ -147,6 +160,8 @@ public final class RunnableConfig implements HasMetadata<RunnableConfig.Builder>
 
 		private CompiledGraph.StreamMode streamMode = CompiledGraph.StreamMode.VALUES;
 
+		private GraphProfiler profiler;
+
 		/**
 		 * Constructs a new instance of the {@link Builder} with default configuration
 		 * settings. Initializes a new {@link RunnableConfig} object for configuration
@@ -167,6 +182,7 @@ public final class RunnableConfig implements HasMetadata<RunnableConfig.Builder>
 			this.nextNode = config.nextNode;
 			this.streamMode = config.streamMode;
 			this.metadata = config.metadata;
+			this.profiler = config.profiler;
 		}
 
 		/**
@@ -211,6 +227,16 @@ public final class RunnableConfig implements HasMetadata<RunnableConfig.Builder>
 			return this;
 		}
 
+		/**
+		 * Enables profiling of the run with the given profiler.
+		 * @param profiler the profiler recording the run, or null to disable profiling
+		 * @return A reference to this builder for method chaining.
+		 */
+		public Builder profiler(GraphProfiler profiler) {
+			this.profiler = profiler;
+			return this;
+		}
+
 		/**
 		 * Constructs and returns the configured {@code RunnableConfig} object.
 		 * @return the configured {@code RunnableConfig} object
@@ -232,6 +258,7 @@ public final class RunnableConfig implements HasMetadata<RunnableConfig.Builder>
 		this.nextNode = builder.nextNode;
 		this.streamMode = builder.streamMode;
 		this.metadata = ofNullable(builder.metadata).map(Map::copyOf).orElse(null);
+		this.profiler = builder.profiler;
 	}
 
 	@Override
@@ -0,0 +1,454 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.graph.async;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+
+/**
+ * Merges the generators of parallel branches into a single generator.
+ * <p>
+ * Every branch is drained by its own pump task into a bounded per-branch buffer, so a
+ * slow branch never blocks the others and a lagging consumer stalls the branches (once
+ * their buffers are full) instead of growing memory. Buffered outputs are emitted either
+ * in round-robin order over the branches that have output ready, or in the order they
+ * became ready. When a branch fails, or when the consumer closes the generator, every
+ * other branch is cancelled: its pump is interrupted and the branch generator is closed
+ * if it is {@link AutoCloseable}.
+ *
+ * @param <T> the type of the merged outputs
+ */
+public class MergedAsyncGenerator<T> implements AsyncGenerator<T>, AsyncGenerator.HasResultValue, AutoCloseable {
+
+	private static final Logger log = LoggerFactory.getLogger(MergedAsyncGenerator.class);
+
+	/**
+	 * Order in which buffered branch outputs are emitted.
+	 */
+	public enum Scheduling {
+
+		/**
+		 * Rotate over the branches, skipping the ones with no output ready.
+		 */
+		ROUND_ROBIN,
+
+		/**
+		 * Emit outputs in the order they became ready, whichever branch produced them.
+		 */
+		READY_FIRST
+
+	}
+
+	/**
+	 * An output of the merged generator together with the branch that produced it.
+	 *
+	 * @param branch the name of the branch
+	 * @param output the output
+	 * @param <T> the type of the output
+	 */
+	public record BranchOutput<T>(String branch, T output) {
+	}
+
+	private final List<String> branchNames;
+
+	private final List<AsyncGenerator<T>> branches;
+
+	private final int bufferSize;
+
+	private final Scheduling scheduling;
+
+	private final Executor executor;
+
+	private final BiFunction<Object, Object, Object> resultMerger;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final Condition outputReady = lock.newCondition();
+
+	private final Condition spaceAvailable = lock.newCondition();
+
+	private final List<ArrayDeque<Data<T>>> buffers;
+
+	private final ArrayDeque<Integer> readyOrder = new ArrayDeque<>();
+
+	private final List<Future<?>> pumps = new ArrayList<>();
+
+	private volatile Object result;
+
+	private int activeBranches;
+
+	private int nextBranch;
+
+	private Throwable failure;
+
+	private boolean failureReported;
+
+	private boolean started;
+
+	private boolean cancelled;
+
+	private boolean cancellationComplete;
+
+	private MergedAsyncGenerator(Builder<T> builder) {
+		this.branchNames = List.copyOf(builder.branches.keySet());
+		this.branches = List.copyOf(builder.branches.values());
+		this.bufferSize = builder.bufferSize;
+		this.scheduling = builder.scheduling;
+		this.executor = builder.executor;
+		this.resultMerger = builder.resultMerger;
+		this.result = builder.initialResult;
+		this.buffers = new ArrayList<>(this.branches.size());
+		for (int i = 0; i < this.branches.size(); i++) {
+			this.buffers.add(new ArrayDeque<>(bufferSize));
+		}
+		this.activeBranches = this.branches.size();
+	}
+
+	public static <T> Builder<T> builder() {
+		return new Builder<>();
+	}
+
+	@Override
+	public Data<T> next() {
+		Item<T> item = take();
+		return item.data();
+	}
+
+	/**
+	 * Returns a view of this generator whose outputs carry the name of the branch that
+	 * produced them. The view shares the state of this generator, so only one of the two
+	 * should be iterated. Embedded generators cannot be tagged and are reported as
+	 * errors.
+	 * @return a generator of branch-tagged outputs
+	 */
+	public AsyncGenerator<BranchOutput<T>> withBranches() {
+		return () -> {
+			Item<T> item = take();
+			Data<T> data = item.data();
+			if (data.isDone()) {
+				return Data.done(data.resultValue);
+			}
+			if (data.data == null) {
+				return Data.error(new IllegalStateException(
+						"embedded generator of branch '" + branchNames.get(item.branch()) + "' cannot be tagged"));
+			}
+			if (item.branch() < 0) {
+				return Data.of(data.data.thenApply(output -> new BranchOutput<>(null, output)));
+			}
+			String branch = branchNames.get(item.branch());
+			return Data.of(data.data.thenApply(output -> new BranchOutput<>(branch, output)));
+		};
+	}
+
+	/**
+	 * Cancels every branch that is still running. Subsequent calls to {@link #next()}
+	 * report the generator as done.
+	 */
+	@Override
+	public void close() {
+		cancel(null);
+	}
+
+	/**
+	 * Gets the number of outputs currently buffered across all branches.
+	 * @return the buffered output count
+	 */
+	public int bufferedOutputs() {
+		lock.lock();
+		try {
+			return buffers.stream().mapToInt(ArrayDeque::size).sum();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	private Item<T> take() {
+		lock.lock();
+		try {
+			startPumps();
+			while (true) {
+				if (cancelled && !cancellationComplete) {
+					// report the outcome only once every branch has been cancelled
+					outputReady.await();
+					continue;
+				}
+				if (failure != null) {
+					if (!failureReported) {
+						failureReported = true;
+						return new Item<>(-1, Data.error(failure));
+					}
+					return new Item<>(-1, Data.done(result));
+				}
+				if (cancelled) {
+					return new Item<>(-1, Data.done(result));
+				}
+				int branch = nextReadyBranch();
+				if (branch >= 0) {
+					Data<T> data = buffers.get(branch).poll();
+					spaceAvailable.signalAll();
+					return new Item<>(branch, data);
+				}
+				if (activeBranches == 0) {
+					return new Item<>(-1, Data.done(result));
+				}
+				outputReady.await();
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			cancel(e);
+			return new Item<>(-1, Data.error(e));
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	private int nextReadyBranch() {
+		if (scheduling == Scheduling.READY_FIRST) {
+			Integer branch = readyOrder.poll();
+			return branch != null ? branch : -1;
+		}
+		for (int i = 0; i < buffers.size(); i++) {
+			int branch = (nextBranch + i) % buffers.size();
+			if (!buffers.get(branch).isEmpty()) {
+				nextBranch = (branch + 1) % buffers.size();
+				return branch;
+			}
+		}
+		return -1;
+	}
+
+	private void startPumps() {
+		if (started) {
+			return;
+		}
+		started = true;
+		for (int i = 0; i < branches.size(); i++) {
+			final int branch = i;
+			FutureTask<Void> pump = new FutureTask<>(() -> pump(branch), null);
+			pumps.add(pump);
+			executor.execute(pump);
+		}
+	}
+
+	private void pump(int branch) {
+		AsyncGenerator<T> generator = branches.get(branch);
+		try {
+			while (true) {
+				Data<T> data = generator.next();
+				if (data.isDone()) {
+					completeBranch(data.resultValue);
+					return;
+				}
+				if (data.data != null) {
+					// wait for the output here so that only ready outputs are buffered
+					data = Data.of(data.data.get());
+				}
+				if (!offer(branch, data)) {
+					return;
+				}
+			}
+		}
+		catch (ExecutionException e) {
+			cancel(e.getCause() != null ? e.getCause() : e);
+		}
+		catch (InterruptedException | CancellationException e) {
+			// cancelled by close() or by the failure of another branch
+		}
+		catch (Throwable e) {
+			cancel(e);
+		}
+	}
+
+	private boolean offer(int branch, Data<T> data) throws InterruptedException {
+		lock.lock();
+		try {
+			ArrayDeque<Data<T>> buffer = buffers.get(branch);
+			while (buffer.size() >= bufferSize && !cancelled) {
+				spaceAvailable.await();
+			}
+			if (cancelled) {
+				return false;
+			}
+			buffer.add(data);
+			if (scheduling == Scheduling.READY_FIRST) {
+				readyOrder.add(branch);
+			}
+			outputReady.signalAll();
+			return true;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	private void completeBranch(Object resultValue) {
+		lock.lock();
+		try {
+			if (resultValue != null) {
+				result = resultMerger.apply(result, resultValue);
+			}
+			activeBranches--;
+			outputReady.signalAll();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	private void cancel(Throwable cause) {
+		lock.lock();
+		try {
+			if (cancelled) {
+				return;
+			}
+			cancelled = true;
+			failure = cause;
+			spaceAvailable.signalAll();
+		}
+		finally {
+			lock.unlock();
+		}
+		if (cause != null) {
+			log.debug("Cancelling parallel branches after failure: {}", cause.getMessage());
+		}
+		pumps.forEach(pump -> pump.cancel(true));
+		for (AsyncGenerator<T> branch : branches) {
+			if (branch instanceof AutoCloseable closeable) {
+				try {
+					closeable.close();
+				}
+				catch (Exception e) {
+					log.debug("Error closing branch generator: {}", e.getMessage());
+				}
+			}
+		}
+		lock.lock();
+		try {
+			cancellationComplete = true;
+			outputReady.signalAll();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public Optional<Object> resultValue() {
+		return Optional.ofNullable(result);
+	}
+
+	public static class Builder<T> {
+
+		private final Map<String, AsyncGenerator<T>> branches = new LinkedHashMap<>();
+
+		private int bufferSize = 16;
+
+		private Scheduling scheduling = Scheduling.ROUND_ROBIN;
+
+		private Executor executor;
+
+		private BiFunction<Object, Object, Object> resultMerger = (merged, value) -> value;
+
+		private Object initialResult;
+
+		/**
+		 * Adds a branch. Branches are scheduled in the order they are added.
+		 * @param name the name of the branch, unique within the merge
+		 * @param generator the branch generator
+		 * @return this builder
+		 */
+		public Builder<T> branch(String name, AsyncGenerator<T> generator) {
+			if (branches.putIfAbsent(Objects.requireNonNull(name), Objects.requireNonNull(generator)) != null) {
+				throw new IllegalArgumentException("duplicate branch name: " + name);
+			}
+			return this;
+		}
+
+		/**
+		 * Sets the maximum number of outputs buffered per branch. A branch whose buffer
+		 * is full is not pulled until the consumer catches up.
+		 */
+		public Builder<T> bufferSize(int bufferSize) {
+			this.bufferSize = bufferSize;
+			return this;
+		}
+
+		public Builder<T> scheduling(Scheduling scheduling) {
+			this.scheduling = scheduling;
+			return this;
+		}
+
+		/**
+		 * Sets the executor running one pump task per branch. Pumps block while waiting
+		 * on their branch, so the executor must be able to run all branches at once.
+		 */
+		public Builder<T> executor(Executor executor) {
+			this.executor = executor;
+			return this;
+		}
+
+		/**
+		 * Sets the function merging the result value of each completed branch into the
+		 * result merged so far. By default the last completed branch wins.
+		 */
+		public Builder<T> resultMerger(BiFunction<Object, Object, Object> resultMerger) {
+			this.resultMerger = resultMerger;
+			return this;
+		}
+
+		/**
+		 * Sets the result reported when no branch completes with a result value.
+		 */
+		public Builder<T> initialResult(Object initialResult) {
+			this.initialResult = initialResult;
+			return this;
+		}
+
+		public MergedAsyncGenerator<T> build() {
+			if (bufferSize <= 0) {
+				throw new IllegalArgumentException("bufferSize must be positive");
+			}
+			Objects.requireNonNull(scheduling, "scheduling must not be null");
+			Objects.requireNonNull(executor, "executor must not be null");
+			Objects.requireNonNull(resultMerger, "resultMerger must not be null");
+			return new MergedAsyncGenerator<>(this);
+		}
+
+	}
+
+	private record Item<T>(int branch, Data<T> data) {
+	}
+
+}
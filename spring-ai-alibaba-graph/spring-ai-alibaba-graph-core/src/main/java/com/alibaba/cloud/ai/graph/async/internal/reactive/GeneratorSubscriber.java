@@ -32,14 +32,36 @@ import java.util.function.Supplier;
  * publisher, process incoming items, and manage error and completion signals.
  * </p>
  *
+ * <p>
+ * At most {@code bufferSize} items are requested from the publisher ahead of the
+ * consumer. Further items are requested only as {@link #next()} drains the queue, so a
+ * slow consumer pauses the publisher instead of growing the queue.
+ * </p>
+ *
  * @param <T> The type of elements produced by this generator.
  */
-public class GeneratorSubscriber<T> implements Flow.Subscriber<T>, AsyncGenerator<T> {
+public class GeneratorSubscriber<T> implements Flow.Subscriber<T>, AsyncGenerator<T>, AutoCloseable {
+
+	/**
+	 * Default number of items requested from the publisher ahead of the consumer.
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 16;
 
 	private final AsyncGeneratorQueue.Generator<T> delegate;
 
 	private final Supplier<Object> mapResult;
 
+	private final int bufferSize;
+
+	private final int replenishThreshold;
+
+	// items drained since demand was last replenished, only touched by the consumer
+	private int consumed;
+
+	private volatile Flow.Subscription subscription;
+
+	private volatile boolean closed;
+
 	public Optional<Supplier<Object>> mapResult() {
 		return Optional.ofNullable(mapResult);
 	}
@@ -53,8 +75,26 @@ public class GeneratorSubscriber<T> implements Flow.Subscriber<T>, AsyncGenerato
 	 */
 	public <P extends Flow.Publisher<T>> GeneratorSubscriber(P publisher, Supplier<Object> mapResult,
 			BlockingQueue<Data<T>> queue) {
+		this(publisher, mapResult, queue, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Constructs a new instance of {@code GeneratorSubscriber}.
+	 * @param <P> the type of the publisher, which must extend {@link Flow.Publisher}
+	 * @param mapResult function that will set generator's result
+	 * @param publisher the source publisher that will push data to this subscriber
+	 * @param queue the blocking queue used for storing asynchronous generator data
+	 * @param bufferSize the maximum number of items requested ahead of the consumer
+	 */
+	public <P extends Flow.Publisher<T>> GeneratorSubscriber(P publisher, Supplier<Object> mapResult,
+			BlockingQueue<Data<T>> queue, int bufferSize) {
+		if (bufferSize <= 0) {
+			throw new IllegalArgumentException("bufferSize must be positive");
+		}
 		this.delegate = new AsyncGeneratorQueue.Generator<>(queue);
 		this.mapResult = mapResult;
+		this.bufferSize = bufferSize;
+		this.replenishThreshold = Math.max(1, bufferSize / 2);
 		publisher.subscribe(this);
 	}
 
@@ -80,7 +120,12 @@ public class GeneratorSubscriber<T> implements Flow.Subscriber<T>, AsyncGenerato
 	 */
 	@Override
 	public void onSubscribe(Flow.Subscription subscription) {
-		subscription.request(Long.MAX_VALUE);
+		this.subscription = subscription;
+		if (closed) {
+			subscription.cancel();
+			return;
+		}
+		subscription.request(bufferSize);
 	}
 
 	/**
@@ -89,6 +134,9 @@ public class GeneratorSubscriber<T> implements Flow.Subscriber<T>, AsyncGenerato
 	 */
 	@Override
 	public void onNext(T item) {
+		if (closed) {
+			return;
+		}
 		delegate.queue().add(Data.of(item));
 	}
 
@@ -117,7 +165,40 @@ public class GeneratorSubscriber<T> implements Flow.Subscriber<T>, AsyncGenerato
 	 */
 	@Override
 	public Data<T> next() {
-		return delegate.next();
+		Data<T> data = delegate.next();
+		if (data != null && !data.isDone() && !data.isError()) {
+			replenish();
+		}
+		return data;
+	}
+
+	private void replenish() {
+		// request in batches so that a fast consumer does not signal once per item
+		if (++consumed < replenishThreshold) {
+			return;
+		}
+		Flow.Subscription current = subscription;
+		if (current != null && !closed) {
+			current.request(consumed);
+		}
+		consumed = 0;
+	}
+
+	/**
+	 * Cancels the subscription to the source publisher and ends this generator, so that a
+	 * consumer waiting for the next element is released.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		Flow.Subscription current = subscription;
+		if (current != null) {
+			current.cancel();
+		}
+		delegate.queue().add(Data.done(null));
 	}
 
 }
@@ -22,6 +22,7 @@ import com.alibaba.cloud.ai.graph.RunnableConfig;
 import com.alibaba.cloud.ai.graph.action.AsyncNodeActionWithConfig;
 import com.alibaba.cloud.ai.graph.async.AsyncGenerator;
 import com.alibaba.cloud.ai.graph.async.internal.reactive.GeneratorSubscriber;
+import com.alibaba.cloud.ai.graph.profile.GraphProfiler;
 import org.springframework.util.CollectionUtils;
 
 import java.util.ArrayList;
@@ -29,6 +30,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
 
 import static java.lang.String.format;
 
@@ -36,14 +38,29 @@ public class ParallelNode extends Node {
 
 	public static final String PARALLEL_PREFIX = "__PARALLEL__";
 
-	record AsyncParallelNodeAction(List<AsyncNodeActionWithConfig> actions,
+	record AsyncParallelNodeAction(List<String> actionIds, List<AsyncNodeActionWithConfig> actions,
 			Map<String, KeyStrategy> channels) implements AsyncNodeActionWithConfig {
 
 		@Override
 		public CompletableFuture<Map<String, Object>> apply(OverAllState state, RunnableConfig config) {
 			Map<String, Object> partialMergedStates = new HashMap<>();
 			Map<String, Object> asyncGenerators = new HashMap<>();
-			var futures = actions.stream().map(action -> action.apply(state, config).thenApply(partialState -> {
+			GraphProfiler profiler = config.profiler().orElse(null);
+			long dispatchStart = System.nanoTime();
+			var futures = IntStream.range(0, actions.size()).mapToObj(index -> {
+				AsyncNodeActionWithConfig action = actions.get(index);
+				String branch = actionIds.get(index);
+				long branchStart = System.nanoTime();
+				if (profiler != null) {
+					profiler.record(GraphProfiler.Phase.QUEUE_WAIT, branch, dispatchStart, branchStart);
+				}
+				return action.apply(state, config).thenApply(partialState -> {
+					if (profiler != null) {
+						profiler.record(GraphProfiler.Phase.NODE_ACTION, branch, branchStart);
+					}
+					return partialState;
+				});
+			}).map(future -> future.thenApply(partialState -> {
 				partialState.forEach((key, value) -> {
 					if (value instanceof AsyncGenerator<?> || value instanceof GeneratorSubscriber) {
 						((List) asyncGenerators.computeIfAbsent(key, k -> new ArrayList<>())).add(value);
@@ -53,7 +70,7 @@ public class ParallelNode extends Node {
 					}
 				});
 				state.updateState(partialMergedStates);
-				return action;
+				return partialState;
 			}))
 				// .map( future -> supplyAsync(future::join) )
 				.toList()
@@ -65,7 +82,14 @@ public class ParallelNode extends Node {
 	}
 
 	public ParallelNode(String id, List<AsyncNodeActionWithConfig> actions, Map<String, KeyStrategy> channels) {
-		super(format("%s(%s)", PARALLEL_PREFIX, id), (config) -> new AsyncParallelNodeAction(actions, channels));
+		this(id, IntStream.range(0, actions.size()).mapToObj(index -> format("%s[%d]", id, index)).toList(), actions,
+				channels);
+	}
+
+	public ParallelNode(String id, List<String> actionIds, List<AsyncNodeActionWithConfig> actions,
+			Map<String, KeyStrategy> channels) {
+		super(format("%s(%s)", PARALLEL_PREFIX, id),
+				(config) -> new AsyncParallelNodeAction(actionIds, actions, channels));
 	}
 
 	@Override
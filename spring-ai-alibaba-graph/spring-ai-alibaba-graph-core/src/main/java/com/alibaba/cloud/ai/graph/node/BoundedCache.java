@@ -0,0 +1,166 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.graph.node;
+
+import com.alibaba.cloud.ai.graph.observation.metric.SpringAiAlibabaObservationMetricAttributes;
+import com.alibaba.cloud.ai.graph.observation.metric.SpringAiAlibabaObservationMetricNames;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Size-bounded LRU map with a per-entry time to live, shared by the node caches. Values
+ * are loaded outside the lock, so concurrent misses on the same key may both compute it.
+ * Every removal bumps a generation, and a load that started before it is not stored.
+ */
+final class BoundedCache<K, V> {
+
+	private final int maxSize;
+
+	private final long ttlNanos;
+
+	private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	private long generation;
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final Counter hitCounter;
+
+	private final Counter missCounter;
+
+	BoundedCache(String name, String level, int maxSize, long ttlNanos, MeterRegistry meterRegistry) {
+		this.maxSize = maxSize;
+		this.ttlNanos = ttlNanos;
+		this.hitCounter = meterRegistry != null ? counter(meterRegistry, name, level, true) : null;
+		this.missCounter = meterRegistry != null ? counter(meterRegistry, name, level, false) : null;
+	}
+
+	static Counter counter(MeterRegistry meterRegistry, String name, String level, boolean hit) {
+		return Counter.builder(SpringAiAlibabaObservationMetricNames.GRAPH_NODE_CACHE.value())
+			.tag(SpringAiAlibabaObservationMetricAttributes.GRAPH_NODE_NAME.value(), name)
+			.tag(SpringAiAlibabaObservationMetricAttributes.GRAPH_NODE_CACHE_LEVEL.value(), level)
+			.tag(SpringAiAlibabaObservationMetricAttributes.GRAPH_NODE_CACHE_HIT.value(), String.valueOf(hit))
+			.description("Counts graph node cache lookups")
+			.register(meterRegistry);
+	}
+
+	V get(K key, Supplier<V> loader) {
+		long loadGeneration = generation();
+		V value = getIfPresent(key);
+		if (value != null) {
+			return value;
+		}
+		value = loader.get();
+		put(key, value, loadGeneration);
+		return value;
+	}
+
+	/**
+	 * Returns the current generation, to be captured before loading a value that is later
+	 * stored with {@link #put(Object, Object, long)}.
+	 */
+	long generation() {
+		synchronized (entries) {
+			return generation;
+		}
+	}
+
+	/**
+	 * Returns the live value cached for the key, recording the lookup as a hit or a miss.
+	 */
+	V getIfPresent(K key) {
+		long now = System.nanoTime();
+		synchronized (entries) {
+			Entry<V> entry = entries.get(key);
+			if (entry != null) {
+				if (now - entry.createdAt() < ttlNanos) {
+					record(true);
+					return entry.value();
+				}
+				entries.remove(key);
+			}
+		}
+		record(false);
+		return null;
+	}
+
+	void put(K key, V value) {
+		put(key, value, -1);
+	}
+
+	/**
+	 * Stores the value unless entries were removed since the given generation was read,
+	 * in which case the value may have been loaded from data that is no longer current. A
+	 * negative generation stores unconditionally.
+	 */
+	void put(K key, V value, long loadGeneration) {
+		if (value == null) {
+			return;
+		}
+		synchronized (entries) {
+			if (loadGeneration >= 0 && loadGeneration != generation) {
+				return;
+			}
+			entries.put(key, new Entry<>(value, System.nanoTime()));
+			Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+			while (entries.size() > maxSize && iterator.hasNext()) {
+				iterator.next();
+				iterator.remove();
+			}
+		}
+	}
+
+	void removeIf(Predicate<K> predicate) {
+		synchronized (entries) {
+			generation++;
+			entries.keySet().removeIf(predicate);
+		}
+	}
+
+	void clear() {
+		synchronized (entries) {
+			generation++;
+			entries.clear();
+		}
+	}
+
+	NodeCacheStats stats() {
+		synchronized (entries) {
+			return new NodeCacheStats(hits.get(), misses.get(), entries.size());
+		}
+	}
+
+	private void record(boolean hit) {
+		(hit ? hits : misses).incrementAndGet();
+		Counter counter = hit ? hitCounter : missCounter;
+		if (counter != null) {
+			counter.increment();
+		}
+	}
+
+	private record Entry<V>(V value, long createdAt) {
+	}
+
+}
@@ -0,0 +1,326 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.graph.node;
+
+import com.alibaba.cloud.ai.dashscope.rerank.DashScopeRerankOptions;
+import com.alibaba.cloud.ai.model.RerankModel;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Optional two-level cache for {@link KnowledgeRetrievalNode}. The first level maps query
+ * text to its embedding vector and is plugged in by wrapping the {@link EmbeddingModel}
+ * used by the vector store with {@link #embeddingModel(EmbeddingModel)}. The second level
+ * maps a retrieval request (vector store, query, filter, topK, threshold, rerank model
+ * and options) to the final ranked documents, so repeated lookups skip both the
+ * similarity search and the rerank call. Results whose ranking failed are returned in
+ * similarity order but never cached.
+ * <p>
+ * Both levels are bounded in size, evict the least recently used entry first and expire
+ * entries after a fixed time to live. Result entries of a vector store are dropped
+ * whenever that store is written through {@link #vectorStore(VectorStore)}, or when
+ * {@link #invalidate(VectorStore)} is called explicitly.
+ */
+public class KnowledgeRetrievalCache {
+
+	/**
+	 * Cache level holding query embeddings.
+	 */
+	public static final String EMBEDDING_LEVEL = "embedding";
+
+	/**
+	 * Cache level holding ranked retrieval results.
+	 */
+	public static final String RESULT_LEVEL = "result";
+
+	private final BoundedCache<String, float[]> embeddings;
+
+	private final BoundedCache<ResultKey, List<Document>> results;
+
+	private KnowledgeRetrievalCache(Builder builder) {
+		this.embeddings = new BoundedCache<>(builder.name, EMBEDDING_LEVEL, builder.maxEmbeddings,
+				builder.ttl.toNanos(), builder.meterRegistry);
+		this.results = new BoundedCache<>(builder.name, RESULT_LEVEL, builder.maxResults, builder.ttl.toNanos(),
+				builder.meterRegistry);
+	}
+
+	/**
+	 * Returns the embedding of the given text, computing it with the loader on a miss.
+	 * @param text the text to embed
+	 * @param loader computes the embedding when it is not cached
+	 * @return the cached or freshly computed embedding
+	 */
+	public float[] embedding(String text, Supplier<float[]> loader) {
+		return embeddings.get(text, loader);
+	}
+
+	/**
+	 * Returns the ranked documents for the given request, computing them with the loader
+	 * on a miss. A loaded result is cached only if it is complete and the vector store
+	 * was not invalidated while it was being loaded.
+	 * @param key the retrieval request
+	 * @param loader performs retrieval and ranking when the result is not cached
+	 * @return the cached or freshly computed documents
+	 */
+	public List<Document> documents(ResultKey key, Supplier<Retrieval> loader) {
+		long generation = results.generation();
+		List<Document> documents = results.getIfPresent(key);
+		if (documents != null) {
+			return documents;
+		}
+		Retrieval retrieval = loader.get();
+		documents = List.copyOf(retrieval.documents());
+		if (retrieval.complete()) {
+			results.put(key, documents, generation);
+		}
+		return documents;
+	}
+
+	/**
+	 * Drops every cached result that was retrieved from the given vector store.
+	 * @param vectorStore the vector store that has been written
+	 */
+	public void invalidate(VectorStore vectorStore) {
+		results.removeIf(key -> key.vectorStore() == vectorStore);
+	}
+
+	/**
+	 * Drops every cached embedding and result.
+	 */
+	public void invalidateAll() {
+		embeddings.clear();
+		results.clear();
+	}
+
+	/**
+	 * Wraps an embedding model so that single-text embeddings, which is how vector stores
+	 * embed search queries, are served from the embedding level of this cache.
+	 * @param delegate the embedding model backing the vector store
+	 * @return a caching embedding model
+	 */
+	public EmbeddingModel embeddingModel(EmbeddingModel delegate) {
+		return new CachingEmbeddingModel(delegate, this);
+	}
+
+	/**
+	 * Wraps a vector store so that every write invalidates the results cached for it. The
+	 * returned store must be the one handed to {@link KnowledgeRetrievalNode}.
+	 * @param delegate the vector store to observe
+	 * @return a vector store that invalidates this cache on writes
+	 */
+	public VectorStore vectorStore(VectorStore delegate) {
+		return new InvalidatingVectorStore(delegate, this);
+	}
+
+	public NodeCacheStats embeddingStats() {
+		return embeddings.stats();
+	}
+
+	public NodeCacheStats resultStats() {
+		return results.stats();
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Key of a cached retrieval result. The rerank configuration is {@code null} when
+	 * ranking is disabled.
+	 */
+	public record ResultKey(VectorStore vectorStore, String query, Filter.Expression filterExpression, Integer topK,
+			Double similarityThreshold, RerankKey rerank) {
+	}
+
+	/**
+	 * Rerank model and options of a ranked result. The options are copied by value since
+	 * {@link DashScopeRerankOptions} is mutable and does not implement equality.
+	 */
+	public record RerankKey(RerankModel model, String modelName, Integer topN, Boolean returnDocuments) {
+
+		public static RerankKey of(RerankModel model, DashScopeRerankOptions options) {
+			return options != null
+					? new RerankKey(model, options.getModel(), options.getTopN(), options.getReturnDocuments())
+					: new RerankKey(model, null, null, null);
+		}
+
+	}
+
+	/**
+	 * Documents produced by a retrieval. A retrieval is incomplete when ranking was
+	 * requested but failed and the documents are in similarity order instead.
+	 */
+	public record Retrieval(List<Document> documents, boolean complete) {
+	}
+
+	public static class Builder {
+
+		private String name = "knowledge-retrieval";
+
+		private Duration ttl = Duration.ofMinutes(10);
+
+		private int maxEmbeddings = 1024;
+
+		private int maxResults = 256;
+
+		private MeterRegistry meterRegistry;
+
+		/**
+		 * Sets the name reported as the node name tag of the cache metrics.
+		 */
+		public Builder name(String name) {
+			this.name = name;
+			return this;
+		}
+
+		public Builder ttl(Duration ttl) {
+			this.ttl = ttl;
+			return this;
+		}
+
+		public Builder maxEmbeddings(int maxEmbeddings) {
+			this.maxEmbeddings = maxEmbeddings;
+			return this;
+		}
+
+		public Builder maxResults(int maxResults) {
+			this.maxResults = maxResults;
+			return this;
+		}
+
+		/**
+		 * Sets the registry the hit and miss counters are published to, typically the one
+		 * backing graph observation.
+		 */
+		public Builder meterRegistry(MeterRegistry meterRegistry) {
+			this.meterRegistry = meterRegistry;
+			return this;
+		}
+
+		public KnowledgeRetrievalCache build() {
+			Assert.hasText(name, "name must not be empty");
+			Assert.isTrue(ttl != null && !ttl.isNegative() && !ttl.isZero(), "ttl must be positive");
+			Assert.isTrue(maxEmbeddings > 0, "maxEmbeddings must be positive");
+			Assert.isTrue(maxResults > 0, "maxResults must be positive");
+			return new KnowledgeRetrievalCache(this);
+		}
+
+	}
+
+	private static final class CachingEmbeddingModel implements EmbeddingModel {
+
+		private final EmbeddingModel delegate;
+
+		private final KnowledgeRetrievalCache cache;
+
+		CachingEmbeddingModel(EmbeddingModel delegate, KnowledgeRetrievalCache cache) {
+			this.delegate = delegate;
+			this.cache = cache;
+		}
+
+		@Override
+		public EmbeddingResponse call(EmbeddingRequest request) {
+			return delegate.call(request);
+		}
+
+		@Override
+		public float[] embed(String text) {
+			return cache.embedding(text, () -> delegate.embed(text));
+		}
+
+		@Override
+		public float[] embed(Document document) {
+			return delegate.embed(document);
+		}
+
+		@Override
+		public int dimensions() {
+			return delegate.dimensions();
+		}
+
+	}
+
+	private static final class InvalidatingVectorStore implements VectorStore {
+
+		private final VectorStore delegate;
+
+		private final KnowledgeRetrievalCache cache;
+
+		InvalidatingVectorStore(VectorStore delegate, KnowledgeRetrievalCache cache) {
+			this.delegate = delegate;
+			this.cache = cache;
+		}
+
+		@Override
+		public String getName() {
+			return delegate.getName();
+		}
+
+		@Override
+		public void add(List<Document> documents) {
+			try {
+				delegate.add(documents);
+			}
+			finally {
+				cache.invalidate(this);
+			}
+		}
+
+		@Override
+		public void delete(List<String> idList) {
+			try {
+				delegate.delete(idList);
+			}
+			finally {
+				cache.invalidate(this);
+			}
+		}
+
+		@Override
+		public void delete(Filter.Expression filterExpression) {
+			try {
+				delegate.delete(filterExpression);
+			}
+			finally {
+				cache.invalidate(this);
+			}
+		}
+
+		@Override
+		public List<Document> similaritySearch(SearchRequest request) {
+			return delegate.similaritySearch(request);
+		}
+
+		@Override
+		public <T> Optional<T> getNativeClient() {
+			return delegate.getNativeClient();
+		}
+
+	}
+
+}
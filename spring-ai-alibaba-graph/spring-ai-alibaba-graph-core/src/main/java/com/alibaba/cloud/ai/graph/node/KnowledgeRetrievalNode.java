@@ -75,6 +75,8 @@ public class KnowledgeRetrievalNode implements NodeAction {
 
 	private VectorStore vectorStore;
 
+	private KnowledgeRetrievalCache cache;
+
 	List<Document> documents;
 
 	private static final Logger logger = LoggerFactory.getLogger(KnowledgeRetrievalNode.class);
@@ -98,17 +100,17 @@ public class KnowledgeRetrievalNode implements NodeAction {
 	@Override
 	public Map<String, Object> apply(OverAllState state) throws Exception {
 		initNodeWithState(state);
-		DocumentRetriever documentRetriever = VectorStoreDocumentRetriever.builder()
-			.similarityThreshold(similarityThreshold)
-			.topK(topK)
-			.filterExpression(filterExpression)
-			.vectorStore(vectorStore)
-			.build();
 		Query query = new Query(userPrompt);
-		documents = documentRetriever.retrieve(query);
-		documents = enableRanker
-				? ranking(query, documents, new KnowledgeRetrievalDocumentRanker(rerankModel, rerankOptions))
-				: documents;
+		if (cache != null) {
+			KnowledgeRetrievalCache.RerankKey rerank = Boolean.TRUE.equals(enableRanker)
+					? KnowledgeRetrievalCache.RerankKey.of(rerankModel, rerankOptions) : null;
+			KnowledgeRetrievalCache.ResultKey key = new KnowledgeRetrievalCache.ResultKey(vectorStore, userPrompt,
+					filterExpression, topK, similarityThreshold, rerank);
+			documents = cache.documents(key, () -> retrieve(query));
+		}
+		else {
+			documents = retrieve(query).documents();
+		}
 		StringBuilder newUserPrompt = new StringBuilder(userPrompt);
 		for (Document document : documents) {
 			newUserPrompt.append("Document: ").append(document.getFormattedContent()).append("\n");
@@ -124,6 +126,23 @@ public class KnowledgeRetrievalNode implements NodeAction {
 		return updatedState;
 	}
 
+	private KnowledgeRetrievalCache.Retrieval retrieve(Query query) {
+		DocumentRetriever documentRetriever = VectorStoreDocumentRetriever.builder()
+			.similarityThreshold(similarityThreshold)
+			.topK(topK)
+			.filterExpression(filterExpression)
+			.vectorStore(vectorStore)
+			.build();
+		List<Document> retrieved = documentRetriever.retrieve(query);
+		if (!Boolean.TRUE.equals(enableRanker)) {
+			return new KnowledgeRetrievalCache.Retrieval(retrieved, true);
+		}
+		List<Document> ranked = ranking(query, retrieved,
+				new KnowledgeRetrievalDocumentRanker(rerankModel, rerankOptions));
+		return ranked != null ? new KnowledgeRetrievalCache.Retrieval(ranked, true)
+				: new KnowledgeRetrievalCache.Retrieval(retrieved, false);
+	}
+
 	private void initNodeWithState(OverAllState state) {
 		if (StringUtils.hasLength(userPromptKey)) {
 			this.userPrompt = (String) state.value(userPromptKey).orElse(this.userPrompt);
@@ -152,18 +171,22 @@ public class KnowledgeRetrievalNode implements NodeAction {
 		}
 	}
 
-	private List<Document> ranking(Query query, List<Document> documents, DocumentPostProcessor documentPostProcessor) {
+	/**
+	 * Returns the ranked documents, or {@code null} if ranking failed.
+	 */
+	private List<Document> ranking(Query query, List<Document> documents,
+			KnowledgeRetrievalDocumentRanker documentRanker) {
 		if (documents.size() <= 1) {
 			return documents;
 		}
 
 		try {
-			List<Document> rankedDocuments = documentPostProcessor.process(query, documents);
+			List<Document> rankedDocuments = documentRanker.rerank(query, documents);
 			return rankedDocuments;
 		}
 		catch (Exception e) {
 			logger.error("ranking error", e);
-			return documents;
+			return null;
 		}
 	}
 
@@ -188,23 +211,7 @@ public class KnowledgeRetrievalNode implements NodeAction {
 		public List<Document> process(@Nullable Query query, @Nullable List<Document> documents) {
 
 			try {
-				List<Document> reorderDocs = new ArrayList<>();
-				if (Objects.nonNull(query) && StringUtils.hasText(query.text())) {
-					RerankRequest rerankRequest = new RerankRequest(query.text(), documents, rerankOptions);
-					RerankResponse rerankResp = rerankModel.call(rerankRequest);
-					Map<String, Document> docMap = documents.stream()
-						.collect(Collectors.toMap(Document::getId, Function.identity()));
-					rerankResp.getResults().forEach(res -> {
-						Document outputDocs = res.getOutput();
-
-						Document doc = docMap.get(outputDocs.getId());
-						if (doc != null) {
-							reorderDocs.add(doc);
-						}
-					});
-				}
-
-				return reorderDocs;
+				return rerank(query, documents);
 			}
 			catch (Exception e) {
 				logger.error("rank error", e);
@@ -212,6 +219,30 @@ public class KnowledgeRetrievalNode implements NodeAction {
 			}
 		}
 
+		/**
+		 * Reorders the documents with the rerank model, propagating a failure instead of
+		 * falling back to the given order.
+		 */
+		List<Document> rerank(@Nullable Query query, @Nullable List<Document> documents) {
+			List<Document> reorderDocs = new ArrayList<>();
+			if (Objects.nonNull(query) && StringUtils.hasText(query.text())) {
+				RerankRequest rerankRequest = new RerankRequest(query.text(), documents, rerankOptions);
+				RerankResponse rerankResp = rerankModel.call(rerankRequest);
+				Map<String, Document> docMap = documents.stream()
+					.collect(Collectors.toMap(Document::getId, Function.identity()));
+				rerankResp.getResults().forEach(res -> {
+					Document outputDocs = res.getOutput();
+
+					Document doc = docMap.get(outputDocs.getId());
+					if (doc != null) {
+						reorderDocs.add(doc);
+					}
+				});
+			}
+
+			return reorderDocs;
+		}
+
 	}
 
 	public static Builder builder() {
@@ -252,6 +283,8 @@ public class KnowledgeRetrievalNode implements NodeAction {
 
 		private VectorStore vectorStore;
 
+		private KnowledgeRetrievalCache cache;
+
 		public Builder userPromptKey(String userPromptKey) {
 			this.userPromptKey = userPromptKey;
 			return this;
@@ -332,6 +365,11 @@ public class KnowledgeRetrievalNode implements NodeAction {
 			return this;
 		}
 
+		public Builder cache(KnowledgeRetrievalCache cache) {
+			this.cache = cache;
+			return this;
+		}
+
 		public KnowledgeRetrievalNode build() {
 			KnowledgeRetrievalNode knowledgeRetrievalNode = new KnowledgeRetrievalNode();
 			knowledgeRetrievalNode.userPromptKey = this.userPromptKey;
@@ -350,6 +388,7 @@ public class KnowledgeRetrievalNode implements NodeAction {
 			knowledgeRetrievalNode.rerankOptions = this.rerankOptions;
 			knowledgeRetrievalNode.vectorStoreKey = this.vectorStoreKey;
 			knowledgeRetrievalNode.vectorStore = this.vectorStore;
+			knowledgeRetrievalNode.cache = this.cache;
 			return knowledgeRetrievalNode;
 		}
 
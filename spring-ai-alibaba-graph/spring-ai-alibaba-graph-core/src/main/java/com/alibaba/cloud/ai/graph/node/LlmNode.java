@@ -63,6 +63,8 @@ public class LlmNode implements NodeAction {
 
 	private Boolean stream = Boolean.FALSE;
 
+	private LlmSingleFlight singleFlight;
+
 	public LlmNode() {
 	}
 
@@ -129,6 +131,25 @@ public class LlmNode implements NodeAction {
 	}
 
 	public Flux<ChatResponse> stream() {
+		if (singleFlight != null) {
+			return singleFlight.stream(requestKey(), this::doStream);
+		}
+		return doStream();
+	}
+
+	public ChatResponse call() {
+		if (singleFlight != null) {
+			return singleFlight.call(requestKey(), this::doCall);
+		}
+		return doCall();
+	}
+
+	private LlmSingleFlight.RequestKey requestKey() {
+		List<String> toolNames = toolCallbacks.stream().map(tool -> tool.getToolDefinition().name()).toList();
+		return new LlmSingleFlight.RequestKey(chatClient, systemPrompt, userPrompt, messages, advisors, toolNames);
+	}
+
+	private Flux<ChatResponse> doStream() {
 		if (StringUtils.hasLength(systemPrompt) && StringUtils.hasLength(userPrompt)) {
 			return chatClient.prompt()
 				.system(systemPrompt)
@@ -169,8 +190,7 @@ public class LlmNode implements NodeAction {
 		}
 	}
 
-	public ChatResponse call() {
-
+	private ChatResponse doCall() {
 		if (StringUtils.hasLength(systemPrompt) && StringUtils.hasLength(userPrompt)) {
 			return chatClient.prompt()
 				.system(systemPrompt)
@@ -243,6 +263,8 @@ public class LlmNode implements NodeAction {
 
 		private Boolean stream;
 
+		private LlmSingleFlight singleFlight;
+
 		public Builder userPromptTemplate(String userPromptTemplate) {
 			this.userPromptTemplate = userPromptTemplate;
 			return this;
@@ -308,6 +330,15 @@ public class LlmNode implements NodeAction {
 			return this;
 		}
 
+		/**
+		 * Shares identical concurrent model calls of this node, and optionally reuses
+		 * their responses for a short time.
+		 */
+		public Builder singleFlight(LlmSingleFlight singleFlight) {
+			this.singleFlight = singleFlight;
+			return this;
+		}
+
 		public LlmNode build() {
 			LlmNode llmNode = new LlmNode();
 			llmNode.systemPrompt = this.systemPromptTemplate;
@@ -331,6 +362,7 @@ public class LlmNode implements NodeAction {
 				llmNode.toolCallbacks = this.toolCallbacks;
 			}
 			llmNode.chatClient = this.chatClient;
+			llmNode.singleFlight = this.singleFlight;
 			return llmNode;
 		}
 
@@ -0,0 +1,300 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.graph.node;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.advisor.api.Advisor;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Opt-in single-flight layer for {@link LlmNode}. Concurrent requests with the same key
+ * share one in-flight model call: the first caller performs it and the others wait for
+ * its response. Streaming requests share one upstream subscription, and every subscriber
+ * receives all chunks from the beginning, including subscribers that join mid-stream.
+ * <p>
+ * Optionally, completed responses are kept for a short time to live, so identical
+ * requests arriving right after a burst are answered without calling the model. Only
+ * enable this for nodes whose prompts fully determine the answer: advisors that keep
+ * per-conversation state, or tools with side effects, are shared along with the call.
+ */
+public class LlmSingleFlight {
+
+	/**
+	 * Cache level reported for requests that joined an in-flight call.
+	 */
+	public static final String IN_FLIGHT_LEVEL = "in_flight";
+
+	/**
+	 * Cache level reported for requests served from completed responses.
+	 */
+	public static final String RESULT_LEVEL = "llm_result";
+
+	private final ConcurrentMap<RequestKey, CompletableFuture<ChatResponse>> calls = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<RequestKey, Flux<ChatResponse>> streams = new ConcurrentHashMap<>();
+
+	private final BoundedCache<RequestKey, ChatResponse> responses;
+
+	private final BoundedCache<RequestKey, List<ChatResponse>> streamedResponses;
+
+	private final AtomicLong joined = new AtomicLong();
+
+	private final AtomicLong started = new AtomicLong();
+
+	private final Counter joinedCounter;
+
+	private final Counter startedCounter;
+
+	private LlmSingleFlight(Builder builder) {
+		boolean cacheResults = !builder.resultTtl.isZero();
+		this.responses = cacheResults ? new BoundedCache<>(builder.name, RESULT_LEVEL, builder.maxResults,
+				builder.resultTtl.toNanos(), builder.meterRegistry) : null;
+		this.streamedResponses = cacheResults ? new BoundedCache<>(builder.name, RESULT_LEVEL, builder.maxResults,
+				builder.resultTtl.toNanos(), builder.meterRegistry) : null;
+		MeterRegistry meterRegistry = builder.meterRegistry;
+		this.joinedCounter = meterRegistry != null
+				? BoundedCache.counter(meterRegistry, builder.name, IN_FLIGHT_LEVEL, true) : null;
+		this.startedCounter = meterRegistry != null
+				? BoundedCache.counter(meterRegistry, builder.name, IN_FLIGHT_LEVEL, false) : null;
+	}
+
+	/**
+	 * Performs a blocking model call, sharing it with concurrent callers using the same
+	 * key.
+	 * @param key the request key
+	 * @param call performs the model call
+	 * @return the shared response
+	 */
+	public ChatResponse call(RequestKey key, Supplier<ChatResponse> call) {
+		if (responses != null) {
+			ChatResponse cached = responses.getIfPresent(key);
+			if (cached != null) {
+				return cached;
+			}
+		}
+		CompletableFuture<ChatResponse> flight = new CompletableFuture<>();
+		CompletableFuture<ChatResponse> existing = calls.putIfAbsent(key, flight);
+		if (existing != null) {
+			record(true);
+			try {
+				return existing.join();
+			}
+			catch (CompletionException e) {
+				throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+			}
+		}
+		record(false);
+		try {
+			ChatResponse response = call.get();
+			if (responses != null) {
+				responses.put(key, response);
+			}
+			flight.complete(response);
+			return response;
+		}
+		catch (RuntimeException | Error e) {
+			flight.completeExceptionally(e);
+			throw e;
+		}
+		finally {
+			calls.remove(key, flight);
+		}
+	}
+
+	/**
+	 * Opens a streaming model call, sharing its upstream subscription with concurrent
+	 * subscribers using the same key. The upstream is cancelled once every subscriber has
+	 * cancelled.
+	 * @param key the request key
+	 * @param stream opens the model stream
+	 * @return a stream replaying every chunk of the shared call
+	 */
+	public Flux<ChatResponse> stream(RequestKey key, Supplier<Flux<ChatResponse>> stream) {
+		if (streamedResponses != null) {
+			List<ChatResponse> cached = streamedResponses.getIfPresent(key);
+			if (cached != null) {
+				return Flux.fromIterable(cached);
+			}
+		}
+		boolean[] created = new boolean[1];
+		Flux<ChatResponse> shared = streams.computeIfAbsent(key, k -> {
+			created[0] = true;
+			return share(k, stream);
+		});
+		record(!created[0]);
+		return shared;
+	}
+
+	private Flux<ChatResponse> share(RequestKey key, Supplier<Flux<ChatResponse>> stream) {
+		List<ChatResponse> chunks = Collections.synchronizedList(new ArrayList<>());
+		AtomicReference<Flux<ChatResponse>> self = new AtomicReference<>();
+		self.set(Flux.defer(stream).doOnNext(chunks::add).doOnComplete(() -> {
+			if (streamedResponses != null) {
+				streamedResponses.put(key, List.copyOf(chunks));
+			}
+		}).doFinally(signal -> streams.remove(key, self.get())).replay().refCount());
+		return self.get();
+	}
+
+	/**
+	 * Gets the number of requests that joined a call already in flight.
+	 * @return the joined request count
+	 */
+	public long joinedCalls() {
+		return joined.get();
+	}
+
+	/**
+	 * Gets the number of model calls actually started.
+	 * @return the started call count
+	 */
+	public long startedCalls() {
+		return started.get();
+	}
+
+	public NodeCacheStats resultStats() {
+		if (responses == null) {
+			return new NodeCacheStats(0, 0, 0);
+		}
+		NodeCacheStats calls = responses.stats();
+		NodeCacheStats streams = streamedResponses.stats();
+		return new NodeCacheStats(calls.hits() + streams.hits(), calls.misses() + streams.misses(),
+				calls.size() + streams.size());
+	}
+
+	private void record(boolean join) {
+		(join ? joined : started).incrementAndGet();
+		Counter counter = join ? joinedCounter : startedCounter;
+		if (counter != null) {
+			counter.increment();
+		}
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Key of a model request. The chat client stands for the model and its default
+	 * options; it, the advisors and the tools are compared by identity, while prompts and
+	 * messages are compared by value.
+	 */
+	public record RequestKey(ChatClient chatClient, String systemPrompt, String userPrompt, List<Message> messages,
+			List<Advisor> advisors, List<String> toolNames) {
+
+		public RequestKey {
+			messages = messages == null ? List.of() : List.copyOf(messages);
+			advisors = advisors == null ? List.of() : List.copyOf(advisors);
+			toolNames = toolNames == null ? List.of() : List.copyOf(toolNames);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof RequestKey other)) {
+				return false;
+			}
+			return chatClient == other.chatClient && Objects.equals(systemPrompt, other.systemPrompt)
+					&& Objects.equals(userPrompt, other.userPrompt) && messages.equals(other.messages)
+					&& sameInstances(advisors, other.advisors) && toolNames.equals(other.toolNames);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(System.identityHashCode(chatClient), systemPrompt, userPrompt, messages, toolNames);
+		}
+
+		private static boolean sameInstances(List<?> left, List<?> right) {
+			if (left.size() != right.size()) {
+				return false;
+			}
+			for (int i = 0; i < left.size(); i++) {
+				if (left.get(i) != right.get(i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+	}
+
+	public static class Builder {
+
+		private String name = "llm";
+
+		private Duration resultTtl = Duration.ZERO;
+
+		private int maxResults = 256;
+
+		private MeterRegistry meterRegistry;
+
+		/**
+		 * Sets the name reported as the node name tag of the metrics.
+		 */
+		public Builder name(String name) {
+			this.name = name;
+			return this;
+		}
+
+		/**
+		 * Sets how long completed responses are reused. Zero, the default, only shares
+		 * calls that are in flight at the same time.
+		 */
+		public Builder resultTtl(Duration resultTtl) {
+			this.resultTtl = resultTtl;
+			return this;
+		}
+
+		public Builder maxResults(int maxResults) {
+			this.maxResults = maxResults;
+			return this;
+		}
+
+		public Builder meterRegistry(MeterRegistry meterRegistry) {
+			this.meterRegistry = meterRegistry;
+			return this;
+		}
+
+		public LlmSingleFlight build() {
+			Assert.hasText(name, "name must not be empty");
+			Assert.isTrue(resultTtl != null && !resultTtl.isNegative(), "resultTtl must not be negative");
+			Assert.isTrue(maxResults > 0, "maxResults must be positive");
+			return new LlmSingleFlight(this);
+		}
+
+	}
+
+}
@@ -17,6 +17,8 @@ package com.alibaba.cloud.ai.graph.observation;
 
 import com.alibaba.cloud.ai.graph.GraphLifecycleListener;
 import com.alibaba.cloud.ai.graph.RunnableConfig;
+import com.alibaba.cloud.ai.graph.observation.export.GraphSpan;
+import com.alibaba.cloud.ai.graph.observation.export.GraphSpanExporter;
 import com.alibaba.cloud.ai.graph.observation.graph.DefaultGraphObservationConvention;
 import com.alibaba.cloud.ai.graph.observation.graph.GraphObservationContext;
 import com.alibaba.cloud.ai.graph.observation.node.DefaultGraphNodeObservationConvention;
@@ -27,6 +29,7 @@ import io.micrometer.observation.ObservationRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -34,8 +37,13 @@ import java.util.concurrent.ConcurrentHashMap;
  * Lifecycle listener for graph observation operations. Implements GraphLifecycleListener
  * to create observations for different graph lifecycle events. Records complete node
  * execution information including input and output states.
+ * <p>
+ * Node observations are only created for nodes head-sampled by the configured
+ * {@link GraphObservationSampler}. Input and output states are only serialized for
+ * sampled nodes, which are additionally handed to an optional {@link GraphSpanExporter};
+ * a node kept by tail sampling is exported without an observation of its own.
  */
-public class GraphObservationLifecycleListener implements GraphLifecycleListener {
+public class GraphObservationLifecycleListener implements GraphLifecycleListener, AutoCloseable {
 
 	private static final Logger log = LoggerFactory.getLogger(GraphObservationLifecycleListener.class);
 
@@ -45,13 +53,15 @@ public class GraphObservationLifecycleListener implements GraphLifecycleListener
 
 	private final ObservationRegistry observationRegistry;
 
+	private final GraphObservationSampler sampler;
+
+	private final GraphSpanExporter spanExporter;
+
 	private volatile Observation graphObservation;
 
 	private volatile Observation.Scope graphScope;
 
-	private final Map<String, Observation> nodeObservations = new ConcurrentHashMap<>();
-
-	private final Map<String, Observation.Scope> nodeScopes = new ConcurrentHashMap<>();
+	private final Map<String, NodeObservation> nodeObservations = new ConcurrentHashMap<>();
 
 	/**
 	 * Constructs a new GraphObservationLifecycleListener with the specified observation
@@ -59,7 +69,21 @@ public class GraphObservationLifecycleListener implements GraphLifecycleListener
 	 * @param observationRegistry the registry for managing observations
 	 */
 	public GraphObservationLifecycleListener(ObservationRegistry observationRegistry) {
+		this(observationRegistry, GraphObservationSampler.alwaysOn(), null);
+	}
+
+	/**
+	 * Constructs a new GraphObservationLifecycleListener with the specified observation
+	 * registry, sampling policy and span exporter.
+	 * @param observationRegistry the registry for managing observations
+	 * @param sampler the policy deciding which nodes get their state recorded
+	 * @param spanExporter the exporter receiving sampled node spans, may be null
+	 */
+	public GraphObservationLifecycleListener(ObservationRegistry observationRegistry, GraphObservationSampler sampler,
+			GraphSpanExporter spanExporter) {
 		this.observationRegistry = observationRegistry;
+		this.sampler = sampler != null ? sampler : GraphObservationSampler.alwaysOn();
+		this.spanExporter = spanExporter;
 	}
 
 	/**
@@ -85,8 +109,10 @@ public class GraphObservationLifecycleListener implements GraphLifecycleListener
 	}
 
 	/**
-	 * Handles the before execution phase of a graph node. Creates node observation and
-	 * records input state.
+	 * Handles the before execution phase of a graph node. Consults the sampler first and
+	 * only creates and starts a node observation for head-sampled nodes; the others get
+	 * {@link Observation#NOOP}. A reference to the input state is kept either way, since
+	 * a node that was not head-sampled may still be tail-sampled and exported.
 	 * @param nodeId the identifier of the node
 	 * @param state the current state of the graph execution
 	 * @param config the runnable configuration for the node
@@ -96,26 +122,24 @@ public class GraphObservationLifecycleListener implements GraphLifecycleListener
 	public void before(String nodeId, Map<String, Object> state, RunnableConfig config, Long curTime) {
 		log.debug("Starting observation for node: {}", nodeId);
 
-		// Create minimal context for the observation
-		GraphNodeObservationContext context = new GraphNodeObservationContext(nodeId, "execution");
-
-		Observation nodeObservation = Observation.createNotStarted(DEFAULT_GRAPH_NODE_OBSERVATION_CONVENTION,
-				() -> context, observationRegistry);
-
-		if (graphObservation != null) {
-			nodeObservation.parentObservation(graphObservation);
-		}
+		boolean headSampled = sampler.sampleHead();
+		Observation nodeObservation = Observation.NOOP;
+		if (headSampled) {
+			// Create minimal context for the observation
+			GraphNodeObservationContext context = new GraphNodeObservationContext(nodeId, "execution");
 
-		// Add input state using Documentation constant
-		nodeObservation.highCardinalityKeyValue(
-				GraphNodeObservationDocumentation.HighCardinalityKeyNames.GEN_AI_PROMPT.asString(),
-				state != null ? state.toString() : "");
+			nodeObservation = Observation.createNotStarted(DEFAULT_GRAPH_NODE_OBSERVATION_CONVENTION, () -> context,
+					observationRegistry);
 
-		nodeObservation.start();
-		nodeObservations.put(nodeId, nodeObservation);
+			if (graphObservation != null) {
+				nodeObservation.parentObservation(graphObservation);
+			}
 
+			nodeObservation.start();
+		}
 		Observation.Scope scope = nodeObservation.openScope();
-		nodeScopes.put(nodeId, scope);
+		nodeObservations.put(nodeId, new NodeObservation(nodeObservation, scope, state, headSampled,
+				System.currentTimeMillis(), System.nanoTime()));
 	}
 
 	/**
@@ -130,20 +154,12 @@ public class GraphObservationLifecycleListener implements GraphLifecycleListener
 	public void after(String nodeId, Map<String, Object> state, RunnableConfig config, Long curTime) {
 		log.debug("Stopping observation for node: {}", nodeId);
 
-		Observation.Scope scope = nodeScopes.remove(nodeId);
-		if (scope != null) {
-			scope.close();
-		}
-
-		Observation nodeObservation = nodeObservations.remove(nodeId);
+		NodeObservation nodeObservation = nodeObservations.remove(nodeId);
 
 		if (nodeObservation != null) {
-			// Add output state using Documentation constant
-			nodeObservation.highCardinalityKeyValue(
-					GraphNodeObservationDocumentation.HighCardinalityKeyNames.GEN_AI_COMPLETION.asString(),
-					state != null ? state.toString() : "");
-
-			nodeObservation.stop();
+			nodeObservation.scope().close();
+			recordIfSampled(nodeId, nodeObservation, state, null);
+			nodeObservation.observation().stop();
 		}
 		else {
 			log.warn("No observation found for node: {}", nodeId);
@@ -162,20 +178,12 @@ public class GraphObservationLifecycleListener implements GraphLifecycleListener
 	public void onError(String nodeId, Map<String, Object> state, Throwable ex, RunnableConfig config) {
 		log.error("Error occurred in node: {}", nodeId, ex);
 
-		Observation.Scope scope = nodeScopes.remove(nodeId);
-		if (scope != null) {
-			scope.close();
-		}
-
-		Observation nodeObservation = nodeObservations.remove(nodeId);
+		NodeObservation nodeObservation = nodeObservations.remove(nodeId);
 
 		if (nodeObservation != null) {
-			// Add error state using Documentation constant
-			nodeObservation.highCardinalityKeyValue(
-					GraphNodeObservationDocumentation.HighCardinalityKeyNames.GEN_AI_COMPLETION.asString(),
-					state != null ? state.toString() : "");
-
-			nodeObservation.error(ex).stop();
+			nodeObservation.scope().close();
+			recordIfSampled(nodeId, nodeObservation, state, ex);
+			nodeObservation.observation().error(ex).stop();
 		}
 
 		if (graphObservation != null) {
@@ -193,19 +201,15 @@ public class GraphObservationLifecycleListener implements GraphLifecycleListener
 	public void onComplete(String nodeId, Map<String, Object> state, RunnableConfig config) {
 		log.debug("Graph execution completed");
 
-		nodeScopes.values().forEach(scope -> {
+		nodeObservations.values().forEach(nodeObservation -> {
 			try {
-				scope.close();
+				nodeObservation.scope().close();
 			}
 			catch (Exception e) {
 				log.debug("Error closing node scope: {}", e.getMessage());
 			}
-		});
-		nodeScopes.clear();
-
-		nodeObservations.values().forEach(observation -> {
 			try {
-				observation.stop();
+				nodeObservation.observation().stop();
 			}
 			catch (Exception e) {
 				log.debug("Error stopping node observation: {}", e.getMessage());
@@ -234,4 +238,60 @@ public class GraphObservationLifecycleListener implements GraphLifecycleListener
 		}
 	}
 
+	/**
+	 * Closes the span exporter if it holds resources, flushing buffered spans.
+	 */
+	@Override
+	public void close() throws Exception {
+		if (spanExporter instanceof AutoCloseable closeable) {
+			closeable.close();
+		}
+	}
+
+	/**
+	 * Applies the sampling policy to a finished node. Sampled nodes get their input and
+	 * output state attached as high-cardinality attributes, which is a no-op for
+	 * tail-sampled nodes, and are handed to the span exporter; for the others the state
+	 * is never serialized.
+	 * @param nodeId the identifier of the node
+	 * @param nodeObservation the in-flight observation of the node
+	 * @param outputState the state after the node executed
+	 * @param error the error raised by the node, or null on success
+	 */
+	private void recordIfSampled(String nodeId, NodeObservation nodeObservation, Map<String, Object> outputState,
+			Throwable error) {
+		long durationNanos = System.nanoTime() - nodeObservation.startNanos();
+		if (!nodeObservation.headSampled() && !sampler.sampleTail(durationNanos, error)) {
+			return;
+		}
+
+		String prompt = nodeObservation.inputState() != null ? nodeObservation.inputState().toString() : "";
+		String completion = outputState != null ? outputState.toString() : "";
+		String promptKey = GraphNodeObservationDocumentation.HighCardinalityKeyNames.GEN_AI_PROMPT.asString();
+		String completionKey = GraphNodeObservationDocumentation.HighCardinalityKeyNames.GEN_AI_COMPLETION.asString();
+
+		Observation observation = nodeObservation.observation();
+		observation.highCardinalityKeyValue(promptKey, prompt);
+		observation.highCardinalityKeyValue(completionKey, completion);
+
+		if (spanExporter != null) {
+			try {
+				spanExporter.export(List.of(new GraphSpan(DEFAULT_GRAPH_NODE_OBSERVATION_CONVENTION.getName(), nodeId,
+						nodeObservation.startTimeMillis(), durationNanos,
+						Map.of(promptKey, prompt, completionKey, completion), error)));
+			}
+			catch (Exception e) {
+				log.debug("Error exporting span for node {}: {}", nodeId, e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * In-flight observation of a node together with what is needed to decide, once the
+	 * node finishes, whether it is sampled.
+	 */
+	private record NodeObservation(Observation observation, Observation.Scope scope, Map<String, Object> inputState,
+			boolean headSampled, long startTimeMillis, long startNanos) {
+	}
+
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.graph.observation;
+
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sampling policy for graph node observations. A node is head-sampled with a fixed
+ * probability when it starts; nodes that were not head-sampled are still kept when they
+ * fail (if errors are always sampled) or when they run longer than the latency threshold.
+ * Only sampled nodes get their input and output state serialized into high-cardinality
+ * attributes and exported.
+ */
+public class GraphObservationSampler {
+
+	private static final GraphObservationSampler ALWAYS_ON = new GraphObservationSampler(1.0, true, null);
+
+	private final double sampleRate;
+
+	private final boolean alwaysSampleErrors;
+
+	private final long latencyThresholdNanos;
+
+	/**
+	 * Constructs a new GraphObservationSampler.
+	 * @param sampleRate the head sampling probability, between 0 and 1
+	 * @param alwaysSampleErrors whether failed nodes are always sampled
+	 * @param latencyThreshold nodes running at least this long are always sampled, or
+	 * {@code null} to disable latency based tail sampling
+	 */
+	public GraphObservationSampler(double sampleRate, boolean alwaysSampleErrors, Duration latencyThreshold) {
+		Assert.isTrue(sampleRate >= 0.0 && sampleRate <= 1.0, "sampleRate must be between 0 and 1");
+		this.sampleRate = sampleRate;
+		this.alwaysSampleErrors = alwaysSampleErrors;
+		this.latencyThresholdNanos = latencyThreshold != null ? latencyThreshold.toNanos() : Long.MAX_VALUE;
+	}
+
+	/**
+	 * Returns a sampler that keeps every node observation, matching the behavior of an
+	 * unsampled listener.
+	 * @return the always-on sampler
+	 */
+	public static GraphObservationSampler alwaysOn() {
+		return ALWAYS_ON;
+	}
+
+	/**
+	 * Decides whether a node is sampled when it starts.
+	 * @return true if the node is head-sampled
+	 */
+	public boolean sampleHead() {
+		return sampleRate >= 1.0 || (sampleRate > 0.0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+	}
+
+	/**
+	 * Decides whether a node that was not head-sampled is kept once it has finished.
+	 * @param durationNanos the node execution time
+	 * @param error the error raised by the node, or {@code null} on success
+	 * @return true if the node is tail-sampled
+	 */
+	public boolean sampleTail(long durationNanos, Throwable error) {
+		return (error != null && alwaysSampleErrors) || durationNanos >= latencyThresholdNanos;
+	}
+
+	public double getSampleRate() {
+		return sampleRate;
+	}
+
+	public boolean isAlwaysSampleErrors() {
+		return alwaysSampleErrors;
+	}
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.graph.observation.export;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exporter that queues spans in a bounded buffer and hands them to a delegate exporter in
+ * batches from a single background thread, keeping export I/O off the graph execution
+ * thread. Spans offered while the buffer is full are dropped and counted.
+ */
+public class BatchingGraphSpanExporter implements GraphSpanExporter, AutoCloseable {
+
+	private static final Logger log = LoggerFactory.getLogger(BatchingGraphSpanExporter.class);
+
+	private final GraphSpanExporter delegate;
+
+	private final BlockingQueue<GraphSpan> queue;
+
+	private final int batchSize;
+
+	private final long flushIntervalNanos;
+
+	private final AtomicLong droppedSpans = new AtomicLong();
+
+	private final Thread worker;
+
+	private volatile boolean running = true;
+
+	/**
+	 * Constructs a new BatchingGraphSpanExporter and starts its export thread.
+	 * @param delegate the exporter receiving the batches
+	 * @param queueCapacity the maximum number of buffered spans
+	 * @param batchSize the maximum number of spans per exported batch
+	 * @param flushInterval the maximum time a span waits before its batch is exported
+	 */
+	public BatchingGraphSpanExporter(GraphSpanExporter delegate, int queueCapacity, int batchSize,
+			Duration flushInterval) {
+		Assert.notNull(delegate, "delegate must not be null");
+		Assert.isTrue(queueCapacity > 0, "queueCapacity must be positive");
+		Assert.isTrue(batchSize > 0, "batchSize must be positive");
+		Assert.isTrue(flushInterval != null && !flushInterval.isNegative() && !flushInterval.isZero(),
+				"flushInterval must be positive");
+		this.delegate = delegate;
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		this.batchSize = batchSize;
+		this.flushIntervalNanos = flushInterval.toNanos();
+		this.worker = new Thread(this::run, "graph-span-exporter");
+		this.worker.setDaemon(true);
+		this.worker.start();
+	}
+
+	@Override
+	public void export(List<GraphSpan> spans) {
+		for (GraphSpan span : spans) {
+			if (!running || !queue.offer(span)) {
+				droppedSpans.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of spans dropped because the buffer was full or the exporter was
+	 * closed.
+	 * @return the dropped span count
+	 */
+	public long getDroppedSpans() {
+		return droppedSpans.get();
+	}
+
+	/**
+	 * Stops the export thread after exporting every buffered span.
+	 */
+	@Override
+	public void close() {
+		running = false;
+		worker.interrupt();
+		try {
+			worker.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) + 1000);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void run() {
+		List<GraphSpan> batch = new ArrayList<>(batchSize);
+		while (running) {
+			try {
+				long deadline = System.nanoTime() + flushIntervalNanos;
+				while (batch.size() < batchSize) {
+					GraphSpan span = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+					if (span == null) {
+						break;
+					}
+					batch.add(span);
+				}
+			}
+			catch (InterruptedException e) {
+				// woken up by close(), remaining spans are drained below
+			}
+			flush(batch);
+		}
+		queue.drainTo(batch);
+		while (!batch.isEmpty()) {
+			List<GraphSpan> chunk = new ArrayList<>(batch.subList(0, Math.min(batchSize, batch.size())));
+			batch.subList(0, chunk.size()).clear();
+			flush(chunk);
+		}
+	}
+
+	private void flush(List<GraphSpan> batch) {
+		if (batch.isEmpty()) {
+			return;
+		}
+		try {
+			delegate.export(List.copyOf(batch));
+		}
+		catch (Exception e) {
+			log.debug("Error exporting {} graph spans: {}", batch.size(), e.getMessage());
+		}
+		batch.clear();
+	}
+
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.graph.observation.export;
+
+import java.util.Map;
+
+/**
+ * Immutable record of a sampled graph node execution handed to a
+ * {@link GraphSpanExporter}.
+ *
+ * @param name the observation name
+ * @param nodeId the identifier of the executed node
+ * @param startTimeMillis the wall clock time the node started at
+ * @param durationNanos the node execution time
+ * @param attributes the high-cardinality attributes captured for the node
+ * @param error the error raised by the node, or {@code null} on success
+ */
+public record GraphSpan(String name, String nodeId, long startTimeMillis, long durationNanos,
+		Map<String, String> attributes, Throwable error) {
+
+}
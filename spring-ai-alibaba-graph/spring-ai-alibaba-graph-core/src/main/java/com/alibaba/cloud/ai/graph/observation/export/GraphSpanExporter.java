@@ -0,0 +1,33 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.graph.observation.export;
+
+import java.util.List;
+
+/**
+ * Receives sampled graph node spans. Implementations are called from the graph execution
+ * thread unless wrapped in a {@link BatchingGraphSpanExporter}, so they should not block.
+ */
+@FunctionalInterface
+public interface GraphSpanExporter {
+
+	/**
+	 * Exports a batch of sampled spans.
+	 * @param spans the spans to export
+	 */
+	void export(List<GraphSpan> spans);
+
+}
@@ -53,7 +53,17 @@ public enum SpringAiAlibabaObservationMetricAttributes {
 	/**
 	 * Attribute indicating the success status of a graph edge operation.
 	 */
-	GRAPH_EDGE_SUCCESS("spring.ai.alibaba.graph.edge.success");
+	GRAPH_EDGE_SUCCESS("spring.ai.alibaba.graph.edge.success"),
+
+	/**
+	 * Attribute for the level of a graph node cache lookup.
+	 */
+	GRAPH_NODE_CACHE_LEVEL("spring.ai.alibaba.graph.node.cache.level"),
+
+	/**
+	 * Attribute indicating whether a graph node cache lookup was a hit.
+	 */
+	GRAPH_NODE_CACHE_HIT("spring.ai.alibaba.graph.node.cache.hit");
 
 	private final String value;
 
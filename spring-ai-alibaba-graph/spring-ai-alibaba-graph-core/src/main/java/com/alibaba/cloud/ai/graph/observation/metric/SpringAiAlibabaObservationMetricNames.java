@@ -38,7 +38,12 @@ public enum SpringAiAlibabaObservationMetricNames {
 	/**
 	 * Metric name for graph edge operations.
 	 */
-	GRAPH_EDGE("spring.ai.alibaba.graph.edge");
+	GRAPH_EDGE("spring.ai.alibaba.graph.edge"),
+
+	/**
+	 * Metric name for cache lookups performed by graph nodes.
+	 */
+	GRAPH_NODE_CACHE("spring.ai.alibaba.graph.node.cache");
 
 	private final String value;
 
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.graph.profile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the phases of a graph run with nanosecond timestamps and exports them in the
+ * Chrome trace-event format, which can be opened in {@code chrome://tracing} or Perfetto.
+ * A profiler is enabled for a single run by passing it through
+ * {@link com.alibaba.cloud.ai.graph.RunnableConfig.Builder#profiler(GraphProfiler)}.
+ * <p>
+ * Events are written into a ring buffer allocated up front, so recording never allocates;
+ * once the buffer is full the oldest events are overwritten. Recording is safe from
+ * concurrent branches, but an event read while it is being overwritten may be
+ * inconsistent, so export after the run has completed.
+ */
+public final class GraphProfiler {
+
+	/**
+	 * Default number of events kept by a profiler.
+	 */
+	public static final int DEFAULT_CAPACITY = 4096;
+
+	/**
+	 * Phases of a graph run recorded by the profiler.
+	 */
+	public enum Phase {
+
+		/**
+		 * Time a step or a parallel branch waited before it started executing.
+		 */
+		QUEUE_WAIT("queue"),
+
+		/**
+		 * Execution of a node action.
+		 */
+		NODE_ACTION("node"),
+
+		/**
+		 * Merge of a node's partial state into the overall state.
+		 */
+		STATE_MERGE("merge"),
+
+		/**
+		 * Evaluation of the edge leaving a node.
+		 */
+		EDGE("edge"),
+
+		/**
+		 * Serialization of the state captured by a checkpoint.
+		 */
+		CHECKPOINT_SERIALIZE("checkpoint"),
+
+		/**
+		 * Checkpoint saver I/O.
+		 */
+		SAVER_IO("saver"),
+
+		/**
+		 * Graph lifecycle listeners.
+		 */
+		LISTENER("listener");
+
+		private final String category;
+
+		Phase(String category) {
+			this.category = category;
+		}
+
+		public String category() {
+			return category;
+		}
+
+	}
+
+	/**
+	 * A recorded phase. Timestamps are relative to the creation of the profiler.
+	 */
+	public record Event(Phase phase, String name, long startNanos, long durationNanos, long threadId) {
+	}
+
+	private static final Phase[] PHASES = Phase.values();
+
+	private final int capacity;
+
+	private final long originNanos = System.nanoTime();
+
+	private final AtomicLong sequence = new AtomicLong();
+
+	private final byte[] phases;
+
+	private final String[] names;
+
+	private final long[] starts;
+
+	private final long[] durations;
+
+	private final long[] threadIds;
+
+	public GraphProfiler() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructs a new GraphProfiler.
+	 * @param capacity the maximum number of events kept
+	 */
+	public GraphProfiler(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("capacity must be positive");
+		}
+		this.capacity = capacity;
+		this.phases = new byte[capacity];
+		this.names = new String[capacity];
+		this.starts = new long[capacity];
+		this.durations = new long[capacity];
+		this.threadIds = new long[capacity];
+	}
+
+	/**
+	 * Returns the current timestamp to be passed later to
+	 * {@link #record(Phase, String, long)}.
+	 * @return the current value of {@link System#nanoTime()}
+	 */
+	public long start() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Records a phase that started at the given timestamp and ends now, on the calling
+	 * thread.
+	 * @param phase the recorded phase
+	 * @param name the node or step the phase belongs to
+	 * @param startNanos the value returned by {@link #start()} when the phase began
+	 */
+	public void record(Phase phase, String name, long startNanos) {
+		record(phase, name, startNanos, System.nanoTime());
+	}
+
+	/**
+	 * Records a phase on the calling thread.
+	 * @param phase the recorded phase
+	 * @param name the node or step the phase belongs to
+	 * @param startNanos the {@link System#nanoTime()} the phase began at
+	 * @param endNanos the {@link System#nanoTime()} the phase ended at
+	 */
+	public void record(Phase phase, String name, long startNanos, long endNanos) {
+		int index = (int) (sequence.getAndIncrement() % capacity);
+		phases[index] = (byte) phase.ordinal();
+		names[index] = name;
+		starts[index] = startNanos - originNanos;
+		durations[index] = endNanos - startNanos;
+		threadIds[index] = Thread.currentThread().getId();
+	}
+
+	/**
+	 * Gets the number of events recorded, including overwritten ones.
+	 * @return the total number of recorded events
+	 */
+	public long recordedEvents() {
+		return sequence.get();
+	}
+
+	/**
+	 * Returns the events still held by the ring buffer ordered by start time.
+	 * @return the retained events
+	 */
+	public List<Event> events() {
+		long recorded = sequence.get();
+		int size = (int) Math.min(recorded, capacity);
+		List<Event> events = new ArrayList<>(size);
+		for (long seq = recorded - size; seq < recorded; seq++) {
+			int index = (int) (seq % capacity);
+			events
+				.add(new Event(PHASES[phases[index]], names[index], starts[index], durations[index], threadIds[index]));
+		}
+		events.sort(Comparator.comparingLong(Event::startNanos));
+		return events;
+	}
+
+	/**
+	 * Clears every recorded event so the profiler can be reused for another run.
+	 */
+	public void reset() {
+		sequence.set(0);
+	}
+
+	/**
+	 * Exports the retained events as a Chrome trace-event JSON document.
+	 * @return the trace document
+	 */
+	public String toChromeTrace() {
+		StringBuilder out = new StringBuilder();
+		writeChromeTrace(out);
+		return out.toString();
+	}
+
+	/**
+	 * Writes the retained events as a Chrome trace-event JSON document. Every event is a
+	 * complete ({@code "ph":"X"}) event with microsecond timestamps.
+	 * @param out the destination of the document
+	 */
+	public void writeChromeTrace(Appendable out) {
+		try {
+			out.append("{\"displayTimeUnit\":\"ns\",\"traceEvents\":[");
+			boolean first = true;
+			for (Event event : events()) {
+				if (!first) {
+					out.append(',');
+				}
+				first = false;
+				out.append("{\"name\":");
+				appendString(out, event.name());
+				out.append(",\"cat\":\"").append(event.phase().category()).append('"');
+				out.append(",\"ph\":\"X\",\"pid\":1,\"tid\":").append(Long.toString(event.threadId()));
+				out.append(",\"ts\":").append(micros(event.startNanos()));
+				out.append(",\"dur\":").append(micros(event.durationNanos()));
+				out.append('}');
+			}
+			out.append("]}");
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static String micros(long nanos) {
+		return String.format("%d.%03d", nanos / 1000, Math.abs(nanos % 1000));
+	}
+
+	private static void appendString(Appendable out, String value) throws IOException {
+		if (value == null) {
+			out.append("null");
+			return;
+		}
+		out.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '"' -> out.append("\\\"");
+				case '\\' -> out.append("\\\\");
+				case '\n' -> out.append("\\n");
+				case '\r' -> out.append("\\r");
+				case '\t' -> out.append("\\t");
+				default -> {
+					if (c < 0x20) {
+						out.append(String.format("\\u%04x", (int) c));
+					}
+					else {
+						out.append(c);
+					}
+				}
+			}
+		}
+		out.append('"');
+	}
+
+}
@@ -18,44 +18,61 @@ package com.alibaba.cloud.ai.graph.streaming;
 import com.alibaba.cloud.ai.graph.KeyStrategy;
 import com.alibaba.cloud.ai.graph.OverAllState;
 import com.alibaba.cloud.ai.graph.async.AsyncGenerator;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.alibaba.cloud.ai.graph.async.MergedAsyncGenerator;
 
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.StampedLock;
-import java.util.stream.Collectors;
-import java.util.HashMap;
 
 /**
  * Utility class for handling asynchronous generator merging and output processing
  */
 public class AsyncGeneratorUtils {
 
-	private static final Logger log = LoggerFactory.getLogger(AsyncGeneratorUtils.class);
+	/**
+	 * Maximum number of outputs buffered per parallel branch before the branch is paused.
+	 */
+	public static final int DEFAULT_BRANCH_BUFFER_SIZE = 16;
+
+	private static final AtomicInteger BRANCH_THREAD_COUNTER = new AtomicInteger();
+
+	/**
+	 * Runs the pumps draining parallel branches. Pumps spend most of their time waiting
+	 * on their branch or on the consumer, so threads are created on demand and reclaimed
+	 * when idle.
+	 */
+	private static final ExecutorService BRANCH_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "graph-parallel-branch-" + BRANCH_THREAD_COUNTER.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	});
 
 	/**
 	 * Creates an appropriate generator based on the number of generator entries
 	 * @param generatorEntries list of generator entries
+	 * @param asyncNodeGenerators generators found inside collection values
 	 * @param <T> output type
 	 * @return single generator or merged generator
 	 */
 	@SuppressWarnings("unchecked")
 	public static <T> AsyncGenerator<T> createAppropriateGenerator(List<Map.Entry<String, Object>> generatorEntries,
 			List<AsyncGenerator<T>> asyncNodeGenerators, Map<String, KeyStrategy> keyStrategyMap) {
-		if (generatorEntries.size() == 1) {
+		Map<String, AsyncGenerator<T>> branches = new LinkedHashMap<>();
+		generatorEntries.forEach(entry -> branches.put(entry.getKey(), (AsyncGenerator<T>) entry.getValue()));
+		for (int i = 0; i < asyncNodeGenerators.size(); i++) {
+			branches.put("branch[" + i + "]", asyncNodeGenerators.get(i));
+		}
+		if (branches.size() == 1) {
 			// Only one generator, return it directly
-			return (AsyncGenerator<T>) generatorEntries.get(0).getValue();
+			return branches.values().iterator().next();
 		}
 
 		// Multiple generators, create a merged generator
-		List<AsyncGenerator<T>> generators = generatorEntries.stream()
-			.map(entry -> (AsyncGenerator<T>) entry.getValue())
-			.collect(Collectors.toList());
-		generators.addAll(asyncNodeGenerators);
-		return createMergedGenerator(generators, keyStrategyMap);
+		return createMergedGenerator(branches, keyStrategyMap);
 	}
 
 	/**
@@ -64,105 +81,42 @@ public class AsyncGeneratorUtils {
 	 * @param <T> output type
 	 * @return merged generator
 	 */
-	public static <T> AsyncGenerator<T> createMergedGenerator(List<AsyncGenerator<T>> generators,
+	public static <T> MergedAsyncGenerator<T> createMergedGenerator(List<AsyncGenerator<T>> generators,
 			Map<String, KeyStrategy> keyStrategyMap) {
-		return new AsyncGenerator<>() {
-			// Switch to StampedLock to simplify lock management
-			private final StampedLock lock = new StampedLock();
-
-			private AtomicInteger pollCounter = new AtomicInteger(0);
-
-			private Map<String, Object> mergedResult = new HashMap<>();
-
-			private final List<AsyncGenerator<T>> activeGenerators = new CopyOnWriteArrayList<>(generators);
-
-			private final Map<AsyncGenerator<T>, Map<String, Object>> generatorResults = new HashMap<>();
-
-			@Override
-			public AsyncGenerator.Data<T> next() {
-				while (true) {
-					// Read optimistically and check quickly
-					long stamp = lock.tryOptimisticRead();
-					boolean empty = activeGenerators.isEmpty();
-					if (!lock.validate(stamp)) {
-						stamp = lock.readLock();
-						try {
-							empty = activeGenerators.isEmpty();
-						}
-						finally {
-							lock.unlockRead(stamp);
-						}
-					}
-					if (empty) {
-						return AsyncGenerator.Data.done(mergedResult);
-					}
-
-					// Fine-grained lock control
-					final int currentIdx;
-					AsyncGenerator<T> current;
-					long writeStamp = lock.writeLock();
-					try {
-						final int size = activeGenerators.size();
-						if (size == 0)
-							return AsyncGenerator.Data.done(mergedResult);
-
-						currentIdx = pollCounter.updateAndGet(i -> (i + 1) % size);
-						current = activeGenerators.get(currentIdx);
-					}
-					finally {
-						lock.unlockWrite(writeStamp);
-					}
-
-					// Execute the generator 'next()' in the unlocked state
-					AsyncGenerator.Data<T> data = current.next();
-
-					writeStamp = lock.writeLock();
-					try {
-						// Double checks prevent status changes
-						if (!activeGenerators.contains(current)) {
-							continue;
-						}
-
-						if (data.isDone() || data.isError()) {
-							handleCompletedGenerator(current, data);
-							if (activeGenerators.isEmpty()) {
-								return AsyncGenerator.Data.done(mergedResult);
-							}
-							continue;
-						}
-
-						handleCompletedGenerator(current, data);
-						return data;
-					}
-					finally {
-						lock.unlockWrite(writeStamp);
-					}
-				}
-
-			}
-
-			/**
-			 * Helper method to handle completed or errored generators
-			 */
-			private void handleCompletedGenerator(AsyncGenerator<T> generator, AsyncGenerator.Data<T> data) {
-				// Remove generator if done or error
-				if (data.isDone() || data.isError()) {
-					activeGenerators.remove(generator);
-				}
+		Map<String, AsyncGenerator<T>> branches = new LinkedHashMap<>();
+		for (int i = 0; i < generators.size(); i++) {
+			branches.put("branch[" + i + "]", generators.get(i));
+		}
+		return createMergedGenerator(branches, keyStrategyMap);
+	}
 
-				// Process result if exists
-				data.resultValue().ifPresent(result -> {
-					if (result instanceof Map) {
-						@SuppressWarnings("unchecked")
-						Map<String, Object> mapResult = (Map<String, Object>) result;
-						mergedResult = OverAllState.updateState(mergedResult, mapResult, keyStrategyMap);
-					}
-				});
+	/**
+	 * Creates a merged generator that combines outputs from named generators. Outputs are
+	 * emitted in round-robin order over the branches that have output ready, each branch
+	 * buffering at most {@link #DEFAULT_BRANCH_BUFFER_SIZE} outputs. Map results of the
+	 * branches are merged with the given key strategies.
+	 * @param generators generators to merge keyed by branch name
+	 * @param <T> output type
+	 * @return merged generator
+	 */
+	public static <T> MergedAsyncGenerator<T> createMergedGenerator(Map<String, AsyncGenerator<T>> generators,
+			Map<String, KeyStrategy> keyStrategyMap) {
+		MergedAsyncGenerator.Builder<T> builder = MergedAsyncGenerator.<T>builder()
+			.bufferSize(DEFAULT_BRANCH_BUFFER_SIZE)
+			.scheduling(MergedAsyncGenerator.Scheduling.ROUND_ROBIN)
+			.executor(BRANCH_EXECUTOR)
+			.initialResult(new HashMap<String, Object>())
+			.resultMerger((merged, result) -> mergeResult(merged, result, keyStrategyMap));
+		generators.forEach(builder::branch);
+		return builder.build();
+	}
 
-				// Remove from generator results if present
-				generatorResults.remove(generator);
-			}
-		};
+	@SuppressWarnings("unchecked")
+	private static Object mergeResult(Object merged, Object result, Map<String, KeyStrategy> keyStrategyMap) {
+		if (result instanceof Map) {
+			return OverAllState.updateState((Map<String, Object>) merged, (Map<String, Object>) result, keyStrategyMap);
+		}
+		return merged;
 	}
 
 }
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.graph.async;
+
+import com.alibaba.cloud.ai.graph.KeyStrategy;
+import com.alibaba.cloud.ai.graph.async.internal.reactive.GeneratorSubscriber;
+import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
+import com.alibaba.cloud.ai.graph.streaming.AsyncGeneratorUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MergedAsyncGeneratorTest {
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void roundRobinAlternatesBetweenReadyBranches() throws Exception {
+		int bufferSize = 4;
+		MergedAsyncGenerator<String> merged = MergedAsyncGenerator.<String>builder()
+			.branch("a", counting("a", 100, new AtomicInteger()))
+			.branch("b", counting("b", 100, new AtomicInteger()))
+			.bufferSize(bufferSize)
+			.executor(executor)
+			.build();
+		AsyncGenerator<MergedAsyncGenerator.BranchOutput<String>> outputs = merged.withBranches();
+
+		outputs.next().data.get();
+		awaitCondition(() -> merged.bufferedOutputs() == 2 * bufferSize);
+
+		String previous = null;
+		for (int i = 0; i < 2 * bufferSize; i++) {
+			String branch = outputs.next().data.get().branch();
+			if (previous != null) {
+				assertTrue(!branch.equals(previous), "branches should alternate");
+			}
+			previous = branch;
+		}
+		merged.close();
+	}
+
+	@Test
+	void slowBranchDoesNotBlockFastBranch() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		AsyncGenerator<String> slow = new AsyncGenerator<>() {
+			private boolean emitted;
+
+			@Override
+			public Data<String> next() {
+				if (emitted) {
+					return Data.done();
+				}
+				try {
+					release.await();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return Data.error(e);
+				}
+				emitted = true;
+				return Data.of(completedFuture("slow"));
+			}
+		};
+		MergedAsyncGenerator<String> merged = MergedAsyncGenerator.<String>builder()
+			.branch("slow", slow)
+			.branch("fast", counting("fast", 5, new AtomicInteger()))
+			.executor(executor)
+			.build();
+
+		List<String> fast = CompletableFuture.supplyAsync(() -> {
+			List<String> items = new ArrayList<>();
+			for (int i = 0; i < 5; i++) {
+				items.add(merged.next().data.join());
+			}
+			return items;
+		}, executor).get(5, TimeUnit.SECONDS);
+		assertEquals(List.of("fast-0", "fast-1", "fast-2", "fast-3", "fast-4"), fast);
+
+		release.countDown();
+		assertEquals("slow", merged.next().data.get());
+		assertTrue(merged.next().isDone());
+	}
+
+	@Test
+	void unconsumedBranchIsBoundedByBuffer() throws Exception {
+		int bufferSize = 4;
+		AtomicInteger pulls = new AtomicInteger();
+		MergedAsyncGenerator<String> merged = MergedAsyncGenerator.<String>builder()
+			.branch("endless", counting("endless", Integer.MAX_VALUE, pulls))
+			.bufferSize(bufferSize)
+			.executor(executor)
+			.build();
+
+		merged.next().data.get();
+		awaitCondition(() -> merged.bufferedOutputs() == bufferSize);
+		Thread.sleep(100);
+
+		// one consumed, a full buffer, and at most one output waiting for space
+		assertTrue(pulls.get() <= bufferSize + 2, "pulled " + pulls.get() + " outputs");
+		assertEquals(bufferSize, merged.bufferedOutputs());
+		merged.close();
+		assertTrue(merged.next().isDone());
+	}
+
+	@Test
+	void publisherBranchIsRequestedOnlyAsItIsDrained() throws Exception {
+		int bufferSize = 4;
+		int demandSize = 8;
+		AtomicInteger emitted = new AtomicInteger();
+		Flow.Publisher<String> endless = subscriber -> subscriber.onSubscribe(new Flow.Subscription() {
+			@Override
+			public void request(long n) {
+				for (long i = 0; i < n; i++) {
+					subscriber.onNext("item-" + emitted.getAndIncrement());
+				}
+			}
+
+			@Override
+			public void cancel() {
+			}
+		});
+		GeneratorSubscriber<String> branch = new GeneratorSubscriber<>(endless, null, new LinkedBlockingQueue<>(),
+				demandSize);
+		MergedAsyncGenerator<String> merged = MergedAsyncGenerator.<String>builder()
+			.branch("endless", branch)
+			.bufferSize(bufferSize)
+			.executor(executor)
+			.build();
+
+		for (int i = 0; i < 10; i++) {
+			assertEquals("item-" + i, merged.next().data.get());
+		}
+		awaitCondition(() -> merged.bufferedOutputs() == bufferSize);
+		Thread.sleep(100);
+
+		// consumed, buffered, one waiting for space and what was requested ahead of it
+		assertTrue(emitted.get() <= 10 + bufferSize + 1 + demandSize, "emitted " + emitted.get() + " items");
+		merged.close();
+	}
+
+	@Test
+	void failingBranchCancelsOtherBranches() throws Exception {
+		AtomicBoolean closed = new AtomicBoolean();
+		CloseableBranch endless = new CloseableBranch(closed);
+		AsyncGenerator<String> failing = new AsyncGenerator<>() {
+			private boolean emitted;
+
+			@Override
+			public Data<String> next() {
+				if (emitted) {
+					return Data.error(new IllegalStateException("boom"));
+				}
+				emitted = true;
+				return Data.of(completedFuture("ok"));
+			}
+		};
+		MergedAsyncGenerator<String> merged = MergedAsyncGenerator.<String>builder()
+			.branch("endless", endless)
+			.branch("failing", failing)
+			.bufferSize(2)
+			.executor(executor)
+			.build();
+
+		AsyncGenerator.Data<String> data;
+		do {
+			data = merged.next();
+		}
+		while (!data.isError() && !data.isDone());
+
+		assertTrue(data.isError());
+		assertTrue(closed.get());
+		assertTrue(merged.next().isDone());
+	}
+
+	@Test
+	void mergesBranchResultsWithKeyStrategies() throws Exception {
+		Map<String, AsyncGenerator<String>> branches = new LinkedHashMap<>();
+		branches.put("left", withResult("left", Map.of("left", 1)));
+		branches.put("right", withResult("right", Map.of("right", 2)));
+		Map<String, KeyStrategy> keyStrategies = Map.of("left", new ReplaceStrategy(), "right", new ReplaceStrategy());
+
+		AsyncGenerator<MergedAsyncGenerator.BranchOutput<String>> outputs = AsyncGeneratorUtils
+			.createMergedGenerator(branches, keyStrategies)
+			.withBranches();
+
+		List<String> tagged = new ArrayList<>();
+		AsyncGenerator.Data<MergedAsyncGenerator.BranchOutput<String>> data;
+		while (!(data = outputs.next()).isDone()) {
+			MergedAsyncGenerator.BranchOutput<String> output = data.data.get();
+			tagged.add(output.branch() + ":" + output.output());
+		}
+
+		assertTrue(tagged.containsAll(List.of("left:left", "right:right")));
+		assertEquals(Map.of("left", 1, "right", 2), data.resultValue);
+	}
+
+	private static AsyncGenerator<String> counting(String prefix, int size, AtomicInteger pulls) {
+		return () -> {
+			int index = pulls.getAndIncrement();
+			if (index >= size) {
+				return AsyncGenerator.Data.done();
+			}
+			return AsyncGenerator.Data.of(completedFuture(prefix + "-" + index));
+		};
+	}
+
+	private static AsyncGenerator<String> withResult(String output, Map<String, Object> result) {
+		AtomicBoolean emitted = new AtomicBoolean();
+		return () -> emitted.getAndSet(true) ? AsyncGenerator.Data.done(result)
+				: AsyncGenerator.Data.of(completedFuture(output));
+	}
+
+	private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.nanoTime() < deadline, "condition not met in time");
+			Thread.sleep(5);
+		}
+	}
+
+	private static final class CloseableBranch implements AsyncGenerator<String>, AutoCloseable {
+
+		private final AtomicBoolean closed;
+
+		CloseableBranch(AtomicBoolean closed) {
+			this.closed = closed;
+		}
+
+		@Override
+		public Data<String> next() {
+			if (closed.get()) {
+				return Data.done();
+			}
+			return Data.of(completedFuture("tick"));
+		}
+
+		@Override
+		public void close() {
+			closed.set(true);
+		}
+
+	}
+
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.graph.node;
+
+import com.alibaba.cloud.ai.dashscope.rerank.DashScopeRerankOptions;
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.model.RerankModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class KnowledgeRetrievalCacheTest {
+
+	private final AtomicInteger queryEmbeddings = new AtomicInteger();
+
+	private KnowledgeRetrievalCache cache;
+
+	private SimpleMeterRegistry meterRegistry;
+
+	private VectorStore vectorStore;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		cache = KnowledgeRetrievalCache.builder().name("retrieval").maxResults(2).meterRegistry(meterRegistry).build();
+		vectorStore = cache
+			.vectorStore(SimpleVectorStore.builder(cache.embeddingModel(new LetterEmbeddingModel())).build());
+		vectorStore.add(List.of(new Document("apple banana"), new Document("cherry date")));
+	}
+
+	@Test
+	void repeatedQueriesAreServedFromCache() throws Exception {
+		KnowledgeRetrievalNode node = node();
+
+		Map<String, Object> first = node.apply(state("apple"));
+		Map<String, Object> second = node.apply(state("apple"));
+
+		assertEquals(first, second);
+		assertEquals(1, queryEmbeddings.get());
+		assertEquals(1, cache.resultStats().hits());
+		assertEquals(1, cache.resultStats().misses());
+		assertEquals(1.0,
+				meterRegistry.get("spring.ai.alibaba.graph.node.cache")
+					.tag("spring.ai.alibaba.graph.node.cache.level", KnowledgeRetrievalCache.RESULT_LEVEL)
+					.tag("spring.ai.alibaba.graph.node.cache.hit", "true")
+					.counter()
+					.count());
+	}
+
+	@Test
+	void embeddingsOutliveResultInvalidation() throws Exception {
+		KnowledgeRetrievalNode node = node();
+		node.apply(state("apple"));
+
+		vectorStore.add(List.of(new Document("apple pie")));
+		Map<String, Object> result = node.apply(state("apple"));
+
+		assertTrue(result.get("query").toString().contains("apple pie"));
+		assertEquals(2, cache.resultStats().misses());
+		assertEquals(1, queryEmbeddings.get());
+		assertEquals(1, cache.embeddingStats().hits());
+	}
+
+	@Test
+	void resultsAreBoundedAndExpire() throws Exception {
+		KnowledgeRetrievalNode node = node();
+		node.apply(state("apple"));
+		node.apply(state("cherry"));
+		node.apply(state("date"));
+		assertEquals(2, cache.resultStats().size());
+
+		KnowledgeRetrievalCache shortLived = KnowledgeRetrievalCache.builder().ttl(Duration.ofMillis(1)).build();
+		List<Integer> loads = new ArrayList<>();
+		shortLived.embedding("apple", () -> {
+			loads.add(1);
+			return new float[] { 1f };
+		});
+		Thread.sleep(5);
+		shortLived.embedding("apple", () -> {
+			loads.add(1);
+			return new float[] { 1f };
+		});
+		assertEquals(2, loads.size());
+	}
+
+	@Test
+	void loadRacingAnInvalidationIsNotCached() {
+		KnowledgeRetrievalCache.ResultKey key = new KnowledgeRetrievalCache.ResultKey(vectorStore, "apple", null, 1,
+				0.0, null);
+		AtomicInteger loads = new AtomicInteger();
+
+		cache.documents(key, () -> {
+			loads.incrementAndGet();
+			vectorStore.add(List.of(new Document("apple pie")));
+			return new KnowledgeRetrievalCache.Retrieval(List.of(new Document("apple banana")), true);
+		});
+		cache.documents(key, () -> {
+			loads.incrementAndGet();
+			return new KnowledgeRetrievalCache.Retrieval(List.of(new Document("apple pie")), true);
+		});
+
+		assertEquals(2, loads.get());
+		assertEquals(1, cache.resultStats().size());
+	}
+
+	@Test
+	void failedRankingIsNotCached() throws Exception {
+		AtomicInteger rerankCalls = new AtomicInteger();
+		RerankModel failingModel = request -> {
+			rerankCalls.incrementAndGet();
+			throw new IllegalStateException("rerank unavailable");
+		};
+		KnowledgeRetrievalNode node = KnowledgeRetrievalNode.builder()
+			.userPromptKey("query")
+			.topK(2)
+			.similarityThreshold(0.0)
+			.enableRanker(true)
+			.rerankModel(failingModel)
+			.rerankOptions(new DashScopeRerankOptions())
+			.vectorStore(vectorStore)
+			.cache(cache)
+			.build();
+
+		Map<String, Object> first = node.apply(state("apple"));
+		Map<String, Object> second = node.apply(state("apple"));
+
+		assertEquals(first, second);
+		assertEquals(2, rerankCalls.get());
+		assertEquals(0, cache.resultStats().size());
+	}
+
+	@Test
+	void rankedResultsAreKeyedByRerankConfiguration() {
+		RerankModel model = request -> {
+			throw new UnsupportedOperationException();
+		};
+		DashScopeRerankOptions options = new DashScopeRerankOptions();
+		KnowledgeRetrievalCache.RerankKey before = KnowledgeRetrievalCache.RerankKey.of(model, options);
+		options.setTopN(5);
+
+		assertNotEquals(before, KnowledgeRetrievalCache.RerankKey.of(model, options));
+		assertNotEquals(before, KnowledgeRetrievalCache.RerankKey.of(request -> null, new DashScopeRerankOptions()));
+		assertEquals(before, KnowledgeRetrievalCache.RerankKey.of(model, new DashScopeRerankOptions()));
+	}
+
+	private KnowledgeRetrievalNode node() {
+		return KnowledgeRetrievalNode.builder()
+			.userPromptKey("query")
+			.topK(1)
+			.similarityThreshold(0.0)
+			.enableRanker(false)
+			.vectorStore(vectorStore)
+			.cache(cache)
+			.build();
+	}
+
+	private OverAllState state(String query) {
+		Map<String, Object> data = new HashMap<>();
+		data.put("query", query);
+		return new OverAllState(data);
+	}
+
+	/**
+	 * Embeds text as a vector of letter frequencies, counting query embeddings.
+	 */
+	private class LetterEmbeddingModel implements EmbeddingModel {
+
+		@Override
+		public EmbeddingResponse call(EmbeddingRequest request) {
+			List<Embedding> embeddings = new ArrayList<>();
+			for (int i = 0; i < request.getInstructions().size(); i++) {
+				embeddings.add(new Embedding(letters(request.getInstructions().get(i)), i));
+			}
+			return new EmbeddingResponse(embeddings);
+		}
+
+		@Override
+		public float[] embed(String text) {
+			queryEmbeddings.incrementAndGet();
+			return letters(text);
+		}
+
+		@Override
+		public float[] embed(Document document) {
+			return letters(document.getText());
+		}
+
+		@Override
+		public int dimensions() {
+			return 26;
+		}
+
+		private float[] letters(String text) {
+			float[] vector = new float[26];
+			for (char c : text.toLowerCase().toCharArray()) {
+				if (c >= 'a' && c <= 'z') {
+					vector[c - 'a']++;
+				}
+			}
+			return vector;
+		}
+
+	}
+
+}
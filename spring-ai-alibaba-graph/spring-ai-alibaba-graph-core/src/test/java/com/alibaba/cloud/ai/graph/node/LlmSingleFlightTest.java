@@ -0,0 +1,172 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.graph.node;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LlmSingleFlightTest {
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	private final StubChatModel chatModel = new StubChatModel();
+
+	private final ChatClient chatClient = ChatClient.builder(chatModel).build();
+
+	@Test
+	void concurrentIdenticalCallsShareOneModelCall() throws Exception {
+		LlmSingleFlight singleFlight = LlmSingleFlight.builder().build();
+		List<CompletableFuture<Map<String, Object>>> results = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			LlmNode node = node(singleFlight, false);
+			results.add(CompletableFuture.supplyAsync(() -> {
+				try {
+					return node.apply(state("apple"));
+				}
+				catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+			}));
+		}
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (singleFlight.joinedCalls() < 3 && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+		}
+		release.countDown();
+
+		for (CompletableFuture<Map<String, Object>> result : results) {
+			AssistantMessage message = (AssistantMessage) result.get(5, TimeUnit.SECONDS).get("answer");
+			assertEquals("answer to apple", message.getText());
+		}
+		assertEquals(1, chatModel.calls.get());
+		assertEquals(1, singleFlight.startedCalls());
+		assertEquals(3, singleFlight.joinedCalls());
+	}
+
+	@Test
+	void streamingSubscribersShareOneUpstream() {
+		release.countDown();
+		LlmSingleFlight singleFlight = LlmSingleFlight.builder().build();
+		LlmNode first = node(singleFlight, true);
+		LlmNode second = node(singleFlight, true);
+
+		Flux<ChatResponse> firstStream = first.stream();
+		CompletableFuture<List<String>> firstChunks = texts(firstStream).toFuture();
+		// join once the shared stream has already emitted some chunks
+		List<String> secondChunks = texts(Flux.defer(second::stream).delaySubscription(Duration.ofMillis(50)))
+			.block(Duration.ofSeconds(5));
+
+		assertEquals(List.of("a", "b", "c", "d"), firstChunks.join());
+		assertEquals(List.of("a", "b", "c", "d"), secondChunks);
+		assertEquals(1, chatModel.streams.get());
+	}
+
+	@Test
+	void completedResponsesAreReusedOnlyWithinTtl() throws Exception {
+		release.countDown();
+		LlmSingleFlight inFlightOnly = LlmSingleFlight.builder().build();
+		node(inFlightOnly, false).apply(state("apple"));
+		node(inFlightOnly, false).apply(state("apple"));
+		assertEquals(2, chatModel.calls.get());
+
+		LlmSingleFlight cached = LlmSingleFlight.builder().resultTtl(Duration.ofMinutes(1)).build();
+		node(cached, false).apply(state("apple"));
+		node(cached, false).apply(state("apple"));
+		node(cached, false).apply(state("banana"));
+		assertEquals(4, chatModel.calls.get());
+		assertEquals(1, cached.resultStats().hits());
+		assertEquals(2, cached.resultStats().size());
+	}
+
+	private LlmNode node(LlmSingleFlight singleFlight, boolean stream) {
+		return LlmNode.builder()
+			.userPromptTemplate("question: {topic}")
+			.paramsKey("params")
+			.outputKey("answer")
+			.chatClient(chatClient)
+			.stream(stream)
+			.singleFlight(singleFlight)
+			.build();
+	}
+
+	private OverAllState state(String topic) {
+		Map<String, Object> data = new HashMap<>();
+		data.put("params", Map.of("topic", topic));
+		return new OverAllState(data);
+	}
+
+	private static Mono<List<String>> texts(Flux<ChatResponse> responses) {
+		return responses.map(response -> response.getResult().getOutput().getText()).collectList();
+	}
+
+	private static ChatResponse response(String text) {
+		return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+	}
+
+	/**
+	 * Answers calls once released and streams four chunks, counting model invocations.
+	 */
+	private class StubChatModel implements ChatModel {
+
+		private final AtomicInteger calls = new AtomicInteger();
+
+		private final AtomicInteger streams = new AtomicInteger();
+
+		@Override
+		public ChatResponse call(Prompt prompt) {
+			calls.incrementAndGet();
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return response(prompt.getContents().replace("question:", "answer to"));
+		}
+
+		@Override
+		public Flux<ChatResponse> stream(Prompt prompt) {
+			return Flux.defer(() -> {
+				streams.incrementAndGet();
+				return Flux.just("a", "b", "c", "d")
+					.delayElements(Duration.ofMillis(30))
+					.map(LlmSingleFlightTest::response);
+			});
+		}
+
+	}
+
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.graph.observation;
+
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+import com.alibaba.cloud.ai.graph.observation.export.BatchingGraphSpanExporter;
+import com.alibaba.cloud.ai.graph.observation.export.GraphSpan;
+import com.alibaba.cloud.ai.graph.observation.node.GraphNodeObservationContext;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GraphObservationLifecycleListenerTest {
+
+	private final RunnableConfig config = RunnableConfig.builder().build();
+
+	@Test
+	void unsampledNodesNeverSerializeState() {
+		List<GraphSpan> spans = new CopyOnWriteArrayList<>();
+		GraphObservationLifecycleListener listener = new GraphObservationLifecycleListener(ObservationRegistry.create(),
+				new GraphObservationSampler(0.0, true, null), spans::addAll);
+		CountingState state = new CountingState();
+
+		listener.onStart("__START__", state, config);
+		listener.before("node", state, config, 0L);
+		listener.after("node", state, config, 0L);
+		listener.before("failing", state, config, 0L);
+		listener.onError("failing", state, new IllegalStateException("boom"), config);
+
+		assertEquals(1, spans.size());
+		assertEquals("failing", spans.get(0).nodeId());
+		assertTrue(spans.get(0).error() instanceof IllegalStateException);
+		assertEquals(2, state.serializations);
+	}
+
+	@Test
+	void onlyHeadSampledNodesStartObservations() {
+		AtomicInteger startedNodes = new AtomicInteger();
+		ObservationRegistry registry = ObservationRegistry.create();
+		registry.observationConfig().observationHandler(new ObservationHandler<>() {
+
+			@Override
+			public void onStart(Observation.Context context) {
+				if (context instanceof GraphNodeObservationContext) {
+					startedNodes.incrementAndGet();
+				}
+			}
+
+			@Override
+			public boolean supportsContext(Observation.Context context) {
+				return true;
+			}
+
+		});
+
+		GraphObservationLifecycleListener unsampled = new GraphObservationLifecycleListener(registry,
+				new GraphObservationSampler(0.0, true, null), null);
+		unsampled.onStart("__START__", Map.of(), config);
+		unsampled.before("node", Map.of(), config, 0L);
+		unsampled.after("node", Map.of(), config, 0L);
+		unsampled.before("failing", Map.of(), config, 0L);
+		unsampled.onError("failing", Map.of(), new IllegalStateException("boom"), config);
+		unsampled.onComplete("__END__", Map.of(), config);
+		assertEquals(0, startedNodes.get());
+
+		GraphObservationLifecycleListener sampled = new GraphObservationLifecycleListener(registry,
+				GraphObservationSampler.alwaysOn(), null);
+		sampled.before("node", Map.of(), config, 0L);
+		sampled.after("node", Map.of(), config, 0L);
+		assertEquals(1, startedNodes.get());
+	}
+
+	@Test
+	void slowNodesAreTailSampled() throws Exception {
+		List<GraphSpan> spans = new CopyOnWriteArrayList<>();
+		GraphObservationLifecycleListener listener = new GraphObservationLifecycleListener(ObservationRegistry.create(),
+				new GraphObservationSampler(0.0, false, Duration.ofMillis(10)), spans::addAll);
+
+		listener.before("fast", Map.of(), config, 0L);
+		listener.after("fast", Map.of(), config, 0L);
+		listener.before("slow", Map.of(), config, 0L);
+		Thread.sleep(20);
+		listener.after("slow", Map.of("k", "v"), config, 0L);
+
+		assertEquals(1, spans.size());
+		assertEquals("slow", spans.get(0).nodeId());
+		assertEquals("{k=v}", spans.get(0).attributes().get("gen_ai.completion"));
+	}
+
+	@Test
+	void batchingExporterFlushesInBatches() throws Exception {
+		List<List<GraphSpan>> batches = new CopyOnWriteArrayList<>();
+		CountDownLatch exported = new CountDownLatch(5);
+		BatchingGraphSpanExporter exporter = new BatchingGraphSpanExporter(batch -> {
+			batches.add(batch);
+			batch.forEach(span -> exported.countDown());
+		}, 16, 2, Duration.ofMillis(50));
+
+		for (int i = 0; i < 5; i++) {
+			exporter.export(List.of(new GraphSpan("span", "node" + i, 0L, 0L, Map.of(), null)));
+		}
+
+		assertTrue(exported.await(5, TimeUnit.SECONDS));
+		exporter.close();
+		assertTrue(batches.stream().allMatch(batch -> batch.size() <= 2));
+		assertEquals(5, batches.stream().mapToInt(List::size).sum());
+		assertEquals(0, exporter.getDroppedSpans());
+	}
+
+	/**
+	 * State map that counts how often it is serialized.
+	 */
+	private static class CountingState extends HashMap<String, Object> {
+
+		int serializations;
+
+		@Override
+		public String toString() {
+			serializations++;
+			return super.toString();
+		}
+
+	}
+
+}
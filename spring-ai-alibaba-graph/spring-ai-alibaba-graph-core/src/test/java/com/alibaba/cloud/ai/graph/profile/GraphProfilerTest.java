@@ -0,0 +1,102 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.graph.profile;
+
+import com.alibaba.cloud.ai.graph.CompileConfig;
+import com.alibaba.cloud.ai.graph.KeyStrategy;
+import com.alibaba.cloud.ai.graph.KeyStrategyFactory;
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+import com.alibaba.cloud.ai.graph.StateGraph;
+import com.alibaba.cloud.ai.graph.checkpoint.config.SaverConfig;
+import com.alibaba.cloud.ai.graph.checkpoint.constant.SaverConstant;
+import com.alibaba.cloud.ai.graph.checkpoint.savers.MemorySaver;
+import com.alibaba.cloud.ai.graph.state.strategy.AppendStrategy;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.alibaba.cloud.ai.graph.StateGraph.END;
+import static com.alibaba.cloud.ai.graph.StateGraph.START;
+import static com.alibaba.cloud.ai.graph.action.AsyncNodeAction.node_async;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GraphProfilerTest {
+
+	@Test
+	void recordsEveryPhaseOfAProfiledRun() throws Exception {
+		KeyStrategyFactory keyStrategyFactory = () -> {
+			Map<String, KeyStrategy> strategies = new HashMap<>();
+			strategies.put("messages", new AppendStrategy());
+			return strategies;
+		};
+		var app = new StateGraph(keyStrategyFactory).addNode("A", node_async(state -> Map.of("messages", "A")))
+			.addNode("B1", node_async(state -> Map.of("messages", "B1")))
+			.addNode("B2", node_async(state -> Map.of("messages", "B2")))
+			.addNode("C", node_async(state -> Map.of("messages", "C")))
+			.addEdge(START, "A")
+			.addEdge("A", "B1")
+			.addEdge("A", "B2")
+			.addEdge("B1", "C")
+			.addEdge("B2", "C")
+			.addEdge("C", END)
+			.compile(CompileConfig.builder()
+				.saverConfig(SaverConfig.builder()
+					.register(SaverConstant.MEMORY, new MemorySaver())
+					.type(SaverConstant.MEMORY)
+					.build())
+				.build());
+
+		GraphProfiler profiler = new GraphProfiler();
+		app.invoke(Map.of(), RunnableConfig.builder().threadId("profiled").profiler(profiler).build());
+
+		List<GraphProfiler.Event> events = profiler.events();
+		Set<GraphProfiler.Phase> phases = events.stream().map(GraphProfiler.Event::phase).collect(Collectors.toSet());
+		assertTrue(phases.containsAll(Set.of(GraphProfiler.Phase.NODE_ACTION, GraphProfiler.Phase.STATE_MERGE,
+				GraphProfiler.Phase.CHECKPOINT_SERIALIZE, GraphProfiler.Phase.SAVER_IO, GraphProfiler.Phase.LISTENER,
+				GraphProfiler.Phase.QUEUE_WAIT)));
+		Set<String> nodes = events.stream()
+			.filter(event -> event.phase() == GraphProfiler.Phase.NODE_ACTION)
+			.map(GraphProfiler.Event::name)
+			.collect(Collectors.toSet());
+		assertTrue(nodes.containsAll(Set.of("A", "B1", "B2", "C")));
+
+		JsonNode trace = new ObjectMapper().readTree(profiler.toChromeTrace());
+		assertEquals(events.size(), trace.get("traceEvents").size());
+		assertEquals("X", trace.get("traceEvents").get(0).get("ph").asText());
+	}
+
+	@Test
+	void ringBufferKeepsTheLatestEvents() {
+		GraphProfiler profiler = new GraphProfiler(2);
+		long start = profiler.start();
+		profiler.record(GraphProfiler.Phase.NODE_ACTION, "first", start, start + 1);
+		profiler.record(GraphProfiler.Phase.NODE_ACTION, "second", start + 1, start + 2);
+		profiler.record(GraphProfiler.Phase.NODE_ACTION, "\"third\"", start + 2, start + 3);
+
+		assertEquals(3, profiler.recordedEvents());
+		assertEquals(List.of("second", "\"third\""),
+				profiler.events().stream().map(GraphProfiler.Event::name).toList());
+		assertTrue(profiler.toChromeTrace().contains("\"name\":\"\\\"third\\\"\""));
+	}
+
+}
@@ -32,6 +32,7 @@ import org.springframework.ai.tool.ToolCallback;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * An abstract base class for implementing AI agents that can execute multi-step tasks.
@@ -85,6 +86,19 @@ public abstract class BaseAgent {
 
 	private int currentStep = 0;
 
+	// Kept across a BLOCKED state so that resume() continues the same execution
+	private AgentExecutionRecord agentRecord;
+
+	private PlanExecutionRecord planRecord;
+
+	private List<String> results = new ArrayList<>();
+
+	// Completes when a blocked agent can be resumed
+	private CompletableFuture<?> resumeSignal;
+
+	// Whether the caller resumes a blocked agent, otherwise it waits in place
+	private boolean suspendable;
+
 	// Change the data map to an immutable object and initialize it properly
 	private final Map<String, Object> initSettingData;
 
@@ -202,10 +216,10 @@ public abstract class BaseAgent {
 			throw new IllegalStateException("Cannot run agent from state: " + state);
 		}
 
-		PlanExecutionRecord planRecord = null;
+		planRecord = null;
 
 		// Create agent execution record
-		AgentExecutionRecord agentRecord = new AgentExecutionRecord(getCurrentPlanId(), getName(), getDescription());
+		agentRecord = new AgentExecutionRecord(getCurrentPlanId(), getName(), getDescription());
 		agentRecord.setMaxSteps(maxSteps);
 		agentRecord.setStatus(state.toString());
 		// Record execution in recorder if we have a plan ID
@@ -217,7 +231,25 @@ public abstract class BaseAgent {
 				planExecutionRecorder.recordAgentExecution(planRecord, agentRecord);
 			}
 		}
-		List<String> results = new ArrayList<>();
+		results = new ArrayList<>();
+		return runSteps();
+	}
+
+	/**
+	 * Continue an agent that stopped in the BLOCKED state, from the round after the one
+	 * that blocked. The agent keeps its memory and execution record while blocked, so it
+	 * can be resumed on any thread.
+	 * @return The result of the last round, as {@link #run()} returns
+	 */
+	public String resume() {
+		if (state != AgentState.BLOCKED) {
+			throw new IllegalStateException("Cannot resume agent from state: " + state);
+		}
+		resumeSignal = null;
+		return runSteps();
+	}
+
+	private String runSteps() {
 		try {
 			state = AgentState.IN_PROGRESS;
 			agentRecord.setStatus(state.toString());
@@ -228,7 +260,11 @@ public abstract class BaseAgent {
 
 				AgentExecResult stepResult = step();
 
-				if (isStuck()) {
+				if (stepResult.getState() == AgentState.BLOCKED) {
+					// Waiting for an external event, the caller resumes the agent later
+					state = AgentState.BLOCKED;
+				}
+				else if (isStuck()) {
 					handleStuckState(agentRecord);
 				}
 				else {
@@ -241,6 +277,10 @@ public abstract class BaseAgent {
 
 				// Update agent record after each step
 				agentRecord.setCurrentStep(currentStep);
+				if (state == AgentState.BLOCKED) {
+					log.info("Agent blocked at round {}/{}", currentStep, maxSteps);
+					return results.get(results.size() - 1);
+				}
 			}
 
 			if (currentStep >= maxSteps) {
@@ -271,13 +311,17 @@ public abstract class BaseAgent {
 			// occurred
 		}
 		finally {
-			state = AgentState.COMPLETED; // Reset state after execution
+			if (state != AgentState.BLOCKED) {
+				state = AgentState.COMPLETED; // Reset state after execution
+			}
 
 			agentRecord.setStatus(state.toString());
 			if (planRecord != null) {
 				planExecutionRecorder.recordAgentExecution(planRecord, agentRecord);
 			}
-			llmService.clearAgentMemory(currentPlanId);
+			if (state != AgentState.BLOCKED) {
+				llmService.clearAgentMemory(currentPlanId);
+			}
 		}
 		return results.isEmpty() ? "" : results.get(results.size() - 1);
 	}
@@ -365,6 +409,34 @@ public abstract class BaseAgent {
 		return state;
 	}
 
+	/**
+	 * Whether a step may return BLOCKED instead of waiting for an external event on the
+	 * executing thread. Only callers that resume blocked agents enable it.
+	 */
+	public boolean isSuspendable() {
+		return suspendable;
+	}
+
+	public void setSuspendable(boolean suspendable) {
+		this.suspendable = suspendable;
+	}
+
+	/**
+	 * Get the future that completes once a BLOCKED agent can be resumed
+	 * @return The resume signal, or null if the agent is not blocked
+	 */
+	public CompletableFuture<?> getResumeSignal() {
+		return resumeSignal;
+	}
+
+	/**
+	 * Called by a step that returns BLOCKED with the event it waits for
+	 * @param resumeSignal Future completed by the event
+	 */
+	protected void setResumeSignal(CompletableFuture<?> resumeSignal) {
+		this.resumeSignal = resumeSignal;
+	}
+
 	/**
 	 * Get the data context of the agent
 	 *
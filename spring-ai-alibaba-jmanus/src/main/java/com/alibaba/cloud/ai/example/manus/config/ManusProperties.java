@@ -70,6 +70,47 @@ public class ManusProperties {
 		this.browserRequestTimeout = browserRequestTimeout;
 	}
 
+	@ConfigProperty(group = "manus", subGroup = "browser", key = "maxBrowsers", path = "manus.browser.maxBrowsers",
+			description = "共享浏览器进程数上限，各计划在其中获得独立的浏览器上下文", defaultValue = "2", inputType = ConfigInputType.NUMBER)
+	private volatile Integer browserMaxBrowsers;
+
+	public Integer getBrowserMaxBrowsers() {
+		String configPath = "manus.browser.maxBrowsers";
+		String value = configService.getConfigValue(configPath);
+		if (value != null) {
+			browserMaxBrowsers = Integer.valueOf(value);
+		}
+		if (browserMaxBrowsers == null) {
+			browserMaxBrowsers = 2;
+		}
+		return browserMaxBrowsers;
+	}
+
+	public void setBrowserMaxBrowsers(Integer browserMaxBrowsers) {
+		this.browserMaxBrowsers = browserMaxBrowsers;
+	}
+
+	@ConfigProperty(group = "manus", subGroup = "browser", key = "maxContextsPerBrowser",
+			path = "manus.browser.maxContextsPerBrowser", description = "每个浏览器进程同时承载的计划上下文数上限，超出时回收最久未使用的上下文",
+			defaultValue = "4", inputType = ConfigInputType.NUMBER)
+	private volatile Integer browserMaxContextsPerBrowser;
+
+	public Integer getBrowserMaxContextsPerBrowser() {
+		String configPath = "manus.browser.maxContextsPerBrowser";
+		String value = configService.getConfigValue(configPath);
+		if (value != null) {
+			browserMaxContextsPerBrowser = Integer.valueOf(value);
+		}
+		if (browserMaxContextsPerBrowser == null) {
+			browserMaxContextsPerBrowser = 4;
+		}
+		return browserMaxContextsPerBrowser;
+	}
+
+	public void setBrowserMaxContextsPerBrowser(Integer browserMaxContextsPerBrowser) {
+		this.browserMaxContextsPerBrowser = browserMaxContextsPerBrowser;
+	}
+
 	@ConfigProperty(group = "manus", subGroup = "general", key = "debugDetail", path = "manus.general.debugDetail",
 			description = "debug模式 ：会要求模型输出更多内容，方便查找问题，但速度更慢", defaultValue = "false",
 			inputType = ConfigInputType.CHECKBOX,
@@ -199,6 +240,69 @@ public class ManusProperties {
 		this.maxMemory = maxMemory;
 	}
 
+	@ConfigProperty(group = "manus", subGroup = "agent", key = "memoryMaxTokens", path = "manus.agent.memoryMaxTokens",
+			description = "每个计划的Agent记忆最多占用的Token数，超过后较早的步骤会被压缩为摘要", defaultValue = "16000",
+			inputType = ConfigInputType.NUMBER)
+	private volatile Integer agentMemoryMaxTokens;
+
+	public Integer getAgentMemoryMaxTokens() {
+		String configPath = "manus.agent.memoryMaxTokens";
+		String value = configService.getConfigValue(configPath);
+		if (value != null) {
+			agentMemoryMaxTokens = Integer.valueOf(value);
+		}
+		if (agentMemoryMaxTokens == null) {
+			agentMemoryMaxTokens = 16000;
+		}
+		return agentMemoryMaxTokens;
+	}
+
+	public void setAgentMemoryMaxTokens(Integer agentMemoryMaxTokens) {
+		this.agentMemoryMaxTokens = agentMemoryMaxTokens;
+	}
+
+	@ConfigProperty(group = "manus", subGroup = "agent", key = "toolCallTimeout", path = "manus.agent.toolCallTimeout",
+			description = "并行执行的工具调用单次超时时间(秒)", defaultValue = "120", inputType = ConfigInputType.NUMBER)
+	private volatile Integer toolCallTimeout;
+
+	public Integer getToolCallTimeout() {
+		String configPath = "manus.agent.toolCallTimeout";
+		String value = configService.getConfigValue(configPath);
+		if (value != null) {
+			toolCallTimeout = Integer.valueOf(value);
+		}
+		if (toolCallTimeout == null) {
+			toolCallTimeout = 120;
+		}
+		return toolCallTimeout;
+	}
+
+	public void setToolCallTimeout(Integer toolCallTimeout) {
+		this.toolCallTimeout = toolCallTimeout;
+	}
+
+	@ConfigProperty(group = "manus", subGroup = "agent", key = "streamingThink", path = "manus.agent.streamingThink",
+			description = "流式思考：边生成边记录思考内容，并在工具调用参数完整后立即开始执行只读工具", defaultValue = "false",
+			inputType = ConfigInputType.CHECKBOX,
+			options = { @ConfigOption(value = "true", label = "是"), @ConfigOption(value = "false", label = "否") })
+	private volatile Boolean streamingThink;
+
+	public Boolean getStreamingThink() {
+		String configPath = "manus.agent.streamingThink";
+		String value = configService.getConfigValue(configPath);
+		if (value != null) {
+			streamingThink = Boolean.valueOf(value);
+		}
+		if (streamingThink == null) {
+			streamingThink = false;
+		}
+		return streamingThink;
+	}
+
+	public void setStreamingThink(Boolean streamingThink) {
+		this.streamingThink = streamingThink;
+	}
+
 	// Agent Settings
 	// End-----------------------------------------------------------------------------------------------
 
@@ -289,6 +393,176 @@ public class ManusProperties {
 		this.infiniteContextTaskContextSize = infiniteContextTaskContextSize;
 	}
 
+	@ConfigProperty(group = "manus", subGroup = "infiniteContext", key = "speculativeExecution",
+			path = "manus.infiniteContext.speculativeExecution", description = "空闲线程为明显慢于其他任务的Map任务启动备份执行",
+			defaultValue = "true", inputType = ConfigInputType.CHECKBOX,
+			options = { @ConfigOption(value = "true", label = "是"), @ConfigOption(value = "false", label = "否") })
+	private volatile Boolean infiniteContextSpeculativeExecution;
+
+	public Boolean getInfiniteContextSpeculativeExecution() {
+		String configPath = "manus.infiniteContext.speculativeExecution";
+		String value = configService.getConfigValue(configPath);
+		if (value != null) {
+			infiniteContextSpeculativeExecution = Boolean.valueOf(value);
+		}
+		if (infiniteContextSpeculativeExecution == null) {
+			infiniteContextSpeculativeExecution = true;
+		}
+		return infiniteContextSpeculativeExecution;
+	}
+
+	public void setInfiniteContextSpeculativeExecution(Boolean infiniteContextSpeculativeExecution) {
+		this.infiniteContextSpeculativeExecution = infiniteContextSpeculativeExecution;
+	}
+
+	@ConfigProperty(group = "manus", subGroup = "infiniteContext", key = "reduceFanIn",
+			path = "manus.infiniteContext.reduceFanIn", description = "分层Reduce每次合并的最大Map结果数，Map任务数超过该值时启用分层Reduce",
+			defaultValue = "8", inputType = ConfigInputType.NUMBER)
+	private volatile Integer infiniteContextReduceFanIn;
+
+	public Integer getInfiniteContextReduceFanIn() {
+		String configPath = "manus.infiniteContext.reduceFanIn";
+		String value = configService.getConfigValue(configPath);
+		if (value != null) {
+			infiniteContextReduceFanIn = Integer.valueOf(value);
+		}
+		if (infiniteContextReduceFanIn == null) {
+			infiniteContextReduceFanIn = 8;
+		}
+		return infiniteContextReduceFanIn;
+	}
+
+	public void setInfiniteContextReduceFanIn(Integer infiniteContextReduceFanIn) {
+		this.infiniteContextReduceFanIn = infiniteContextReduceFanIn;
+	}
+
+	@ConfigProperty(group = "manus", subGroup = "infiniteContext", key = "reduceBatchTokens",
+			path = "manus.infiniteContext.reduceBatchTokens", description = "每个Reduce批次的Map结果Token数上限",
+			defaultValue = "2000", inputType = ConfigInputType.NUMBER)
+	private volatile Integer infiniteContextReduceBatchTokens;
+
+	public Integer getInfiniteContextReduceBatchTokens() {
+		String configPath = "manus.infiniteContext.reduceBatchTokens";
+		String value = configService.getConfigValue(configPath);
+		if (value != null) {
+			infiniteContextReduceBatchTokens = Integer.valueOf(value);
+		}
+		if (infiniteContextReduceBatchTokens == null) {
+			infiniteContextReduceBatchTokens = 2000;
+		}
+		return infiniteContextReduceBatchTokens;
+	}
+
+	public void setInfiniteContextReduceBatchTokens(Integer infiniteContextReduceBatchTokens) {
+		this.infiniteContextReduceBatchTokens = infiniteContextReduceBatchTokens;
+	}
+
+	// LLM SubGroup
+	@ConfigProperty(group = "manus", subGroup = "llm", key = "maxConnections", path = "manus.llm.maxConnections",
+			description = "访问动态模型的HTTP连接池最大连接数(重启后生效)", defaultValue = "50", inputType = ConfigInputType.NUMBER)
+	private volatile Integer llmMaxConnections;
+
+	public Integer getLlmMaxConnections() {
+		String configPath = "manus.llm.maxConnections";
+		String value = configService.getConfigValue(configPath);
+		if (value != null) {
+			llmMaxConnections = Integer.valueOf(value);
+		}
+		if (llmMaxConnections == null) {
+			llmMaxConnections = 50;
+		}
+		return llmMaxConnections;
+	}
+
+	public void setLlmMaxConnections(Integer llmMaxConnections) {
+		this.llmMaxConnections = llmMaxConnections;
+	}
+
+	@ConfigProperty(group = "manus", subGroup = "llm", key = "maxConnectionsPerRoute",
+			path = "manus.llm.maxConnectionsPerRoute", description = "访问单个模型服务地址的最大连接数(重启后生效)", defaultValue = "20",
+			inputType = ConfigInputType.NUMBER)
+	private volatile Integer llmMaxConnectionsPerRoute;
+
+	public Integer getLlmMaxConnectionsPerRoute() {
+		String configPath = "manus.llm.maxConnectionsPerRoute";
+		String value = configService.getConfigValue(configPath);
+		if (value != null) {
+			llmMaxConnectionsPerRoute = Integer.valueOf(value);
+		}
+		if (llmMaxConnectionsPerRoute == null) {
+			llmMaxConnectionsPerRoute = 20;
+		}
+		return llmMaxConnectionsPerRoute;
+	}
+
+	public void setLlmMaxConnectionsPerRoute(Integer llmMaxConnectionsPerRoute) {
+		this.llmMaxConnectionsPerRoute = llmMaxConnectionsPerRoute;
+	}
+
+	// Scheduler SubGroup
+	@ConfigProperty(group = "manus", subGroup = "scheduler", key = "maxConcurrentPlans",
+			path = "manus.scheduler.maxConcurrentPlans", description = "同时执行的计划数上限", defaultValue = "4",
+			inputType = ConfigInputType.NUMBER)
+	private volatile Integer schedulerMaxConcurrentPlans;
+
+	public Integer getSchedulerMaxConcurrentPlans() {
+		String configPath = "manus.scheduler.maxConcurrentPlans";
+		String value = configService.getConfigValue(configPath);
+		if (value != null) {
+			schedulerMaxConcurrentPlans = Integer.valueOf(value);
+		}
+		if (schedulerMaxConcurrentPlans == null) {
+			schedulerMaxConcurrentPlans = 4;
+		}
+		return schedulerMaxConcurrentPlans;
+	}
+
+	public void setSchedulerMaxConcurrentPlans(Integer schedulerMaxConcurrentPlans) {
+		this.schedulerMaxConcurrentPlans = schedulerMaxConcurrentPlans;
+	}
+
+	@ConfigProperty(group = "manus", subGroup = "scheduler", key = "queueCapacity",
+			path = "manus.scheduler.queueCapacity", description = "等待执行的计划队列容量，队列满时拒绝新计划", defaultValue = "100",
+			inputType = ConfigInputType.NUMBER)
+	private volatile Integer schedulerQueueCapacity;
+
+	public Integer getSchedulerQueueCapacity() {
+		String configPath = "manus.scheduler.queueCapacity";
+		String value = configService.getConfigValue(configPath);
+		if (value != null) {
+			schedulerQueueCapacity = Integer.valueOf(value);
+		}
+		if (schedulerQueueCapacity == null) {
+			schedulerQueueCapacity = 100;
+		}
+		return schedulerQueueCapacity;
+	}
+
+	public void setSchedulerQueueCapacity(Integer schedulerQueueCapacity) {
+		this.schedulerQueueCapacity = schedulerQueueCapacity;
+	}
+
+	@ConfigProperty(group = "manus", subGroup = "scheduler", key = "maxPlansPerTenant",
+			path = "manus.scheduler.maxPlansPerTenant", description = "单个租户同时执行的计划数上限", defaultValue = "2",
+			inputType = ConfigInputType.NUMBER)
+	private volatile Integer schedulerMaxPlansPerTenant;
+
+	public Integer getSchedulerMaxPlansPerTenant() {
+		String configPath = "manus.scheduler.maxPlansPerTenant";
+		String value = configService.getConfigValue(configPath);
+		if (value != null) {
+			schedulerMaxPlansPerTenant = Integer.valueOf(value);
+		}
+		if (schedulerMaxPlansPerTenant == null) {
+			schedulerMaxPlansPerTenant = 2;
+		}
+		return schedulerMaxPlansPerTenant;
+	}
+
+	public void setSchedulerMaxPlansPerTenant(Integer schedulerMaxPlansPerTenant) {
+		this.schedulerMaxPlansPerTenant = schedulerMaxPlansPerTenant;
+	}
+
 	// File System Security SubGroup
 	@ConfigProperty(group = "manus", subGroup = "filesystem", key = "allowExternalAccess",
 			path = "manus.filesystem.allowExternalAccess",
@@ -314,4 +588,155 @@ public class ManusProperties {
 		this.allowExternalAccess = allowExternalAccess;
 	}
 
+	// Search SubGroup
+	@ConfigProperty(group = "manus", subGroup = "search", key = "cacheEnabled", path = "manus.search.cacheEnabled",
+			description = "缓存搜索结果，相同的查询在有效期内直接返回缓存，并合并并发的相同查询", defaultValue = "true",
+			inputType = ConfigInputType.CHECKBOX,
+			options = { @ConfigOption(value = "true", label = "是"), @ConfigOption(value = "false", label = "否") })
+	private volatile Boolean searchCacheEnabled;
+
+	public Boolean getSearchCacheEnabled() {
+		String configPath = "manus.search.cacheEnabled";
+		String value = configService.getConfigValue(configPath);
+		if (value != null) {
+			searchCacheEnabled = Boolean.valueOf(value);
+		}
+		if (searchCacheEnabled == null) {
+			searchCacheEnabled = true;
+		}
+		return searchCacheEnabled;
+	}
+
+	public void setSearchCacheEnabled(Boolean searchCacheEnabled) {
+		this.searchCacheEnabled = searchCacheEnabled;
+	}
+
+	@ConfigProperty(group = "manus", subGroup = "search", key = "cacheTtlMinutes",
+			path = "manus.search.cacheTtlMinutes", description = "搜索结果缓存的有效期（分钟）", defaultValue = "60",
+			inputType = ConfigInputType.NUMBER)
+	private volatile Integer searchCacheTtlMinutes;
+
+	public Integer getSearchCacheTtlMinutes() {
+		String configPath = "manus.search.cacheTtlMinutes";
+		String value = configService.getConfigValue(configPath);
+		if (value != null) {
+			searchCacheTtlMinutes = Integer.valueOf(value);
+		}
+		if (searchCacheTtlMinutes == null) {
+			searchCacheTtlMinutes = 60;
+		}
+		return searchCacheTtlMinutes;
+	}
+
+	public void setSearchCacheTtlMinutes(Integer searchCacheTtlMinutes) {
+		this.searchCacheTtlMinutes = searchCacheTtlMinutes;
+	}
+
+	@ConfigProperty(group = "manus", subGroup = "search", key = "cacheMaxEntries",
+			path = "manus.search.cacheMaxEntries", description = "内存中缓存的搜索结果数上限", defaultValue = "1000",
+			inputType = ConfigInputType.NUMBER)
+	private volatile Integer searchCacheMaxEntries;
+
+	public Integer getSearchCacheMaxEntries() {
+		String configPath = "manus.search.cacheMaxEntries";
+		String value = configService.getConfigValue(configPath);
+		if (value != null) {
+			searchCacheMaxEntries = Integer.valueOf(value);
+		}
+		if (searchCacheMaxEntries == null) {
+			searchCacheMaxEntries = 1000;
+		}
+		return searchCacheMaxEntries;
+	}
+
+	public void setSearchCacheMaxEntries(Integer searchCacheMaxEntries) {
+		this.searchCacheMaxEntries = searchCacheMaxEntries;
+	}
+
+	@ConfigProperty(group = "manus", subGroup = "search", key = "cachePersistent",
+			path = "manus.search.cachePersistent", description = "将搜索结果缓存保存到数据库，重启后仍然有效", defaultValue = "false",
+			inputType = ConfigInputType.CHECKBOX,
+			options = { @ConfigOption(value = "true", label = "是"), @ConfigOption(value = "false", label = "否") })
+	private volatile Boolean searchCachePersistent;
+
+	public Boolean getSearchCachePersistent() {
+		String configPath = "manus.search.cachePersistent";
+		String value = configService.getConfigValue(configPath);
+		if (value != null) {
+			searchCachePersistent = Boolean.valueOf(value);
+		}
+		if (searchCachePersistent == null) {
+			searchCachePersistent = false;
+		}
+		return searchCachePersistent;
+	}
+
+	public void setSearchCachePersistent(Boolean searchCachePersistent) {
+		this.searchCachePersistent = searchCachePersistent;
+	}
+
+	@ConfigProperty(group = "manus", subGroup = "planning", key = "cacheEnabled", path = "manus.planning.cacheEnabled",
+			description = "复用已生成的计划，仅参数（数字、引号内容、链接、路径等）不同的请求直接替换参数后使用缓存的计划", defaultValue = "false",
+			inputType = ConfigInputType.CHECKBOX,
+			options = { @ConfigOption(value = "true", label = "是"), @ConfigOption(value = "false", label = "否") })
+	private volatile Boolean planCacheEnabled;
+
+	public Boolean getPlanCacheEnabled() {
+		String configPath = "manus.planning.cacheEnabled";
+		String value = configService.getConfigValue(configPath);
+		if (value != null) {
+			planCacheEnabled = Boolean.valueOf(value);
+		}
+		if (planCacheEnabled == null) {
+			planCacheEnabled = false;
+		}
+		return planCacheEnabled;
+	}
+
+	public void setPlanCacheEnabled(Boolean planCacheEnabled) {
+		this.planCacheEnabled = planCacheEnabled;
+	}
+
+	@ConfigProperty(group = "manus", subGroup = "planning", key = "cacheTtlMinutes",
+			path = "manus.planning.cacheTtlMinutes", description = "计划缓存的有效期（分钟）", defaultValue = "60",
+			inputType = ConfigInputType.NUMBER)
+	private volatile Integer planCacheTtlMinutes;
+
+	public Integer getPlanCacheTtlMinutes() {
+		String configPath = "manus.planning.cacheTtlMinutes";
+		String value = configService.getConfigValue(configPath);
+		if (value != null) {
+			planCacheTtlMinutes = Integer.valueOf(value);
+		}
+		if (planCacheTtlMinutes == null) {
+			planCacheTtlMinutes = 60;
+		}
+		return planCacheTtlMinutes;
+	}
+
+	public void setPlanCacheTtlMinutes(Integer planCacheTtlMinutes) {
+		this.planCacheTtlMinutes = planCacheTtlMinutes;
+	}
+
+	@ConfigProperty(group = "manus", subGroup = "planning", key = "cacheMaxEntries",
+			path = "manus.planning.cacheMaxEntries", description = "计划缓存的最大条目数，超出时淘汰最久未使用的计划", defaultValue = "200",
+			inputType = ConfigInputType.NUMBER)
+	private volatile Integer planCacheMaxEntries;
+
+	public Integer getPlanCacheMaxEntries() {
+		String configPath = "manus.planning.cacheMaxEntries";
+		String value = configService.getConfigValue(configPath);
+		if (value != null) {
+			planCacheMaxEntries = Integer.valueOf(value);
+		}
+		if (planCacheMaxEntries == null) {
+			planCacheMaxEntries = 200;
+		}
+		return planCacheMaxEntries;
+	}
+
+	public void setPlanCacheMaxEntries(Integer planCacheMaxEntries) {
+		this.planCacheMaxEntries = planCacheMaxEntries;
+	}
+
 }
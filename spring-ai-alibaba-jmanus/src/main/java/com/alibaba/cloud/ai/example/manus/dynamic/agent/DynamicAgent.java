@@ -22,7 +22,9 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
 import com.alibaba.cloud.ai.example.manus.dynamic.model.entity.DynamicModelEntity;
@@ -69,6 +71,9 @@ public class DynamicAgent extends ReActAgent {
 
 	private static final Logger log = LoggerFactory.getLogger(DynamicAgent.class);
 
+	// How often partial reasoning is recorded while the think step streams
+	private static final long PARTIAL_THINK_INTERVAL_MILLIS = 500;
+
 	private final String agentName;
 
 	private final String agentDescription;
@@ -83,6 +88,11 @@ public class DynamicAgent extends ReActAgent {
 
 	private Prompt userPrompt;
 
+	private ParallelToolCallExecutor toolCallExecutor;
+
+	// Form the agent blocked on, its input is applied when the agent resumes
+	private FormInputTool pendingFormInput;
+
 	protected ThinkActRecord thinkActRecord;
 
 	private final ToolCallingManager toolCallingManager;
@@ -186,7 +196,14 @@ public class DynamicAgent extends ReActAgent {
 				chatClient = llmService.getDynamicChatClient(model.getBaseUrl(), model.getApiKey(),
 						model.getModelName());
 			}
-			response = chatClient.prompt(userPrompt).toolCallbacks(callbacks).call().chatResponse();
+			toolCallExecutor = new ParallelToolCallExecutor(this::getToolCallBackContext,
+					manusProperties.getToolCallTimeout() * 1000L);
+			if (Boolean.TRUE.equals(manusProperties.getStreamingThink())) {
+				response = streamThink(chatClient, callbacks);
+			}
+			else {
+				response = chatClient.prompt(userPrompt).toolCallbacks(callbacks).call().chatResponse();
+			}
 			String model = response.getMetadata().getModel();
 			PlanExecutionRecord planExecutionRecord = planExecutionRecorder.getExecutionRecord(getCurrentPlanId(),
 					getRootPlanId(), getThinkActRecordId());
@@ -219,6 +236,32 @@ public class DynamicAgent extends ReActAgent {
 		return false;
 	}
 
+	/**
+	 * Streams the think step: partial reasoning is recorded while the model generates,
+	 * and tool calls are started as soon as their arguments are complete.
+	 */
+	private ChatResponse streamThink(ChatClient chatClient, List<ToolCallback> callbacks) {
+		PlanExecutionRecord planExecutionRecord = planExecutionRecorder.getExecutionRecord(getCurrentPlanId(),
+				getRootPlanId(), getThinkActRecordId());
+		AgentExecutionRecord agentExecutionRecord = planExecutionRecorder
+			.getCurrentAgentExecutionRecord(planExecutionRecord);
+		StreamingThinkAggregator aggregator = new StreamingThinkAggregator(partialText -> {
+			thinkActRecord.setThinkOutput(partialText);
+			// The record reaches SSE subscribers through the execution events
+			if (planExecutionRecord != null && agentExecutionRecord != null) {
+				planExecutionRecorder.recordThinkActExecution(planExecutionRecord, agentExecutionRecord.getId(),
+						thinkActRecord);
+			}
+		}, PARTIAL_THINK_INTERVAL_MILLIS, toolCallExecutor::dispatchEarly);
+		try {
+			return aggregator.aggregate(chatClient.prompt(userPrompt).toolCallbacks(callbacks).stream().chatResponse());
+		}
+		catch (RuntimeException e) {
+			toolCallExecutor.cancelDispatched();
+			throw e;
+		}
+	}
+
 	@Override
 	protected AgentExecResult act() {
 		ToolExecutionResult toolExecutionResult = null;
@@ -232,7 +275,14 @@ public class DynamicAgent extends ReActAgent {
 
 			thinkActRecord.startAction("Executing tool: " + toolCall.name(), toolCall.name(), toolCall.arguments());
 
-			toolExecutionResult = toolCallingManager.executeToolCalls(userPrompt, response);
+			if (toolCalls.size() > 1 || toolCallExecutor.hasDispatchedCalls()) {
+				// Independent read-only calls of the response run in parallel, some of
+				// them may have started while the response was streaming
+				toolExecutionResult = toolCallExecutor.executeToolCalls(userPrompt, response.getResult().getOutput());
+			}
+			else {
+				toolExecutionResult = toolCallingManager.executeToolCalls(userPrompt, response);
+			}
 
 			processMemory(toolExecutionResult);
 			ToolResponseMessage toolResponseMessage = (ToolResponseMessage) toolExecutionResult.conversationHistory()
@@ -254,38 +304,21 @@ public class DynamicAgent extends ReActAgent {
 				// Check if the tool is waiting for user input
 				if (formInputTool.getInputState() == FormInputTool.InputState.AWAITING_USER_INPUT) {
 					log.info("FormInputTool is awaiting user input for planId: {}", getCurrentPlanId());
-					userInputService.storeFormInputTool(getCurrentPlanId(), formInputTool);
-					// Wait for user input or timeout
-					waitForUserInputOrTimeout(formInputTool);
-
-					// After waiting, check the state again
-					if (formInputTool.getInputState() == FormInputTool.InputState.INPUT_RECEIVED) {
-						log.info("User input received for planId: {}", getCurrentPlanId());
-						// The UserInputService.submitUserInputs would have updated
-						// the tool's internal state.
-						// We can now get the updated state string for the LLM.
-
-						UserMessage userMessage = UserMessage.builder()
-							.text("User input received for form: " + formInputTool.getCurrentToolStateString())
-							.build();
-						processUserInputToMemory(userMessage); // Process user input
-						// to memory
-						llmCallResponse = formInputTool.getCurrentToolStateString();
-
+					CompletableFuture<FormInputTool.InputState> userInput = userInputService
+						.awaitUserInput(getCurrentPlanId(), formInputTool, getManusProperties().getUserInputTimeout());
+					if (isSuspendable()) {
+						// Release the thread until the input arrives or times out
+						pendingFormInput = formInputTool;
+						setResumeSignal(userInput);
+						return new AgentExecResult("Waiting for user input.", AgentState.BLOCKED);
 					}
-					else if (formInputTool.getInputState() == FormInputTool.InputState.INPUT_TIMEOUT) {
-						log.warn("Input timeout occurred for FormInputTool for planId: {}", getCurrentPlanId());
-						// Handle input timeout
-
-						UserMessage userMessage = UserMessage.builder()
-							.text("Input timeout occurred for form: ")
-							.build();
-						processUserInputToMemory(userMessage);
-						userInputService.removeFormInputTool(getCurrentPlanId()); // Clean
-																					// up
-						return new AgentExecResult("Input timeout occurred.", AgentState.IN_PROGRESS); // Or
-																										// FAILED
+					// Wait for user input or timeout
+					waitForUserInput(userInput);
+					AgentExecResult inputResult = applyUserInput(formInputTool);
+					if (formInputTool.getInputState() == FormInputTool.InputState.INPUT_TIMEOUT) {
+						return inputResult;
 					}
+					llmCallResponse = inputResult.getResult();
 				}
 			}
 
@@ -343,14 +376,15 @@ public class DynamicAgent extends ReActAgent {
 		if (toolExecutionResult == null) {
 			return;
 		}
-		// Process the conversation history to update memory
+		// The conversation history starts with the prompt, which already holds the
+		// memory; only append the messages of this step
 		List<Message> messages = toolExecutionResult.conversationHistory();
-		if (messages.isEmpty()) {
+		int promptSize = userPrompt != null ? userPrompt.getInstructions().size() : 0;
+		if (messages.size() <= promptSize) {
 			return;
 		}
-		// clear current plan memory
-		llmService.getAgentMemory(manusProperties.getMaxMemory()).clear(getCurrentPlanId());
-		for (Message message : messages) {
+		List<Message> stepMessages = new ArrayList<>();
+		for (Message message : messages.subList(promptSize, messages.size())) {
 			// exclude all system message
 			if (message instanceof SystemMessage) {
 				continue;
@@ -361,8 +395,10 @@ public class DynamicAgent extends ReActAgent {
 				continue;
 			}
 			// only keep assistant message and tool_call message
-			llmService.getAgentMemory(manusProperties.getMaxMemory()).add(getCurrentPlanId(), message);
+			stepMessages.add(message);
 		}
+		// The tool calls and their responses are kept or dropped together
+		llmService.getAgentMemory(manusProperties.getMaxMemory()).add(getCurrentPlanId(), stepMessages);
 	}
 
 	@Override
@@ -495,39 +531,57 @@ public class DynamicAgent extends ReActAgent {
 		return envDataStringBuilder.toString();
 	}
 
-	// Add a method to wait for user input or handle timeout.
-	private void waitForUserInputOrTimeout(FormInputTool formInputTool) {
+	/**
+	 * Parks the thread until the user input arrives or times out. The future is completed
+	 * by the input submission or by the timeout, so nothing polls.
+	 */
+	private void waitForUserInput(CompletableFuture<FormInputTool.InputState> userInput) {
 		log.info("Waiting for user input for planId: {}...", getCurrentPlanId());
-		long startTime = System.currentTimeMillis();
-		// Get timeout from ManusProperties and convert to milliseconds
-		long userInputTimeoutMs = getManusProperties().getUserInputTimeout() * 1000L;
-
-		while (formInputTool.getInputState() == FormInputTool.InputState.AWAITING_USER_INPUT) {
-			if (System.currentTimeMillis() - startTime > userInputTimeoutMs) {
-				log.warn("Timeout waiting for user input for planId: {}", getCurrentPlanId());
-				formInputTool.handleInputTimeout(); // This will change its state to
-				// INPUT_TIMEOUT
-				break;
-			}
-			try {
-				// Poll for input state change. In a real scenario, this might involve
-				// a more sophisticated mechanism like a Future or a callback from the UI.
-				TimeUnit.MILLISECONDS.sleep(500); // Check every 500ms
-			}
-			catch (InterruptedException e) {
-				log.warn("Interrupted while waiting for user input for planId: {}", getCurrentPlanId());
-				Thread.currentThread().interrupt();
-				formInputTool.handleInputTimeout(); // Treat interruption as timeout for
-				// simplicity
-				break;
-			}
+		try {
+			userInput.get();
+		}
+		catch (InterruptedException e) {
+			log.warn("Interrupted while waiting for user input for planId: {}", getCurrentPlanId());
+			Thread.currentThread().interrupt();
+		}
+		catch (ExecutionException | CancellationException e) {
+			log.warn("Stopped waiting for user input for planId: {}", getCurrentPlanId());
+		}
+	}
+
+	/**
+	 * Records the outcome of a form that was waiting for input in the agent memory.
+	 * @return Result of the round that showed the form
+	 */
+	private AgentExecResult applyUserInput(FormInputTool formInputTool) {
+		if (formInputTool.getInputState() == FormInputTool.InputState.AWAITING_USER_INPUT) {
+			// Interrupted or cancelled waits count as a timeout
+			formInputTool.handleInputTimeout();
 		}
 		if (formInputTool.getInputState() == FormInputTool.InputState.INPUT_RECEIVED) {
 			log.info("User input received for planId: {}", getCurrentPlanId());
+			// The UserInputService.submitUserInputs would have updated the tool's
+			// internal state. We can now get the updated state string for the LLM.
+			UserMessage userMessage = UserMessage.builder()
+				.text("User input received for form: " + formInputTool.getCurrentToolStateString())
+				.build();
+			processUserInputToMemory(userMessage);
+			return new AgentExecResult(formInputTool.getCurrentToolStateString(), AgentState.IN_PROGRESS);
 		}
-		else if (formInputTool.getInputState() == FormInputTool.InputState.INPUT_TIMEOUT) {
-			log.warn("User input timed out for planId: {}", getCurrentPlanId());
+		log.warn("Input timeout occurred for FormInputTool for planId: {}", getCurrentPlanId());
+		UserMessage userMessage = UserMessage.builder().text("Input timeout occurred for form: ").build();
+		processUserInputToMemory(userMessage);
+		userInputService.removeFormInputTool(getCurrentPlanId());
+		return new AgentExecResult("Input timeout occurred.", AgentState.IN_PROGRESS);
+	}
+
+	@Override
+	public String resume() {
+		if (pendingFormInput != null) {
+			applyUserInput(pendingFormInput);
+			pendingFormInput = null;
 		}
+		return super.resume();
 	}
 
 }
@@ -0,0 +1,322 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.dynamic.agent;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.AssistantMessage.ToolCall;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage.ToolResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+
+import com.alibaba.cloud.ai.example.manus.planning.PlanningFactory.ToolCallBackContext;
+
+/**
+ * Executes the tool calls of one model response, running the calls of concurrency safe
+ * tools in parallel.
+ * <p>
+ * Consecutive calls of tools declaring {@code isConcurrencySafe()} run together on a
+ * bounded pool shared by all agents, each with its own timeout counted from when it
+ * starts running. When the pool is saturated, the calls it rejects run one after the
+ * other on their own thread, still with the timeout. Any other call, such as browser or
+ * file writing operations, waits for the calls before it and runs alone on the agent
+ * thread, so those tools stay serialized within a plan. The responses keep the order of
+ * the calls, whatever order they complete in.
+ * <p>
+ * An instance serves one step. When the response is streamed, calls can be started with
+ * {@link #dispatchEarly(ToolCall)} as soon as they arrive; {@link #executeToolCalls} then
+ * collects their results instead of running them again.
+ */
+class ParallelToolCallExecutor {
+
+	private static final Logger log = LoggerFactory.getLogger(ParallelToolCallExecutor.class);
+
+	private static final int POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+	private static final int QUEUE_CAPACITY = 256;
+
+	private static final long QUEUED_POLL_MILLIS = 20;
+
+	private static final ExecutorService SHARED_EXECUTOR = createSharedExecutor();
+
+	private final ExecutorService executor;
+
+	private final Function<String, ToolCallBackContext> toolLookup;
+
+	private final long timeoutMillis;
+
+	// Calls started while the response was streaming, by call ID
+	private final Map<String, StartedCall> dispatched = new LinkedHashMap<>();
+
+	private boolean earlyDispatchOpen = true;
+
+	ParallelToolCallExecutor(Function<String, ToolCallBackContext> toolLookup, long timeoutMillis) {
+		this(SHARED_EXECUTOR, toolLookup, timeoutMillis);
+	}
+
+	ParallelToolCallExecutor(ExecutorService executor, Function<String, ToolCallBackContext> toolLookup,
+			long timeoutMillis) {
+		this.executor = executor;
+		this.toolLookup = toolLookup;
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	/**
+	 * Starts a tool call of a response that is still streaming. Only a prefix of
+	 * concurrency safe calls is started early: once a call of another tool arrives, the
+	 * calls after it wait for {@link #executeToolCalls} to keep their order.
+	 */
+	void dispatchEarly(ToolCall toolCall) {
+		if (!earlyDispatchOpen) {
+			return;
+		}
+		ToolCallBackContext context = toolCall.id() != null ? toolLookup.apply(toolCall.name()) : null;
+		if (context == null || !context.getFunctionInstance().isConcurrencySafe()
+				|| dispatched.containsKey(toolCall.id())) {
+			earlyDispatchOpen = false;
+			return;
+		}
+		StartedCall started = start(toolCall, context);
+		if (started == null) {
+			// The pool is saturated, the call runs once the response is complete
+			earlyDispatchOpen = false;
+			return;
+		}
+		log.debug("Dispatching tool call {} before the response is complete", toolCall.name());
+		dispatched.put(toolCall.id(), started);
+	}
+
+	boolean hasDispatchedCalls() {
+		return !dispatched.isEmpty();
+	}
+
+	/**
+	 * Cancels the calls started early that were not collected, for instance because the
+	 * stream failed.
+	 */
+	void cancelDispatched() {
+		for (StartedCall call : dispatched.values()) {
+			call.future().cancel(true);
+		}
+		dispatched.clear();
+	}
+
+	/**
+	 * Executes the tool calls of the assistant message and returns the prompt history
+	 * followed by the assistant message and one tool response message, as
+	 * {@code ToolCallingManager} does.
+	 */
+	ToolExecutionResult executeToolCalls(Prompt prompt, AssistantMessage assistantMessage) {
+		List<ToolCall> toolCalls = assistantMessage.getToolCalls();
+		String[] results = new String[toolCalls.size()];
+		boolean returnDirect = true;
+		List<Integer> parallelBatch = new ArrayList<>();
+		for (int i = 0; i < toolCalls.size(); i++) {
+			ToolCallBackContext context = toolLookup.apply(toolCalls.get(i).name());
+			if (context == null) {
+				returnDirect = false;
+			}
+			else {
+				returnDirect &= context.getToolCallback().getToolMetadata().returnDirect();
+			}
+			if (context != null && context.getFunctionInstance().isConcurrencySafe()) {
+				parallelBatch.add(i);
+				continue;
+			}
+			runParallel(toolCalls, parallelBatch, results);
+			parallelBatch.clear();
+			results[i] = call(toolCalls.get(i), context);
+		}
+		runParallel(toolCalls, parallelBatch, results);
+		cancelDispatched();
+
+		List<ToolResponse> responses = new ArrayList<>(toolCalls.size());
+		for (int i = 0; i < toolCalls.size(); i++) {
+			ToolCall toolCall = toolCalls.get(i);
+			responses.add(new ToolResponse(toolCall.id(), toolCall.name(), results[i]));
+		}
+		List<Message> conversationHistory = new ArrayList<>(prompt.copy().getInstructions());
+		conversationHistory.add(assistantMessage);
+		conversationHistory.add(new ToolResponseMessage(responses, Map.of()));
+		return ToolExecutionResult.builder()
+			.conversationHistory(conversationHistory)
+			.returnDirect(returnDirect)
+			.build();
+	}
+
+	private void runParallel(List<ToolCall> toolCalls, List<Integer> batch, String[] results) {
+		if (batch.isEmpty()) {
+			return;
+		}
+		if (batch.size() == 1 && !dispatched.containsKey(toolCalls.get(batch.get(0)).id())) {
+			int index = batch.get(0);
+			results[index] = call(toolCalls.get(index), toolLookup.apply(toolCalls.get(index).name()));
+			return;
+		}
+		// Null for the calls the pool rejected
+		List<StartedCall> started = new ArrayList<>(batch.size());
+		for (int index : batch) {
+			ToolCall toolCall = toolCalls.get(index);
+			StartedCall early = dispatched.remove(toolCall.id());
+			if (early != null && early.toolCall().equals(toolCall)) {
+				started.add(early);
+				continue;
+			}
+			if (early != null) {
+				early.future().cancel(true);
+			}
+			started.add(start(toolCall, toolLookup.apply(toolCall.name())));
+		}
+		for (int i = 0; i < batch.size(); i++) {
+			if (started.get(i) != null) {
+				results[batch.get(i)] = await(started.get(i), started);
+			}
+		}
+		for (int i = 0; i < batch.size(); i++) {
+			if (started.get(i) == null) {
+				ToolCall toolCall = toolCalls.get(batch.get(i));
+				log.debug("Tool call pool is saturated, running {} on its own thread", toolCall.name());
+				StartedCall call = startOnOwnThread(toolCall, toolLookup.apply(toolCall.name()));
+				results[batch.get(i)] = await(call, List.of(call));
+			}
+		}
+	}
+
+	/**
+	 * Waits for the result of a started call, for at most the timeout after it started
+	 * running.
+	 */
+	private String await(StartedCall call, List<StartedCall> batch) {
+		Future<String> future = call.future();
+		String name = call.toolCall().name();
+		try {
+			while (true) {
+				long runningSince = call.runningSinceNanos().get();
+				if (runningSince == 0) {
+					// Still queued, the timeout has not started yet
+					try {
+						return future.get(QUEUED_POLL_MILLIS, TimeUnit.MILLISECONDS);
+					}
+					catch (TimeoutException e) {
+						continue;
+					}
+				}
+				long remaining = runningSince + TimeUnit.MILLISECONDS.toNanos(timeoutMillis) - System.nanoTime();
+				return future.get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+			}
+		}
+		catch (TimeoutException e) {
+			future.cancel(true);
+			log.warn("Tool call {} timed out after {} ms", name, timeoutMillis);
+			return "Error: tool " + name + " timed out after " + timeoutMillis + " ms";
+		}
+		catch (ExecutionException e) {
+			return errorMessage(e.getCause());
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			batch.forEach(started -> {
+				if (started != null) {
+					started.future().cancel(true);
+				}
+			});
+			throw new IllegalStateException("Interrupted while executing tool calls", e);
+		}
+	}
+
+	/**
+	 * Submits the call to the pool, or returns null when the pool rejects it.
+	 */
+	private StartedCall start(ToolCall toolCall, ToolCallBackContext context) {
+		AtomicLong runningSince = new AtomicLong();
+		try {
+			Future<String> future = executor.submit(() -> {
+				runningSince.set(System.nanoTime());
+				return call(toolCall, context);
+			});
+			return new StartedCall(toolCall, future, runningSince);
+		}
+		catch (RejectedExecutionException e) {
+			return null;
+		}
+	}
+
+	private StartedCall startOnOwnThread(ToolCall toolCall, ToolCallBackContext context) {
+		AtomicLong runningSince = new AtomicLong(System.nanoTime());
+		FutureTask<String> task = new FutureTask<>(() -> call(toolCall, context));
+		Thread thread = new Thread(task, "tool-call-overflow");
+		thread.setDaemon(true);
+		thread.start();
+		return new StartedCall(toolCall, task, runningSince);
+	}
+
+	private String call(ToolCall toolCall, ToolCallBackContext context) {
+		if (context == null) {
+			return "Error: tool " + toolCall.name() + " is not available";
+		}
+		try {
+			String result = context.getToolCallback().call(toolCall.arguments());
+			return result != null ? result : "";
+		}
+		catch (RuntimeException e) {
+			log.error("Tool call {} failed: {}", toolCall.name(), e.getMessage(), e);
+			return errorMessage(e);
+		}
+	}
+
+	private static String errorMessage(Throwable e) {
+		return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+	}
+
+	private static ExecutorService createSharedExecutor() {
+		AtomicInteger threadNumber = new AtomicInteger();
+		ThreadFactory threadFactory = runnable -> {
+			Thread thread = new Thread(runnable, "tool-call-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 60L, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(QUEUE_CAPACITY), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	// runningSinceNanos is 0 while the call waits in the queue
+	private record StartedCall(ToolCall toolCall, Future<String> future, AtomicLong runningSinceNanos) {
+	}
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.dynamic.agent;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.AssistantMessage.ToolCall;
+import org.springframework.ai.chat.metadata.ChatGenerationMetadata;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Consumes the streamed response of a think step on the calling thread and rebuilds the
+ * complete response from its chunks.
+ * <p>
+ * The text received so far is reported at most once per interval, so partial reasoning
+ * reaches the execution record while the model is still generating. Each tool call is
+ * reported once, as soon as a chunk delivers it with complete JSON arguments, so the
+ * caller can start it before the stream ends.
+ */
+class StreamingThinkAggregator {
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	private final Consumer<String> partialTextListener;
+
+	private final long partialTextIntervalMillis;
+
+	private final Consumer<ToolCall> toolCallListener;
+
+	private final StringBuilder text = new StringBuilder();
+
+	// Keyed by call ID, or by position for providers that omit it
+	private final Map<String, ToolCall> toolCalls = new LinkedHashMap<>();
+
+	private final Set<String> reportedToolCalls = new HashSet<>();
+
+	private ChatResponseMetadata lastMetadata;
+
+	private Usage usage;
+
+	private ChatGenerationMetadata generationMetadata = ChatGenerationMetadata.NULL;
+
+	private long lastReportNanos;
+
+	private int reportedLength;
+
+	StreamingThinkAggregator(Consumer<String> partialTextListener, long partialTextIntervalMillis,
+			Consumer<ToolCall> toolCallListener) {
+		this.partialTextListener = partialTextListener;
+		this.partialTextIntervalMillis = partialTextIntervalMillis;
+		this.toolCallListener = toolCallListener;
+	}
+
+	/**
+	 * Blocks until the stream completes.
+	 * @return the response the blocking call would have returned
+	 */
+	ChatResponse aggregate(Flux<ChatResponse> stream) {
+		for (ChatResponse chunk : stream.toIterable()) {
+			accept(chunk);
+		}
+		ChatResponseMetadata.Builder metadata = ChatResponseMetadata.builder();
+		if (lastMetadata != null) {
+			metadata.id(lastMetadata.getId()).model(lastMetadata.getModel());
+		}
+		if (usage != null) {
+			metadata.usage(usage);
+		}
+		AssistantMessage message = new AssistantMessage(text.toString(), Map.of(), new ArrayList<>(toolCalls.values()));
+		return ChatResponse.builder()
+			.generations(List.of(new Generation(message, generationMetadata)))
+			.metadata(metadata.build())
+			.build();
+	}
+
+	void accept(ChatResponse chunk) {
+		if (chunk == null) {
+			return;
+		}
+		if (chunk.getMetadata() != null) {
+			lastMetadata = chunk.getMetadata();
+			Usage chunkUsage = chunk.getMetadata().getUsage();
+			if (chunkUsage != null && chunkUsage.getTotalTokens() != null && chunkUsage.getTotalTokens() > 0) {
+				usage = chunkUsage;
+			}
+		}
+		Generation generation = chunk.getResult();
+		if (generation == null || generation.getOutput() == null) {
+			// Usage only chunk sent after the last choice
+			return;
+		}
+		if (generation.getMetadata() != null && generation.getMetadata().getFinishReason() != null) {
+			generationMetadata = generation.getMetadata();
+		}
+		AssistantMessage output = generation.getOutput();
+		if (output.getText() != null) {
+			text.append(output.getText());
+		}
+		for (ToolCall toolCall : output.getToolCalls()) {
+			String key = toolCall.id() != null && !toolCall.id().isEmpty() ? toolCall.id() : "#" + toolCalls.size();
+			toolCalls.put(key, toolCall);
+			if (!reportedToolCalls.contains(key) && hasCompleteArguments(toolCall)) {
+				reportedToolCalls.add(key);
+				toolCallListener.accept(toolCall);
+			}
+		}
+		reportPartialText();
+	}
+
+	private void reportPartialText() {
+		long now = System.nanoTime();
+		if (text.length() == reportedLength
+				|| (reportedLength > 0 && now - lastReportNanos < partialTextIntervalMillis * 1_000_000L)) {
+			return;
+		}
+		lastReportNanos = now;
+		reportedLength = text.length();
+		partialTextListener.accept(text.toString());
+	}
+
+	private static boolean hasCompleteArguments(ToolCall toolCall) {
+		String arguments = toolCall.arguments();
+		if (arguments == null || arguments.isBlank()) {
+			return false;
+		}
+		try {
+			return OBJECT_MAPPER.readTree(arguments).isObject();
+		}
+		catch (IOException e) {
+			return false;
+		}
+	}
+
+}
@@ -40,6 +40,11 @@ public class McpServerConfig {
 	@JsonProperty("env")
 	private Map<String, String> env;
 
+	// Opt-in for servers whose tools are read-only or idempotent, so that calls to them
+	// may run in parallel
+	@JsonProperty("parallelToolCalls")
+	private boolean parallelToolCalls;
+
 	public McpServerConfig() {
 		this.env = new HashMap<>();
 	}
@@ -76,6 +81,14 @@ public class McpServerConfig {
 		this.env = env;
 	}
 
+	public boolean isParallelToolCalls() {
+		return parallelToolCalls;
+	}
+
+	public void setParallelToolCalls(boolean parallelToolCalls) {
+		this.parallelToolCalls = parallelToolCalls;
+	}
+
 	/**
 	 * Convert ServerConfig to JSON string
 	 * @return Converted JSON string
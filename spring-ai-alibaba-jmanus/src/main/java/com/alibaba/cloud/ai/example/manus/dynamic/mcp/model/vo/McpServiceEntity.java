@@ -26,6 +26,8 @@ public class McpServiceEntity {
 
 	private String serviceGroup;
 
+	private boolean concurrencySafe;
+
 	/**
 	 * Creates a McpServiceEntity instance
 	 * @param mcpAsyncClient MCP async client
@@ -63,4 +65,16 @@ public class McpServiceEntity {
 		this.serviceGroup = serviceGroup;
 	}
 
+	/**
+	 * Whether calls to the tools of this server may run in parallel, as configured with
+	 * {@code parallelToolCalls} for the server
+	 */
+	public boolean isConcurrencySafe() {
+		return concurrencySafe;
+	}
+
+	public void setConcurrencySafe(boolean concurrencySafe) {
+		this.concurrencySafe = concurrencySafe;
+	}
+
 }
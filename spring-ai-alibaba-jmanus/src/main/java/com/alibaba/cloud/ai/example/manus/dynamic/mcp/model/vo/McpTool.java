@@ -15,6 +15,7 @@
  */
 package com.alibaba.cloud.ai.example.manus.dynamic.mcp.model.vo;
 
+import com.alibaba.cloud.ai.example.manus.dynamic.mcp.service.McpService;
 import com.alibaba.cloud.ai.example.manus.dynamic.mcp.service.McpStateHolderService;
 import com.alibaba.cloud.ai.example.manus.tool.AbstractBaseTool;
 import com.alibaba.cloud.ai.example.manus.tool.code.ToolExecuteResult;
@@ -32,12 +33,18 @@ public class McpTool extends AbstractBaseTool<Map<String, Object>> {
 
 	private McpStateHolderService mcpStateHolderService;
 
+	private McpService mcpService;
+
+	private final boolean concurrencySafe;
+
 	public McpTool(ToolCallback toolCallback, String serviceNameString, String planId,
-			McpStateHolderService mcpStateHolderService) {
+			McpStateHolderService mcpStateHolderService, McpService mcpService, boolean concurrencySafe) {
 		this.toolCallback = toolCallback;
 		this.serviceNameString = serviceNameString;
 		this.currentPlanId = planId;
 		this.mcpStateHolderService = mcpStateHolderService;
+		this.mcpService = mcpService;
+		this.concurrencySafe = concurrencySafe;
 	}
 
 	@Override
@@ -55,6 +62,19 @@ public class McpTool extends AbstractBaseTool<Map<String, Object>> {
 		return toolCallback.getToolDefinition().inputSchema();
 	}
 
+	@Override
+	public String getDefinitionCacheKey() {
+		// The definition comes from the MCP server and is already built
+		return null;
+	}
+
+	@Override
+	public boolean isConcurrencySafe() {
+		// MCP servers may expose tools that write, so parallel calls are only allowed for
+		// servers configured as safe
+		return concurrencySafe;
+	}
+
 	@Override
 	public Class<Map<String, Object>> getInputType() {
 		return (Class<Map<String, Object>>) (Class<?>) Map.class;
@@ -99,6 +119,8 @@ public class McpTool extends AbstractBaseTool<Map<String, Object>> {
 	@Override
 	public void cleanup(String planId) {
 		mcpStateHolderService.removeMcpState(planId);
+		// Release the plan's lease on the shared MCP connections
+		mcpService.close(planId);
 	}
 
 	@Override
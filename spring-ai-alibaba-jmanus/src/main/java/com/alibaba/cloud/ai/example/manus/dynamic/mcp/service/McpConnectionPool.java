@@ -0,0 +1,431 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.dynamic.mcp.service;
+
+import com.alibaba.cloud.ai.example.manus.dynamic.mcp.model.po.McpConfigEntity;
+import com.alibaba.cloud.ai.example.manus.dynamic.mcp.model.vo.McpServiceEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Pool of MCP client connections shared by all plans, keyed by server configuration.
+ * <p>
+ * Connections are opened in the background as soon as a configuration is known, so a plan
+ * acquiring its MCP tools normally finds them already initialized. A plan holds a lease
+ * on the connections it acquired until it is released, or until it has not been used for
+ * the lease timeout. Changing the configuration only retires the connections of servers
+ * that were removed or whose configuration changed; a retired or unhealthy connection
+ * stops being handed out and is closed once no lease references it. A connection that is
+ * not initialized within the connect timeout is treated as unhealthy.
+ */
+class McpConnectionPool implements AutoCloseable {
+
+	private static final Logger logger = LoggerFactory.getLogger(McpConnectionPool.class);
+
+	/**
+	 * Opens and initializes a connection, returning null when the server could not be
+	 * reached.
+	 */
+	@FunctionalInterface
+	interface Connector {
+
+		McpServiceEntity connect(McpConfigEntity config) throws Exception;
+
+	}
+
+	private final Connector connector;
+
+	private final Predicate<McpServiceEntity> healthCheck;
+
+	private final Consumer<McpServiceEntity> closer;
+
+	private final long leaseTimeoutNanos;
+
+	private final long connectTimeoutNanos;
+
+	private final ExecutorService connectExecutor;
+
+	private final ScheduledExecutorService healthCheckScheduler;
+
+	private final Object lock = new Object();
+
+	// Current connection of each configured server, by server name
+	private final Map<String, Connection> connections = new LinkedHashMap<>();
+
+	private final Map<String, Lease> leases = new HashMap<>();
+
+	private boolean closed;
+
+	McpConnectionPool(Connector connector, Predicate<McpServiceEntity> healthCheck, Consumer<McpServiceEntity> closer,
+			Duration leaseTimeout, Duration connectTimeout) {
+		this.connector = connector;
+		this.healthCheck = healthCheck;
+		this.closer = closer;
+		this.leaseTimeoutNanos = leaseTimeout.toNanos();
+		this.connectTimeoutNanos = connectTimeout.toNanos();
+		this.connectExecutor = Executors.newCachedThreadPool(daemonThreads("mcp-connect-"));
+		this.healthCheckScheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("mcp-health-check-"));
+	}
+
+	/**
+	 * Runs {@link #checkHealth()} periodically.
+	 * @param interval Interval between two checks
+	 */
+	void startHealthChecks(Duration interval) {
+		healthCheckScheduler.scheduleWithFixedDelay(() -> {
+			try {
+				checkHealth();
+			}
+			catch (RuntimeException e) {
+				logger.error("MCP connection health check failed", e);
+			}
+		}, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Aligns the pool with the given server configurations. Servers whose configuration
+	 * is unchanged keep their connection; new and changed servers are connected in the
+	 * background and connections of removed or changed servers are retired.
+	 * @param configs Current MCP server configurations
+	 */
+	void refresh(List<McpConfigEntity> configs) {
+		Map<String, McpConfigEntity> desired = new LinkedHashMap<>();
+		for (McpConfigEntity config : configs) {
+			if (config.getMcpServerName() == null || config.getMcpServerName().trim().isEmpty()) {
+				logger.error("Skipping MCP server configuration without a name: {}", config);
+				continue;
+			}
+			desired.put(config.getMcpServerName(), config);
+		}
+		synchronized (lock) {
+			if (closed) {
+				return;
+			}
+			Iterator<Connection> iterator = connections.values().iterator();
+			while (iterator.hasNext()) {
+				Connection connection = iterator.next();
+				McpConfigEntity config = desired.get(connection.serverName);
+				if (config == null || !connection.key.equals(key(config))) {
+					logger.info("MCP server {} was {}, retiring its connection", connection.serverName,
+							config == null ? "removed" : "reconfigured");
+					iterator.remove();
+					retire(connection);
+				}
+			}
+			for (McpConfigEntity config : desired.values()) {
+				if (!connections.containsKey(config.getMcpServerName())) {
+					open(config);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the connections a plan may use, waiting only for connections that are still
+	 * being initialized, and for each of them at most until its connect timeout. Repeated
+	 * calls for the same plan return the same connections as long as they are in service
+	 * and no other server became available.
+	 * @param planId Plan ID holding the lease
+	 * @return Initialized connections
+	 */
+	List<McpServiceEntity> acquire(String planId) {
+		List<Connection> candidates;
+		synchronized (lock) {
+			Lease lease = leases.get(planId);
+			if (lease != null && isCurrent(lease)) {
+				lease.lastAccess = System.nanoTime();
+				return lease.entities();
+			}
+			candidates = new ArrayList<>(connections.values());
+		}
+		for (Connection connection : candidates) {
+			// Normally already complete, connections are opened when configured
+			awaitReady(connection);
+		}
+		synchronized (lock) {
+			Lease previous = leases.remove(planId);
+			Lease lease = new Lease();
+			for (Connection connection : candidates) {
+				if (isUsable(connection)) {
+					connection.refCount++;
+					lease.connections.add(connection);
+				}
+			}
+			leases.put(planId, lease);
+			if (previous != null) {
+				previous.connections.forEach(this::dereference);
+			}
+			return lease.entities();
+		}
+	}
+
+	/**
+	 * Releases the lease of a plan.
+	 * @param planId Plan ID
+	 */
+	void release(String planId) {
+		synchronized (lock) {
+			Lease lease = leases.remove(planId);
+			if (lease != null) {
+				lease.connections.forEach(this::dereference);
+			}
+		}
+	}
+
+	/**
+	 * Expires idle leases, replaces connections that fail their health check and retries
+	 * servers that could not be connected.
+	 */
+	void checkHealth() {
+		List<Connection> toCheck = new ArrayList<>();
+		synchronized (lock) {
+			if (closed) {
+				return;
+			}
+			long now = System.nanoTime();
+			Iterator<Map.Entry<String, Lease>> leaseIterator = leases.entrySet().iterator();
+			while (leaseIterator.hasNext()) {
+				Map.Entry<String, Lease> entry = leaseIterator.next();
+				if (now - entry.getValue().lastAccess > leaseTimeoutNanos) {
+					logger.debug("Expiring idle MCP lease of plan {}", entry.getKey());
+					leaseIterator.remove();
+					entry.getValue().connections.forEach(this::dereference);
+				}
+			}
+			for (Connection connection : new ArrayList<>(connections.values())) {
+				if (!connection.ready.isDone()) {
+					// Same deadline as awaitReady, so a connection an acquire gave up
+					// on is always replaced
+					if (now - connection.openedAt >= connectTimeoutNanos) {
+						logger.warn("MCP server {} did not connect within {} ms, reconnecting", connection.serverName,
+								TimeUnit.NANOSECONDS.toMillis(connectTimeoutNanos));
+						connections.remove(connection.serverName);
+						retire(connection);
+						open(connection.config);
+					}
+					continue;
+				}
+				if (connection.ready.getNow(null) == null) {
+					logger.info("Retrying connection to MCP server {}", connection.serverName);
+					connections.remove(connection.serverName);
+					open(connection.config);
+				}
+				else {
+					toCheck.add(connection);
+				}
+			}
+		}
+		for (Connection connection : toCheck) {
+			boolean healthy;
+			try {
+				healthy = healthCheck.test(connection.ready.getNow(null));
+			}
+			catch (RuntimeException e) {
+				healthy = false;
+			}
+			if (!healthy) {
+				synchronized (lock) {
+					if (!closed && connections.get(connection.serverName) == connection) {
+						logger.warn("MCP server {} failed its health check, reconnecting", connection.serverName);
+						connections.remove(connection.serverName);
+						retire(connection);
+						open(connection.config);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of leases referencing the current connection of a server, or -1
+	 * if the server has no connection.
+	 */
+	int referenceCount(String serverName) {
+		synchronized (lock) {
+			Connection connection = connections.get(serverName);
+			return connection == null ? -1 : connection.refCount;
+		}
+	}
+
+	@Override
+	public void close() {
+		List<Connection> toClose;
+		synchronized (lock) {
+			closed = true;
+			toClose = new ArrayList<>(connections.values());
+			connections.clear();
+			leases.clear();
+		}
+		healthCheckScheduler.shutdownNow();
+		toClose.forEach(connection -> connection.ready.thenAccept(this::closeQuietly));
+		connectExecutor.shutdown();
+	}
+
+	// Must hold the lock. A lease stays current while none of its connections was
+	// replaced and no server it lacks has become usable since, so replacing one server
+	// only renews the leases that depend on it.
+	private boolean isCurrent(Lease lease) {
+		for (Connection connection : lease.connections) {
+			if (connection.retired) {
+				return false;
+			}
+		}
+		for (Connection connection : connections.values()) {
+			if (isUsable(connection) && !lease.connections.contains(connection)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// Must hold the lock
+	private static boolean isUsable(Connection connection) {
+		return !connection.retired && connection.ready.getNow(null) != null;
+	}
+
+	private void awaitReady(Connection connection) {
+		long remaining = connection.openedAt + connectTimeoutNanos - System.nanoTime();
+		try {
+			connection.ready.get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+		}
+		catch (TimeoutException e) {
+			// Left out of the lease, the health check replaces it
+			logger.warn("MCP server {} is not connected yet, continuing without it", connection.serverName);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		catch (ExecutionException e) {
+			// The connector reports failures as null, nothing to do
+		}
+	}
+
+	// Must hold the lock
+	private void open(McpConfigEntity config) {
+		Connection connection = new Connection(config);
+		connections.put(connection.serverName, connection);
+		connection.ready.completeAsync(() -> {
+			try {
+				return connector.connect(config);
+			}
+			catch (Exception e) {
+				logger.error("Failed to connect to MCP server {}", connection.serverName, e);
+				return null;
+			}
+		}, connectExecutor);
+	}
+
+	// Must hold the lock
+	private void retire(Connection connection) {
+		connection.retired = true;
+		if (connection.refCount == 0) {
+			connection.ready.thenAccept(this::closeQuietly);
+		}
+	}
+
+	// Must hold the lock
+	private void dereference(Connection connection) {
+		connection.refCount--;
+		if (connection.retired && connection.refCount == 0) {
+			connection.ready.thenAccept(this::closeQuietly);
+		}
+	}
+
+	private void closeQuietly(McpServiceEntity entity) {
+		if (entity == null) {
+			return;
+		}
+		try {
+			closer.accept(entity);
+		}
+		catch (RuntimeException e) {
+			logger.error("Failed to close MCP client of {}", entity.getServiceGroup(), e);
+		}
+	}
+
+	private static String key(McpConfigEntity config) {
+		return config.getMcpServerName() + '|' + config.getConnectionType() + '|' + config.getConnectionConfig();
+	}
+
+	private static ThreadFactory daemonThreads(String prefix) {
+		AtomicInteger count = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	private static final class Connection {
+
+		private final String serverName;
+
+		private final String key;
+
+		private final McpConfigEntity config;
+
+		private final CompletableFuture<McpServiceEntity> ready = new CompletableFuture<>();
+
+		private final long openedAt = System.nanoTime();
+
+		private int refCount;
+
+		private boolean retired;
+
+		Connection(McpConfigEntity config) {
+			this.serverName = config.getMcpServerName();
+			this.key = key(config);
+			this.config = config;
+		}
+
+	}
+
+	private static final class Lease {
+
+		private final List<Connection> connections = new ArrayList<>();
+
+		private long lastAccess = System.nanoTime();
+
+		List<McpServiceEntity> entities() {
+			return connections.stream()
+				.map(connection -> connection.ready.getNow(null))
+				.filter(Objects::nonNull)
+				.toList();
+		}
+
+	}
+
+}
@@ -24,10 +24,6 @@ import com.alibaba.cloud.ai.example.manus.dynamic.mcp.model.vo.McpServiceEntity;
 import com.alibaba.cloud.ai.example.manus.dynamic.mcp.repository.McpConfigRepository;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
-import com.google.common.cache.RemovalListener;
 import io.modelcontextprotocol.client.McpAsyncClient;
 import io.modelcontextprotocol.client.McpClient;
 import io.modelcontextprotocol.client.transport.ServerParameters;
@@ -35,10 +31,14 @@ import io.modelcontextprotocol.client.transport.StdioClientTransport;
 import io.modelcontextprotocol.client.transport.WebFluxSseClientTransport;
 import io.modelcontextprotocol.spec.McpClientTransport;
 import io.modelcontextprotocol.spec.McpSchema;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.mcp.AsyncMcpToolCallbackProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 
@@ -48,111 +48,104 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Component
 public class McpService {
 
 	private static final Logger logger = LoggerFactory.getLogger(McpService.class);
 
+	/**
+	 * Plans that have not used their MCP tools for this long release their connections
+	 */
+	private static final Duration LEASE_TIMEOUT = Duration.ofMinutes(10);
+
+	private static final Duration HEALTH_CHECK_INTERVAL = Duration.ofSeconds(60);
+
+	private static final Duration HEALTH_CHECK_TIMEOUT = Duration.ofSeconds(10);
+
+	/**
+	 * Connections not initialized within this time are treated as unhealthy
+	 */
+	private static final Duration CONNECT_TIMEOUT = Duration.ofMinutes(2);
+
 	@Autowired
 	private McpConfigRepository mcpConfigRepository;
 
-	private final LoadingCache<String, Map<String, McpServiceEntity>> toolCallbackMapCache = CacheBuilder.newBuilder()
-		.expireAfterAccess(10, TimeUnit.MINUTES)
-		.removalListener((RemovalListener<String, Map<String, McpServiceEntity>>) notification -> {
-			Map<String, McpServiceEntity> mcpServiceEntityMap = notification.getValue();
-			if (mcpServiceEntityMap == null) {
-				return;
-			}
-			for (McpServiceEntity mcpServiceEntity : mcpServiceEntityMap.values()) {
-				try {
-					mcpServiceEntity.getMcpAsyncClient().close();
-				}
-				catch (Throwable t) {
-					logger.error("Failed to close MCP client", t);
-				}
-			}
-		})
-		.build(new CacheLoader<>() {
-			@Override
-			public Map<String, McpServiceEntity> load(String key) throws Exception {
-				return loadMcpServices(mcpConfigRepository.findAll());
-			}
-		});
+	// Connections shared by all plans, opened when the configuration is loaded
+	private final McpConnectionPool connectionPool = new McpConnectionPool(this::createConnection, this::isHealthy,
+			this::closeClient, LEASE_TIMEOUT, CONNECT_TIMEOUT);
 
-	private Map<String, McpServiceEntity> loadMcpServices(List<McpConfigEntity> mcpConfigEntities) throws IOException {
-		Map<String, McpServiceEntity> toolCallbackMap = new ConcurrentHashMap<>();
+	private final AtomicBoolean poolInitialized = new AtomicBoolean();
 
-		if (mcpConfigEntities == null || mcpConfigEntities.isEmpty()) {
-			logger.info("No MCP server configurations found");
-			return toolCallbackMap;
-		}
+	@PostConstruct
+	public void startHealthChecks() {
+		connectionPool.startHealthChecks(HEALTH_CHECK_INTERVAL);
+	}
 
-		logger.info("Loading {} MCP server configurations", mcpConfigEntities.size());
+	/**
+	 * Starts connecting to the configured MCP servers in the background once the
+	 * application is up, so that the first plan does not wait for the handshakes.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void preInitialize() {
+		refreshConnections();
+	}
 
-		for (McpConfigEntity mcpConfigEntity : mcpConfigEntities) {
-			String serverName = mcpConfigEntity.getMcpServerName();
+	@PreDestroy
+	public void destroy() {
+		connectionPool.close();
+	}
 
-			try {
-				// Validate basic configuration
-				if (mcpConfigEntity.getConnectionType() == null) {
-					logger.error("Connection type is required for server: {}", serverName);
-					throw new IOException("Connection type is required for server: " + serverName);
-				}
+	private void refreshConnections() {
+		poolInitialized.set(true);
+		connectionPool.refresh(mcpConfigRepository.findAll());
+	}
 
-				if (serverName == null || serverName.trim().isEmpty()) {
-					logger.error("Server name is required");
-					throw new IOException("Server name is required");
-				}
+	private McpServiceEntity createConnection(McpConfigEntity mcpConfigEntity) throws IOException {
+		String serverName = mcpConfigEntity.getMcpServerName();
 
-				McpConfigType type = mcpConfigEntity.getConnectionType();
-				logger.debug("Processing MCP server: {} with type: {}", serverName, type);
+		// Validate basic configuration
+		if (mcpConfigEntity.getConnectionType() == null) {
+			logger.error("Connection type is required for server: {}", serverName);
+			throw new IOException("Connection type is required for server: " + serverName);
+		}
 
-				McpServiceEntity mcpServiceEntity = null;
+		McpConfigType type = mcpConfigEntity.getConnectionType();
+		logger.debug("Processing MCP server: {} with type: {}", serverName, type);
 
-				switch (type) {
-					case SSE -> {
-						mcpServiceEntity = createSseConnection(mcpConfigEntity, serverName);
-					}
-					case STUDIO -> {
-						mcpServiceEntity = createStudioConnection(mcpConfigEntity, serverName);
-					}
-					case STREAMING -> {
-						logger.warn("STREAMING connection type is not fully implemented yet for server: {}",
-								serverName);
-						throw new UnsupportedOperationException(
-								"STREAMING connection type is not supported yet for server: " + serverName);
-					}
-					default -> {
-						logger.error("Unsupported connection type: {} for server: {}", type, serverName);
-						throw new IOException("Unsupported connection type: " + type + " for server: " + serverName);
-					}
-				}
+		McpServiceEntity mcpServiceEntity = switch (type) {
+			case SSE -> createSseConnection(mcpConfigEntity, serverName);
+			case STUDIO -> createStudioConnection(mcpConfigEntity, serverName);
+			case STREAMING -> {
+				logger.warn("STREAMING connection type is not fully implemented yet for server: {}", serverName);
+				throw new UnsupportedOperationException(
+						"STREAMING connection type is not supported yet for server: " + serverName);
+			}
+		};
 
-				if (mcpServiceEntity != null) {
-					toolCallbackMap.put(serverName, mcpServiceEntity);
-					logger.info("Successfully loaded MCP server: {} with type: {}", serverName, type);
-				}
-				else {
-					logger.warn("Failed to create MCP service entity for server: {}", serverName);
-				}
+		if (mcpServiceEntity != null) {
+			logger.info("Successfully loaded MCP server: {} with type: {}", serverName, type);
+		}
+		else {
+			logger.warn("Failed to create MCP service entity for server: {}", serverName);
+		}
+		return mcpServiceEntity;
+	}
 
-			}
-			catch (Exception e) {
-				logger.error("Failed to load MCP server configuration for: {}, error: {}", serverName, e.getMessage(),
-						e);
-				// Decide whether to continue processing other servers or throw exception
-				// based on requirements
-				// Here we choose to continue processing other servers but log the error
-				// If strict mode is needed, uncomment the line below
-				// throw new IOException("Failed to load MCP server: " + serverName, e);
-			}
+	private boolean isHealthy(McpServiceEntity mcpServiceEntity) {
+		try {
+			mcpServiceEntity.getMcpAsyncClient().ping().block(HEALTH_CHECK_TIMEOUT);
+			return true;
+		}
+		catch (Exception e) {
+			logger.debug("MCP server {} did not answer ping: {}", mcpServiceEntity.getServiceGroup(), e.getMessage());
+			return false;
 		}
+	}
 
-		logger.info("Successfully loaded {} out of {} MCP servers", toolCallbackMap.size(), mcpConfigEntities.size());
-		return toolCallbackMap;
+	private void closeClient(McpServiceEntity mcpServiceEntity) {
+		mcpServiceEntity.getMcpAsyncClient().close();
 	}
 
 	private McpServiceEntity createSseConnection(McpConfigEntity mcpConfigEntity, String serverName)
@@ -217,7 +210,9 @@ public class McpService {
 			else {
 				transport = new WebFluxSseClientTransport(webClientBuilder, new ObjectMapper());
 			}
-			return configureMcpTransport(serverName, transport);
+			McpServiceEntity mcpServiceEntity = configureMcpTransport(serverName, transport);
+			mcpServiceEntity.setConcurrencySafe(mcpServerConfig.isParallelToolCalls());
+			return mcpServiceEntity;
 
 		}
 		catch (Exception e) {
@@ -266,6 +261,7 @@ public class McpService {
 
 			// Configure MCP client
 			McpServiceEntity mcpServiceEntity = configureMcpTransport(serverName, transport);
+			mcpServiceEntity.setConcurrencySafe(mcpServerConfig.isParallelToolCalls());
 			logger.info("STUDIO MCP Client configured successfully for server: {}", serverName);
 			return mcpServiceEntity;
 
@@ -292,7 +288,7 @@ public class McpService {
 				try {
 					logger.debug("Attempting to initialize MCP transport for: {} (attempt {}/{})", mcpServerName,
 							attempt, maxRetries);
-					mcpAsyncClient.initialize().block(Duration.ofMinutes(2));
+					mcpAsyncClient.initialize().block(CONNECT_TIMEOUT);
 					logger.info("MCP transport configured successfully for: {} (attempt {})", mcpServerName, attempt);
 
 					AsyncMcpToolCallbackProvider callbackProvider = new AsyncMcpToolCallbackProvider(mcpAsyncClient);
@@ -327,7 +323,7 @@ public class McpService {
 
 	public void addMcpServer(McpConfigRequestVO mcpConfig) throws IOException {
 		insertOrUpdateMcpRepo(mcpConfig);
-		toolCallbackMapCache.invalidateAll();
+		refreshConnections();
 	}
 
 	public List<McpConfigEntity> insertOrUpdateMcpRepo(McpConfigRequestVO mcpConfigVO) throws IOException {
@@ -413,17 +409,25 @@ public class McpService {
 		}
 
 		mcpConfigRepository.delete(mcpConfig);
-		toolCallbackMapCache.invalidateAll();
+		refreshConnections();
 	}
 
 	public List<McpConfigEntity> getMcpServers() {
 		return mcpConfigRepository.findAll();
 	}
 
+	/**
+	 * Get the MCP services a plan can use. The plan holds on to the shared connections
+	 * until {@link #close(String)} is called for it.
+	 * @param planId Plan ID
+	 * @return MCP services of the servers that could be connected
+	 */
 	public List<McpServiceEntity> getFunctionCallbacks(String planId) {
 		try {
-			return new ArrayList<>(
-					this.toolCallbackMapCache.get(Optional.ofNullable(planId).orElse("DEFAULT")).values());
+			if (!poolInitialized.get()) {
+				refreshConnections();
+			}
+			return new ArrayList<>(connectionPool.acquire(Optional.ofNullable(planId).orElse("DEFAULT")));
 		}
 		catch (Throwable t) {
 			logger.error("Failed to get function callbacks for plan: {}", planId, t);
@@ -431,8 +435,13 @@ public class McpService {
 		}
 	}
 
+	/**
+	 * Release the MCP connections held by a plan. The connections stay open for other
+	 * plans.
+	 * @param planId Plan ID
+	 */
 	public void close(String planId) {
-		toolCallbackMapCache.invalidate(Optional.ofNullable(planId).orElse("DEFAULT"));
+		connectionPool.release(Optional.ofNullable(planId).orElse("DEFAULT"));
 	}
 
 }
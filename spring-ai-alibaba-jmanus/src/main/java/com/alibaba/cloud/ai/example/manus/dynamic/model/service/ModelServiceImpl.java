@@ -21,9 +21,11 @@ import com.alibaba.cloud.ai.example.manus.dynamic.agent.repository.DynamicAgentR
 import com.alibaba.cloud.ai.example.manus.dynamic.model.entity.DynamicModelEntity;
 import com.alibaba.cloud.ai.example.manus.dynamic.model.model.vo.ModelConfig;
 import com.alibaba.cloud.ai.example.manus.dynamic.model.repository.DynamicModelRepository;
+import com.alibaba.cloud.ai.example.manus.llm.LlmService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -38,6 +40,10 @@ public class ModelServiceImpl implements ModelService {
 
 	private final DynamicAgentRepository agentRepository;
 
+	@Autowired
+	@Lazy
+	private LlmService llmService;
+
 	@Autowired
 	public ModelServiceImpl(DynamicModelRepository repository, DynamicAgentRepository agentRepository) {
 		this.repository = repository;
@@ -93,8 +99,12 @@ public class ModelServiceImpl implements ModelService {
 	public ModelConfig updateModel(ModelConfig config) {
 		DynamicModelEntity entity = repository.findById(config.getId())
 			.orElseThrow(() -> new IllegalArgumentException("Model not found: " + config.getId()));
+		String previousBaseUrl = entity.getBaseUrl();
+		String previousModelName = entity.getModelName();
 		updateEntityFromConfig(entity, config);
 		entity = repository.save(entity);
+		// Agents pick up the changed model on their next step
+		llmService.evictDynamicChatClient(previousBaseUrl, previousModelName);
 		return entity.mapToModelConfig();
 	}
 
@@ -106,6 +116,8 @@ public class ModelServiceImpl implements ModelService {
 			allByModel.forEach(dynamicAgentEntity -> dynamicAgentEntity.setModel(null));
 			agentRepository.saveAll(allByModel);
 		}
+		repository.findById(Long.parseLong(id))
+			.ifPresent(model -> llmService.evictDynamicChatClient(model.getBaseUrl(), model.getModelName()));
 		repository.deleteById(Long.parseLong(id));
 	}
 
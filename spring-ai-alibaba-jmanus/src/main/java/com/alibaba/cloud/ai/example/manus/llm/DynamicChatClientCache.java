@@ -0,0 +1,191 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.llm;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.ManagedHttpClientConnectionFactory;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
+import org.springframework.ai.openai.OpenAiChatModel;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chat clients of the models configured at runtime, shared by all agent steps.
+ * <p>
+ * A client is created once per base URL, API key and model name and reused until the
+ * model is changed. All clients send their requests through one pooled HTTP client, so
+ * consecutive steps reuse open TCP/TLS connections instead of connecting again. The
+ * {@code jmanus.llm.http.connections.opened} and {@code jmanus.llm.http.requests}
+ * counters show how often a request had to open a new connection.
+ */
+final class DynamicChatClientCache implements AutoCloseable {
+
+	private static final Logger log = LoggerFactory.getLogger(DynamicChatClientCache.class);
+
+	private static final Timeout CONNECT_TIMEOUT = Timeout.ofSeconds(30);
+
+	// Model responses can take minutes, same limit as the default RestClient
+	private static final Timeout RESPONSE_TIMEOUT = Timeout.ofMinutes(10);
+
+	// Providers close idle connections after about a minute, check them before reuse
+	private static final TimeValue VALIDATE_AFTER_INACTIVITY = TimeValue.ofSeconds(2);
+
+	private static final TimeValue EVICT_IDLE_AFTER = TimeValue.ofSeconds(30);
+
+	/**
+	 * Identifies a client; the API key is only kept as a hash.
+	 */
+	record Key(String baseUrl, String apiKeyHash, String modelName) {
+	}
+
+	private final Map<Key, ChatClient> clients = new ConcurrentHashMap<>();
+
+	private final PoolingHttpClientConnectionManager connectionManager;
+
+	private final CloseableHttpClient httpClient;
+
+	private final ClientHttpRequestFactory requestFactory;
+
+	private final Counter openedConnections;
+
+	private final Counter requests;
+
+	DynamicChatClientCache(int maxConnections, int maxConnectionsPerRoute, MeterRegistry meterRegistry) {
+		this.openedConnections = Counter.builder("jmanus.llm.http.connections.opened")
+			.description("Connections opened to dynamic model endpoints")
+			.register(meterRegistry);
+		this.requests = Counter.builder("jmanus.llm.http.requests")
+			.description("Requests sent to dynamic model endpoints")
+			.register(meterRegistry);
+		this.connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+			.setMaxConnTotal(maxConnections)
+			.setMaxConnPerRoute(maxConnectionsPerRoute)
+			.setDefaultConnectionConfig(ConnectionConfig.custom()
+				.setConnectTimeout(CONNECT_TIMEOUT)
+				.setSocketTimeout(RESPONSE_TIMEOUT)
+				.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY)
+				.build())
+			.setConnectionFactory(socket -> {
+				openedConnections.increment();
+				return ManagedHttpClientConnectionFactory.INSTANCE.createConnection(socket);
+			})
+			.build();
+		this.httpClient = HttpClients.custom()
+			.setConnectionManager(connectionManager)
+			.evictIdleConnections(EVICT_IDLE_AFTER)
+			.build();
+		this.requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+
+		Gauge.builder("jmanus.llm.http.connections.leased", connectionManager, m -> m.getTotalStats().getLeased())
+			.register(meterRegistry);
+		Gauge.builder("jmanus.llm.http.connections.available", connectionManager, m -> m.getTotalStats().getAvailable())
+			.register(meterRegistry);
+		Gauge.builder("jmanus.llm.clients.cached", clients, Map::size).register(meterRegistry);
+	}
+
+	/**
+	 * Returns the client of a model, creating it on first use.
+	 */
+	ChatClient get(String baseUrl, String apiKey, String modelName) {
+		return clients.computeIfAbsent(new Key(baseUrl, hash(apiKey), modelName),
+				key -> create(baseUrl, apiKey, modelName));
+	}
+
+	/**
+	 * Drops the clients of a model whatever their API key, the next use creates a new
+	 * one.
+	 */
+	void evict(String baseUrl, String modelName) {
+		if (clients.keySet()
+			.removeIf(key -> Objects.equals(key.baseUrl(), baseUrl) && Objects.equals(key.modelName(), modelName))) {
+			log.info("Evicted cached chat clients of model {} at {}", modelName, baseUrl);
+		}
+	}
+
+	int size() {
+		return clients.size();
+	}
+
+	@Override
+	public void close() {
+		clients.clear();
+		httpClient.close(CloseMode.GRACEFUL);
+	}
+
+	private ChatClient create(String baseUrl, String apiKey, String modelName) {
+		log.info("Creating chat client of model {} at {}", modelName, baseUrl);
+		RestClient.Builder restClientBuilder = RestClient.builder()
+			.requestFactory(requestFactory)
+			.requestInterceptor((request, body, execution) -> {
+				requests.increment();
+				return execution.execute(request, body);
+			});
+		OpenAiApi openAiApi = OpenAiApi.builder()
+			.baseUrl(baseUrl)
+			.apiKey(apiKey)
+			.restClientBuilder(restClientBuilder)
+			.build();
+
+		OpenAiChatOptions chatOptions = OpenAiChatOptions.builder().model(modelName).build();
+
+		OpenAiChatModel openAiChatModel = OpenAiChatModel.builder()
+			.openAiApi(openAiApi)
+			.defaultOptions(chatOptions)
+			.build();
+		return ChatClient.builder(openAiChatModel)
+			.defaultAdvisors(new SimpleLoggerAdvisor())
+			.defaultOptions(OpenAiChatOptions.builder().internalToolExecutionEnabled(false).build())
+			.build();
+	}
+
+	private static String hash(String apiKey) {
+		if (apiKey == null) {
+			return null;
+		}
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(apiKey.getBytes(StandardCharsets.UTF_8));
+			return HexFormat.of().formatHex(digest);
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
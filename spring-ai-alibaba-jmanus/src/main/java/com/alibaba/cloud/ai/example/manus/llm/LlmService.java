@@ -15,18 +15,32 @@
  */
 package com.alibaba.cloud.ai.example.manus.llm;
 
+import com.alibaba.cloud.ai.example.manus.config.ManusProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
 import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.chat.memory.MessageWindowChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
 import org.springframework.ai.chat.model.ChatModel;
-import org.springframework.ai.openai.OpenAiChatModel;
 import org.springframework.ai.openai.OpenAiChatOptions;
-import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 @Service
 public class LlmService {
 
@@ -40,13 +54,35 @@ public class LlmService {
 
 	private ChatMemory conversationMemory;
 
-	private ChatMemory agentMemory;
+	private volatile ChatMemory agentMemory;
+
+	// Summarizes old agent memory turns off the agent threads
+	private final ExecutorService memoryCompactionExecutor;
+
+	private static final int MAX_SUMMARIZED_RESULT_CHARACTERS = 4000;
+
+	private static final String MEMORY_SUMMARY_PROMPT = """
+			You compress the working memory of an agent that executes one step of a plan with tools.
+			Write a concise summary of the earlier summary and the messages below, so that the agent can continue
+			its work without them. Keep every fact, result, identifier, file name, URL and error the agent may
+			still need, and which tool calls were already made with which outcome. Do not add anything else.
+			""";
 
 	private final ChatModel chatModel;
 
-	public LlmService(ChatModel chatModel) {
+	private final ManusProperties manusProperties;
+
+	private final MeterRegistry meterRegistry;
+
+	// Created on first use, the pool size is read from the configuration
+	private volatile DynamicChatClientCache dynamicChatClients;
+
+	public LlmService(ChatModel chatModel, ManusProperties manusProperties,
+			ObjectProvider<MeterRegistry> meterRegistry) {
 
 		this.chatModel = chatModel;
+		this.manusProperties = manusProperties;
+		this.meterRegistry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
 		// Execute and summarize planning, use the same memory
 		this.planningChatClient = ChatClient.builder(chatModel)
 			.defaultAdvisors(new SimpleLoggerAdvisor())
@@ -66,37 +102,123 @@ public class LlmService {
 			.defaultAdvisors(new SimpleLoggerAdvisor())
 			.build();
 
+		AtomicInteger compactionThreads = new AtomicInteger();
+		this.memoryCompactionExecutor = new ThreadPoolExecutor(2, 2, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+				runnable -> {
+					Thread thread = new Thread(runnable,
+							"agent-memory-compaction-" + compactionThreads.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+
 	}
 
 	public ChatClient getAgentChatClient() {
 		return agentExecutionClient;
 	}
 
+	/**
+	 * Get the chat client of a model configured at runtime. Clients are cached and share
+	 * one HTTP connection pool.
+	 */
 	public ChatClient getDynamicChatClient(String host, String apiKey, String modelName) {
-		OpenAiApi openAiApi = OpenAiApi.builder().baseUrl(host).apiKey(apiKey).build();
+		return dynamicChatClients().get(host, apiKey, modelName);
+	}
 
-		OpenAiChatOptions chatOptions = OpenAiChatOptions.builder().model(modelName).build();
+	/**
+	 * Drop the cached chat clients of a model after it was changed or deleted
+	 */
+	public void evictDynamicChatClient(String host, String modelName) {
+		DynamicChatClientCache cache = dynamicChatClients;
+		if (cache != null) {
+			cache.evict(host, modelName);
+		}
+	}
 
-		OpenAiChatModel openAiChatModel = OpenAiChatModel.builder()
-			.openAiApi(openAiApi)
-			.defaultOptions(chatOptions)
-			.build();
-		return ChatClient.builder(openAiChatModel)
-			// .defaultAdvisors(MessageChatMemoryAdvisor.builder(agentMemory).build())
-			.defaultAdvisors(new SimpleLoggerAdvisor())
-			.defaultOptions(OpenAiChatOptions.builder().internalToolExecutionEnabled(false).build())
-			.build();
+	private DynamicChatClientCache dynamicChatClients() {
+		DynamicChatClientCache cache = dynamicChatClients;
+		if (cache == null) {
+			synchronized (this) {
+				cache = dynamicChatClients;
+				if (cache == null) {
+					cache = new DynamicChatClientCache(manusProperties.getLlmMaxConnections(),
+							manusProperties.getLlmMaxConnectionsPerRoute(), meterRegistry);
+					dynamicChatClients = cache;
+				}
+			}
+		}
+		return cache;
+	}
+
+	@PreDestroy
+	public void destroy() {
+		DynamicChatClientCache cache = dynamicChatClients;
+		if (cache != null) {
+			cache.close();
+		}
+		memoryCompactionExecutor.shutdownNow();
 	}
 
+	/**
+	 * Get the agent memory, shared by all plans and keyed by plan ID. It keeps the
+	 * messages of a plan within the configured token budget and summarizes older steps.
+	 */
 	public ChatMemory getAgentMemory(Integer maxMessages) {
-		if (agentMemory == null) {
-			agentMemory = MessageWindowChatMemory.builder().maxMessages(maxMessages).build();
+		ChatMemory memory = agentMemory;
+		if (memory == null) {
+			synchronized (this) {
+				memory = agentMemory;
+				if (memory == null) {
+					memory = new TokenBudgetChatMemory(new JTokkitTokenCountEstimator(),
+							manusProperties::getAgentMemoryMaxTokens, maxMessages, this::summarizeAgentMemory,
+							memoryCompactionExecutor);
+					agentMemory = memory;
+				}
+			}
 		}
-		return agentMemory;
+		return memory;
 	}
 
 	public void clearAgentMemory(String planId) {
-		this.agentMemory.clear(planId);
+		ChatMemory memory = agentMemory;
+		if (memory != null) {
+			memory.clear(planId);
+		}
+	}
+
+	private String summarizeAgentMemory(String previousSummary, List<Message> messages) {
+		StringBuilder content = new StringBuilder();
+		if (previousSummary != null) {
+			content.append("Earlier summary:\n").append(previousSummary).append("\n\n");
+		}
+		content.append("Messages:\n");
+		for (Message message : messages) {
+			if (message instanceof ToolResponseMessage toolResponseMessage) {
+				for (ToolResponseMessage.ToolResponse response : toolResponseMessage.getResponses()) {
+					String data = response.responseData() == null ? "" : response.responseData();
+					if (data.length() > MAX_SUMMARIZED_RESULT_CHARACTERS) {
+						data = data.substring(0, MAX_SUMMARIZED_RESULT_CHARACTERS) + "...(truncated)";
+					}
+					content.append("[tool result ").append(response.name()).append("] ").append(data).append("\n");
+				}
+				continue;
+			}
+			content.append('[').append(message.getMessageType().getValue()).append("] ");
+			if (message.getText() != null) {
+				content.append(message.getText());
+			}
+			if (message instanceof AssistantMessage assistantMessage && assistantMessage.hasToolCalls()) {
+				for (AssistantMessage.ToolCall toolCall : assistantMessage.getToolCalls()) {
+					content.append(" [tool call ")
+						.append(toolCall.name())
+						.append(' ')
+						.append(toolCall.arguments())
+						.append(']');
+				}
+			}
+			content.append("\n");
+		}
+		return agentExecutionClient.prompt().system(MEMORY_SUMMARY_PROMPT).user(content.toString()).call().content();
 	}
 
 	public ChatClient getPlanningChatClient() {
@@ -0,0 +1,296 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.llm;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.IntSupplier;
+
+/**
+ * Agent memory of each plan, bounded by a token budget.
+ * <p>
+ * Every {@link #add(String, List)} call appends one turn, such as an assistant message
+ * with its tool calls followed by the tool responses. Turns are kept or dropped as a
+ * whole, so a tool response never loses its tool call. Token counts are estimated once,
+ * when a turn is added.
+ * <p>
+ * {@link #get(String)} returns the most recent turns that fit into the budget, after the
+ * summary of older turns if there is one. Once a plan uses more than
+ * {@value #COMPACT_THRESHOLD_PERCENT}% of the budget, its oldest turns are summarized in
+ * the background and replaced by the summary, so later prompts carry a short summary
+ * instead of the full history.
+ */
+public class TokenBudgetChatMemory implements ChatMemory {
+
+	private static final Logger log = LoggerFactory.getLogger(TokenBudgetChatMemory.class);
+
+	/**
+	 * Tokens each message adds to a prompt besides its content, as counted by OpenAI
+	 * compatible APIs.
+	 */
+	static final int MESSAGE_OVERHEAD_TOKENS = 4;
+
+	static final int COMPACT_THRESHOLD_PERCENT = 75;
+
+	/**
+	 * Share of the budget left to uncompacted turns after a compaction.
+	 */
+	static final int COMPACT_TARGET_PERCENT = 50;
+
+	/**
+	 * Most recent turns that are never compacted.
+	 */
+	static final int KEEP_RECENT_TURNS = 2;
+
+	static final String SUMMARY_PREFIX = "Summary of earlier steps:\n";
+
+	/**
+	 * Summarizes turns that are about to leave the memory.
+	 */
+	@FunctionalInterface
+	public interface Summarizer {
+
+		/**
+		 * @param previousSummary Summary of the turns compacted before, or null
+		 * @param messages Messages of the turns to add to the summary, oldest first
+		 * @return Summary covering the previous summary and the messages
+		 */
+		String summarize(String previousSummary, List<Message> messages) throws Exception;
+
+	}
+
+	private record Turn(List<Message> messages, int tokens) {
+	}
+
+	private static final class Conversation {
+
+		private final List<Turn> turns = new ArrayList<>();
+
+		private int tokens;
+
+		private String summary;
+
+		private Message summaryMessage;
+
+		private int summaryTokens;
+
+		private boolean compacting;
+
+		private boolean cleared;
+
+	}
+
+	private final TokenCountEstimator tokenCountEstimator;
+
+	private final IntSupplier maxTokens;
+
+	private final int maxMessages;
+
+	private final Summarizer summarizer;
+
+	private final Executor compactionExecutor;
+
+	private final Map<String, Conversation> conversations = new ConcurrentHashMap<>();
+
+	/**
+	 * @param tokenCountEstimator Estimates the tokens of message contents
+	 * @param maxTokens Token budget of the messages returned for a plan
+	 * @param maxMessages Maximum number of messages returned for a plan
+	 * @param summarizer Summarizes compacted turns
+	 * @param compactionExecutor Runs the summarizer
+	 */
+	public TokenBudgetChatMemory(TokenCountEstimator tokenCountEstimator, IntSupplier maxTokens, int maxMessages,
+			Summarizer summarizer, Executor compactionExecutor) {
+		this.tokenCountEstimator = tokenCountEstimator;
+		this.maxTokens = maxTokens;
+		this.maxMessages = maxMessages;
+		this.summarizer = summarizer;
+		this.compactionExecutor = compactionExecutor;
+	}
+
+	@Override
+	public void add(String conversationId, List<Message> messages) {
+		if (messages.isEmpty()) {
+			return;
+		}
+		int tokens = 0;
+		for (Message message : messages) {
+			tokens += estimateTokens(message);
+		}
+		Turn turn = new Turn(List.copyOf(messages), tokens);
+		Conversation conversation = conversations.computeIfAbsent(conversationId, id -> new Conversation());
+		List<Turn> toCompact = null;
+		synchronized (conversation) {
+			conversation.turns.add(turn);
+			conversation.tokens += tokens;
+			int budget = maxTokens.getAsInt();
+			if (conversation.compacting) {
+				return;
+			}
+			// Without a working summarizer keep at most twice the budget
+			while (conversation.tokens > budget * 2L && conversation.turns.size() > 1) {
+				conversation.tokens -= conversation.turns.remove(0).tokens();
+			}
+			if (conversation.summaryTokens + conversation.tokens > budget * (long) COMPACT_THRESHOLD_PERCENT / 100) {
+				toCompact = selectTurnsToCompact(conversation, budget);
+				conversation.compacting = !toCompact.isEmpty();
+			}
+		}
+		if (toCompact != null && !toCompact.isEmpty()) {
+			compact(conversationId, conversation, toCompact);
+		}
+	}
+
+	@Override
+	public List<Message> get(String conversationId) {
+		Conversation conversation = conversations.get(conversationId);
+		if (conversation == null) {
+			return new ArrayList<>();
+		}
+		synchronized (conversation) {
+			int budget = maxTokens.getAsInt() - conversation.summaryTokens;
+			int messageBudget = maxMessages - (conversation.summaryMessage != null ? 1 : 0);
+			int tokens = 0;
+			int messageCount = 0;
+			int first = conversation.turns.size();
+			// Keep the most recent turns that fit
+			while (first > 0) {
+				Turn turn = conversation.turns.get(first - 1);
+				if (tokens + turn.tokens() > budget || messageCount + turn.messages().size() > messageBudget) {
+					break;
+				}
+				tokens += turn.tokens();
+				messageCount += turn.messages().size();
+				first--;
+			}
+			List<Message> messages = new ArrayList<>(messageCount + 1);
+			if (conversation.summaryMessage != null) {
+				messages.add(conversation.summaryMessage);
+			}
+			for (Turn turn : conversation.turns.subList(first, conversation.turns.size())) {
+				messages.addAll(turn.messages());
+			}
+			return messages;
+		}
+	}
+
+	@Override
+	public void clear(String conversationId) {
+		Conversation conversation = conversations.remove(conversationId);
+		if (conversation != null) {
+			synchronized (conversation) {
+				conversation.cleared = true;
+			}
+		}
+	}
+
+	/**
+	 * Estimates the tokens a message takes in a prompt.
+	 */
+	int estimateTokens(Message message) {
+		int tokens = MESSAGE_OVERHEAD_TOKENS + estimate(message.getText());
+		if (message instanceof AssistantMessage assistantMessage && assistantMessage.hasToolCalls()) {
+			for (AssistantMessage.ToolCall toolCall : assistantMessage.getToolCalls()) {
+				tokens += estimate(toolCall.name()) + estimate(toolCall.arguments());
+			}
+		}
+		if (message instanceof ToolResponseMessage toolResponseMessage) {
+			for (ToolResponseMessage.ToolResponse response : toolResponseMessage.getResponses()) {
+				tokens += estimate(response.name()) + estimate(response.responseData());
+			}
+		}
+		return tokens;
+	}
+
+	private int estimate(String text) {
+		return text == null || text.isEmpty() ? 0 : tokenCountEstimator.estimate(text);
+	}
+
+	// Must hold the conversation lock
+	private List<Turn> selectTurnsToCompact(Conversation conversation, int budget) {
+		long target = budget * (long) COMPACT_TARGET_PERCENT / 100;
+		long remaining = conversation.tokens;
+		List<Turn> selected = new ArrayList<>();
+		for (int i = 0; i < conversation.turns.size() - KEEP_RECENT_TURNS && remaining > target; i++) {
+			Turn turn = conversation.turns.get(i);
+			selected.add(turn);
+			remaining -= turn.tokens();
+		}
+		return selected;
+	}
+
+	private void compact(String conversationId, Conversation conversation, List<Turn> turns) {
+		String previousSummary;
+		synchronized (conversation) {
+			previousSummary = conversation.summary;
+		}
+		List<Message> messages = new ArrayList<>();
+		for (Turn turn : turns) {
+			messages.addAll(turn.messages());
+		}
+		try {
+			compactionExecutor.execute(() -> {
+				String summary = null;
+				try {
+					summary = summarizer.summarize(previousSummary, Collections.unmodifiableList(messages));
+				}
+				catch (Exception e) {
+					log.warn("Failed to summarize {} turns of plan {}, older turns are trimmed instead", turns.size(),
+							conversationId, e);
+				}
+				finishCompaction(conversationId, conversation, turns, summary);
+			});
+		}
+		catch (RuntimeException e) {
+			log.warn("Failed to schedule memory compaction of plan {}", conversationId, e);
+			finishCompaction(conversationId, conversation, turns, null);
+		}
+	}
+
+	private void finishCompaction(String conversationId, Conversation conversation, List<Turn> turns, String summary) {
+		synchronized (conversation) {
+			conversation.compacting = false;
+			if (conversation.cleared || summary == null || summary.isBlank()) {
+				return;
+			}
+			// Turns are only removed here and by trimming while no compaction
+			// runs, so the compacted turns are still the oldest ones
+			for (Turn turn : turns) {
+				conversation.turns.remove(0);
+				conversation.tokens -= turn.tokens();
+			}
+			conversation.summary = summary;
+			conversation.summaryMessage = new UserMessage(SUMMARY_PREFIX + summary);
+			conversation.summaryTokens = estimateTokens(conversation.summaryMessage);
+			log.debug("Compacted {} turns of plan {} into a summary of {} tokens", turns.size(), conversationId,
+					conversation.summaryTokens);
+		}
+	}
+
+}
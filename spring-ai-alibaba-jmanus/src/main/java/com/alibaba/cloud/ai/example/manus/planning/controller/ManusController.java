@@ -20,7 +20,9 @@ import com.alibaba.cloud.ai.example.manus.planning.coordinator.PlanIdDispatcher;
 import com.alibaba.cloud.ai.example.manus.planning.coordinator.PlanningCoordinator;
 import com.alibaba.cloud.ai.example.manus.planning.model.vo.ExecutionContext;
 import com.alibaba.cloud.ai.example.manus.planning.model.vo.UserInputWaitState;
+import com.alibaba.cloud.ai.example.manus.planning.scheduler.PlanExecutionScheduler;
 import com.alibaba.cloud.ai.example.manus.planning.service.UserInputService;
+import com.alibaba.cloud.ai.example.manus.recorder.PlanExecutionEventBroadcaster;
 import com.alibaba.cloud.ai.example.manus.recorder.PlanExecutionRecorder;
 import com.alibaba.cloud.ai.example.manus.recorder.entity.PlanExecutionRecord;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -32,12 +34,14 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api/executor")
@@ -54,9 +58,15 @@ public class ManusController {
 	@Autowired
 	private PlanExecutionRecorder planExecutionRecorder;
 
+	@Autowired
+	private PlanExecutionEventBroadcaster planExecutionEventBroadcaster;
+
 	@Autowired
 	private PlanIdDispatcher planIdDispatcher;
 
+	@Autowired
+	private PlanExecutionScheduler planExecutionScheduler;
+
 	@Autowired
 	private UserInputService userInputService;
 
@@ -70,9 +80,11 @@ public class ManusController {
 	}
 
 	/**
-	 * Asynchronous execution of Manus request
-	 * @param request Request containing user query
-	 * @return Task ID and status
+	 * Asynchronous execution of Manus request. The plan is queued by the plan scheduler
+	 * and rejected with 429 when the queue is full.
+	 * @param request Request containing user query, and optionally the tenantId the plan
+	 * counts against and its priority (higher runs first)
+	 * @return Task ID, status and queue position
 	 */
 	@PostMapping("/execute")
 	public ResponseEntity<Map<String, Object>> executeQuery(@RequestBody Map<String, String> request) {
@@ -87,37 +99,57 @@ public class ManusController {
 		context.setCurrentPlanId(planId);
 		context.setRootPlanId(planId);
 		context.setNeedSummary(true);
+		// Plans waiting for user input release their worker and are queued again
+		context.setResumable(true);
 		// Get or create planning flow
 		PlanningCoordinator planningFlow = planningFactory.createPlanningCoordinator(planId);
 
-		// Asynchronous execution of task
-		CompletableFuture.supplyAsync(() -> {
-			try {
-				return planningFlow.executePlan(context);
-			}
-			catch (Exception e) {
-				logger.error("Failed to execute plan", e);
-				throw new RuntimeException("Failed to execute plan: " + e.getMessage(), e);
-			}
-		});
+		int priority;
+		try {
+			String priorityValue = request.get("priority");
+			priority = priorityValue == null || priorityValue.isBlank() ? 0 : Integer.parseInt(priorityValue.trim());
+		}
+		catch (NumberFormatException e) {
+			return ResponseEntity.badRequest().body(Map.of("error", "priority 必须是整数"));
+		}
+
+		// Queue the task for asynchronous execution
+		String tenantId = request.get("tenantId");
+		PlanExecutionScheduler.Admission admission = planExecutionScheduler.submit(planId, tenantId, priority,
+				() -> runPlan(context, tenantId, priority, planningFlow::executePlan, planningFlow));
+		if (!admission.accepted()) {
+			return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(Map.of("error", admission.message()));
+		}
 
 		// Return task ID and initial status
 		Map<String, Object> response = new HashMap<>();
 		response.put("planId", planId);
-		response.put("status", "processing");
+		response.put("status", admission.queuePosition() > 0 ? "queued" : "processing");
+		response.put("queuePosition", admission.queuePosition());
 		response.put("message", "任务已提交，正在处理中");
 
 		return ResponseEntity.ok(response);
 	}
 
+	/**
+	 * Get the queue position of a plan waiting for execution
+	 * @param planId Plan ID
+	 * @return Queue position, 0 once the plan has started
+	 */
+	@GetMapping("/queue/{planId}")
+	public ResponseEntity<Map<String, Object>> getQueuePosition(@PathVariable("planId") String planId) {
+		int position = planExecutionScheduler.getQueuePosition(planId);
+		return ResponseEntity.ok(Map.of("planId", planId, "queuePosition", position, "queued", position > 0));
+	}
+
 	/**
 	 * Get detailed execution record
 	 * @param planId Plan ID
 	 * @return JSON representation of execution record
 	 */
 	@GetMapping("/details/{planId}")
-	public synchronized ResponseEntity<?> getExecutionDetails(@PathVariable("planId") String planId) {
-		PlanExecutionRecord planRecord = planExecutionRecorder.getExecutionRecord(null, planId, null);
+	public ResponseEntity<?> getExecutionDetails(@PathVariable("planId") String planId) {
+		PlanExecutionRecord planRecord = planExecutionRecorder.getExecutionDetails(planId);
 
 		if (planRecord == null) {
 			return ResponseEntity.notFound().build();
@@ -148,6 +180,26 @@ public class ManusController {
 		}
 	}
 
+	/**
+	 * Stream execution events of a plan as server-sent events, as an alternative to
+	 * polling the details endpoint. Each event carries one plan, agent execution or
+	 * think-act record; the stream ends once the plan has completed. A client that
+	 * reconnects resumes after the last event it received, taken from the
+	 * {@code Last-Event-ID} header or the {@code afterSequence} parameter.
+	 * @param planId Root plan ID
+	 * @param lastEventId Sequence of the last received event, sent by browsers on
+	 * reconnect
+	 * @param afterSequence Sequence of the last received event, takes precedence over the
+	 * header
+	 * @return Event stream
+	 */
+	@GetMapping(value = "/stream/{planId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter streamExecution(@PathVariable("planId") String planId,
+			@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+			@RequestParam(value = "afterSequence", required = false) Long afterSequence) {
+		return planExecutionEventBroadcaster.subscribe(planId, afterSequence != null ? afterSequence : lastEventId);
+	}
+
 	/**
 	 * Delete execution record for specified plan ID
 	 * @param planId Plan ID
@@ -155,7 +207,7 @@ public class ManusController {
 	 */
 	@DeleteMapping("/details/{planId}")
 	public ResponseEntity<Map<String, String>> removeExecutionDetails(@PathVariable("planId") String planId) {
-		PlanExecutionRecord planRecord = planExecutionRecorder.getExecutionRecord(null, planId, null);
+		PlanExecutionRecord planRecord = planExecutionRecorder.getExecutionDetails(planId);
 		if (planRecord == null) {
 			return ResponseEntity.notFound().build();
 		}
@@ -170,6 +222,34 @@ public class ManusController {
 		}
 	}
 
+	/**
+	 * Runs a plan execution stage on a scheduler worker. When the plan suspends waiting
+	 * for user input, the worker is released and the continuation is queued again once
+	 * the input is submitted or times out, so waiting plans hold no thread.
+	 */
+	private void runPlan(ExecutionContext context, String tenantId, int priority, Consumer<ExecutionContext> stage,
+			PlanningCoordinator planningFlow) {
+		try {
+			stage.accept(context);
+		}
+		catch (Exception e) {
+			logger.error("Failed to execute plan", e);
+			return;
+		}
+		ExecutionContext.Suspension suspension = context.getSuspension();
+		if (suspension == null) {
+			return;
+		}
+		String planId = context.getCurrentPlanId();
+		suspension.resumeSignal().whenComplete((state, error) -> {
+			PlanExecutionScheduler.Admission admission = planExecutionScheduler.resume(planId, tenantId, priority,
+					() -> runPlan(context, tenantId, priority, planningFlow::resumePlan, planningFlow));
+			if (!admission.accepted()) {
+				logger.error("Failed to resume plan {}: {}", planId, admission.message());
+			}
+		});
+	}
+
 	/**
 	 * Submits user input for a plan that is waiting.
 	 * @param planId The ID of the plan.
@@ -19,12 +19,12 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -40,6 +40,7 @@ import com.alibaba.cloud.ai.example.manus.planning.coordinator.PlanningCoordinat
 import com.alibaba.cloud.ai.example.manus.planning.model.po.PlanTemplate;
 import com.alibaba.cloud.ai.example.manus.planning.model.vo.ExecutionContext;
 import com.alibaba.cloud.ai.example.manus.planning.model.vo.PlanInterface;
+import com.alibaba.cloud.ai.example.manus.planning.scheduler.PlanExecutionScheduler;
 import com.alibaba.cloud.ai.example.manus.planning.service.PlanTemplateService;
 import com.alibaba.cloud.ai.example.manus.recorder.PlanExecutionRecorder;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -66,6 +67,9 @@ public class PlanTemplateController {
 	@Autowired
 	private PlanIdDispatcher planIdDispatcher;
 
+	@Autowired
+	private PlanExecutionScheduler planExecutionScheduler;
+
 	private final ObjectMapper objectMapper = new ObjectMapper();
 
 	/**
@@ -259,8 +263,8 @@ public class PlanTemplateController {
 				logger.warn("Using original JSON to continue execution", e);
 			}
 
-			// Execute the plan asynchronously
-			CompletableFuture.runAsync(() -> {
+			// Queue the plan for asynchronous execution
+			PlanExecutionScheduler.Admission admission = planExecutionScheduler.submit(newPlanId, null, 0, () -> {
 				try {
 					// Execute the plan and summary steps, skipping the create plan step
 					planningCoordinator.executeExistingPlan(context);
@@ -270,11 +274,15 @@ public class PlanTemplateController {
 					logger.error("Plan execution failed", e);
 				}
 			});
+			if (!admission.accepted()) {
+				return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(Map.of("error", admission.message()));
+			}
 
 			// Return task ID and initial status
 			Map<String, Object> response = new HashMap<>();
 			response.put("planId", newPlanId);
-			response.put("status", "processing");
+			response.put("status", admission.queuePosition() > 0 ? "queued" : "processing");
+			response.put("queuePosition", admission.queuePosition());
 			response.put("message", "计划执行请求已提交，正在处理中");
 
 			return ResponseEntity.ok(response);
@@ -84,6 +84,10 @@ public class PlanningCoordinator {
 			log.info("Selected executor: {} for plan type: {} (planId: {})", executor.getClass().getSimpleName(),
 					plan.getPlanType(), context.getCurrentPlanId());
 			executor.executeAllSteps(context);
+			if (context.isSuspended()) {
+				log.info("Plan {} suspended waiting for user input", context.getCurrentPlanId());
+				return context;
+			}
 		}
 		else {
 			log.error("No plan found in context for planId: {}", context.getCurrentPlanId());
@@ -117,6 +121,10 @@ public class PlanningCoordinator {
 		log.info("Selected executor: {} for existing plan type: {} (planId: {})", executor.getClass().getSimpleName(),
 				plan.getPlanType(), context.getCurrentPlanId());
 		executor.executeAllSteps(context);
+		if (context.isSuspended()) {
+			log.info("Existing plan {} suspended waiting for user input", context.getCurrentPlanId());
+			return context;
+		}
 
 		// 2. Generate a summary
 		planFinalizer.generateSummary(context);
@@ -125,6 +133,31 @@ public class PlanningCoordinator {
 		return context;
 	}
 
+	/**
+	 * Continue a plan that was suspended waiting for user input, then generate its
+	 * summary. The plan may suspend again, in which case the summary is generated by a
+	 * later resume.
+	 * @param context execution context returned when the plan was suspended
+	 * @return execution summary
+	 */
+	public ExecutionContext resumePlan(ExecutionContext context) {
+		ExecutionContext.Suspension suspension = context.getSuspension();
+		if (suspension == null) {
+			throw new IllegalStateException("Plan " + context.getCurrentPlanId() + " is not suspended");
+		}
+		log.info("Resuming plan {} at step {}", context.getCurrentPlanId(), suspension.stepIndex());
+		suspension.executor().resumeAllSteps(context);
+		if (context.isSuspended()) {
+			log.info("Plan {} suspended again waiting for user input", context.getCurrentPlanId());
+			return context;
+		}
+
+		planFinalizer.generateSummary(context);
+
+		log.info("Resumed plan execution completed successfully for planId: {}", context.getCurrentPlanId());
+		return context;
+	}
+
 	/**
 	 * Execute plan with explicit executor type (useful for testing or override scenarios)
 	 * @param context execution context
@@ -25,6 +25,8 @@ import com.alibaba.cloud.ai.example.manus.dynamic.prompt.service.PromptService;
 import com.alibaba.cloud.ai.example.manus.llm.LlmService;
 import com.alibaba.cloud.ai.example.manus.planning.model.vo.ExecutionContext;
 import com.alibaba.cloud.ai.example.manus.planning.model.vo.PlanInterface;
+import com.alibaba.cloud.ai.example.manus.planning.service.PlanRequestFingerprint;
+import com.alibaba.cloud.ai.example.manus.planning.service.PlanTemplateService;
 import com.alibaba.cloud.ai.example.manus.recorder.PlanExecutionRecorder;
 import com.alibaba.cloud.ai.example.manus.tool.PlanningToolInterface;
 import org.slf4j.Logger;
@@ -56,14 +58,24 @@ public class PlanCreator {
 
 	private final ManusProperties manusProperties;
 
+	// Reuses plans of requests differing only in parameters, may be null
+	private final PlanTemplateService planTemplateService;
+
 	public PlanCreator(List<DynamicAgentEntity> agents, LlmService llmService, PlanningToolInterface planningTool,
 			PlanExecutionRecorder recorder, PromptService promptService, ManusProperties manusProperties) {
+		this(agents, llmService, planningTool, recorder, promptService, manusProperties, null);
+	}
+
+	public PlanCreator(List<DynamicAgentEntity> agents, LlmService llmService, PlanningToolInterface planningTool,
+			PlanExecutionRecorder recorder, PromptService promptService, ManusProperties manusProperties,
+			PlanTemplateService planTemplateService) {
 		this.agents = agents;
 		this.llmService = llmService;
 		this.planningTool = planningTool;
 		this.recorder = recorder;
 		this.promptService = promptService;
 		this.manusProperties = manusProperties;
+		this.planTemplateService = planTemplateService;
 	}
 
 	/**
@@ -84,6 +96,25 @@ public class PlanCreator {
 			// Generate plan prompt
 			String planPrompt = generatePlanPrompt(context.getUserRequest(), agentsInfo);
 
+			// Requests answered with conversation memory depend on more than the request
+			// itself, so their plans are neither reused nor cached
+			PlanRequestFingerprint fingerprint = null;
+			String cacheKey = null;
+			if (planTemplateService != null && !useMemory && context.getUserRequest() != null) {
+				fingerprint = PlanRequestFingerprint.of(context.getUserRequest());
+				cacheKey = generatePlanPrompt(fingerprint.strippedRequest(), agentsInfo);
+				PlanInterface cachedPlan = planTemplateService.findCachedPlan(cacheKey, fingerprint);
+				if (cachedPlan != null) {
+					log.info("Reusing cached plan for request: {}", context.getUserRequest());
+					cachedPlan.setCurrentPlanId(planId);
+					cachedPlan.setRootPlanId(planId);
+					cachedPlan.setUserRequest(context.getUserRequest());
+					cachedPlan.setPlanningThinking("Reused the plan created for a similar request");
+					context.setPlan(cachedPlan);
+					return;
+				}
+			}
+
 			PlanInterface executionPlan = null;
 			String outputText = null;
 
@@ -142,6 +173,9 @@ public class PlanCreator {
 				currentPlan.setCurrentPlanId(planId);
 				currentPlan.setRootPlanId(planId);
 				currentPlan.setPlanningThinking(outputText);
+				if (cacheKey != null) {
+					planTemplateService.cachePlan(cacheKey, fingerprint, currentPlan);
+				}
 			}
 			else {
 				throw new RuntimeException("Failed to create a valid execution plan after retries");
@@ -108,6 +108,7 @@ public abstract class AbstractPlanExecutor implements PlanExecutorInterface {
 
 			step.setAgent(executor);
 			executor.setState(AgentState.IN_PROGRESS);
+			executor.setSuspendable(canSuspend(context));
 
 			recordStepStart(step, context);
 			String stepResultStr = executor.run();
@@ -125,6 +126,36 @@ public abstract class AbstractPlanExecutor implements PlanExecutorInterface {
 		return null;
 	}
 
+	/**
+	 * 继续执行因等待用户输入而阻塞的步骤
+	 * @param step 执行步骤
+	 * @param context 执行上下文
+	 * @param executor 阻塞的步骤执行器
+	 * @return 步骤执行器
+	 */
+	protected BaseAgent resumeStep(ExecutionStep step, ExecutionContext context, BaseAgent executor) {
+		try {
+			String stepResultStr = executor.resume();
+			step.setResult(stepResultStr);
+			return executor;
+		}
+		catch (Exception e) {
+			logger.error("Error resuming step: {}", e.getMessage(), e);
+			step.setResult("Execution failed: " + e.getMessage());
+		}
+		finally {
+			recordStepEnd(step, context);
+		}
+		return null;
+	}
+
+	/**
+	 * 步骤的执行器能否在等待用户输入时挂起计划并释放线程，由能恢复计划的执行器覆盖
+	 */
+	protected boolean canSuspend(ExecutionContext context) {
+		return false;
+	}
+
 	/**
 	 * 从步骤需求中提取步骤类型
 	 */
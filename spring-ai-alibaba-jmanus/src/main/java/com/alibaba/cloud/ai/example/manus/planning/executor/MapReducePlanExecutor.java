@@ -36,24 +36,40 @@ import com.alibaba.cloud.ai.example.manus.planning.model.vo.mapreduce.Sequential
 import com.alibaba.cloud.ai.example.manus.planning.PlanningFactory.ToolCallBackContext;
 import com.alibaba.cloud.ai.example.manus.recorder.PlanExecutionRecorder;
 import com.alibaba.cloud.ai.example.manus.tool.ToolCallBiFunctionDef;
+import com.alibaba.cloud.ai.example.manus.tool.mapreduce.MapReduceSharedStateManager;
 import com.alibaba.cloud.ai.example.manus.tool.mapreduce.MapReduceTool;
+import com.alibaba.cloud.ai.example.manus.tool.mapreduce.entity.MapTaskStateEntity;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * 负责执行 MapReduce 模式计划的执行器 支持并行执行 Map 阶段和串行执行 Reduce 阶段
+ * <p>
+ * Map 任务由 {@link MapTaskScheduler} 调度，Reduce 批次在其包含的 Map 任务全部结束后立即执行，不必等待整个 Map 阶段完成。Map
+ * 任务进度持久化到数据库，再次执行同一计划时跳过输入未变且已完成的任务。
  */
 public class MapReducePlanExecutor extends AbstractPlanExecutor {
 
@@ -62,9 +78,14 @@ public class MapReducePlanExecutor extends AbstractPlanExecutor {
 	// ==================== 配置常量 ====================
 
 	/**
-	 * Reduce阶段批次处理的默认最大字符数限制 用于控制每个批次处理的Map任务结果总字符数，避免上下文过长
+	 * Reduce阶段批次处理的默认最大Token数 用于控制每个批次处理的Map任务结果总Token数，避免上下文过长
 	 */
-	private static final int DEFAULT_REDUCE_BATCH_MAX_CHARACTERS = 2500;
+	private static final int DEFAULT_REDUCE_BATCH_MAX_TOKENS = 2000;
+
+	/**
+	 * 分层Reduce每次合并的默认最大输入数，Map任务数超过该值时启用分层Reduce
+	 */
+	private static final int DEFAULT_REDUCE_FAN_IN = 8;
 
 	/**
 	 * Map任务执行的最大重试次数 当任务执行失败或未完成时的重试机制
@@ -77,27 +98,53 @@ public class MapReducePlanExecutor extends AbstractPlanExecutor {
 	private static final long BASE_RETRY_WAIT_MILLIS = 1000;
 
 	/**
-	 * 任务字符数计算失败时的默认字符数 当无法读取任务输出文件时的回退值，避免计算错误
+	 * 任务Token数计算失败时的默认Token数 当无法读取任务输出文件时的回退值，避免计算错误
 	 */
-	private static final int DEFAULT_TASK_CHARACTER_COUNT = 100;
+	private static final int DEFAULT_TASK_TOKEN_COUNT = 100;
+
+	/**
+	 * 分层Reduce中间层的合并提示词，参数为Reduce步骤要求
+	 */
+	private static final String TREE_REDUCE_COMBINE_PROMPT = """
+			你正在执行MapReduce流程中分层Reduce的中间合并。后续的Reduce步骤会基于你的输出继续汇总，其要求如下：
+			%s
+
+			请将用户提供的多个部分结果合并为一个中间结果：
+			1. 保留后续Reduce步骤需要的全部数据和关键信息，不要遗漏或编造
+			2. 去除重复内容，保持与输入一致的格式
+			3. 只输出合并后的结果，不要解释
+			""";
 
 	/**
-	 * Map任务执行的默认线程池线程数 当配置未设置时使用此默认值
+	 * 等待Map任务结束时检查Map阶段状态的间隔（毫秒）
 	 */
-	private static final int DEFAULT_MAP_TASK_THREAD_POOL_SIZE = 1;
+	private static final long MAP_PROGRESS_POLL_MILLIS = 500;
 
-	// 线程池用于并行执行
+	// 所有计划共享的Map任务线程池，由PlanExecutionScheduler管理生命周期
 	private final ExecutorService executorService;
 
 	public MapReducePlanExecutor(List<DynamicAgentEntity> agents, PlanExecutionRecorder recorder,
-			AgentService agentService, LlmService llmService, ManusProperties manusProperties) {
+			AgentService agentService, LlmService llmService, ManusProperties manusProperties,
+			ExecutorService mapTaskExecutor) {
 		super(agents, recorder, agentService, llmService, manusProperties);
+		this.executorService = mapTaskExecutor;
+	}
 
-		// Get thread pool size from configuration
-		int threadPoolSize = getMapTaskThreadPoolSize();
-		this.executorService = Executors.newFixedThreadPool(threadPoolSize);
+	/**
+	 * MapReduce 计划从不挂起：Map 任务运行在调度线程上，无法在中途释放，等待用户输入的智能体在自己的线程上阻塞
+	 */
+	@Override
+	protected boolean canSuspend(ExecutionContext context) {
+		return false;
+	}
 
-		logger.info("MapReducePlanExecutor initialized with thread pool size: {}", threadPoolSize);
+	/**
+	 * MapReduce 计划不会挂起，因此没有可恢复的计划
+	 * @param context 执行上下文
+	 */
+	@Override
+	public void resumeAllSteps(ExecutionContext context) {
+		throw new IllegalStateException("MapReduce plan " + context.getCurrentPlanId() + " cannot be suspended");
 	}
 
 	/**
@@ -192,11 +239,11 @@ public class MapReducePlanExecutor extends AbstractPlanExecutor {
 			else {
 				logger.error("executor 为空，无法获取 MapReduceTool 的 ToolCallBackContext");
 			}
-			executor = executeMapPhase(mapSteps, context, toolCallBackContext);
+			// 3. Reduce 阶段随 Map 任务的完成流式执行
+			executor = executeMapPhase(mapSteps, mrNode.getReduceSteps(), context, toolCallBackContext);
 		}
-
-		// 3. 串行执行 Reduce 阶段
-		if (CollectionUtil.isNotEmpty(mrNode.getReduceSteps())) {
+		else if (CollectionUtil.isNotEmpty(mrNode.getReduceSteps())) {
+			// 3. 串行执行 Reduce 阶段
 			executor = executeReducePhase(mrNode.getReduceSteps(), context, executor);
 		}
 
@@ -255,10 +302,10 @@ public class MapReducePlanExecutor extends AbstractPlanExecutor {
 	}
 
 	/**
-	 * 并行执行 Map 阶段
+	 * 并行执行 Map 阶段，并在 Map 任务结束时流式执行 Reduce 阶段
 	 */
-	private BaseAgent executeMapPhase(List<ExecutionStep> mapSteps, ExecutionContext context,
-			ToolCallBackContext toolCallBackContext) {
+	private BaseAgent executeMapPhase(List<ExecutionStep> mapSteps, List<ExecutionStep> reduceSteps,
+			ExecutionContext context, ToolCallBackContext toolCallBackContext) {
 		logger.info("并行执行 Map 阶段，共 {} 个步骤", mapSteps.size());
 
 		// 记录Map阶段开始状态 - 为每个Map步骤记录开始状态
@@ -284,69 +331,416 @@ public class MapReducePlanExecutor extends AbstractPlanExecutor {
 		}
 		MapReduceTool splitTool = (MapReduceTool) callFunc;
 
-		List<CompletableFuture<BaseAgent>> futures = new ArrayList<>();
-		BaseAgent lastExecutor = null;
+		// 2. 获取任务目录列表（新的MapReduceTool返回任务目录路径）
+		List<String> taskDirectories = splitTool.getSplitResults();
+		if (taskDirectories.isEmpty()) {
+			logger.error("没有找到任务目录，Map 阶段执行失败");
+			throw new RuntimeException("没有找到任务目录，Map 阶段无法执行");
+		}
+		logger.info("找到 {} 个任务目录，将为每个任务执行 Map 步骤", taskDirectories.size());
+
+		// Reduce 批次会临时修改计划的 ExecutionParams，Map 任务使用开始前的参数
+		String baseExecutionParams = context.getPlan().getExecutionParams();
+		MapTaskProgress progress = new MapTaskProgress(splitTool);
+		progress.prepareResume(taskDirectories, resumeIdentity(mapSteps, context, baseExecutionParams));
 
+		// 3. 跳过之前执行中（包括其他计划ID的执行）已完成的任务，其余任务交给调度器
+		List<String> pendingTasks = new ArrayList<>();
+		for (String taskDirectory : taskDirectories) {
+			if (!progress.resumeIfCompleted(taskDirectory)) {
+				pendingTasks.add(taskDirectory);
+			}
+		}
+		if (pendingTasks.size() < taskDirectories.size()) {
+			logger.info("{} 个Map任务已在之前的执行中完成，本次跳过", taskDirectories.size() - pendingTasks.size());
+		}
+
+		// 4. 为每个任务目录执行复制的 mapSteps
+		MapTaskScheduler scheduler = new MapTaskScheduler(executorService, getMapTaskParallelism(),
+				isSpeculativeExecutionEnabled(), MapTaskScheduler.DEFAULT_MIN_SPECULATION_MILLIS, taskDirectory -> {
+					logger.info("开始处理任务目录: {}", taskDirectory);
+					BaseAgent fileExecutor = executeStepsWithTaskContext(copyMapSteps(mapSteps, taskDirectory), context,
+							baseExecutionParams, taskDirectory);
+					logger.info("完成处理任务目录: {}", taskDirectory);
+					return fileExecutor;
+				}, progress);
+		CompletableFuture<BaseAgent> mapDone = scheduler.start(pendingTasks);
+
+		BaseAgent[] lastExecutor = new BaseAgent[1];
+		Runnable onMapPhaseDone = () -> {
+			lastExecutor[0] = mapDone.join();
+			// 记录Map阶段完成状态 - 为每个Map步骤记录完成状态
+			for (ExecutionStep step : mapSteps) {
+				step.setAgent(lastExecutor[0]);
+				step.setResult("已经成功的执行了所有的Map任务");
+				recordStepEnd(step, context);
+			}
+			logger.info("Map 阶段执行完成");
+		};
+
+		BaseAgent reduceExecutor;
 		try {
-			// 2. 获取任务目录列表（新的MapReduceTool返回任务目录路径）
-			List<String> taskDirectories = splitTool.getSplitResults();
+			reduceExecutor = executeStreamingReducePhase(reduceSteps, context, taskDirectories, progress, mapDone,
+					onMapPhaseDone);
+		}
+		catch (InterruptedException e) {
+			scheduler.cancel();
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Map 阶段执行被中断", e);
+		}
+		catch (Exception e) {
+			scheduler.cancel();
+			logger.error("执行 Map 阶段时发生错误", e);
+			throw new RuntimeException("Map 阶段执行失败", e);
+		}
+		return reduceExecutor != null ? reduceExecutor : lastExecutor[0];
+	}
+
+	/**
+	 * 按任务顺序消费结束的 Map 任务并执行 Reduce 阶段。任务数不超过扇入系数时，凑满一个批次就执行 Reduce 步骤，批次划分与
+	 * {@link TreeReducer#group} 相同，因此 Reduce 结果与 Map 阶段结束后再执行一致；任务更多时先由
+	 * {@link TreeReducer} 分层并行合并，再对合并结果执行 Reduce 步骤
+	 * @return 最后执行 Reduce 步骤的 Agent，没有 Reduce 步骤时为 null
+	 */
+	private BaseAgent executeStreamingReducePhase(List<ExecutionStep> reduceSteps, ExecutionContext context,
+			List<String> taskDirectories, MapTaskProgress progress, CompletableFuture<BaseAgent> mapDone,
+			Runnable onMapPhaseDone) throws InterruptedException {
+		if (CollectionUtil.isEmpty(reduceSteps)) {
+			onMapPhaseDone.run();
+			return null;
+		}
 
-			if (taskDirectories.isEmpty()) {
-				logger.error("没有找到任务目录，Map 阶段执行失败");
-				throw new RuntimeException("没有找到任务目录，Map 阶段无法执行");
+		logger.info("串行执行 Reduce 阶段，共 {} 个步骤", reduceSteps.size());
+		// 记录Reduce阶段开始状态 - 为每个Reduce步骤记录开始状态
+		for (ExecutionStep step : reduceSteps) {
+			recordStepStart(step, context);
+		}
+
+		int maxBatchTokens = getMaxBatchTokens();
+		TreeReducer treeReducer = createTreeReducer(reduceSteps, taskDirectories, maxBatchTokens);
+		BaseAgent executor = null;
+		boolean mapPhaseDone = false;
+		Set<String> finished = new HashSet<>();
+		int nextTask = 0;
+		List<TreeReducer.ReduceInput> currentBatch = new ArrayList<>();
+		int currentBatchTokens = 0;
+		int batchCounter = 1;
+
+		while (nextTask < taskDirectories.size()) {
+			String finishedTask = progress.finishedTasks.poll(MAP_PROGRESS_POLL_MILLIS, TimeUnit.MILLISECONDS);
+			if (finishedTask != null) {
+				finished.add(finishedTask);
+			}
+			else if (!mapPhaseDone && mapDone.isDone() && progress.finishedTasks.isEmpty()) {
+				mapPhaseDone = true;
+				onMapPhaseDone.run();
+			}
+			else if (mapPhaseDone) {
+				logger.warn("Map 阶段已结束，但仍有 {} 个任务未报告结束", taskDirectories.size() - nextTask);
+				break;
 			}
-			else {
-				logger.info("找到 {} 个任务目录，将为每个任务执行 Map 步骤", taskDirectories.size());
 
-				// 3. 为每个任务目录创建并执行 mapSteps 副本
-				for (String taskDirectory : taskDirectories) {
-					// 4. 复制一个新的 mapSteps 列表
-					List<ExecutionStep> copiedMapSteps = copyMapSteps(mapSteps, taskDirectory);
+			// Reduce 批次保持任务顺序，只消费已结束任务的连续前缀
+			while (nextTask < taskDirectories.size() && finished.contains(taskDirectories.get(nextTask))) {
+				String taskDirectory = taskDirectories.get(nextTask++);
+				TreeReducer.ReduceInput input = new TreeReducer.ReduceInput(taskDirectory,
+						progress.getOutputTokens(taskDirectory));
+				if (input.tokens() > maxBatchTokens) {
+					logger.warn("任务 {} Token数 {} 超过批次限制 {}，单独作为一个批次", taskDirectory, input.tokens(), maxBatchTokens);
+				}
+				if (treeReducer != null) {
+					treeReducer.add(input);
+					continue;
+				}
+				if (!currentBatch.isEmpty() && currentBatchTokens + input.tokens() > maxBatchTokens) {
+					executor = executeReduceBatch(reduceSteps, context, currentBatch, batchCounter++, executor);
+					currentBatch = new ArrayList<>();
+					currentBatchTokens = 0;
+				}
+				currentBatch.add(input);
+				currentBatchTokens += input.tokens();
+			}
+		}
+		if (!mapPhaseDone) {
+			onMapPhaseDone.run();
+		}
+
+		List<TreeReducer.ReduceInput> remaining = treeReducer != null ? treeReducer.finish() : currentBatch;
+		for (List<TreeReducer.ReduceInput> batch : TreeReducer.group(remaining, Integer.MAX_VALUE, maxBatchTokens)) {
+			executor = executeReduceBatch(reduceSteps, context, batch, batchCounter++, executor);
+		}
+
+		// 记录Reduce阶段完成状态 - 为每个Reduce步骤记录完成状态
+		for (ExecutionStep step : reduceSteps) {
+			recordStepEnd(step, context);
+		}
+
+		logger.info("Reduce 阶段执行完成，共处理 {} 个批次", batchCounter - 1);
+		return executor;
+	}
+
+	/**
+	 * 任务数超过扇入系数时创建分层Reduce，中间结果写入任务目录旁的reduce目录
+	 * @return 不需要分层时为 null
+	 */
+	private TreeReducer createTreeReducer(List<ExecutionStep> reduceSteps, List<String> taskDirectories,
+			int maxBatchTokens) {
+		int fanIn = getReduceFanIn();
+		if (taskDirectories.size() <= fanIn) {
+			return null;
+		}
+		logger.info("共 {} 个Map任务，超过扇入系数 {}，启用分层Reduce", taskDirectories.size(), fanIn);
+		Path reduceDirectory = Paths.get(taskDirectories.get(0)).getParent().resolveSibling("reduce");
+		StringBuilder requirements = new StringBuilder();
+		for (ExecutionStep step : reduceSteps) {
+			requirements.append(step.getStepRequirement()).append("\n");
+		}
+		return new TreeReducer(executorService, fanIn, maxBatchTokens, reduceDirectory,
+				(level, inputs) -> combineReduceInputs(requirements.toString(), inputs));
+	}
+
+	/**
+	 * 调用模型合并分层Reduce的一个批次，输入格式与Reduce步骤收到的批次上下文一致
+	 */
+	private String combineReduceInputs(String requirements, List<TreeReducer.ReduceInput> inputs)
+			throws java.io.IOException {
+		StringBuilder content = new StringBuilder();
+		for (TreeReducer.ReduceInput input : inputs) {
+			if (Files.exists(input.outputFile())) {
+				String taskId = Paths.get(input.directory()).getFileName().toString();
+				content.append("=== 任务ID: ").append(taskId).append(" ===\n");
+				content.append(Files.readString(input.outputFile())).append("\n");
+				content.append("=== 任务ID: ").append(taskId).append(" 结束 ===\n\n");
+			}
+		}
+		return llmService.getAgentChatClient()
+			.prompt()
+			.system(String.format(TREE_REDUCE_COMBINE_PROMPT, requirements))
+			.user(content.toString())
+			.call()
+			.content();
+	}
+
+	/**
+	 * 为一个批次依次执行所有 Reduce 步骤
+	 */
+	private BaseAgent executeReduceBatch(List<ExecutionStep> reduceSteps, ExecutionContext context,
+			List<TreeReducer.ReduceInput> batch, int batchCounter, BaseAgent lastExecutor) {
+		logger.info("处理第 {} 批次，包含 {} 个任务", batchCounter, batch.size());
+		List<String> batchTaskDirectories = new ArrayList<>();
+		for (TreeReducer.ReduceInput input : batch) {
+			batchTaskDirectories.add(input.directory());
+		}
+		BaseAgent executor = lastExecutor;
+		for (ExecutionStep step : reduceSteps) {
+			BaseAgent stepExecutor = executeReduceStepWithBatch(step, context, batchTaskDirectories, batchCounter);
+			if (stepExecutor != null) {
+				executor = stepExecutor;
+			}
+		}
+		return executor;
+	}
+
+	/**
+	 * 单个 MapReduce 节点的 Map 任务进度：记录结束的任务供 Reduce 阶段消费，并通过共享状态管理器持久化任务状态
+	 */
+	private final class MapTaskProgress implements MapTaskScheduler.Listener {
+
+		// 已结束（完成或失败）的任务目录，按结束顺序排列
+		private final BlockingQueue<String> finishedTasks = new LinkedBlockingQueue<>();
+
+		// Map任务完成时记录的output.md Token数，Reduce分批时不再重新读取文件
+		private final Map<String, Integer> outputTokens = new ConcurrentHashMap<>();
+
+		private final MapReduceSharedStateManager stateManager;
 
-					// 5. 使用 CompletableFuture 为每个任务目录执行新的 mapSteps 列表
-					CompletableFuture<BaseAgent> future = CompletableFuture.supplyAsync(() -> {
-						BaseAgent fileExecutor = null;
-						logger.info("开始处理任务目录: {}", taskDirectory);
+		private final String planId;
 
-						// 执行带有任务上下文参数注入的步骤
-						fileExecutor = executeStepsWithTaskContext(copiedMapSteps, context, taskDirectory);
+		private final Map<String, MapTaskStateEntity> persistedStates;
 
-						logger.info("完成处理任务目录: {}", taskDirectory);
-						return fileExecutor;
-					}, executorService);
+		// 任务目录 -> input.md摘要 / 恢复键，由prepareResume计算
+		private final Map<String, String> inputDigests = new HashMap<>();
 
-					futures.add(future);
+		private final Map<String, String> resumeKeys = new HashMap<>();
+
+		// 恢复键 -> 之前执行中已完成的任务
+		private Map<String, MapTaskStateEntity> completedTasks = Map.of();
+
+		private MapTaskProgress(MapReduceTool splitTool) {
+			MapReduceSharedStateManager manager = splitTool.getSharedStateManager();
+			this.planId = splitTool.getCurrentPlanId();
+			this.stateManager = planId != null ? manager : null;
+			this.persistedStates = stateManager != null ? stateManager.loadPersistedMapTaskStates(planId) : Map.of();
+		}
+
+		/**
+		 * 计算每个任务的恢复键并加载之前执行中已完成的任务。每次执行都有新的计划ID和任务目录，
+		 * 所以恢复键由Map步骤、用户请求、执行参数和输入摘要组成，不包含计划ID
+		 * @param taskDirectories 本次执行的任务目录
+		 * @param resumeIdentity Map步骤、用户请求和执行参数的摘要
+		 */
+		private void prepareResume(List<String> taskDirectories, String resumeIdentity) {
+			for (String taskDirectory : taskDirectories) {
+				String inputDigest = digestInput(Paths.get(taskDirectory));
+				if (inputDigest != null) {
+					inputDigests.put(taskDirectory, inputDigest);
+					resumeKeys.put(taskDirectory, sha256(resumeIdentity + '\n' + inputDigest));
 				}
 			}
+			if (stateManager != null) {
+				completedTasks = stateManager.loadCompletedMapTasks(new HashSet<>(resumeKeys.values()));
+			}
+		}
 
-			// 等待所有 Map 步骤完成
-			for (CompletableFuture<BaseAgent> future : futures) {
-				try {
-					BaseAgent executor = future.get();
-					if (executor != null) {
-						lastExecutor = executor;
-					}
+		/**
+		 * 相同的Map任务在之前的执行中已完成且输出仍在时，复制其output.md并直接标记为结束
+		 * @return 任务是否已完成
+		 */
+		private boolean resumeIfCompleted(String taskDirectory) {
+			String resumeKey = resumeKeys.get(taskDirectory);
+			MapTaskStateEntity completed = resumeKey != null ? completedTasks.get(resumeKey) : null;
+			if (completed == null || completed.getTaskDirectory() == null) {
+				return false;
+			}
+			Path taskPath = Paths.get(taskDirectory);
+			Path source = Paths.get(completed.getTaskDirectory()).resolve("output.md");
+			Path target = taskPath.resolve("output.md");
+			try {
+				if (!Files.exists(source)) {
+					return false;
 				}
-				catch (Exception e) {
-					logger.error("Map 阶段步骤执行失败", e);
+				if (!source.toAbsolutePath().equals(target.toAbsolutePath())) {
+					Path temp = taskPath.resolve("output.md.tmp");
+					Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+					Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
 				}
 			}
+			catch (IOException e) {
+				logger.warn("复用任务 {} 的输出失败，重新执行", completed.getTaskDirectory(), e);
+				return false;
+			}
+			if (completed.getOutputTokens() != null) {
+				outputTokens.put(taskDirectory, completed.getOutputTokens());
+			}
+			if (stateManager != null) {
+				stateManager.markMapTaskResumed(planId, taskPath.getFileName().toString(), taskDirectory, completed);
+			}
+			finishedTasks.add(taskDirectory);
+			return true;
+		}
 
+		/**
+		 * 任务输出的Token数，优先使用任务完成时记录的值，没有记录时读取一次输出文件
+		 */
+		private int getOutputTokens(String taskDirectory) {
+			return outputTokens.computeIfAbsent(taskDirectory, directory -> {
+				MapTaskStateEntity persisted = persistedStates.get(Paths.get(directory).getFileName().toString());
+				if (persisted != null && "completed".equals(persisted.getStatus())
+						&& persisted.getOutputTokens() != null) {
+					return persisted.getOutputTokens();
+				}
+				String output = readTaskOutput(directory);
+				return output != null ? TreeReducer.estimateTokens(output) : DEFAULT_TASK_TOKEN_COUNT;
+			});
 		}
-		catch (Exception e) {
-			logger.error("执行 Map 阶段时发生错误", e);
-			throw new RuntimeException("Map 阶段执行失败", e);
+
+		@Override
+		public void onAttemptStarted(String taskDirectory, int attempt) {
+			if (stateManager != null) {
+				stateManager.markMapTaskRunning(planId, Paths.get(taskDirectory).getFileName().toString(),
+						taskDirectory, inputDigests.get(taskDirectory), resumeKeys.get(taskDirectory));
+			}
+		}
+
+		@Override
+		public void onCompleted(String taskDirectory, long durationMillis) {
+			// 任务完成时读取一次输出，记录其大小供Reduce分批使用
+			String output = readTaskOutput(taskDirectory);
+			int tokens = output != null ? TreeReducer.estimateTokens(output) : DEFAULT_TASK_TOKEN_COUNT;
+			outputTokens.put(taskDirectory, tokens);
+			if (stateManager != null) {
+				stateManager.markMapTaskCompleted(planId, Paths.get(taskDirectory).getFileName().toString(),
+						output != null ? output.length() : 0, tokens, durationMillis);
+			}
+			finishedTasks.add(taskDirectory);
+		}
+
+		@Override
+		public void onFailed(String taskDirectory, Throwable error) {
+			logger.error("Map 阶段步骤执行失败: {}", taskDirectory, error);
+			if (stateManager != null) {
+				stateManager.markMapTaskFailed(planId, Paths.get(taskDirectory).getFileName().toString());
+			}
+			finishedTasks.add(taskDirectory);
+		}
+
+	}
+
+	/**
+	 * 计算任务 input.md 的 SHA-256 摘要，读取失败时返回 null
+	 */
+	private static String digestInput(Path taskPath) {
+		try {
+			return sha256(Files.readAllBytes(taskPath.resolve("input.md")));
 		}
+		catch (IOException e) {
+			return null;
+		}
+	}
 
-		// 记录Map阶段完成状态 - 为每个Map步骤记录完成状态
+	/**
+	 * Map任务在不同执行之间的稳定标识：Map步骤、用户请求和执行参数相同的两次执行，对相同输入产生相同的任务
+	 */
+	private static String resumeIdentity(List<ExecutionStep> mapSteps, ExecutionContext context,
+			String executionParams) {
+		StringBuilder identity = new StringBuilder();
 		for (ExecutionStep step : mapSteps) {
-			step.setAgent(lastExecutor);
-			step.setResult("已经成功的执行了所有的Map任务");
-			recordStepEnd(step, context);
+			identity.append(step.getStepRequirement()).append('\n').append(step.getTerminateColumns()).append('\n');
+		}
+		identity.append(context.getUserRequest()).append('\n').append(executionParams);
+		return sha256(identity.toString());
+	}
+
+	private static String sha256(String text) {
+		return sha256(text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String sha256(byte[] bytes) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 not available", e);
 		}
+	}
+
+	/**
+	 * 每个MapReduce节点同时执行的Map任务数
+	 */
+	private int getMapTaskParallelism() {
+		Integer threads = manusProperties != null ? manusProperties.getInfiniteContextParallelThreads() : null;
+		return threads != null && threads > 0 ? threads : 1;
+	}
+
+	private boolean isSpeculativeExecutionEnabled() {
+		return manusProperties == null
+				|| !Boolean.FALSE.equals(manusProperties.getInfiniteContextSpeculativeExecution());
+	}
+
+	/**
+	 * 分层Reduce每次合并的最大输入数
+	 */
+	private int getReduceFanIn() {
+		Integer fanIn = manusProperties != null ? manusProperties.getInfiniteContextReduceFanIn() : null;
+		return fanIn != null && fanIn >= 2 ? fanIn : DEFAULT_REDUCE_FAN_IN;
+	}
 
-		logger.info("Map 阶段执行完成");
-		return lastExecutor;
+	/**
+	 * 每个Reduce批次的最大Token数
+	 */
+	private int getMaxBatchTokens() {
+		Integer tokens = manusProperties != null ? manusProperties.getInfiniteContextReduceBatchTokens() : null;
+		return tokens != null && tokens > 0 ? tokens : DEFAULT_REDUCE_BATCH_MAX_TOKENS;
 	}
 
 	/**
@@ -368,7 +762,7 @@ public class MapReducePlanExecutor extends AbstractPlanExecutor {
 	}
 
 	/**
-	 * 串行执行 Reduce 阶段 支持批量处理Map任务输出，基于字符数控制每批次处理的任务数量
+	 * 串行执行 Reduce 阶段 支持批量处理Map任务输出，基于Token数控制每批次处理的任务数量，任务数超过扇入系数时先分层合并
 	 */
 	private BaseAgent executeReducePhase(List<ExecutionStep> reduceSteps, ExecutionContext context,
 			BaseAgent lastExecutor) {
@@ -406,26 +800,28 @@ public class MapReducePlanExecutor extends AbstractPlanExecutor {
 			return executor;
 		}
 
-		// 配置每批次处理的字符数限制（可配置，主要受制于上下文长度限制）
-		int maxBatchCharacters = getMaxBatchCharacters(context);
-		logger.info("开始Reduce阶段处理，共 {} 个Map任务，每批次字符数限制 {} 字符", taskDirectories.size(), maxBatchCharacters);
+		// 配置每批次处理的Token数限制（可配置，主要受制于上下文长度限制）
+		int maxBatchTokens = getMaxBatchTokens();
+		logger.info("开始Reduce阶段处理，共 {} 个Map任务，每批次Token数限制 {}", taskDirectories.size(), maxBatchTokens);
 
-		// 基于字符数分批次处理Map任务结果
-		List<List<String>> batches = groupTasksByCharacterCount(taskDirectories, maxBatchCharacters);
-
-		int batchCounter = 1;
-		for (List<String> batchTaskDirectories : batches) {
-			logger.info("处理第 {} 批次，包含 {} 个任务", batchCounter, batchTaskDirectories.size());
+		// 任务大小优先取Map任务完成时记录的元数据
+		MapTaskProgress progress = new MapTaskProgress(mapReduceTool);
+		List<TreeReducer.ReduceInput> inputs = new ArrayList<>();
+		for (String taskDirectory : taskDirectories) {
+			inputs.add(new TreeReducer.ReduceInput(taskDirectory, progress.getOutputTokens(taskDirectory)));
+		}
+		TreeReducer treeReducer = createTreeReducer(reduceSteps, taskDirectories, maxBatchTokens);
+		if (treeReducer != null) {
+			inputs.forEach(treeReducer::add);
+			inputs = treeReducer.finish();
+		}
 
-			// 为当前批次执行Reduce步骤
-			for (ExecutionStep step : reduceSteps) {
-				BaseAgent stepExecutor = executeReduceStepWithBatch(step, context, batchTaskDirectories, batchCounter);
-				if (stepExecutor != null) {
-					executor = stepExecutor;
-				}
-			}
+		// 基于Token数分批次处理Map任务结果
+		List<List<TreeReducer.ReduceInput>> batches = TreeReducer.group(inputs, Integer.MAX_VALUE, maxBatchTokens);
 
-			batchCounter++;
+		int batchCounter = 1;
+		for (List<TreeReducer.ReduceInput> batch : batches) {
+			executor = executeReduceBatch(reduceSteps, context, batch, batchCounter++, executor);
 		}
 
 		// 记录Reduce阶段完成状态 - 为每个Reduce步骤记录完成状态
@@ -438,117 +834,20 @@ public class MapReducePlanExecutor extends AbstractPlanExecutor {
 	}
 
 	/**
-	 * 获取每批次处理的最大字符数 可以根据上下文长度限制和配置来动态调整
-	 */
-	private int getMaxBatchCharacters(ExecutionContext context) {
-		// 可以从ExecutionParams中获取配置的批次字符数限制
-		// String executionParams = context.getPlan().getExecutionParams();
-		// if (executionParams != null &&
-		// executionParams.contains(REDUCE_BATCH_CHARACTERS_CONFIG_KEY)) {
-		// try {
-		// String[] lines = executionParams.split("\n");
-		// for (String line : lines) {
-		// if (line.trim().startsWith(REDUCE_BATCH_CHARACTERS_CONFIG_KEY)) {
-		// String charactersStr = line.split(":")[1].trim();
-		// int configuredCharacters = Integer.parseInt(charactersStr);
-		// if (configuredCharacters > 0 && configuredCharacters <=
-		// MAX_REDUCE_BATCH_CHARACTERS_LIMIT) {
-		// logger.info("使用配置的Reduce批次字符数限制: {}", configuredCharacters);
-		// return configuredCharacters;
-		// }
-		// }
-		// }
-		// } catch (Exception e) {
-		// logger.warn("解析reduce_batch_characters配置失败，使用默认值: {}",
-		// DEFAULT_REDUCE_BATCH_MAX_CHARACTERS, e);
-		// }
-		// }
-
-		logger.info("使用默认的Reduce批次字符数限制: {}", DEFAULT_REDUCE_BATCH_MAX_CHARACTERS);
-		return DEFAULT_REDUCE_BATCH_MAX_CHARACTERS;
-	}
-
-	/**
-	 * 根据字符数将任务分组到不同批次 确保每个批次的总字符数不超过指定限制，且保持文档完整性
-	 */
-	private List<List<String>> groupTasksByCharacterCount(List<String> taskDirectories, int maxBatchCharacters) {
-		List<List<String>> batches = new ArrayList<>();
-		List<String> currentBatch = new ArrayList<>();
-		int currentBatchCharacterCount = 0;
-
-		for (String taskDirectory : taskDirectories) {
-			// 计算当前任务的字符数
-			int taskCharacterCount = getTaskCharacterCount(taskDirectory);
-
-			// 如果单个任务的字符数已经超过限制，单独作为一个批次
-			if (taskCharacterCount > maxBatchCharacters) {
-				// 先保存当前批次（如果不为空）
-				if (!currentBatch.isEmpty()) {
-					batches.add(new ArrayList<>(currentBatch));
-					currentBatch.clear();
-					currentBatchCharacterCount = 0;
-				}
-
-				// 单个超大任务作为独立批次
-				List<String> singleTaskBatch = new ArrayList<>();
-				singleTaskBatch.add(taskDirectory);
-				batches.add(singleTaskBatch);
-				logger.warn("任务 {} 字符数 {} 超过批次限制 {}，单独作为一个批次", taskDirectory, taskCharacterCount, maxBatchCharacters);
-				continue;
-			}
-
-			// 检查加入当前任务后是否会超过限制
-			if (currentBatchCharacterCount + taskCharacterCount > maxBatchCharacters && !currentBatch.isEmpty()) {
-				// 保存当前批次并开始新批次
-				batches.add(new ArrayList<>(currentBatch));
-				currentBatch.clear();
-				currentBatchCharacterCount = 0;
-			}
-
-			// 将任务添加到当前批次
-			currentBatch.add(taskDirectory);
-			currentBatchCharacterCount += taskCharacterCount;
-
-			logger.debug("任务 {} ({} 字符) 添加到批次，当前批次字符数: {}", taskDirectory, taskCharacterCount,
-					currentBatchCharacterCount);
-		}
-
-		// 添加最后一个批次（如果不为空）
-		if (!currentBatch.isEmpty()) {
-			batches.add(currentBatch);
-		}
-
-		// 记录批次分组结果
-		for (int i = 0; i < batches.size(); i++) {
-			List<String> batch = batches.get(i);
-			int batchTotalCharacters = batch.stream().mapToInt(this::getTaskCharacterCount).sum();
-			logger.info("批次 {} 包含 {} 个任务，总字符数: {}", i + 1, batch.size(), batchTotalCharacters);
-		}
-
-		return batches;
-	}
-
-	/**
-	 * 获取单个任务的字符数 读取任务目录中的output.md文件并计算字符数
+	 * 读取任务目录中的output.md，不存在或读取失败时返回 null
 	 */
-	private int getTaskCharacterCount(String taskDirectory) {
+	private String readTaskOutput(String taskDirectory) {
+		Path outputFile = Paths.get(taskDirectory).resolve("output.md");
 		try {
-			Path taskPath = Paths.get(taskDirectory);
-			Path outputFile = taskPath.resolve("output.md");
-
 			if (Files.exists(outputFile)) {
-				String content = Files.readString(outputFile);
-				return content.length();
-			}
-			else {
-				logger.warn("任务目录 {} 的output.md文件不存在，返回默认字符数", taskDirectory);
-				return DEFAULT_TASK_CHARACTER_COUNT;
+				return Files.readString(outputFile);
 			}
+			logger.warn("任务目录 {} 的output.md文件不存在", taskDirectory);
 		}
 		catch (Exception e) {
-			logger.error("读取任务 {} 的字符数失败", taskDirectory, e);
-			return DEFAULT_TASK_CHARACTER_COUNT;
+			logger.error("读取任务 {} 的输出失败", taskDirectory, e);
 		}
+		return null;
 	}
 
 	/**
@@ -611,15 +910,6 @@ public class MapReducePlanExecutor extends AbstractPlanExecutor {
 		}
 	}
 
-	/**
-	 * 关闭执行器，释放线程池资源
-	 */
-	public void shutdown() {
-		if (executorService != null && !executorService.isShutdown()) {
-			executorService.shutdown();
-		}
-	}
-
 	/**
 	 * 重写父类的executeStep方法，为map任务执行时临时添加任务信息到ExecutionParams
 	 */
@@ -633,11 +923,12 @@ public class MapReducePlanExecutor extends AbstractPlanExecutor {
 	 * 执行带有任务上下文参数注入的步骤列表，并支持任务完成状态检查和重试 使用复制的ExecutionContext，避免修改原始上下文
 	 * @param steps 要执行的步骤列表
 	 * @param context 执行上下文
+	 * @param baseExecutionParams Map阶段开始前计划的ExecutionParams
 	 * @param taskDirectory 任务目录路径
 	 * @return 最后一个执行的Agent
 	 */
 	private BaseAgent executeStepsWithTaskContext(List<ExecutionStep> steps, ExecutionContext context,
-			String taskDirectory) {
+			String baseExecutionParams, String taskDirectory) {
 		BaseAgent fileExecutor = null;
 
 		// 2. 根据taskDirectory从对应目录找到input.md这个固定文件
@@ -666,7 +957,8 @@ public class MapReducePlanExecutor extends AbstractPlanExecutor {
 		}
 
 		// 3. 创建带有增强参数的ExecutionContext副本
-		ExecutionContext copiedContext = createContextCopyWithEnhancedParams(context, taskId, fileContent);
+		ExecutionContext copiedContext = createContextCopyWithEnhancedParams(context, baseExecutionParams, taskId,
+				fileContent);
 
 		// 执行任务，支持重试机制
 		int maxRetries = MAX_TASK_RETRY_COUNT;
@@ -741,12 +1033,13 @@ public class MapReducePlanExecutor extends AbstractPlanExecutor {
 	/**
 	 * 创建ExecutionContext的副本并增强ExecutionParams
 	 * @param originalContext 原始执行上下文
+	 * @param baseExecutionParams 要增强的ExecutionParams
 	 * @param taskId 任务ID
 	 * @param fileContent 文件内容
 	 * @return 增强后的ExecutionContext副本
 	 */
-	private ExecutionContext createContextCopyWithEnhancedParams(ExecutionContext originalContext, String taskId,
-			String fileContent) {
+	private ExecutionContext createContextCopyWithEnhancedParams(ExecutionContext originalContext,
+			String baseExecutionParams, String taskId, String fileContent) {
 		// 创建ExecutionContext副本
 		ExecutionContext copiedContext = new ExecutionContext();
 
@@ -767,7 +1060,8 @@ public class MapReducePlanExecutor extends AbstractPlanExecutor {
 		}
 
 		// 创建Plan的副本并增强ExecutionParams
-		PlanInterface copiedPlan = createPlanCopyWithEnhancedParams(originalContext.getPlan(), taskId, fileContent);
+		PlanInterface copiedPlan = createPlanCopyWithEnhancedParams(originalContext.getPlan(), baseExecutionParams,
+				taskId, fileContent);
 		copiedContext.setPlan(copiedPlan);
 
 		return copiedContext;
@@ -776,12 +1070,13 @@ public class MapReducePlanExecutor extends AbstractPlanExecutor {
 	/**
 	 * 创建Plan的副本并增强ExecutionParams
 	 * @param originalPlan 原始计划
+	 * @param originalExecutionParams 要增强的ExecutionParams
 	 * @param taskId 任务ID
 	 * @param fileContent 文件内容
 	 * @return 增强后的Plan副本
 	 */
-	private PlanInterface createPlanCopyWithEnhancedParams(PlanInterface originalPlan, String taskId,
-			String fileContent) {
+	private PlanInterface createPlanCopyWithEnhancedParams(PlanInterface originalPlan, String originalExecutionParams,
+			String taskId, String fileContent) {
 		// 根据Plan的实际类型创建副本
 		PlanInterface copiedPlan;
 
@@ -818,7 +1113,6 @@ public class MapReducePlanExecutor extends AbstractPlanExecutor {
 		}
 
 		// 创建增强的ExecutionParams
-		String originalExecutionParams = originalPlan.getExecutionParams();
 		StringBuilder enhancedParams = new StringBuilder();
 		if (originalExecutionParams != null && !originalExecutionParams.trim().isEmpty()) {
 			enhancedParams.append(originalExecutionParams).append("\n\n");
@@ -834,23 +1128,6 @@ public class MapReducePlanExecutor extends AbstractPlanExecutor {
 		return copiedPlan;
 	}
 
-	/**
-	 * Get Map task thread pool size from configuration
-	 * @return configured thread pool size or default value if not configured
-	 */
-	private int getMapTaskThreadPoolSize() {
-		if (manusProperties != null) {
-			Integer configuredThreads = manusProperties.getInfiniteContextParallelThreads();
-			if (configuredThreads != null && configuredThreads > 0) {
-				logger.debug("Using configured Map task thread pool size: {}", configuredThreads);
-				return configuredThreads;
-			}
-		}
-
-		logger.debug("Using default Map task thread pool size: {}", DEFAULT_MAP_TASK_THREAD_POOL_SIZE);
-		return DEFAULT_MAP_TASK_THREAD_POOL_SIZE;
-	}
-
 	/**
 	 * 检查任务是否完成
 	 * @param taskDirectory 任务目录路径
@@ -0,0 +1,430 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.planning.executor;
+
+import com.alibaba.cloud.ai.example.manus.agent.BaseAgent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs the map tasks of one MapReduce node on the shared map task executor.
+ * <p>
+ * Tasks are dealt round-robin onto one deque per worker. A worker takes tasks from the
+ * head of its own deque and, once it is empty, steals from the tail of the longest other
+ * deque, so no task waits behind a slow one while a worker is idle. This also covers
+ * workers still queued in the shared executor behind other plans: the workers that did
+ * start take over their tasks.
+ * <p>
+ * A worker with nothing left to take returns its thread to the executor instead of
+ * waiting, since the executor is shared with the map tasks of other plans. While a task
+ * runs without a backup, a short check is scheduled on the executor at a fixed interval;
+ * it starts one backup attempt of the task running longest, once it has run
+ * {@value #SPECULATION_MULTIPLIER} times longer than the median completed task. The first
+ * attempt to finish completes the task; the other one runs to its end and its result is
+ * dropped.
+ * <p>
+ * The listener hears about every task as soon as it completes or fails, before the future
+ * returned by {@link #start(List)} completes, so the reduce phase can consume map outputs
+ * while the slowest map tasks are still running.
+ */
+final class MapTaskScheduler {
+
+	private static final Logger logger = LoggerFactory.getLogger(MapTaskScheduler.class);
+
+	/**
+	 * 任务运行时间超过已完成任务耗时中位数的该倍数后才会启动备份执行
+	 */
+	static final double SPECULATION_MULTIPLIER = 2.0;
+
+	/**
+	 * 启动备份执行前任务至少需要运行的时间（毫秒），避免为短任务重复调用模型
+	 */
+	static final long DEFAULT_MIN_SPECULATION_MILLIS = 30_000;
+
+	/**
+	 * 检查是否有慢任务的最长间隔（毫秒）
+	 */
+	private static final long MAX_IDLE_CHECK_MILLIS = 1000;
+
+	/**
+	 * Runs one attempt of a map task and fails when the task did not complete.
+	 */
+	@FunctionalInterface
+	interface TaskRunner {
+
+		BaseAgent run(String taskDirectory) throws Exception;
+
+	}
+
+	/**
+	 * Receives task progress. Callbacks run on worker threads.
+	 */
+	interface Listener {
+
+		default void onAttemptStarted(String taskDirectory, int attempt) {
+		}
+
+		default void onCompleted(String taskDirectory, long durationMillis) {
+		}
+
+		default void onFailed(String taskDirectory, Throwable error) {
+		}
+
+	}
+
+	private final Executor executor;
+
+	private final int parallelism;
+
+	private final boolean speculative;
+
+	private final long minSpeculationNanos;
+
+	private final long idleCheckMillis;
+
+	private final TaskRunner runner;
+
+	private final Listener listener;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final List<Deque<TaskState>> queues = new ArrayList<>();
+
+	private final List<TaskState> tasks = new ArrayList<>();
+
+	private final List<Long> completedDurations = new ArrayList<>();
+
+	private final CompletableFuture<BaseAgent> done = new CompletableFuture<>();
+
+	private int unresolved;
+
+	private int backupAttempts;
+
+	private boolean cancelled;
+
+	private boolean stragglerCheckScheduled;
+
+	private BaseAgent lastExecutor;
+
+	MapTaskScheduler(Executor executor, int parallelism, boolean speculative, long minSpeculationMillis,
+			TaskRunner runner, Listener listener) {
+		this.executor = executor;
+		this.parallelism = Math.max(1, parallelism);
+		this.speculative = speculative;
+		this.minSpeculationNanos = TimeUnit.MILLISECONDS.toNanos(minSpeculationMillis);
+		this.idleCheckMillis = Math.max(10, Math.min(MAX_IDLE_CHECK_MILLIS, minSpeculationMillis / 2));
+		this.runner = runner;
+		this.listener = listener;
+	}
+
+	/**
+	 * Starts running the given tasks. May only be called once.
+	 * @return completes with the agent of the last completed attempt once every task
+	 * completed or failed
+	 */
+	CompletableFuture<BaseAgent> start(List<String> taskDirectories) {
+		if (taskDirectories.isEmpty()) {
+			done.complete(null);
+			return done;
+		}
+		int workers = Math.min(parallelism, taskDirectories.size());
+		lock.lock();
+		try {
+			for (int i = 0; i < workers; i++) {
+				queues.add(new ArrayDeque<>());
+			}
+			for (int i = 0; i < taskDirectories.size(); i++) {
+				TaskState task = new TaskState(taskDirectories.get(i));
+				tasks.add(task);
+				queues.get(i % workers).addLast(task);
+			}
+			unresolved = tasks.size();
+		}
+		finally {
+			lock.unlock();
+		}
+		logger.info("Starting {} map tasks on {} workers, speculative execution {}", tasks.size(), workers,
+				speculative ? "enabled" : "disabled");
+		try {
+			for (int i = 0; i < workers; i++) {
+				int worker = i;
+				executor.execute(() -> work(worker));
+			}
+		}
+		catch (RejectedExecutionException e) {
+			cancel();
+			done.completeExceptionally(e);
+		}
+		return done;
+	}
+
+	/**
+	 * Stops handing out tasks. Attempts already running finish, unstarted tasks never run
+	 * and the future returned by {@link #start(List)} stays incomplete.
+	 */
+	void cancel() {
+		lock.lock();
+		try {
+			cancelled = true;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	int getBackupAttempts() {
+		lock.lock();
+		try {
+			return backupAttempts;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	private void work(int worker) {
+		Attempt attempt;
+		while ((attempt = nextAttempt(worker)) != null) {
+			runAttempt(attempt);
+		}
+	}
+
+	/**
+	 * Runs on the executor once the check interval has elapsed, and becomes a worker
+	 * without a deque of its own for as long as it finds something to run.
+	 */
+	private void checkForStragglers() {
+		lock.lock();
+		try {
+			stragglerCheckScheduled = false;
+		}
+		finally {
+			lock.unlock();
+		}
+		work(-1);
+	}
+
+	/**
+	 * Returns the next attempt for the worker, or null when the worker should give its
+	 * thread back.
+	 */
+	private Attempt nextAttempt(int worker) {
+		lock.lock();
+		try {
+			if (cancelled || unresolved == 0) {
+				return null;
+			}
+			TaskState task = worker >= 0 ? queues.get(worker).pollFirst() : null;
+			if (task == null) {
+				task = steal(worker);
+			}
+			if (task != null) {
+				return startAttempt(task, false);
+			}
+			if (!speculative || !hasRunningTaskWithoutBackup()) {
+				return null;
+			}
+			TaskState straggler = findStraggler();
+			if (straggler != null) {
+				return startAttempt(straggler, true);
+			}
+			scheduleStragglerCheck();
+			return null;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	// Must hold the lock
+	private void scheduleStragglerCheck() {
+		if (stragglerCheckScheduled) {
+			return;
+		}
+		stragglerCheckScheduled = true;
+		CompletableFuture.delayedExecutor(idleCheckMillis, TimeUnit.MILLISECONDS, executor)
+			.execute(this::checkForStragglers);
+	}
+
+	private TaskState steal(int worker) {
+		Deque<TaskState> victim = null;
+		for (int i = 0; i < queues.size(); i++) {
+			Deque<TaskState> queue = queues.get(i);
+			if (i != worker && !queue.isEmpty() && (victim == null || queue.size() > victim.size())) {
+				victim = queue;
+			}
+		}
+		return victim != null ? victim.pollLast() : null;
+	}
+
+	private boolean hasRunningTaskWithoutBackup() {
+		for (TaskState task : tasks) {
+			if (!task.resolved && task.running == 1 && task.attempts == 1) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private TaskState findStraggler() {
+		if (completedDurations.isEmpty()) {
+			return null;
+		}
+		List<Long> sorted = new ArrayList<>(completedDurations);
+		Collections.sort(sorted);
+		long median = sorted.get(sorted.size() / 2);
+		long threshold = Math.max(minSpeculationNanos, (long) (median * SPECULATION_MULTIPLIER));
+		long now = System.nanoTime();
+		TaskState straggler = null;
+		for (TaskState task : tasks) {
+			if (!task.resolved && task.running == 1 && task.attempts == 1 && now - task.startNanos > threshold
+					&& (straggler == null || task.startNanos < straggler.startNanos)) {
+				straggler = task;
+			}
+		}
+		return straggler;
+	}
+
+	private Attempt startAttempt(TaskState task, boolean backup) {
+		if (task.attempts == 0) {
+			task.startNanos = System.nanoTime();
+		}
+		task.attempts++;
+		task.running++;
+		if (backup) {
+			backupAttempts++;
+			logger.info("Map task {} is running much longer than the others, starting a backup attempt",
+					task.directory);
+		}
+		return new Attempt(task, task.attempts);
+	}
+
+	private void runAttempt(Attempt attempt) {
+		TaskState task = attempt.task;
+		Throwable error = null;
+		BaseAgent agent = null;
+		try {
+			listener.onAttemptStarted(task.directory, attempt.number);
+			agent = runner.run(task.directory);
+		}
+		catch (Throwable e) {
+			error = e;
+		}
+
+		boolean completed = false;
+		boolean failed = false;
+		long durationNanos = 0;
+		lock.lock();
+		try {
+			task.running--;
+			if (task.resolved) {
+				logger.info("Map task {} was already finished by another attempt, dropping attempt {}", task.directory,
+						attempt.number);
+			}
+			else if (error == null) {
+				task.resolved = true;
+				completed = true;
+				durationNanos = System.nanoTime() - task.startNanos;
+				completedDurations.add(durationNanos);
+				if (agent != null) {
+					lastExecutor = agent;
+				}
+			}
+			else if (task.running == 0) {
+				task.resolved = true;
+				failed = true;
+			}
+			else {
+				logger.warn("Attempt {} of map task {} failed, waiting for the attempt still running", attempt.number,
+						task.directory, error);
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+
+		if (completed || failed) {
+			try {
+				if (completed) {
+					listener.onCompleted(task.directory, TimeUnit.NANOSECONDS.toMillis(durationNanos));
+				}
+				else {
+					listener.onFailed(task.directory, error);
+				}
+			}
+			catch (RuntimeException e) {
+				logger.error("Map task listener failed for {}", task.directory, e);
+			}
+			resolve();
+		}
+		if (error instanceof Error) {
+			throw (Error) error;
+		}
+	}
+
+	private void resolve() {
+		BaseAgent result = null;
+		boolean allResolved;
+		lock.lock();
+		try {
+			unresolved--;
+			allResolved = unresolved == 0;
+			if (allResolved) {
+				result = lastExecutor;
+				logger.info("All {} map tasks finished, {} backup attempts", tasks.size(), backupAttempts);
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+		if (allResolved) {
+			done.complete(result);
+		}
+	}
+
+	private static final class TaskState {
+
+		private final String directory;
+
+		private int attempts;
+
+		private int running;
+
+		private boolean resolved;
+
+		private long startNanos;
+
+		private TaskState(String directory) {
+			this.directory = directory;
+		}
+
+	}
+
+	private record Attempt(TaskState task, int number) {
+	}
+
+}
@@ -16,6 +16,7 @@
 package com.alibaba.cloud.ai.example.manus.planning.executor;
 
 import cn.hutool.core.collection.CollectionUtil;
+import com.alibaba.cloud.ai.example.manus.agent.AgentState;
 import com.alibaba.cloud.ai.example.manus.agent.BaseAgent;
 import com.alibaba.cloud.ai.example.manus.config.ManusProperties;
 import com.alibaba.cloud.ai.example.manus.dynamic.agent.entity.DynamicAgentEntity;
@@ -52,19 +53,54 @@ public class PlanExecutor extends AbstractPlanExecutor {
 	 */
 	@Override
 	public void executeAllSteps(ExecutionContext context) {
-		BaseAgent lastExecutor = null;
+		context.getPlan().updateStepIndices();
+		executeStepsFrom(context, 0, null);
+	}
+
+	/**
+	 * Continue a plan suspended while an agent waited for user input, starting with the
+	 * blocked agent of the suspended step
+	 * @param context Execution context holding the suspension
+	 */
+	@Override
+	public void resumeAllSteps(ExecutionContext context) {
+		ExecutionContext.Suspension suspension = context.getSuspension();
+		if (suspension == null) {
+			throw new IllegalStateException("Plan " + context.getCurrentPlanId() + " is not suspended");
+		}
+		context.setSuspension(null);
+		executeStepsFrom(context, suspension.stepIndex(), suspension.agent());
+	}
+
+	@Override
+	protected boolean canSuspend(ExecutionContext context) {
+		// Sub-plans run inside a tool call of their parent, which cannot be unwound
+		return context.isResumable() && context.getThinkActRecordId() == null;
+	}
+
+	private void executeStepsFrom(ExecutionContext context, int startIndex, BaseAgent blockedAgent) {
+		BaseAgent lastExecutor = blockedAgent;
 		PlanInterface plan = context.getPlan();
-		plan.updateStepIndices();
 
 		try {
-			recordPlanExecutionStart(context);
+			if (blockedAgent == null) {
+				recordPlanExecutionStart(context);
+			}
 			List<ExecutionStep> steps = plan.getAllSteps();
 
 			if (CollectionUtil.isNotEmpty(steps)) {
-				for (ExecutionStep step : steps) {
-					BaseAgent stepExecutor = executeStep(step, context);
+				for (int i = startIndex; i < steps.size(); i++) {
+					ExecutionStep step = steps.get(i);
+					BaseAgent stepExecutor = i == startIndex && blockedAgent != null
+							? resumeStep(step, context, blockedAgent) : executeStep(step, context);
 					if (stepExecutor != null) {
 						lastExecutor = stepExecutor;
+						if (stepExecutor.getState() == AgentState.BLOCKED) {
+							// Keep the agent and its memory, the caller resumes the plan
+							context.setSuspension(new ExecutionContext.Suspension(this, i, stepExecutor,
+									stepExecutor.getResumeSignal()));
+							return;
+						}
 					}
 				}
 			}
@@ -72,7 +108,9 @@ public class PlanExecutor extends AbstractPlanExecutor {
 			context.setSuccess(true);
 		}
 		finally {
-			performCleanup(context, lastExecutor);
+			if (!context.isSuspended()) {
+				performCleanup(context, lastExecutor);
+			}
 		}
 	}
 
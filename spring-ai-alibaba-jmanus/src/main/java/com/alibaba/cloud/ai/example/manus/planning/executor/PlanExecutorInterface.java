@@ -28,4 +28,10 @@ public interface PlanExecutorInterface {
 	 */
 	void executeAllSteps(ExecutionContext context);
 
+	/**
+	 * 继续执行因等待用户输入而挂起的计划。只有本执行器挂起的计划才会被恢复，不允许挂起的执行器应拒绝调用
+	 * @param context 挂起时的执行上下文
+	 */
+	void resumeAllSteps(ExecutionContext context);
+
 }
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.planning.executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reduces a large number of map outputs level by level before the final reduce step.
+ * <p>
+ * Inputs are grouped in order into batches of at most {@code fanIn} inputs and
+ * {@code maxBatchTokens} tokens, and the batches of one level are combined in parallel on
+ * the given executor. Each combined result becomes an input of the next level, until all
+ * inputs fit into a single batch for the final reduce. Token counts are estimated once,
+ * when an input is produced, so batching never re-reads the files.
+ * <p>
+ * Level 1 batches are combined as soon as they are full, while later inputs are still
+ * being added. An input larger than the token budget, and a batch whose combination
+ * failed, are passed on to the next level unchanged. Inputs of failed level 1 combines
+ * get a second chance at level 2; when combines of a later level fail, the tree stops and
+ * the final reduce receives more than one batch.
+ */
+final class TreeReducer {
+
+	private static final Logger logger = LoggerFactory.getLogger(TreeReducer.class);
+
+	private static final TokenCountEstimator TOKEN_COUNT_ESTIMATOR = new JTokkitTokenCountEstimator();
+
+	/**
+	 * Output of a map task or of a combined batch: a directory holding {@code output.md}.
+	 */
+	record ReduceInput(String directory, int tokens) {
+
+		Path outputFile() {
+			return Path.of(directory).resolve("output.md");
+		}
+
+	}
+
+	/**
+	 * Combines the outputs of one batch into a single intermediate result.
+	 */
+	@FunctionalInterface
+	interface Combiner {
+
+		String combine(int level, List<ReduceInput> inputs) throws Exception;
+
+	}
+
+	private final Executor executor;
+
+	private final int fanIn;
+
+	private final int maxBatchTokens;
+
+	private final Path workDirectory;
+
+	private final Combiner combiner;
+
+	private final List<CompletableFuture<List<ReduceInput>>> firstLevel = new ArrayList<>();
+
+	private List<ReduceInput> currentBatch = new ArrayList<>();
+
+	private int currentBatchTokens;
+
+	private int partCounter;
+
+	private int combineCount;
+
+	private final AtomicInteger failedCombines = new AtomicInteger();
+
+	TreeReducer(Executor executor, int fanIn, int maxBatchTokens, Path workDirectory, Combiner combiner) {
+		this.executor = executor;
+		this.fanIn = Math.max(2, fanIn);
+		this.maxBatchTokens = Math.max(1, maxBatchTokens);
+		this.workDirectory = workDirectory;
+		this.combiner = combiner;
+	}
+
+	/**
+	 * Estimates the number of tokens the text takes in a prompt.
+	 */
+	static int estimateTokens(String text) {
+		return text == null || text.isEmpty() ? 0 : TOKEN_COUNT_ESTIMATOR.estimate(text);
+	}
+
+	/**
+	 * Groups inputs in order into batches of at most {@code maxInputs} inputs and
+	 * {@code maxTokens} tokens. An input larger than the token budget forms its own
+	 * batch.
+	 */
+	static List<List<ReduceInput>> group(List<ReduceInput> inputs, int maxInputs, int maxTokens) {
+		List<List<ReduceInput>> batches = new ArrayList<>();
+		List<ReduceInput> batch = new ArrayList<>();
+		int batchTokens = 0;
+		for (ReduceInput input : inputs) {
+			if (!batch.isEmpty() && (batch.size() >= maxInputs || batchTokens + input.tokens() > maxTokens)) {
+				batches.add(batch);
+				batch = new ArrayList<>();
+				batchTokens = 0;
+			}
+			batch.add(input);
+			batchTokens += input.tokens();
+		}
+		if (!batch.isEmpty()) {
+			batches.add(batch);
+		}
+		return batches;
+	}
+
+	/**
+	 * Adds the next input of the first level, in reduce order. Called from a single
+	 * thread.
+	 */
+	void add(ReduceInput input) {
+		if (!currentBatch.isEmpty()
+				&& (currentBatch.size() >= fanIn || currentBatchTokens + input.tokens() > maxBatchTokens)) {
+			firstLevel.add(combineAsync(1, currentBatch));
+			currentBatch = new ArrayList<>();
+			currentBatchTokens = 0;
+		}
+		currentBatch.add(input);
+		currentBatchTokens += input.tokens();
+	}
+
+	/**
+	 * Combines the remaining levels after the last input was added.
+	 * @return inputs for the final reduce, in order; they fit into one batch unless some
+	 * of them exceed the token budget on their own
+	 */
+	List<ReduceInput> finish() {
+		if (!currentBatch.isEmpty()) {
+			firstLevel.add(combineAsync(1, currentBatch));
+			currentBatch = new ArrayList<>();
+		}
+		List<ReduceInput> level = join(firstLevel);
+		int depth = 1;
+		while (true) {
+			List<List<ReduceInput>> batches = group(level, fanIn, maxBatchTokens);
+			if (batches.size() <= 1) {
+				break;
+			}
+			depth++;
+			logger.info("Tree reduce level {}: combining {} inputs in {} batches", depth, level.size(), batches.size());
+			int failedBefore = failedCombines.get();
+			List<CompletableFuture<List<ReduceInput>>> futures = new ArrayList<>();
+			for (List<ReduceInput> batch : batches) {
+				futures.add(combineAsync(depth, batch));
+			}
+			List<ReduceInput> next = join(futures);
+			if (next.size() >= level.size()) {
+				logger.warn("Tree reduce level {} did not reduce its {} inputs, stopping", depth, level.size());
+				break;
+			}
+			level = next;
+			if (failedCombines.get() > failedBefore) {
+				logger.warn("Tree reduce level {} had failed combines, stopping with {} inputs", depth, level.size());
+				break;
+			}
+		}
+		logger.info("Tree reduce finished after {} levels and {} combines, {} inputs left for the final reduce", depth,
+				combineCount, level.size());
+		return level;
+	}
+
+	private CompletableFuture<List<ReduceInput>> combineAsync(int level, List<ReduceInput> batch) {
+		if (batch.size() == 1) {
+			return CompletableFuture.completedFuture(batch);
+		}
+		int part = ++partCounter;
+		combineCount++;
+		Path partDirectory = workDirectory.resolve(String.format("level%d_part_%04d", level, part));
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				String combined = combiner.combine(level, batch);
+				Files.createDirectories(partDirectory);
+				Files.writeString(partDirectory.resolve("output.md"), combined);
+				return List.of(new ReduceInput(partDirectory.toString(), estimateTokens(combined)));
+			}
+			catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		}, executor).exceptionally(e -> {
+			failedCombines.incrementAndGet();
+			logger.error("Combining tree reduce part {} of level {} failed, passing its {} inputs on", part, level,
+					batch.size(), e);
+			return batch;
+		});
+	}
+
+	private static List<ReduceInput> join(List<CompletableFuture<List<ReduceInput>>> futures) {
+		List<ReduceInput> results = new ArrayList<>();
+		for (CompletableFuture<List<ReduceInput>> future : futures) {
+			results.addAll(future.join());
+		}
+		return results;
+	}
+
+}
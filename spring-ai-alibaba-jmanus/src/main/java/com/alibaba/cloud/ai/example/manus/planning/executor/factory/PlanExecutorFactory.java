@@ -24,6 +24,7 @@ import com.alibaba.cloud.ai.example.manus.planning.executor.MapReducePlanExecuto
 import com.alibaba.cloud.ai.example.manus.planning.executor.PlanExecutor;
 import com.alibaba.cloud.ai.example.manus.planning.executor.PlanExecutorInterface;
 import com.alibaba.cloud.ai.example.manus.planning.model.vo.PlanInterface;
+import com.alibaba.cloud.ai.example.manus.planning.scheduler.PlanExecutionScheduler;
 import com.alibaba.cloud.ai.example.manus.recorder.PlanExecutionRecorder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,13 +52,17 @@ public class PlanExecutorFactory {
 
 	private final ManusProperties manusProperties;
 
+	private final PlanExecutionScheduler planExecutionScheduler;
+
 	public PlanExecutorFactory(DynamicAgentLoader dynamicAgentLoader, LlmService llmService, AgentService agentService,
-			PlanExecutionRecorder recorder, ManusProperties manusProperties) {
+			PlanExecutionRecorder recorder, ManusProperties manusProperties,
+			PlanExecutionScheduler planExecutionScheduler) {
 		this.dynamicAgentLoader = dynamicAgentLoader;
 		this.llmService = llmService;
 		this.agentService = agentService;
 		this.recorder = recorder;
 		this.manusProperties = manusProperties;
+		this.planExecutionScheduler = planExecutionScheduler;
 	}
 
 	/**
@@ -106,7 +111,8 @@ public class PlanExecutorFactory {
 	private PlanExecutorInterface createAdvancedExecutor() {
 		log.debug("Creating advanced MapReduce plan executor");
 		List<DynamicAgentEntity> agents = dynamicAgentLoader.getAllAgents();
-		return new MapReducePlanExecutor(agents, recorder, agentService, llmService, manusProperties);
+		return new MapReducePlanExecutor(agents, recorder, agentService, llmService, manusProperties,
+				planExecutionScheduler.getMapTaskExecutor());
 	}
 
 	/**
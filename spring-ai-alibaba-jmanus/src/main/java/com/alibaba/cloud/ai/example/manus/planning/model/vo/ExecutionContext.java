@@ -17,6 +17,10 @@ package com.alibaba.cloud.ai.example.manus.planning.model.vo;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import com.alibaba.cloud.ai.example.manus.agent.BaseAgent;
+import com.alibaba.cloud.ai.example.manus.planning.executor.PlanExecutorInterface;
 
 /**
  * Execution context class for passing and maintaining state information during the
@@ -69,6 +73,15 @@ public class ExecutionContext {
 	 */
 	private boolean useMemory = false;
 
+	/**
+	 * Whether the caller resumes the plan when it is suspended waiting for user input; if
+	 * not, the waiting agent keeps its thread
+	 */
+	private boolean resumable = false;
+
+	/** Set while the plan is suspended, holds what is needed to continue it */
+	private volatile Suspension suspension;
+
 	/**
 	 * Get plan ID
 	 * @return Unique identifier of the plan
@@ -222,4 +235,36 @@ public class ExecutionContext {
 		this.useMemory = useMemory;
 	}
 
+	public boolean isResumable() {
+		return resumable;
+	}
+
+	public void setResumable(boolean resumable) {
+		this.resumable = resumable;
+	}
+
+	public boolean isSuspended() {
+		return suspension != null;
+	}
+
+	public Suspension getSuspension() {
+		return suspension;
+	}
+
+	public void setSuspension(Suspension suspension) {
+		this.suspension = suspension;
+	}
+
+	/**
+	 * Checkpoint of a plan whose execution stopped without holding a thread.
+	 *
+	 * @param executor Executor that resumes the plan
+	 * @param stepIndex Index of the step whose agent is blocked
+	 * @param agent Blocked agent of that step
+	 * @param resumeSignal Completes when the plan can continue
+	 */
+	public record Suspension(PlanExecutorInterface executor, int stepIndex, BaseAgent agent,
+			CompletableFuture<?> resumeSignal) {
+	}
+
 }
@@ -0,0 +1,313 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.planning.scheduler;
+
+import com.alibaba.cloud.ai.example.manus.config.ManusProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Central scheduler for root plan executions.
+ * <p>
+ * Submitted plans wait in a bounded admission queue ordered by priority, then by arrival.
+ * A plan starts once fewer than {@code manus.scheduler.maxConcurrentPlans} plans are
+ * running and its tenant runs fewer than {@code manus.scheduler.maxPlansPerTenant}; a
+ * plan whose tenant is at its limit does not block plans of other tenants queued behind
+ * it. Submissions are rejected once {@code manus.scheduler.queueCapacity} plans are
+ * waiting. Limits are read on every dispatch, so changes made on the config page apply to
+ * the next plan.
+ * <p>
+ * The scheduler also owns the executor shared by the map tasks of all MapReduce plans,
+ * sized by {@code manus.infiniteContext.parallelThreads}, so map concurrency no longer
+ * grows with the number of plans.
+ */
+@Component
+public class PlanExecutionScheduler {
+
+	private static final Logger logger = LoggerFactory.getLogger(PlanExecutionScheduler.class);
+
+	/**
+	 * Tenant of plans submitted without one.
+	 */
+	public static final String DEFAULT_TENANT = "default";
+
+	private final ManusProperties manusProperties;
+
+	private final ThreadPoolExecutor planWorkers;
+
+	private final ThreadPoolExecutor mapTaskExecutor;
+
+	private final Object lock = new Object();
+
+	// Waiting plans, highest priority first, then in arrival order
+	private final TreeSet<Ticket> queue = new TreeSet<>(
+			Comparator.comparingInt(Ticket::priority).reversed().thenComparingLong(Ticket::sequence));
+
+	private final Map<String, Ticket> queuedByPlanId = new HashMap<>();
+
+	private final Map<String, Integer> runningByTenant = new HashMap<>();
+
+	private final AtomicLong sequence = new AtomicLong();
+
+	private int running;
+
+	private boolean shutdown;
+
+	private final Timer waitTimer;
+
+	private final Counter rejectedCounter;
+
+	@Autowired
+	public PlanExecutionScheduler(ManusProperties manusProperties, ObjectProvider<MeterRegistry> meterRegistry) {
+		this(manusProperties, meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+	}
+
+	PlanExecutionScheduler(ManusProperties manusProperties, MeterRegistry meterRegistry) {
+		this.manusProperties = manusProperties;
+		// Plan concurrency is bounded by dispatch, the pool only supplies threads
+		this.planWorkers = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(),
+				threadFactory("plan-executor-"));
+		int mapThreads = mapTaskThreads();
+		this.mapTaskExecutor = new ThreadPoolExecutor(mapThreads, mapThreads, 60L, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), threadFactory("map-task-executor-"));
+		this.mapTaskExecutor.allowCoreThreadTimeOut(true);
+
+		Gauge.builder("jmanus.plan.queue.depth", this, PlanExecutionScheduler::queuedCount)
+			.description("Number of plans waiting for admission")
+			.register(meterRegistry);
+		Gauge.builder("jmanus.plan.running", this, PlanExecutionScheduler::runningCount)
+			.description("Number of plans being executed")
+			.register(meterRegistry);
+		this.waitTimer = Timer.builder("jmanus.plan.queue.wait")
+			.description("Time plans spend in the admission queue")
+			.register(meterRegistry);
+		this.rejectedCounter = Counter.builder("jmanus.plan.rejected")
+			.description("Number of plans rejected because the admission queue was full")
+			.register(meterRegistry);
+	}
+
+	/**
+	 * Queues a plan for execution.
+	 * @param planId Plan ID, used to look up the queue position
+	 * @param tenantId Tenant the plan counts against, null for the default tenant
+	 * @param priority Higher values run first
+	 * @param task Plan execution
+	 * @return Admission result with the queue position of the plan
+	 */
+	public Admission submit(String planId, String tenantId, int priority, Runnable task) {
+		return enqueue(planId, tenantId, priority, task, true);
+	}
+
+	/**
+	 * Queues the continuation of a plan that was admitted before and released its worker
+	 * while suspended. Continuations wait for a free slot like new plans but are never
+	 * rejected for a full queue, since the plan was already accepted.
+	 * @param planId Plan ID
+	 * @param tenantId Tenant the plan counts against, null for the default tenant
+	 * @param priority Higher values run first
+	 * @param task Continuation of the plan execution
+	 * @return Admission result with the queue position of the plan
+	 */
+	public Admission resume(String planId, String tenantId, int priority, Runnable task) {
+		return enqueue(planId, tenantId, priority, task, false);
+	}
+
+	private Admission enqueue(String planId, String tenantId, int priority, Runnable task, boolean checkCapacity) {
+		String tenant = tenantId == null || tenantId.isBlank() ? DEFAULT_TENANT : tenantId;
+		synchronized (lock) {
+			if (shutdown) {
+				return Admission.rejected("调度器已关闭");
+			}
+			int capacity = Math.max(0, manusProperties.getSchedulerQueueCapacity());
+			if (checkCapacity && queue.size() >= capacity) {
+				rejectedCounter.increment();
+				logger.warn("Rejecting plan {} of tenant {}: {} plans already queued", planId, tenant, queue.size());
+				return Admission.rejected("执行队列已满，请稍后重试");
+			}
+			Ticket ticket = new Ticket(planId, tenant, priority, sequence.incrementAndGet(), System.nanoTime(), task);
+			queue.add(ticket);
+			queuedByPlanId.put(planId, ticket);
+			dispatch();
+			int position = position(ticket);
+			logger.info("Admitted plan {} of tenant {} with priority {}, queue position {}", planId, tenant, priority,
+					position);
+			return Admission.accepted(position);
+		}
+	}
+
+	/**
+	 * Returns the queue position of a waiting plan.
+	 * @param planId Plan ID
+	 * @return 1 for the next plan to run, 0 if the plan is not waiting
+	 */
+	public int getQueuePosition(String planId) {
+		synchronized (lock) {
+			Ticket ticket = queuedByPlanId.get(planId);
+			return ticket == null ? 0 : position(ticket);
+		}
+	}
+
+	/**
+	 * Returns the executor for MapReduce map tasks, resized to the configured number of
+	 * parallel threads.
+	 */
+	public ExecutorService getMapTaskExecutor() {
+		int threads = mapTaskThreads();
+		synchronized (mapTaskExecutor) {
+			if (threads > mapTaskExecutor.getMaximumPoolSize()) {
+				mapTaskExecutor.setMaximumPoolSize(threads);
+				mapTaskExecutor.setCorePoolSize(threads);
+			}
+			else if (threads < mapTaskExecutor.getMaximumPoolSize()) {
+				mapTaskExecutor.setCorePoolSize(threads);
+				mapTaskExecutor.setMaximumPoolSize(threads);
+			}
+		}
+		return mapTaskExecutor;
+	}
+
+	public int queuedCount() {
+		synchronized (lock) {
+			return queue.size();
+		}
+	}
+
+	public int runningCount() {
+		synchronized (lock) {
+			return running;
+		}
+	}
+
+	@PreDestroy
+	public void destroy() {
+		synchronized (lock) {
+			shutdown = true;
+			if (!queue.isEmpty()) {
+				logger.warn("Discarding {} queued plans on shutdown", queue.size());
+			}
+			queue.clear();
+			queuedByPlanId.clear();
+		}
+		planWorkers.shutdownNow();
+		mapTaskExecutor.shutdownNow();
+	}
+
+	// Starts queued plans while capacity allows, must hold the lock
+	private void dispatch() {
+		int maxConcurrent = Math.max(1, manusProperties.getSchedulerMaxConcurrentPlans());
+		int maxPerTenant = Math.max(1, manusProperties.getSchedulerMaxPlansPerTenant());
+		while (running < maxConcurrent) {
+			Ticket next = null;
+			for (Ticket ticket : queue) {
+				if (runningByTenant.getOrDefault(ticket.tenantId(), 0) < maxPerTenant) {
+					next = ticket;
+					break;
+				}
+			}
+			if (next == null) {
+				return;
+			}
+			queue.remove(next);
+			queuedByPlanId.remove(next.planId());
+			running++;
+			runningByTenant.merge(next.tenantId(), 1, Integer::sum);
+			waitTimer.record(System.nanoTime() - next.enqueuedAt(), TimeUnit.NANOSECONDS);
+			Ticket started = next;
+			planWorkers.execute(() -> run(started));
+		}
+	}
+
+	private void run(Ticket ticket) {
+		try {
+			ticket.task().run();
+		}
+		catch (Throwable e) {
+			logger.error("Plan {} failed", ticket.planId(), e);
+		}
+		finally {
+			synchronized (lock) {
+				running--;
+				runningByTenant.computeIfPresent(ticket.tenantId(), (tenant, count) -> count > 1 ? count - 1 : null);
+				if (!shutdown) {
+					dispatch();
+				}
+			}
+		}
+	}
+
+	private int position(Ticket ticket) {
+		return queue.contains(ticket) ? queue.headSet(ticket).size() + 1 : 0;
+	}
+
+	private int mapTaskThreads() {
+		Integer threads = manusProperties.getInfiniteContextParallelThreads();
+		return threads != null && threads > 0 ? threads : 1;
+	}
+
+	private static ThreadFactory threadFactory(String prefix) {
+		AtomicInteger count = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	private record Ticket(String planId, String tenantId, int priority, long sequence, long enqueuedAt, Runnable task) {
+	}
+
+	/**
+	 * Result of a plan submission.
+	 *
+	 * @param accepted Whether the plan was queued
+	 * @param queuePosition Position in the queue, 0 if the plan started right away
+	 * @param message Reason of a rejection
+	 */
+	public record Admission(boolean accepted, int queuePosition, String message) {
+
+		static Admission accepted(int queuePosition) {
+			return new Admission(true, queuePosition, null);
+		}
+
+		static Admission rejected(String message) {
+			return new Admission(false, -1, message);
+		}
+
+	}
+
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.planning.service;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntSupplier;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.cloud.ai.example.manus.planning.model.vo.PlanInterface;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+/**
+ * Plans created for earlier requests, reused for requests with the same fingerprint.
+ * <p>
+ * A plan is stored with every parameter value of its request replaced by a placeholder in
+ * the text of the plan, and the placeholders are filled with the parameters of the new
+ * request when the plan is reused. Requests with a number or a value shorter than
+ * {@value #MIN_PARAMETER_LENGTH} characters among their parameters always miss: such
+ * values also occur in unrelated text of the plan, and numbers tend to change its
+ * structure, like the number of steps, rather than only its text. Plans of requests
+ * repeating a parameter value are not stored either, since their placeholders could not
+ * be told apart, nor are plans whose placeholders do not restore the original plan.
+ * Entries expire after the TTL and the least recently used ones are dropped above the
+ * size limit.
+ */
+class PlanCache {
+
+	private static final Logger log = LoggerFactory.getLogger(PlanCache.class);
+
+	static final int MIN_PARAMETER_LENGTH = 4;
+
+	private static final Pattern PLACEHOLDER = Pattern.compile("\\{\\{plan_param_(\\d+)}}");
+
+	private static final Pattern NUMBER = Pattern.compile("-?\\d+(?:\\.\\d+)?");
+
+	// Set again for every reuse, so not kept in the stored plan
+	private static final List<String> TRANSIENT_FIELDS = List.of("currentPlanId", "rootPlanId", "planningThinking",
+			"userRequest", "executionParams");
+
+	private record Entry(String planJson, int parameterCount, long expiresAtMillis) {
+	}
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final IntSupplier ttlMinutes;
+
+	private final IntSupplier maxEntries;
+
+	private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	PlanCache(IntSupplier ttlMinutes, IntSupplier maxEntries) {
+		this.ttlMinutes = ttlMinutes;
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * Returns a copy of the plan stored under the given key with the parameters of the
+	 * given request, or null when there is none.
+	 */
+	PlanInterface get(String key, PlanRequestFingerprint fingerprint) {
+		if (!templatable(fingerprint.parameters())) {
+			return null;
+		}
+		Entry entry;
+		synchronized (entries) {
+			entry = entries.get(key);
+			if (entry != null && entry.expiresAtMillis() <= System.currentTimeMillis()) {
+				entries.remove(key);
+				entry = null;
+			}
+		}
+		if (entry == null || entry.parameterCount() != fingerprint.parameters().size()) {
+			return null;
+		}
+		try {
+			JsonNode plan = objectMapper.readTree(entry.planJson());
+			return objectMapper.treeToValue(fill(plan, fingerprint.parameters()), PlanInterface.class);
+		}
+		catch (JsonProcessingException | RuntimeException e) {
+			log.warn("Dropping cached plan that cannot be restored: {}", e.getMessage());
+			synchronized (entries) {
+				entries.remove(key);
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Stores the plan created for the given request.
+	 */
+	void put(String key, PlanRequestFingerprint fingerprint, PlanInterface plan) {
+		List<String> parameters = fingerprint.parameters();
+		if (!templatable(parameters)) {
+			log.debug("Not caching plan of a request with a number or a short parameter value");
+			return;
+		}
+		if (new HashSet<>(parameters).size() != parameters.size()) {
+			log.debug("Not caching plan of a request repeating a parameter value");
+			return;
+		}
+		try {
+			JsonNode tree = objectMapper.valueToTree(plan);
+			if (tree instanceof ObjectNode object) {
+				object.remove(TRANSIENT_FIELDS);
+			}
+			// Standalone values only, not the start of a longer path or name
+			List<Pattern> values = parameters.stream()
+				.map(value -> Pattern.compile("(?<![\\w.])" + Pattern.quote(value) + "(?!\\w|\\.\\w)"))
+				.toList();
+			JsonNode stored = rewriteText(tree, text -> {
+				String result = text;
+				// Longer values first, so a value contained in another one does not
+				// break it up
+				for (int i : longestFirst(parameters)) {
+					result = values.get(i).matcher(result).replaceAll("{{plan_param_" + i + "}}");
+				}
+				return result;
+			});
+			if (!fill(stored, parameters).equals(tree)) {
+				log.debug("Not caching plan whose placeholders do not restore it");
+				return;
+			}
+			long expiresAt = System.currentTimeMillis() + ttlMinutes.getAsInt() * 60_000L;
+			Entry entry = new Entry(objectMapper.writeValueAsString(stored), parameters.size(), expiresAt);
+			int limit = Math.max(1, maxEntries.getAsInt());
+			synchronized (entries) {
+				entries.put(key, entry);
+				Iterator<String> eldest = entries.keySet().iterator();
+				while (entries.size() > limit && eldest.hasNext()) {
+					eldest.next();
+					eldest.remove();
+				}
+			}
+		}
+		catch (JsonProcessingException | RuntimeException e) {
+			log.warn("Failed to cache plan: {}", e.getMessage());
+		}
+	}
+
+	void clear() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+
+	int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	/**
+	 * Whether every parameter value can be replaced by a placeholder without risking to
+	 * template unrelated text or a value that shapes the plan.
+	 */
+	private static boolean templatable(List<String> parameters) {
+		return parameters.stream()
+			.allMatch(value -> value.length() >= MIN_PARAMETER_LENGTH && !NUMBER.matcher(value).matches());
+	}
+
+	/**
+	 * Returns a copy of the tree with its placeholders replaced by the given parameters.
+	 */
+	private static JsonNode fill(JsonNode plan, List<String> parameters) {
+		return rewriteText(plan, text -> {
+			Matcher matcher = PLACEHOLDER.matcher(text);
+			StringBuilder result = new StringBuilder();
+			while (matcher.find()) {
+				String value = parameters.get(Integer.parseInt(matcher.group(1)));
+				matcher.appendReplacement(result, Matcher.quoteReplacement(value));
+			}
+			matcher.appendTail(result);
+			return result.toString();
+		});
+	}
+
+	private static int[] longestFirst(List<String> parameters) {
+		return IntStream.range(0, parameters.size())
+			.boxed()
+			.sorted((a, b) -> Integer.compare(parameters.get(b).length(), parameters.get(a).length()))
+			.mapToInt(Integer::intValue)
+			.toArray();
+	}
+
+	/**
+	 * Returns a copy of the tree with the given function applied to every text value.
+	 */
+	private static JsonNode rewriteText(JsonNode node, UnaryOperator<String> rewrite) {
+		if (node.isTextual()) {
+			return TextNode.valueOf(rewrite.apply(node.asText()));
+		}
+		if (node instanceof ObjectNode object) {
+			ObjectNode copy = object.objectNode();
+			object.fields().forEachRemaining(field -> copy.set(field.getKey(), rewriteText(field.getValue(), rewrite)));
+			return copy;
+		}
+		if (node instanceof ArrayNode array) {
+			ArrayNode copy = array.arrayNode();
+			array.forEach(element -> copy.add(rewriteText(element, rewrite)));
+			return copy;
+		}
+		return node;
+	}
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.planning.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A user request with its parameters taken out, so that requests asking for the same work
+ * on different values share one fingerprint.
+ * <p>
+ * Parameters are quoted text, URLs, e-mail addresses, dates, numbers and file paths. Each
+ * one is replaced by {@code {}} in the stripped request, which is also lower cased with
+ * its whitespace collapsed, and kept in order of appearance.
+ *
+ * @param strippedRequest the normalized request without its parameters
+ * @param parameters the parameter values, in order of appearance
+ */
+public record PlanRequestFingerprint(String strippedRequest, List<String> parameters) {
+
+	private static final Pattern PARAMETER = Pattern.compile(String.join("|",
+			// Quoted text, the quotes are not part of the value
+			"\"([^\"]+)\"", "(?<!\\w)'([^']+)'(?!\\w)", "“([^”]+)”", "「([^」]+)」", "《([^》]+)》",
+			// URLs and e-mail addresses
+			"(https?://[^\\s\"'“”<>]+)", "([\\w.+-]+@[\\w-]+(?:\\.[\\w-]+)+)",
+			// Dates, numbers and paths
+			"(\\d{4}[-/.]\\d{1,2}[-/.]\\d{1,2})", "(?<![\\w.])(-?\\d+(?:\\.\\d+)?)(?![\\w.]*\\w)",
+			"(?<!\\w)((?:[A-Za-z]:)?(?:\\.{0,2}[/\\\\])(?:[\\w.-]+[/\\\\])*[\\w.-]+)"));
+
+	/**
+	 * Takes the parameters out of the given request.
+	 */
+	public static PlanRequestFingerprint of(String request) {
+		List<String> parameters = new ArrayList<>();
+		StringBuilder stripped = new StringBuilder();
+		Matcher matcher = PARAMETER.matcher(request == null ? "" : request);
+		while (matcher.find()) {
+			for (int group = 1; group <= matcher.groupCount(); group++) {
+				if (matcher.group(group) != null) {
+					parameters.add(matcher.group(group));
+					break;
+				}
+			}
+			matcher.appendReplacement(stripped, "{}");
+		}
+		matcher.appendTail(stripped);
+		String normalized = stripped.toString().toLowerCase(Locale.ROOT).trim().replaceAll("\\s+", " ");
+		return new PlanRequestFingerprint(normalized, List.copyOf(parameters));
+	}
+
+}
@@ -15,8 +15,12 @@
  */
 package com.alibaba.cloud.ai.example.manus.planning.service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,8 +30,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.alibaba.cloud.ai.example.manus.config.ManusProperties;
 import com.alibaba.cloud.ai.example.manus.planning.model.po.PlanTemplate;
 import com.alibaba.cloud.ai.example.manus.planning.model.po.PlanTemplateVersion;
+import com.alibaba.cloud.ai.example.manus.planning.model.vo.PlanInterface;
 import com.alibaba.cloud.ai.example.manus.planning.repository.PlanTemplateRepository;
 import com.alibaba.cloud.ai.example.manus.planning.repository.PlanTemplateVersionRepository;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -47,6 +53,56 @@ public class PlanTemplateService {
 	@Autowired
 	private PlanTemplateVersionRepository versionRepository;
 
+	@Autowired
+	private ManusProperties manusProperties;
+
+	private final PlanCache planCache = new PlanCache(() -> manusProperties.getPlanCacheTtlMinutes(),
+			() -> manusProperties.getPlanCacheMaxEntries());
+
+	/**
+	 * Find a plan created earlier for a request with the same fingerprint
+	 * @param planPromptKey Planning prompt rendered for the stripped request, which
+	 * identifies the template and the agents the plan was created with
+	 * @param fingerprint Fingerprint of the new request
+	 * @return Copy of the cached plan with the parameters of the new request, or null
+	 */
+	public PlanInterface findCachedPlan(String planPromptKey, PlanRequestFingerprint fingerprint) {
+		if (!Boolean.TRUE.equals(manusProperties.getPlanCacheEnabled())) {
+			return null;
+		}
+		return planCache.get(cacheKey(planPromptKey), fingerprint);
+	}
+
+	/**
+	 * Cache a newly created plan for reuse by requests with the same fingerprint
+	 * @param planPromptKey Planning prompt rendered for the stripped request
+	 * @param fingerprint Fingerprint of the request the plan was created for
+	 * @param plan Created plan
+	 */
+	public void cachePlan(String planPromptKey, PlanRequestFingerprint fingerprint, PlanInterface plan) {
+		if (!Boolean.TRUE.equals(manusProperties.getPlanCacheEnabled())) {
+			return;
+		}
+		planCache.put(cacheKey(planPromptKey), fingerprint, plan);
+	}
+
+	/**
+	 * Drop all cached plans
+	 */
+	public void clearPlanCache() {
+		planCache.clear();
+	}
+
+	private static String cacheKey(String planPromptKey) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(planPromptKey.getBytes(StandardCharsets.UTF_8));
+			return HexFormat.of().formatHex(digest);
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
 	/**
 	 * Save plan template and its first version
 	 * @param planTemplateId Plan template ID
@@ -21,7 +21,9 @@ import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,6 +31,10 @@ public class UserInputService {
 
 	private final ConcurrentHashMap<String, FormInputTool> formInputToolMap = new ConcurrentHashMap<>();
 
+	// Forms waiting for input, completed by the submission or by the timeout, whichever
+	// removes the entry first
+	private final ConcurrentHashMap<String, CompletableFuture<FormInputTool.InputState>> pendingInputs = new ConcurrentHashMap<>();
+
 	public void storeFormInputTool(String planId, FormInputTool tool) {
 		formInputToolMap.put(planId, tool);
 	}
@@ -39,6 +45,37 @@ public class UserInputService {
 
 	public void removeFormInputTool(String planId) {
 		formInputToolMap.remove(planId);
+		CompletableFuture<FormInputTool.InputState> pending = pendingInputs.remove(planId);
+		if (pending != null) {
+			pending.cancel(false);
+		}
+	}
+
+	/**
+	 * Registers a form waiting for user input. No thread waits for the input: the
+	 * returned future completes with INPUT_RECEIVED when {@link #submitUserInputs}
+	 * accepts the input, or with INPUT_TIMEOUT once the timeout elapsed, which runs on
+	 * the JDK's shared delay scheduler.
+	 * @param planId Plan ID
+	 * @param tool Form waiting for input
+	 * @param timeoutSeconds Seconds to wait for the input
+	 * @return Future of the state the form ends up in
+	 */
+	public CompletableFuture<FormInputTool.InputState> awaitUserInput(String planId, FormInputTool tool,
+			long timeoutSeconds) {
+		CompletableFuture<FormInputTool.InputState> future = new CompletableFuture<>();
+		storeFormInputTool(planId, tool);
+		CompletableFuture<FormInputTool.InputState> previous = pendingInputs.put(planId, future);
+		if (previous != null) {
+			previous.cancel(false);
+		}
+		CompletableFuture.delayedExecutor(timeoutSeconds, TimeUnit.SECONDS).execute(() -> {
+			if (pendingInputs.remove(planId, future)) {
+				tool.handleInputTimeout();
+				future.complete(FormInputTool.InputState.INPUT_TIMEOUT);
+			}
+		});
+		return future;
 	}
 
 	public UserInputWaitState createUserInputWaitState(String planId, String message, FormInputTool formInputTool) {
@@ -85,17 +122,24 @@ public class UserInputService {
 																					// return
 																					// boolean
 		FormInputTool formInputTool = getFormInputTool(planId);
+		CompletableFuture<FormInputTool.InputState> pending = pendingInputs.get(planId);
+		if (pending != null) {
+			// Only one of the submission and the timeout takes the pending input
+			if (formInputTool == null || !pendingInputs.remove(planId, pending)) {
+				return false;
+			}
+			formInputTool.setUserFormInputValues(toInputItems(inputs));
+			formInputTool.markUserInputReceived();
+			pending.complete(FormInputTool.InputState.INPUT_RECEIVED);
+			return true;
+		}
 		if (formInputTool != null && formInputTool.getInputState() == FormInputTool.InputState.AWAITING_USER_INPUT) { // Corrected
 																														// to
 																														// use
 																														// getInputState
 																														// and
 																														// InputState
-			List<FormInputTool.InputItem> inputItems = inputs.entrySet().stream().map(entry -> {
-				return new FormInputTool.InputItem(entry.getKey(), entry.getValue());
-			}).collect(Collectors.toList());
-
-			formInputTool.setUserFormInputValues(inputItems);
+			formInputTool.setUserFormInputValues(toInputItems(inputs));
 			formInputTool.markUserInputReceived();
 			return true;
 		}
@@ -108,4 +152,10 @@ public class UserInputService {
 		}
 	}
 
+	private List<FormInputTool.InputItem> toInputItems(Map<String, String> inputs) {
+		return inputs.entrySet().stream().map(entry -> {
+			return new FormInputTool.InputItem(entry.getKey(), entry.getValue());
+		}).collect(Collectors.toList());
+	}
+
 }
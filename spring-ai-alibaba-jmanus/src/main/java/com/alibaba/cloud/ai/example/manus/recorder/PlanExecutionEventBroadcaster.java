@@ -0,0 +1,424 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.recorder;
+
+import com.alibaba.cloud.ai.example.manus.recorder.entity.PlanExecutionEventEntity;
+import com.alibaba.cloud.ai.example.manus.recorder.repository.PlanExecutionEventStore;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes plan execution events to subscribers as the recorder persists them, so clients
+ * can follow a plan without polling its full execution record.
+ * <p>
+ * The sequence number of an event is the ID of its row in the event store, which makes
+ * resuming cheap: a subscriber that reconnects with the last sequence it has seen only
+ * reads the events appended after it. Each subscriber has a bounded buffer; a subscriber
+ * whose buffer is full stops taking events and catches up from the store once it has
+ * drained, so a slow client neither holds events in memory nor misses any.
+ */
+@Component
+public class PlanExecutionEventBroadcaster {
+
+	private static final Logger logger = LoggerFactory.getLogger(PlanExecutionEventBroadcaster.class);
+
+	static final int DEFAULT_BUFFER_SIZE = 256;
+
+	private static final long EMITTER_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+
+	private static final int FETCH_PAGE_SIZE = 500;
+
+	private final RepositoryPlanExecutionRecorder recorder;
+
+	private final PlanExecutionEventStore eventStore;
+
+	private final ObjectMapper objectMapper;
+
+	private final int bufferSize;
+
+	private final ExecutorService dispatcher;
+
+	private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+
+	@Autowired
+	public PlanExecutionEventBroadcaster(RepositoryPlanExecutionRecorder recorder, PlanExecutionEventStore eventStore,
+			ObjectMapper objectMapper) {
+		this(recorder, eventStore, objectMapper, DEFAULT_BUFFER_SIZE);
+	}
+
+	PlanExecutionEventBroadcaster(RepositoryPlanExecutionRecorder recorder, PlanExecutionEventStore eventStore,
+			ObjectMapper objectMapper, int bufferSize) {
+		this.recorder = recorder;
+		this.eventStore = eventStore;
+		this.objectMapper = objectMapper;
+		this.bufferSize = bufferSize;
+		AtomicInteger threadCount = new AtomicInteger();
+		this.dispatcher = Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "plan-execution-event-stream-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		recorder.addFlushListener(this::onEventsPersisted);
+	}
+
+	/**
+	 * Opens a server-sent event stream of the events of a root plan. Each event carries
+	 * its sequence as the SSE id, the event type as the SSE event name and a
+	 * {@link StreamEvent} as data. The stream completes after the root plan completion
+	 * event has been sent.
+	 * @param rootPlanId Root plan ID
+	 * @param afterSequence Sequence of the last event already received, null or 0 to
+	 * replay the plan from the beginning
+	 * @return SSE emitter returned to Spring MVC
+	 */
+	public SseEmitter subscribe(String rootPlanId, Long afterSequence) {
+		SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MILLIS);
+		Subscription subscription = subscribe(rootPlanId, afterSequence == null ? 0L : afterSequence,
+				new SseEventSink(emitter));
+		emitter.onCompletion(subscription::close);
+		emitter.onTimeout(subscription::close);
+		emitter.onError(error -> subscription.close());
+		return emitter;
+	}
+
+	Subscription subscribe(String rootPlanId, long afterSequence, EventSink sink) {
+		Subscription subscription = new Subscription(rootPlanId, afterSequence, sink);
+		// Add under the map's lock so removeIfIdle cannot drop the channel in between
+		channels.compute(rootPlanId, (id, current) -> {
+			Channel channel = current != null ? current : new Channel(id);
+			channel.subscriptions.add(subscription);
+			return channel;
+		});
+		// Push buffered events to the store so the replay below sees them
+		recorder.flush();
+		schedule(rootPlanId);
+		return subscription;
+	}
+
+	int subscriberCount(String rootPlanId) {
+		Channel channel = channels.get(rootPlanId);
+		return channel == null ? 0 : channel.subscriptions.size();
+	}
+
+	private void onEventsPersisted(Set<String> rootPlanIds) {
+		for (String rootPlanId : rootPlanIds) {
+			if (channels.containsKey(rootPlanId)) {
+				schedule(rootPlanId);
+			}
+		}
+	}
+
+	private void schedule(String rootPlanId) {
+		Channel channel = channels.get(rootPlanId);
+		if (channel == null) {
+			return;
+		}
+		try {
+			dispatcher.execute(channel::fetch);
+		}
+		catch (RejectedExecutionException e) {
+			logger.debug("Event stream dispatcher is shut down, dropping update for plan {}", rootPlanId);
+		}
+	}
+
+	private void removeIfIdle(Channel channel) {
+		channels.computeIfPresent(channel.rootPlanId,
+				(id, current) -> current.subscriptions.isEmpty() ? null : current);
+	}
+
+	private StreamEvent toStreamEvent(PlanExecutionEventEntity event) {
+		JsonNode record = null;
+		if (event.getPayload() != null) {
+			try {
+				record = objectMapper.readTree(event.getPayload());
+			}
+			catch (IOException e) {
+				logger.warn("Skipping unreadable payload of plan execution event {}", event.getId(), e);
+			}
+		}
+		return new StreamEvent(event.getId(), event.getRootPlanId(), event.getPlanId(), event.getEventType().name(),
+				event.getRecordId(), event.getParentId(), record);
+	}
+
+	@PreDestroy
+	public void destroy() {
+		dispatcher.shutdownNow();
+		for (Channel channel : channels.values()) {
+			for (Subscription subscription : channel.subscriptions) {
+				subscription.sink.complete();
+			}
+		}
+		channels.clear();
+	}
+
+	/**
+	 * One event pushed to subscribers.
+	 *
+	 * @param sequence Sequence of the event, used to resume the stream
+	 * @param rootPlanId Root plan ID
+	 * @param planId ID of the plan or sub-plan the record belongs to
+	 * @param type PLAN, AGENT or THINK_ACT
+	 * @param recordId Agent execution ID or think-act record ID, null for plan events
+	 * @param parentId Think-act record ID that started the plan for plan and agent
+	 * events, agent execution ID for think-act events
+	 * @param record Latest version of the record, without its child records
+	 */
+	public record StreamEvent(long sequence, String rootPlanId, String planId, String type, Long recordId,
+			Long parentId, JsonNode record) {
+
+		/**
+		 * Whether this event reports the completion of the root plan, after which no more
+		 * events are expected.
+		 */
+		boolean completesRootPlan() {
+			return PlanExecutionEventEntity.EventType.PLAN.name().equals(type) && parentId == null && record != null
+					&& record.path("completed").asBoolean(false);
+		}
+
+	}
+
+	/**
+	 * Destination of the events of one subscription.
+	 */
+	interface EventSink {
+
+		void send(StreamEvent event) throws IOException;
+
+		void complete();
+
+	}
+
+	/**
+	 * Subscriptions of one root plan. Events are read from the store once per flush for
+	 * all subscriptions, starting after the oldest sequence any of them still needs, and
+	 * again whenever a lagging subscription has drained its buffer.
+	 */
+	private final class Channel {
+
+		private final String rootPlanId;
+
+		private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+		Channel(String rootPlanId) {
+			this.rootPlanId = rootPlanId;
+		}
+
+		synchronized void fetch() {
+			if (subscriptions.isEmpty()) {
+				removeIfIdle(this);
+				return;
+			}
+			long cursor = Long.MAX_VALUE;
+			for (Subscription subscription : subscriptions) {
+				cursor = Math.min(cursor, subscription.resume());
+			}
+			try {
+				List<PlanExecutionEventEntity> page;
+				boolean accepting;
+				do {
+					page = eventStore.findByRootPlanIdAfter(rootPlanId, cursor, FETCH_PAGE_SIZE);
+					accepting = false;
+					for (PlanExecutionEventEntity entity : page) {
+						StreamEvent event = toStreamEvent(entity);
+						for (Subscription subscription : subscriptions) {
+							accepting |= subscription.offer(event);
+						}
+						cursor = entity.getId();
+					}
+				}
+				while (page.size() == FETCH_PAGE_SIZE && accepting);
+			}
+			catch (RuntimeException e) {
+				logger.error("Failed to read execution events of plan {} for streaming", rootPlanId, e);
+			}
+		}
+
+	}
+
+	/**
+	 * One subscriber with its bounded buffer. Events are sent by at most one dispatcher
+	 * thread at a time, in sequence order.
+	 */
+	final class Subscription {
+
+		private final String rootPlanId;
+
+		private final EventSink sink;
+
+		private final ArrayDeque<StreamEvent> buffer = new ArrayDeque<>();
+
+		private long lastEnqueued;
+
+		private boolean draining;
+
+		// Set when an event was refused because the buffer was full; later events are
+		// refused too until the next fetch resumes after the last enqueued one
+		private boolean lagging;
+
+		private boolean closed;
+
+		Subscription(String rootPlanId, long afterSequence, EventSink sink) {
+			this.rootPlanId = rootPlanId;
+			this.sink = sink;
+			this.lastEnqueued = afterSequence;
+		}
+
+		/**
+		 * Called by the channel before reading the store, with no other fetch running.
+		 * @return Sequence after which this subscription needs events
+		 */
+		synchronized long resume() {
+			if (lagging && buffer.size() < bufferSize) {
+				lagging = false;
+			}
+			return lastEnqueued;
+		}
+
+		synchronized int buffered() {
+			return buffer.size();
+		}
+
+		/**
+		 * Enqueues an event unless it was already enqueued or the buffer is full.
+		 * @return Whether this subscription can take further events
+		 */
+		boolean offer(StreamEvent event) {
+			synchronized (this) {
+				if (closed || lagging) {
+					return false;
+				}
+				if (event.sequence() <= lastEnqueued) {
+					return true;
+				}
+				if (buffer.size() >= bufferSize) {
+					lagging = true;
+					return false;
+				}
+				buffer.add(event);
+				lastEnqueued = event.sequence();
+				if (draining) {
+					return true;
+				}
+				draining = true;
+			}
+			try {
+				dispatcher.execute(this::drain);
+			}
+			catch (RejectedExecutionException e) {
+				close();
+				return false;
+			}
+			return true;
+		}
+
+		private void drain() {
+			while (true) {
+				StreamEvent event;
+				boolean catchUp;
+				synchronized (this) {
+					event = closed ? null : buffer.poll();
+					catchUp = event == null && lagging;
+					if (event == null) {
+						draining = false;
+					}
+				}
+				if (event == null) {
+					if (catchUp) {
+						schedule(rootPlanId);
+					}
+					return;
+				}
+				try {
+					sink.send(event);
+				}
+				catch (IOException | RuntimeException e) {
+					logger.debug("Event stream subscriber of plan {} disconnected", rootPlanId, e);
+					close();
+					return;
+				}
+				if (event.completesRootPlan()) {
+					close();
+					sink.complete();
+					return;
+				}
+			}
+		}
+
+		void close() {
+			synchronized (this) {
+				closed = true;
+				buffer.clear();
+			}
+			detach();
+		}
+
+		private void detach() {
+			Channel channel = channels.get(rootPlanId);
+			if (channel != null && channel.subscriptions.remove(this)) {
+				removeIfIdle(channel);
+			}
+		}
+
+	}
+
+	private final class SseEventSink implements EventSink {
+
+		private final SseEmitter emitter;
+
+		SseEventSink(SseEmitter emitter) {
+			this.emitter = emitter;
+		}
+
+		@Override
+		public void send(StreamEvent event) throws IOException {
+			emitter.send(SseEmitter.event()
+				.id(String.valueOf(event.sequence()))
+				.name(event.type().toLowerCase(Locale.ROOT))
+				.data(event, MediaType.APPLICATION_JSON));
+		}
+
+		@Override
+		public void complete() {
+			try {
+				emitter.complete();
+			}
+			catch (RuntimeException e) {
+				logger.debug("Event stream emitter already completed", e);
+			}
+		}
+
+	}
+
+}
@@ -76,6 +76,15 @@ public interface PlanExecutionRecorder {
 	 */
 	PlanExecutionRecord getExecutionRecord(String planId, String rootPlanId, Long thinkActRecordId);
 
+	/**
+	 * Gets a read-only snapshot of the full execution record of a root plan, including
+	 * its agent executions, think-act steps and sub-plans. Unlike
+	 * {@link #getExecutionRecord(String, String, Long)}, this never creates a record.
+	 * @param rootPlanId Root plan ID
+	 * @return Plan execution record, or null if the plan is unknown
+	 */
+	PlanExecutionRecord getExecutionDetails(String rootPlanId);
+
 	/**
 	 * Saves the execution records for the specified plan ID to persistent storage. This
 	 * method will recursively call the save methods of PlanExecutionRecord,
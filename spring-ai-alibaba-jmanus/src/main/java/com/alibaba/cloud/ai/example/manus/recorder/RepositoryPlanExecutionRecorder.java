@@ -16,59 +16,105 @@
 package com.alibaba.cloud.ai.example.manus.recorder;
 
 import com.alibaba.cloud.ai.example.manus.recorder.entity.AgentExecutionRecord;
+import com.alibaba.cloud.ai.example.manus.recorder.entity.PlanExecutionEventEntity;
+import com.alibaba.cloud.ai.example.manus.recorder.entity.PlanExecutionEventEntity.EventType;
 import com.alibaba.cloud.ai.example.manus.recorder.entity.PlanExecutionRecord;
 import com.alibaba.cloud.ai.example.manus.recorder.entity.PlanExecutionRecordEntity;
 import com.alibaba.cloud.ai.example.manus.recorder.entity.ThinkActRecord;
+import com.alibaba.cloud.ai.example.manus.recorder.repository.PlanExecutionEventStore;
 import com.alibaba.cloud.ai.example.manus.recorder.repository.PlanExecutionRecordRepository;
-import jakarta.annotation.Resource;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.ai.util.json.JsonParser;
 import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 /**
  * The in-memory PlanExecutionRecorder cannot be used in a distributed environment, so it
  * is necessary to use DB persistence for PlanExecutionRecord.
  *
  * fix feature: https://github.com/alibaba/spring-ai-alibaba/issues/1391
+ *
+ * <p>
+ * Records are persisted as append-only plan, agent execution and think-act events, each
+ * carrying only its own fields, so the cost of a step does not grow with the length of
+ * the plan. Events are buffered and inserted in JDBC batches, either when the buffer is
+ * full, periodically, or before a plan is read back. Plans executing on this node are
+ * kept in memory as live object graphs, which the agents mutate and pass back; the full
+ * record is only reconstructed from the events by {@link #getExecutionDetails(String)},
+ * or when another node picks up a plan.
  */
 @Component
 public class RepositoryPlanExecutionRecorder implements PlanExecutionRecorder {
 
 	private static final Logger logger = LoggerFactory.getLogger(RepositoryPlanExecutionRecorder.class);
 
+	/**
+	 * Number of buffered events that triggers a flush on the recording thread.
+	 */
+	static final int BATCH_SIZE = 64;
+
+	private static final long FLUSH_INTERVAL_MILLIS = 500;
+
+	private static final long LIVE_PLAN_IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
 	private final AtomicLong agentExecutionIdGenerator = new AtomicLong(0);
 
-	@Resource
-	private PlanExecutionRecordRepository planExecutionRecordRepository;
+	private final PlanExecutionEventStore eventStore;
 
-	/**
-	 * Find ThinkActRecord by parent plan ID and think-act record ID
-	 * @param parentPlanId Parent plan ID
-	 * @param thinkActRecordId Think-act record ID
-	 * @return ThinkActRecord if found, null otherwise
-	 */
-	private ThinkActRecord findThinkActRecord(String parentPlanId, Long thinkActRecordId) {
-		if (parentPlanId == null || thinkActRecordId == null) {
-			return null;
-		}
+	// Legacy single-row records, read when a plan has no events yet
+	private final PlanExecutionRecordRepository planExecutionRecordRepository;
 
-		PlanExecutionRecord parentPlan = getExecutionRecord(parentPlanId);
-		if (parentPlan != null) {
-			for (AgentExecutionRecord agentRecord : parentPlan.getAgentExecutionSequence()) {
-				for (ThinkActRecord thinkActRecord : agentRecord.getThinkActSteps()) {
-					if (thinkActRecordId.equals(thinkActRecord.getId())) {
-						return thinkActRecord;
-					}
-				}
-			}
-		}
-		return null;
+	private final Map<String, LivePlan> livePlans = new ConcurrentHashMap<>();
+
+	private final Object pendingMonitor = new Object();
+
+	private List<PlanExecutionEventEntity> pendingEvents = new ArrayList<>();
+
+	// Serializes flushes so that events reach the table in recording order
+	private final ReentrantLock flushLock = new ReentrantLock();
+
+	private final ScheduledExecutorService flushScheduler;
+
+	private final List<Consumer<Set<String>>> flushListeners = new CopyOnWriteArrayList<>();
+
+	@Autowired
+	public RepositoryPlanExecutionRecorder(PlanExecutionEventStore eventStore,
+			ObjectProvider<PlanExecutionRecordRepository> planExecutionRecordRepository) {
+		this(eventStore, planExecutionRecordRepository.getIfAvailable());
+	}
+
+	RepositoryPlanExecutionRecorder(PlanExecutionEventStore eventStore,
+			PlanExecutionRecordRepository planExecutionRecordRepository) {
+		this.eventStore = eventStore;
+		this.planExecutionRecordRepository = planExecutionRecordRepository;
+		this.flushScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "plan-execution-recorder-flush");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.flushScheduler.scheduleWithFixedDelay(this::flushAndEvictIdlePlans, FLUSH_INTERVAL_MILLIS,
+				FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
 	}
 
 	/**
@@ -82,51 +128,42 @@ public class RepositoryPlanExecutionRecorder implements PlanExecutionRecorder {
 	 */
 	public PlanExecutionRecord getOrCreatePlanExecutionRecord(String planId, String rootPlanId, Long thinkActRecordId,
 			boolean createIfNotExists) {
-
-		// Add detailed logging to debug NPE
-		logger.info(
+		logger.debug(
 				"Enter getOrCreatePlanExecutionRecord with planId: {}, rootPlanId: {}, thinkActRecordId: {}, createIfNotExists: {}",
 				planId, rootPlanId, thinkActRecordId, createIfNotExists);
 
 		if (rootPlanId == null) {
 			logger.error("rootPlanId is null, which will cause NPE. PlanId: {}, thinkActRecordId: {}.", planId,
 					thinkActRecordId);
-			// For further debugging, log the stack trace to understand the call path
-			// throw new IllegalArgumentException("rootPlanId cannot be null");
 		}
 
 		// Get or create root plan record first
-		PlanExecutionRecord rootRecord = getExecutionRecord(rootPlanId);
-		if (rootRecord == null) {
-			logger.info("Creating root plan with ID: {}", rootPlanId);
-			rootRecord = new PlanExecutionRecord(rootPlanId, rootPlanId);
-			saveExecutionRecord(rootRecord);
-		}
+		LivePlan live = livePlan(rootPlanId, true);
+		synchronized (live) {
+			// If no thinkActRecordId, return root record directly
+			if (thinkActRecordId == null) {
+				return live.root;
+			}
 
-		// If no thinkActRecordId, return root record directly
-		if (thinkActRecordId == null) {
-			return rootRecord;
-		}
+			// Find ThinkActRecord in the plan tree
+			ThinkActRecord thinkActRecord = live.thinkActs.get(thinkActRecordId);
+			if (thinkActRecord == null) {
+				return live.root;
+			}
 
-		// Find ThinkActRecord in root plan
-		ThinkActRecord thinkActRecord = findThinkActRecord(rootPlanId, thinkActRecordId);
-		if (thinkActRecord == null) {
-			return rootRecord;
-		}
+			// Check if subPlanExecutionRecord exists
+			PlanExecutionRecord subPlan = thinkActRecord.getSubPlanExecutionRecord();
+			if (subPlan == null && createIfNotExists) {
+				// Create new sub-plan with planId and rootPlanId
+				subPlan = new PlanExecutionRecord(planId, rootPlanId);
+				subPlan.setThinkActRecordId(thinkActRecordId);
+				thinkActRecord.recordSubPlanExecution(subPlan);
+				live.index(subPlan);
+				append(planEvent(subPlan));
+			}
 
-		// Check if subPlanExecutionRecord exists
-		PlanExecutionRecord subPlan = thinkActRecord.getSubPlanExecutionRecord();
-		if (subPlan == null && createIfNotExists) {
-			// Create new sub-plan with planId and rootPlanId
-			subPlan = new PlanExecutionRecord(planId, rootPlanId);
-			subPlan.setThinkActRecordId(thinkActRecordId);
-			thinkActRecord.recordSubPlanExecution(subPlan);
-			// update sub plan
-			updateThinkActRecord(rootRecord, thinkActRecord);
-			saveExecutionRecord(rootRecord);
+			return subPlan != null ? subPlan : live.root;
 		}
-
-		return subPlan != null ? subPlan : rootRecord;
 	}
 
 	/**
@@ -144,26 +181,30 @@ public class RepositoryPlanExecutionRecorder implements PlanExecutionRecorder {
 	@Override
 	public String recordPlanExecution(PlanExecutionRecord stepRecord) {
 		String planId = stepRecord.getCurrentPlanId();
-		String parentPlanId = stepRecord.getRootPlanId();
+		String rootPlanId = stepRecord.getRootPlanId() != null ? stepRecord.getRootPlanId() : planId;
 		Long thinkActRecordId = stepRecord.getThinkActRecordId();
 
-		if (parentPlanId != null && thinkActRecordId != null) {
-			// This is a sub-plan, need to attach it to the corresponding think-act record
-			ThinkActRecord thinkActRecord = findThinkActRecord(parentPlanId, thinkActRecordId);
-			if (thinkActRecord != null) {
-				// Found the corresponding think-act record, attach the sub-plan
-				thinkActRecord.recordSubPlanExecution(stepRecord);
-
-				// update sub plan
-				PlanExecutionRecord rootRecord = getExecutionRecord(parentPlanId);
-				updateThinkActRecord(rootRecord, thinkActRecord);
-				saveExecutionRecord(rootRecord);
-				return planId;
+		LivePlan live = livePlan(rootPlanId, thinkActRecordId == null);
+		synchronized (live) {
+			PlanExecutionRecord target = live.plans.get(planKey(thinkActRecordId));
+			if (target == null && thinkActRecordId != null) {
+				// A sub-plan, attach it to the corresponding think-act record
+				ThinkActRecord thinkActRecord = live.thinkActs.get(thinkActRecordId);
+				if (thinkActRecord != null) {
+					thinkActRecord.recordSubPlanExecution(stepRecord);
+					live.index(stepRecord);
+					target = stepRecord;
+				}
+			}
+			if (target == null) {
+				// This is a main plan
+				target = live.root;
 			}
+			if (target != stepRecord) {
+				BeanUtils.copyProperties(stepRecord, target, "agentExecutionSequence", "thinkActRecordId");
+			}
+			append(planEvent(target));
 		}
-		// This is a main plan
-		saveExecutionRecord(stepRecord);
-
 		return planId;
 	}
 
@@ -175,15 +216,31 @@ public class RepositoryPlanExecutionRecorder implements PlanExecutionRecorder {
 	 */
 	@Override
 	public Long recordAgentExecution(PlanExecutionRecord planExecutionRecord, AgentExecutionRecord agentRecord) {
-		Long agentExecutionId = agentRecord.getId();
 		if (agentRecord.getId() == null) {
-			agentExecutionId = agentExecutionIdGenerator.incrementAndGet();
-			agentRecord.setId(agentExecutionId);
-			if (planExecutionRecord != null) {
-				planExecutionRecord.addAgentExecutionRecord(agentRecord);
+			agentRecord.setId(agentExecutionIdGenerator.incrementAndGet());
+		}
+		Long agentExecutionId = agentRecord.getId();
+		if (planExecutionRecord == null) {
+			return agentExecutionId;
+		}
 
-				saveExecutionRecord(planExecutionRecord);
+		LivePlan live = livePlan(planExecutionRecord.getRootPlanId(), true);
+		synchronized (live) {
+			AgentExecutionRecord existing = live.agents.get(agentExecutionId);
+			if (existing == null) {
+				PlanExecutionRecord target = live.plans.getOrDefault(planKey(planExecutionRecord.getThinkActRecordId()),
+						planExecutionRecord);
+				target.addAgentExecutionRecord(agentRecord);
+				if (target != planExecutionRecord
+						&& !planExecutionRecord.getAgentExecutionSequence().contains(agentRecord)) {
+					planExecutionRecord.addAgentExecutionRecord(agentRecord);
+				}
+				live.agents.put(agentExecutionId, agentRecord);
+			}
+			else if (existing != agentRecord) {
+				BeanUtils.copyProperties(agentRecord, existing, "thinkActSteps");
 			}
+			append(agentEvent(planExecutionRecord, agentRecord));
 		}
 		return agentExecutionId;
 	}
@@ -197,16 +254,27 @@ public class RepositoryPlanExecutionRecorder implements PlanExecutionRecorder {
 	@Override
 	public void recordThinkActExecution(PlanExecutionRecord planExecutionRecord, Long agentExecutionId,
 			ThinkActRecord thinkActRecord) {
-		if (planExecutionRecord != null) {
-			for (AgentExecutionRecord agentRecord : planExecutionRecord.getAgentExecutionSequence()) {
-				if (agentExecutionId.equals(agentRecord.getId())) {
-					addThinkActStep(agentRecord, thinkActRecord);
-
-					updateThinkActRecord(planExecutionRecord, thinkActRecord);
-					saveExecutionRecord(planExecutionRecord);
-					break;
-				}
+		if (planExecutionRecord == null) {
+			return;
+		}
+		LivePlan live = livePlan(planExecutionRecord.getRootPlanId(), true);
+		synchronized (live) {
+			AgentExecutionRecord agentRecord = live.agents.get(agentExecutionId);
+			if (agentRecord == null) {
+				logger.warn("Agent execution {} not found in plan {}, think-act record {} is not recorded",
+						agentExecutionId, planExecutionRecord.getCurrentPlanId(), thinkActRecord.getId());
+				return;
+			}
+			ThinkActRecord existing = live.thinkActs.get(thinkActRecord.getId());
+			if (existing == null) {
+				agentRecord.addThinkActStep(thinkActRecord);
+				live.thinkActs.put(thinkActRecord.getId(), thinkActRecord);
 			}
+			else if (existing != thinkActRecord) {
+				// called several times for the same step, so update by id
+				BeanUtils.copyProperties(thinkActRecord, existing);
+			}
+			append(thinkActEvent(planExecutionRecord, agentExecutionId, thinkActRecord));
 		}
 	}
 
@@ -217,10 +285,16 @@ public class RepositoryPlanExecutionRecorder implements PlanExecutionRecorder {
 	 */
 	@Override
 	public void recordPlanCompletion(PlanExecutionRecord planExecutionRecord, String summary) {
-		if (planExecutionRecord != null) {
-			planExecutionRecord.complete(summary);
+		if (planExecutionRecord == null) {
+			return;
+		}
+		planExecutionRecord.complete(summary);
+		recordPlanExecution(planExecutionRecord);
 
-			saveExecutionRecord(planExecutionRecord);
+		if (planExecutionRecord.getThinkActRecordId() == null) {
+			// The root plan is done: persist it and stop tracking it in memory
+			flush();
+			livePlans.remove(planExecutionRecord.getRootPlanId());
 		}
 	}
 
@@ -230,24 +304,36 @@ public class RepositoryPlanExecutionRecorder implements PlanExecutionRecorder {
 	}
 
 	/**
-	 * Save execution records of the specified plan ID to persistent storage. This method
-	 * will recursively call save methods of PlanExecutionRecord, AgentExecutionRecord and
-	 * ThinkActRecord
+	 * Reconstructs the full record of a root plan from its persisted events, after
+	 * flushing the buffered ones. The returned record is a snapshot that is not shared
+	 * with the executing agents.
+	 * @param rootPlanId Root plan ID
+	 * @return Full plan execution record, or null if the plan is unknown
+	 */
+	@Override
+	public PlanExecutionRecord getExecutionDetails(String rootPlanId) {
+		flush();
+		return loadPlan(rootPlanId);
+	}
+
+	/**
+	 * Flushes the buffered events. Events are appended as they are recorded, so there is
+	 * nothing else to save.
 	 * @param rootPlanId Plan ID to save
 	 * @return Returns true if record is found and saved, false otherwise
 	 */
 	@Override
 	public boolean savePlanExecutionRecords(String rootPlanId) {
-		throw new UnsupportedOperationException();
+		flush();
+		return livePlans.containsKey(rootPlanId) || eventStore.existsByRootPlanId(rootPlanId);
 	}
 
 	/**
-	 * Save all execution records to persistent storage. This method will iterate through
-	 * all plan records and call their save methods
+	 * Flushes all buffered events to persistent storage.
 	 */
 	@Override
 	public void saveAllExecutionRecords() {
-		throw new UnsupportedOperationException();
+		flush();
 	}
 
 	/**
@@ -256,7 +342,12 @@ public class RepositoryPlanExecutionRecorder implements PlanExecutionRecorder {
 	 */
 	@Override
 	public void removeExecutionRecord(String planId) {
-		planExecutionRecordRepository.deleteByPlanId(planId);
+		livePlans.remove(planId);
+		flush();
+		eventStore.deleteByRootPlanId(planId);
+		if (planExecutionRecordRepository != null) {
+			planExecutionRecordRepository.deleteByPlanId(planId);
+		}
 	}
 
 	/**
@@ -273,7 +364,9 @@ public class RepositoryPlanExecutionRecorder implements PlanExecutionRecorder {
 	 * @return true if exists, false otherwise
 	 */
 	public boolean hasPlanExecutionRecord(String planId) {
-		return planExecutionRecordRepository.findByPlanId(planId) != null;
+		return livePlans.containsKey(planId) || eventStore.existsByRootPlanId(planId)
+				|| (planExecutionRecordRepository != null
+						&& planExecutionRecordRepository.findByPlanId(planId) != null);
 	}
 
 	/**
@@ -294,55 +387,317 @@ public class RepositoryPlanExecutionRecorder implements PlanExecutionRecorder {
 		return null;
 	}
 
-	private PlanExecutionRecord getExecutionRecord(String rootPlanId) {
-		PlanExecutionRecordEntity entity = planExecutionRecordRepository.findByPlanId(rootPlanId);
-		return entity != null ? entity.getPlanExecutionRecord() : null;
+	/**
+	 * Registers a listener notified with the root plan IDs whose events have just been
+	 * persisted. Listeners are called on the flushing thread and must return quickly.
+	 * @param listener Flush listener
+	 */
+	public void addFlushListener(Consumer<Set<String>> listener) {
+		flushListeners.add(listener);
 	}
 
-	private void saveExecutionRecord(PlanExecutionRecord planExecutionRecord) {
-		PlanExecutionRecordEntity entity = planExecutionRecordRepository
-			.findByPlanId(planExecutionRecord.getRootPlanId());
-		if (entity == null) {
-			entity = new PlanExecutionRecordEntity();
-			entity.setPlanId(planExecutionRecord.getRootPlanId());
-			entity.setGmtCreate(new Date());
+	/**
+	 * Writes the buffered events in one batch. Events that could not be written are kept
+	 * and retried by the next flush.
+	 */
+	public void flush() {
+		Set<String> flushedPlans = new HashSet<>();
+		flushLock.lock();
+		try {
+			List<PlanExecutionEventEntity> batch;
+			synchronized (pendingMonitor) {
+				if (pendingEvents.isEmpty()) {
+					return;
+				}
+				batch = pendingEvents;
+				pendingEvents = new ArrayList<>();
+			}
+			try {
+				eventStore.append(batch);
+				batch.forEach(event -> flushedPlans.add(event.getRootPlanId()));
+			}
+			catch (RuntimeException e) {
+				logger.error("Failed to persist {} plan execution events, will retry", batch.size(), e);
+				synchronized (pendingMonitor) {
+					batch.addAll(pendingEvents);
+					pendingEvents = batch;
+				}
+			}
 		}
+		finally {
+			flushLock.unlock();
+		}
+		if (!flushedPlans.isEmpty()) {
+			for (Consumer<Set<String>> listener : flushListeners) {
+				try {
+					listener.accept(flushedPlans);
+				}
+				catch (RuntimeException e) {
+					logger.warn("Plan execution flush listener failed", e);
+				}
+			}
+		}
+	}
 
-		entity.setPlanExecutionRecord(planExecutionRecord);
-		entity.setGmtModified(new Date());
+	@PreDestroy
+	public void destroy() {
+		flushScheduler.shutdown();
+		flush();
+	}
 
-		planExecutionRecordRepository.save(entity);
+	private void flushAndEvictIdlePlans() {
+		try {
+			flush();
+			long now = System.currentTimeMillis();
+			livePlans.values().removeIf(live -> now - live.lastAccessMillis > LIVE_PLAN_IDLE_TIMEOUT_MILLIS);
+		}
+		catch (RuntimeException e) {
+			logger.error("Failed to flush plan execution events", e);
+		}
 	}
 
-	private void updateThinkActRecord(PlanExecutionRecord parentPlan, ThinkActRecord record) {
-		if (parentPlan != null) {
-			for (AgentExecutionRecord agentRecord : parentPlan.getAgentExecutionSequence()) {
-				for (ThinkActRecord thinkActRecord : agentRecord.getThinkActSteps()) {
-					if (record.getId().equals(thinkActRecord.getId())) {
-						BeanUtils.copyProperties(record, thinkActRecord);
+	private void append(PlanExecutionEventEntity event) {
+		boolean full;
+		synchronized (pendingMonitor) {
+			pendingEvents.add(event);
+			full = pendingEvents.size() >= BATCH_SIZE;
+		}
+		if (full) {
+			flush();
+		}
+	}
+
+	/**
+	 * Returns the live plan tree of a root plan, loading it from storage, or creating it,
+	 * if it is not executing on this node yet. The plan is loaded outside of the map, and
+	 * only the thread that installs it writes the creation or legacy conversion events.
+	 */
+	private LivePlan livePlan(String rootPlanId, boolean createIfNotExists) {
+		LivePlan live = livePlans.get(rootPlanId);
+		if (live == null) {
+			StoredPlan stored = readPlan(rootPlanId);
+			PlanExecutionRecord root = stored != null ? stored.root() : null;
+			if (root == null && createIfNotExists) {
+				root = new PlanExecutionRecord(rootPlanId, rootPlanId);
+			}
+			if (root == null) {
+				// an unknown sub-plan root: track the records in a detached tree
+				live = new LivePlan(new PlanExecutionRecord(rootPlanId, rootPlanId));
+			}
+			else {
+				LivePlan loaded = new LivePlan(root);
+				live = livePlans.putIfAbsent(rootPlanId, loaded);
+				if (live == null) {
+					live = loaded;
+					if (stored == null) {
+						logger.info("Creating root plan with ID: {}", rootPlanId);
+						append(planEvent(root));
+					}
+					else if (stored.legacy()) {
+						appendTree(root);
 					}
 				}
 			}
 		}
+		live.lastAccessMillis = System.currentTimeMillis();
+		return live;
 	}
 
-	private void addThinkActStep(AgentExecutionRecord agentRecord, ThinkActRecord thinkActRecord) {
-		if (agentRecord.getThinkActSteps() == null) {
-			agentRecord.addThinkActStep(thinkActRecord);
-			return;
+	private PlanExecutionRecord loadPlan(String rootPlanId) {
+		StoredPlan stored = readPlan(rootPlanId);
+		if (stored == null) {
+			return null;
+		}
+		if (stored.legacy()) {
+			// Convert the legacy single-row record into events once
+			appendTree(stored.root());
+		}
+		return stored.root();
+	}
+
+	/**
+	 * Reads a root plan from its events, or from the legacy single-row record if it has
+	 * no events yet, without writing anything.
+	 */
+	private StoredPlan readPlan(String rootPlanId) {
+		if (rootPlanId == null) {
+			return null;
 		}
-		// 会多次调用，因此需要根据id修改
-		ThinkActRecord exist = agentRecord.getThinkActSteps()
-			.stream()
-			.filter(r -> r.getId().equals(thinkActRecord.getId()))
-			.findFirst()
-			.orElse(null);
-		if (exist == null) {
-			agentRecord.getThinkActSteps().add(thinkActRecord);
+		flush();
+		List<PlanExecutionEventEntity> events = eventStore.findByRootPlanId(rootPlanId);
+		if (!events.isEmpty()) {
+			return new StoredPlan(rebuild(events), false);
 		}
-		else {
-			BeanUtils.copyProperties(thinkActRecord, exist);
+		if (planExecutionRecordRepository != null) {
+			PlanExecutionRecordEntity entity = planExecutionRecordRepository.findByPlanId(rootPlanId);
+			if (entity != null && entity.getPlanExecutionRecord() != null) {
+				return new StoredPlan(entity.getPlanExecutionRecord(), true);
+			}
 		}
+		return null;
+	}
+
+	/**
+	 * Reconstructs a plan tree from its events, the latest version of each record
+	 * winning.
+	 */
+	static PlanExecutionRecord rebuild(List<PlanExecutionEventEntity> events) {
+		Map<Long, PlanExecutionRecord> plans = new LinkedHashMap<>();
+		Map<Long, AgentExecutionRecord> agents = new LinkedHashMap<>();
+		Map<Long, Long> agentPlans = new HashMap<>();
+		Map<Long, ThinkActRecord> thinkActs = new LinkedHashMap<>();
+		Map<Long, Long> thinkActAgents = new HashMap<>();
+
+		for (PlanExecutionEventEntity event : events) {
+			switch (event.getEventType()) {
+				case PLAN -> {
+					PlanExecutionRecord plan = JsonParser.fromJson(event.getPayload(), PlanExecutionRecord.class);
+					Long key = planKey(event.getParentId());
+					PlanExecutionRecord existing = plans.putIfAbsent(key, plan);
+					if (existing != null) {
+						BeanUtils.copyProperties(plan, existing, "agentExecutionSequence");
+					}
+				}
+				case AGENT -> {
+					AgentExecutionRecord agent = JsonParser.fromJson(event.getPayload(), AgentExecutionRecord.class);
+					AgentExecutionRecord existing = agents.putIfAbsent(event.getRecordId(), agent);
+					if (existing != null) {
+						BeanUtils.copyProperties(agent, existing, "thinkActSteps");
+					}
+					agentPlans.putIfAbsent(event.getRecordId(), planKey(event.getParentId()));
+				}
+				case THINK_ACT -> {
+					ThinkActRecord thinkAct = JsonParser.fromJson(event.getPayload(), ThinkActRecord.class);
+					ThinkActRecord existing = thinkActs.putIfAbsent(event.getRecordId(), thinkAct);
+					if (existing != null) {
+						BeanUtils.copyProperties(thinkAct, existing, "subPlanExecutionRecord");
+					}
+					thinkActAgents.putIfAbsent(event.getRecordId(), event.getParentId());
+				}
+			}
+		}
+
+		agents.forEach((id, agent) -> {
+			PlanExecutionRecord plan = plans.get(agentPlans.get(id));
+			if (plan != null) {
+				plan.getAgentExecutionSequence().add(agent);
+			}
+		});
+		thinkActs.forEach((id, thinkAct) -> {
+			AgentExecutionRecord agent = agents.get(thinkActAgents.get(id));
+			if (agent != null) {
+				agent.getThinkActSteps().add(thinkAct);
+			}
+		});
+		plans.forEach((key, plan) -> {
+			if (!ROOT_PLAN_KEY.equals(key)) {
+				ThinkActRecord thinkAct = thinkActs.get(key);
+				if (thinkAct != null) {
+					thinkAct.recordSubPlanExecution(plan);
+				}
+			}
+		});
+		return plans.get(ROOT_PLAN_KEY);
+	}
+
+	private void appendTree(PlanExecutionRecord plan) {
+		append(planEvent(plan));
+		for (AgentExecutionRecord agent : plan.getAgentExecutionSequence()) {
+			append(agentEvent(plan, agent));
+			if (agent.getThinkActSteps() == null) {
+				continue;
+			}
+			for (ThinkActRecord thinkAct : agent.getThinkActSteps()) {
+				append(thinkActEvent(plan, agent.getId(), thinkAct));
+				if (thinkAct.getSubPlanExecutionRecord() != null) {
+					appendTree(thinkAct.getSubPlanExecutionRecord());
+				}
+			}
+		}
+	}
+
+	private static PlanExecutionEventEntity planEvent(PlanExecutionRecord plan) {
+		PlanExecutionRecord fields = new PlanExecutionRecord();
+		BeanUtils.copyProperties(plan, fields, "agentExecutionSequence", "userInputWaitState");
+		return event(plan, EventType.PLAN, null, plan.getThinkActRecordId(), fields);
+	}
+
+	private static PlanExecutionEventEntity agentEvent(PlanExecutionRecord plan, AgentExecutionRecord agent) {
+		AgentExecutionRecord fields = new AgentExecutionRecord();
+		BeanUtils.copyProperties(agent, fields, "thinkActSteps");
+		return event(plan, EventType.AGENT, agent.getId(), plan.getThinkActRecordId(), fields);
+	}
+
+	private static PlanExecutionEventEntity thinkActEvent(PlanExecutionRecord plan, Long agentExecutionId,
+			ThinkActRecord thinkAct) {
+		ThinkActRecord fields = new ThinkActRecord();
+		BeanUtils.copyProperties(thinkAct, fields, "subPlanExecutionRecord");
+		return event(plan, EventType.THINK_ACT, thinkAct.getId(), agentExecutionId, fields);
+	}
+
+	private static PlanExecutionEventEntity event(PlanExecutionRecord plan, EventType type, Long recordId,
+			Long parentId, Object fields) {
+		PlanExecutionEventEntity event = new PlanExecutionEventEntity();
+		event.setRootPlanId(plan.getRootPlanId() != null ? plan.getRootPlanId() : plan.getCurrentPlanId());
+		event.setPlanId(plan.getCurrentPlanId());
+		event.setEventType(type);
+		event.setRecordId(recordId);
+		event.setParentId(parentId);
+		event.setPayload(JsonParser.toJson(fields));
+		event.setGmtCreate(new Date());
+		return event;
+	}
+
+	// Plans are keyed by the think-act record that started them, the root plan by -1
+	private static final Long ROOT_PLAN_KEY = -1L;
+
+	private static Long planKey(Long thinkActRecordId) {
+		return thinkActRecordId != null ? thinkActRecordId : ROOT_PLAN_KEY;
+	}
+
+	/**
+	 * A root plan read from storage; legacy plans still have to be converted into events.
+	 */
+	private record StoredPlan(PlanExecutionRecord root, boolean legacy) {
+	}
+
+	/**
+	 * The record tree of a root plan executing on this node, indexed by ID so that each
+	 * step is recorded without walking the tree. Guarded by its own monitor.
+	 */
+	private static final class LivePlan {
+
+		private final PlanExecutionRecord root;
+
+		private final Map<Long, PlanExecutionRecord> plans = new HashMap<>();
+
+		private final Map<Long, AgentExecutionRecord> agents = new HashMap<>();
+
+		private final Map<Long, ThinkActRecord> thinkActs = new HashMap<>();
+
+		private volatile long lastAccessMillis = System.currentTimeMillis();
+
+		LivePlan(PlanExecutionRecord root) {
+			this.root = root;
+			index(root);
+		}
+
+		void index(PlanExecutionRecord plan) {
+			plans.put(planKey(plan.getThinkActRecordId()), plan);
+			for (AgentExecutionRecord agent : plan.getAgentExecutionSequence()) {
+				agents.put(agent.getId(), agent);
+				if (agent.getThinkActSteps() == null) {
+					continue;
+				}
+				for (ThinkActRecord thinkAct : agent.getThinkActSteps()) {
+					thinkActs.put(thinkAct.getId(), thinkAct);
+					if (thinkAct.getSubPlanExecutionRecord() != null) {
+						index(thinkAct.getSubPlanExecutionRecord());
+					}
+				}
+			}
+		}
+
 	}
 
 }
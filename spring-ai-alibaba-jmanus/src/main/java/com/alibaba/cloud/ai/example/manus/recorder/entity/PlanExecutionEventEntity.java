@@ -0,0 +1,148 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.recorder.entity;
+
+import jakarta.persistence.*;
+
+import java.util.Date;
+
+/**
+ * One append-only row of a plan execution. A plan execution is stored as a sequence of
+ * plan, agent execution and think-act events instead of one serialized record; updating a
+ * record appends a new version of it, and the latest version wins when the full
+ * {@link PlanExecutionRecord} is reconstructed.
+ */
+@Entity
+@Table(name = "plan_execution_event",
+		indexes = @Index(name = "idx_plan_execution_event_root_plan_id", columnList = "root_plan_id"))
+public class PlanExecutionEventEntity {
+
+	/**
+	 * Kind of record carried by an event.
+	 */
+	public enum EventType {
+
+		/**
+		 * Plan-level fields of a root plan or a sub-plan, without its agent executions.
+		 */
+		PLAN,
+
+		/**
+		 * An agent execution, without its think-act steps.
+		 */
+		AGENT,
+
+		/**
+		 * A think-act step, without the sub-plan it may have started.
+		 */
+		THINK_ACT
+
+	}
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "root_plan_id", nullable = false)
+	private String rootPlanId;
+
+	@Column(name = "plan_id")
+	private String planId;
+
+	@Enumerated(EnumType.STRING)
+	@Column(name = "event_type", nullable = false, length = 16)
+	private EventType eventType;
+
+	// Agent execution ID or think-act record ID, null for plan events
+	@Column(name = "record_id")
+	private Long recordId;
+
+	// Think-act record ID that started the plan (null for the root plan) for plan and
+	// agent events, agent execution ID for think-act events
+	@Column(name = "parent_id")
+	private Long parentId;
+
+	@Column(name = "payload", columnDefinition = "text")
+	private String payload;
+
+	@Column(name = "gmt_create", nullable = false)
+	private Date gmtCreate;
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getRootPlanId() {
+		return rootPlanId;
+	}
+
+	public void setRootPlanId(String rootPlanId) {
+		this.rootPlanId = rootPlanId;
+	}
+
+	public String getPlanId() {
+		return planId;
+	}
+
+	public void setPlanId(String planId) {
+		this.planId = planId;
+	}
+
+	public EventType getEventType() {
+		return eventType;
+	}
+
+	public void setEventType(EventType eventType) {
+		this.eventType = eventType;
+	}
+
+	public Long getRecordId() {
+		return recordId;
+	}
+
+	public void setRecordId(Long recordId) {
+		this.recordId = recordId;
+	}
+
+	public Long getParentId() {
+		return parentId;
+	}
+
+	public void setParentId(Long parentId) {
+		this.parentId = parentId;
+	}
+
+	public String getPayload() {
+		return payload;
+	}
+
+	public void setPayload(String payload) {
+		this.payload = payload;
+	}
+
+	public Date getGmtCreate() {
+		return gmtCreate;
+	}
+
+	public void setGmtCreate(Date gmtCreate) {
+		this.gmtCreate = gmtCreate;
+	}
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.recorder.repository;
+
+import com.alibaba.cloud.ai.example.manus.recorder.entity.PlanExecutionEventEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * JDBC access to the append-only {@code plan_execution_event} table. Writes go through
+ * batched inserts rather than JPA, because identity-generated entities cannot be batched
+ * by Hibernate.
+ */
+@Repository
+public class PlanExecutionEventStore {
+
+	private static final String INSERT_SQL = "INSERT INTO plan_execution_event "
+			+ "(root_plan_id, plan_id, event_type, record_id, parent_id, payload, gmt_create) "
+			+ "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+	private static final String SELECT_BY_ROOT_PLAN_SQL = "SELECT id, root_plan_id, plan_id, event_type, record_id, "
+			+ "parent_id, payload, gmt_create FROM plan_execution_event WHERE root_plan_id = ? ORDER BY id";
+
+	private static final String SELECT_BY_ROOT_PLAN_AFTER_SQL = "SELECT id, root_plan_id, plan_id, event_type, "
+			+ "record_id, parent_id, payload, gmt_create FROM plan_execution_event WHERE root_plan_id = ? AND id > ? "
+			+ "ORDER BY id LIMIT ?";
+
+	private static final String EXISTS_BY_ROOT_PLAN_SQL = "SELECT COUNT(*) FROM plan_execution_event WHERE root_plan_id = ?";
+
+	private static final String DELETE_BY_ROOT_PLAN_SQL = "DELETE FROM plan_execution_event WHERE root_plan_id = ?";
+
+	private static final RowMapper<PlanExecutionEventEntity> ROW_MAPPER = (rs, rowNum) -> {
+		PlanExecutionEventEntity event = new PlanExecutionEventEntity();
+		event.setId(rs.getLong("id"));
+		event.setRootPlanId(rs.getString("root_plan_id"));
+		event.setPlanId(rs.getString("plan_id"));
+		event.setEventType(PlanExecutionEventEntity.EventType.valueOf(rs.getString("event_type")));
+		event.setRecordId(rs.getObject("record_id", Long.class));
+		event.setParentId(rs.getObject("parent_id", Long.class));
+		event.setPayload(rs.getString("payload"));
+		event.setGmtCreate(rs.getTimestamp("gmt_create"));
+		return event;
+	};
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public PlanExecutionEventStore(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	/**
+	 * Inserts events in one JDBC batch, preserving their order.
+	 * @param events Events to insert
+	 */
+	public void append(List<PlanExecutionEventEntity> events) {
+		if (events.isEmpty()) {
+			return;
+		}
+		jdbcTemplate.batchUpdate(INSERT_SQL, events, events.size(), (ps, event) -> {
+			ps.setString(1, event.getRootPlanId());
+			ps.setString(2, event.getPlanId());
+			ps.setString(3, event.getEventType().name());
+			setLong(ps, 4, event.getRecordId());
+			setLong(ps, 5, event.getParentId());
+			ps.setString(6, event.getPayload());
+			ps.setTimestamp(7, new Timestamp(event.getGmtCreate().getTime()));
+		});
+	}
+
+	/**
+	 * Loads the events of a root plan in insertion order
+	 * @param rootPlanId Root plan ID
+	 * @return Events of the root plan and all its sub-plans
+	 */
+	public List<PlanExecutionEventEntity> findByRootPlanId(String rootPlanId) {
+		return jdbcTemplate.query(SELECT_BY_ROOT_PLAN_SQL, ROW_MAPPER, rootPlanId);
+	}
+
+	/**
+	 * Loads a page of the events of a root plan that were persisted after the given one
+	 * @param rootPlanId Root plan ID
+	 * @param afterId ID of the last event already seen, 0 to start from the beginning
+	 * @param limit Maximum number of events to return
+	 * @return Events in insertion order
+	 */
+	public List<PlanExecutionEventEntity> findByRootPlanIdAfter(String rootPlanId, long afterId, int limit) {
+		return jdbcTemplate.query(SELECT_BY_ROOT_PLAN_AFTER_SQL, ROW_MAPPER, rootPlanId, afterId, limit);
+	}
+
+	public boolean existsByRootPlanId(String rootPlanId) {
+		Integer count = jdbcTemplate.queryForObject(EXISTS_BY_ROOT_PLAN_SQL, Integer.class, rootPlanId);
+		return count != null && count > 0;
+	}
+
+	public int deleteByRootPlanId(String rootPlanId) {
+		return jdbcTemplate.update(DELETE_BY_ROOT_PLAN_SQL, rootPlanId);
+	}
+
+	private static void setLong(PreparedStatement ps, int index, Long value) throws SQLException {
+		if (value == null) {
+			ps.setNull(index, Types.BIGINT);
+		}
+		else {
+			ps.setLong(index, value);
+		}
+	}
+
+}
@@ -174,6 +174,12 @@ public class DocLoaderTool extends AbstractBaseTool<DocLoaderTool.DocLoaderInput
 		return DocLoaderInput.class;
 	}
 
+	@Override
+	public boolean isConcurrencySafe() {
+		// Loading a document only reads the file
+		return true;
+	}
+
 	@Override
 	public String getServiceGroup() {
 		return "default-service-group";
@@ -152,7 +152,7 @@ public class FormInputTool extends AbstractBaseTool<FormInputTool.UserFormInput>
 
 	}
 
-	private InputState inputState = InputState.INPUT_RECEIVED; // Default state
+	private volatile InputState inputState = InputState.INPUT_RECEIVED; // Default state
 
 	private UserFormInput currentFormDefinition; // Stores the form structure defined by
 													// LLM and its current values
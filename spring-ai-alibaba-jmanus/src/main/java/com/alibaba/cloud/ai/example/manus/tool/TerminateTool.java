@@ -218,6 +218,12 @@ public class TerminateTool extends AbstractBaseTool<Map<String, Object>> impleme
 		return true;
 	}
 
+	@Override
+	public String getDefinitionCacheKey() {
+		// Description and parameters depend on the columns
+		return name + ":" + columns;
+	}
+
 	@Override
 	public void cleanup(String planId) {
 		// do nothing
@@ -63,6 +63,25 @@ public interface ToolCallBiFunctionDef<I> extends BiFunction<I, ToolContext, Too
 	 */
 	boolean isReturnDirect();
 
+	/**
+	 * Get the key under which the definition built from name, description, parameters and
+	 * return direct flag can be shared by all instances of the tool
+	 * @return Returns the cache key, or null if the definition must be built for every
+	 * instance
+	 */
+	default String getDefinitionCacheKey() {
+		return getClass().getName();
+	}
+
+	/**
+	 * Determine whether calls of the tool may run concurrently with other calls of the
+	 * same response, which holds for read-only or idempotent tools
+	 * @return Returns true if the tool is safe to run concurrently, otherwise false
+	 */
+	default boolean isConcurrencySafe() {
+		return false;
+	}
+
 	/**
 	 * Set the associated Agent instance
 	 * @param planId The plan ID to associate
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.tool;
+
+import com.alibaba.cloud.ai.example.manus.dynamic.mcp.model.vo.McpServiceEntity;
+import com.alibaba.cloud.ai.example.manus.tool.code.ToolExecuteResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.execution.DefaultToolCallResultConverter;
+import org.springframework.ai.tool.execution.ToolCallResultConverter;
+import org.springframework.ai.tool.function.FunctionToolCallback;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tool definitions shared by all plans.
+ * <p>
+ * Tool instances hold the state of one plan, but their name, description and JSON schema
+ * do not change between plans. The definition of a tool is built the first time an
+ * instance with its {@link ToolCallBiFunctionDef#getDefinitionCacheKey() cache key} is
+ * seen, and the callback of every later instance only binds the instance to that
+ * definition.
+ * <p>
+ * The tools of an MCP server are listed once per connection. A reconnected or
+ * reconfigured server gets a new {@link McpServiceEntity} from the connection pool, so
+ * its tools are listed again, and the entry of the old connection is dropped with it.
+ */
+public class ToolDefinitionRegistry {
+
+	private static final Logger log = LoggerFactory.getLogger(ToolDefinitionRegistry.class);
+
+	private static final ToolCallResultConverter RESULT_CONVERTER = new DefaultToolCallResultConverter();
+
+	private static final ToolMetadata RETURN_DIRECT = ToolMetadata.builder().returnDirect(true).build();
+
+	private static final ToolMetadata NOT_RETURN_DIRECT = ToolMetadata.builder().returnDirect(false).build();
+
+	private final Map<String, ToolDefinition> definitions = new ConcurrentHashMap<>();
+
+	// Keyed by connection identity, entries go away with retired connections
+	private final Map<McpServiceEntity, ToolCallback[]> mcpToolCallbacks = new WeakHashMap<>();
+
+	/**
+	 * Create the callback invoking the given tool instance
+	 * @param tool Tool instance bound to a plan
+	 * @return Callback using the shared definition of the tool
+	 */
+	public <I> ToolCallback toolCallback(ToolCallBiFunctionDef<I> tool) {
+		return new FunctionToolCallback<I, ToolExecuteResult>(definitionOf(tool),
+				tool.isReturnDirect() ? RETURN_DIRECT : NOT_RETURN_DIRECT, tool.getInputType(), tool, RESULT_CONVERTER);
+	}
+
+	/**
+	 * Get the tools of an MCP server, listing them from the server only the first time
+	 * the connection is seen
+	 * @param service Pooled MCP connection
+	 * @return Tool callbacks of the server
+	 */
+	public ToolCallback[] mcpToolCallbacks(McpServiceEntity service) {
+		synchronized (mcpToolCallbacks) {
+			ToolCallback[] cached = mcpToolCallbacks.get(service);
+			if (cached != null) {
+				return cached;
+			}
+		}
+		// Listing calls the server, do not hold the lock meanwhile
+		ToolCallback[] callbacks = service.getAsyncMcpToolCallbackProvider().getToolCallbacks();
+		log.debug("Listed {} tools of MCP server {}", callbacks.length, service.getServiceGroup());
+		synchronized (mcpToolCallbacks) {
+			return mcpToolCallbacks.computeIfAbsent(service, key -> callbacks);
+		}
+	}
+
+	private ToolDefinition definitionOf(ToolCallBiFunctionDef<?> tool) {
+		String key = tool.getDefinitionCacheKey();
+		if (key == null) {
+			return buildDefinition(tool);
+		}
+		return definitions.computeIfAbsent(key, k -> buildDefinition(tool));
+	}
+
+	private static ToolDefinition buildDefinition(ToolCallBiFunctionDef<?> tool) {
+		return ToolDefinition.builder()
+			.name(tool.getName())
+			.description(tool.getDescription())
+			.inputSchema(tool.getParameters())
+			.build();
+	}
+
+}
@@ -69,7 +69,7 @@ public class Bash extends AbstractBaseTool<Bash.BashInput> {
 				"properties": {
 					"command": {
 						"type": "string",
-						"description": "The bash command to execute. Can be empty to view additional logs when previous exit code is `-1`. Can be `ctrl+c` to interrupt the currently running process."
+						"description": "The bash command to execute. Can be empty to collect output that background jobs printed since the last command. Can be `ctrl+c` to kill the processes started in this shell session, including background jobs."
 					}
 				},
 				"required": ["command"]
@@ -82,8 +82,10 @@ public class Bash extends AbstractBaseTool<Bash.BashInput> {
 			"""
 					在终端中执行bash命令（当前操作系统：%s）。
 						* 长时间运行的命令：对于可能无限期运行的命令，应该在后台运行并将输出重定向到文件，例如：command = `python3 app.py > server.log 2>&1 &`。
-						* 交互式命令：如果bash命令返回退出码`-1`，这意味着进程尚未完成。助手必须发送第二个带有空`command`的终端调用（这将检索任何其他日志），或者可以发送额外的文本（将`command`设置为文本）到运行进程的STDIN，或者可以发送command=`ctrl+c`中断进程。
-						* 超时处理：如果命令执行结果显示"Command timed out. Sending SIGINT to the process"，助手应尝试在后台重新运行该命令。
+						* 非交互式命令：命令的标准输入为`/dev/null`，无法向运行中的进程发送输入，需要输入的命令应改用非交互参数（例如`apt-get -y`）。
+						* 后台输出：发送空的`command`可以获取后台任务自上一条命令以来打印的输出；发送command=`ctrl+c`会终止本会话启动的所有进程，包括后台任务。
+						* 会话保持：同一计划中的命令在同一个shell会话中执行，`cd`切换的目录和导出的环境变量对后续命令仍然有效。
+						* 超时处理：命令最多运行60秒。如果结果以"Command timed out after 60 seconds"开头，命令启动的进程已被终止，助手应在后台重新运行该命令并将输出重定向到文件；如果结果还说明shell会话已关闭，则之前的工作目录、环境变量和后台任务均已失效。
 
 					""",
 			osName);
@@ -117,7 +119,7 @@ public class Bash extends AbstractBaseTool<Bash.BashInput> {
 		try {
 			// Use ShellExecutorFactory to create executor for corresponding operating
 			// system
-			ShellCommandExecutor executor = ShellExecutorFactory.createExecutor();
+			ShellCommandExecutor executor = ShellExecutorFactory.createSessionExecutor(currentPlanId);
 			log.info("Using shell executor for OS: {}", osName);
 			List<String> result = executor.execute(commandList, unifiedDirectoryManager.getWorkingDirectoryPath());
 			this.lastResult = String.join("\n", result);
@@ -174,6 +176,7 @@ public class Bash extends AbstractBaseTool<Bash.BashInput> {
 
 	@Override
 	public void cleanup(String planId) {
+		ShellSessionPool.shared().close(planId);
 		log.info("Cleaned up resources for plan: {}", planId);
 	}
 
@@ -20,13 +20,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.time.Duration;
 import java.util.List;
 import java.util.Collections;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
- * Linux command executor implementation
+ * Runs commands with bash. Executors bound to a session key share a long-lived
+ * {@link ShellSessionPool} session, so state such as the working directory carries over
+ * between commands; otherwise every command starts its own process.
  */
 public class LinuxShellExecutor implements ShellCommandExecutor {
 
@@ -38,8 +41,25 @@ public class LinuxShellExecutor implements ShellCommandExecutor {
 
 	private BufferedWriter processInput;
 
+	private final String sessionKey;
+
+	public LinuxShellExecutor() {
+		this(null);
+	}
+
+	/**
+	 * @param sessionKey key of the shell session commands run in, typically the plan id,
+	 * or null to start a process per command
+	 */
+	public LinuxShellExecutor(String sessionKey) {
+		this.sessionKey = sessionKey;
+	}
+
 	@Override
 	public List<String> execute(List<String> commands, String workingDir) {
+		if (sessionKey != null) {
+			return commands.stream().map(command -> executeInSession(command, workingDir)).collect(Collectors.toList());
+		}
 		return commands.stream().map(command -> {
 			try {
 				// If the command is empty, return the extra logs of the current process
@@ -71,7 +91,7 @@ public class LinuxShellExecutor implements ShellCommandExecutor {
 					if (!command.endsWith("&")) { // Only set timeout if the command is
 													// not a background command
 						if (!currentProcess.waitFor(DEFAULT_TIMEOUT, TimeUnit.SECONDS)) {
-							log.warn("Command timed out. Sending SIGINT to the process");
+							log.warn("Command timed out. Terminating the process and retrying it in the background");
 							terminate();
 							// Retry the command in the background
 							if (!command.endsWith("&")) {
@@ -94,15 +114,56 @@ public class LinuxShellExecutor implements ShellCommandExecutor {
 		}).collect(Collectors.toList());
 	}
 
+	private String executeInSession(String command, String workingDir) {
+		try {
+			if ("ctrl+c".equalsIgnoreCase(command.trim())) {
+				return ShellSessionPool.shared().interrupt(sessionKey) ? "Process terminated by ctrl+c"
+						: "No process is running";
+			}
+			// An empty command only collects output that background jobs printed since
+			// the last command
+			ShellSessionPool.Result result = ShellSessionPool.shared()
+				.execute(sessionKey, workingDir, command.trim().isEmpty() ? ":" : command,
+						Duration.ofSeconds(DEFAULT_TIMEOUT));
+			if (result.timedOut() && result.sessionClosed()) {
+				return "Command timed out after " + DEFAULT_TIMEOUT + " seconds and did not return to the shell, "
+						+ "so the shell session was closed. The next command starts in a new shell: the working "
+						+ "directory, variables and background jobs of this one are gone. Output before the timeout:\n"
+						+ result.output();
+			}
+			if (result.timedOut()) {
+				return "Command timed out after " + DEFAULT_TIMEOUT + " seconds. The processes it started were sent "
+						+ "SIGTERM and killed if still running; the shell session was kept with its working "
+						+ "directory and variables. Output before the timeout:\n" + result.output();
+			}
+			if (result.exitCode() == 0) {
+				return result.output();
+			}
+			return "Error (Exit Code " + result.exitCode() + "): " + result.output();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return "Error: Process interrupted - " + e.getMessage();
+		}
+		catch (Exception e) {
+			log.error("Exception executing Linux command in session {}", sessionKey, e);
+			return "Error: " + e.getClass().getSimpleName() + " - " + e.getMessage();
+		}
+	}
+
 	@Override
 	public void terminate() {
+		if (sessionKey != null) {
+			ShellSessionPool.shared().interrupt(sessionKey);
+			return;
+		}
 		if (currentProcess != null && currentProcess.isAlive()) {
-			// First try sending SIGINT (ctrl+c)
+			// First try sending SIGTERM
 			currentProcess.destroy();
 			try {
-				// Wait for process to respond to SIGINT
+				// Wait for process to respond to SIGTERM
 				if (!currentProcess.waitFor(5, TimeUnit.SECONDS)) {
-					// If process doesn't respond to SIGINT, force terminate
+					// If process doesn't respond to SIGTERM, force terminate
 					currentProcess.destroyForcibly();
 				}
 			}
@@ -38,6 +38,20 @@ public class ShellExecutorFactory {
 		}
 	}
 
+	/**
+	 * Create shell executor for current operating system that keeps a shell session per
+	 * key where the system supports it, so consecutive commands share their state
+	 * @param sessionKey Key of the session, typically the plan id
+	 * @return ShellCommandExecutor implementation
+	 */
+	public static ShellCommandExecutor createSessionExecutor(String sessionKey) {
+		String os = System.getProperty("os.name").toLowerCase();
+		if (sessionKey == null || os.contains("win") || os.contains("mac")) {
+			return createExecutor();
+		}
+		return new LinuxShellExecutor(sessionKey);
+	}
+
 	/**
 	 * Create shell executor for specified operating system type
 	 * @param osType Operating system type: windows/mac/linux
@@ -0,0 +1,448 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.tool.bash;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Long-lived bash sessions, one per plan, that run the commands of the bash tool.
+ * <p>
+ * Commands are written to the stdin of the session and evaluated by the shell itself, so
+ * the working directory, variables and functions set by a command are visible to the next
+ * one, and no process is started for commands made of builtins. After each command the
+ * session prints a marker holding a random token and the exit code, which ends the output
+ * of the command. stderr is merged into stdout, and output that arrived between two
+ * commands, such as logs of background jobs, is returned with the next command.
+ * <p>
+ * A command running longer than its timeout has its processes killed while the shell
+ * keeps its state; only a command that hangs inside the shell itself costs the session.
+ * Sessions idle for longer than the idle timeout are closed, and the least recently used
+ * idle session is closed when the session limit is reached.
+ */
+final class ShellSessionPool implements AutoCloseable {
+
+	private static final Logger log = LoggerFactory.getLogger(ShellSessionPool.class);
+
+	private static final String SHELL = "/bin/bash";
+
+	// Time a command gets to print its marker once its processes were killed
+	private static final long KILL_GRACE_MILLIS = 2000;
+
+	private static final ShellSessionPool SHARED = new ShellSessionPool(Duration.ofMinutes(10), 64, 256 * 1024);
+
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread(SHARED::close, "shell-session-pool-shutdown"));
+	}
+
+	/**
+	 * Outcome of one command.
+	 *
+	 * @param exitCode exit code of the command, or of the shell when the command ended it
+	 * @param output merged stdout and stderr, cut after the output limit
+	 * @param timedOut whether the command was killed after its timeout
+	 * @param sessionClosed whether the shell ended with the command, so the next command
+	 * starts in a new shell without the state of this one
+	 */
+	record Result(int exitCode, String output, boolean timedOut, boolean sessionClosed) {
+	}
+
+	private final Duration idleTimeout;
+
+	private final int maxSessions;
+
+	private final int maxOutputChars;
+
+	private final Map<String, ShellSession> sessions = new ConcurrentHashMap<>();
+
+	private final ScheduledExecutorService reaper;
+
+	ShellSessionPool(Duration idleTimeout, int maxSessions, int maxOutputChars) {
+		this.idleTimeout = idleTimeout;
+		this.maxSessions = maxSessions;
+		this.maxOutputChars = maxOutputChars;
+		this.reaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "shell-session-reaper");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long period = Math.max(100, Math.min(idleTimeout.toMillis() / 2, 30_000));
+		reaper.scheduleWithFixedDelay(this::reapIdleSessions, period, period, TimeUnit.MILLISECONDS);
+	}
+
+	static ShellSessionPool shared() {
+		return SHARED;
+	}
+
+	/**
+	 * Runs a command in the session of the given key, starting the session in the given
+	 * working directory when there is none.
+	 */
+	Result execute(String key, String workingDir, String command, Duration timeout)
+			throws IOException, InterruptedException {
+		// A session closed by the reaper or by cleanup between lookup and lock is
+		// replaced once
+		for (int attempt = 0;; attempt++) {
+			ShellSession session = sessionFor(key, workingDir);
+			session.lock.lockInterruptibly();
+			try {
+				if (session.isOpen()) {
+					return session.run(command, timeout);
+				}
+			}
+			finally {
+				session.lastUsed = System.nanoTime();
+				session.lock.unlock();
+				if (!session.isOpen()) {
+					sessions.remove(key, session);
+				}
+			}
+			if (attempt >= 1) {
+				throw new IOException("Shell session for " + key + " closed before the command started");
+			}
+		}
+	}
+
+	/**
+	 * Kills every process started by the session of the given key, including background
+	 * jobs, while keeping the shell.
+	 * @return whether the key had a session
+	 */
+	boolean interrupt(String key) {
+		ShellSession session = sessions.get(key);
+		if (session == null) {
+			return false;
+		}
+		session.killDescendants(Set.of());
+		return true;
+	}
+
+	/**
+	 * Closes the session of the given key, if any.
+	 */
+	void close(String key) {
+		ShellSession session = sessions.remove(key);
+		if (session != null) {
+			session.close();
+		}
+	}
+
+	int size() {
+		return sessions.size();
+	}
+
+	@Override
+	public void close() {
+		reaper.shutdownNow();
+		for (String key : sessions.keySet()) {
+			close(key);
+		}
+	}
+
+	private ShellSession sessionFor(String key, String workingDir) {
+		ShellSession existing = sessions.get(key);
+		if (existing != null && existing.isOpen()) {
+			return existing;
+		}
+		if (sessions.size() >= maxSessions) {
+			evictLeastRecentlyUsed();
+		}
+		try {
+			return sessions.compute(key, (k, current) -> {
+				if (current != null && current.isOpen()) {
+					return current;
+				}
+				try {
+					return new ShellSession(k, workingDir);
+				}
+				catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		}
+		catch (UncheckedIOException e) {
+			log.error("Failed to start shell session for {}", key, e.getCause());
+			throw e;
+		}
+	}
+
+	private void evictLeastRecentlyUsed() {
+		sessions.entrySet()
+			.stream()
+			.filter(entry -> !entry.getValue().lock.isLocked())
+			.min((a, b) -> Long.compare(a.getValue().lastUsed, b.getValue().lastUsed))
+			.ifPresent(entry -> {
+				if (sessions.remove(entry.getKey(), entry.getValue())) {
+					log.info("Closing least recently used shell session {}", entry.getKey());
+					entry.getValue().close();
+				}
+			});
+	}
+
+	private void reapIdleSessions() {
+		long now = System.nanoTime();
+		sessions.forEach((key, session) -> {
+			if (now - session.lastUsed < idleTimeout.toNanos() || !session.lock.tryLock()) {
+				return;
+			}
+			try {
+				if (sessions.remove(key, session)) {
+					log.info("Closing shell session {} after {} of inactivity", key, idleTimeout);
+					session.close();
+				}
+			}
+			finally {
+				session.lock.unlock();
+			}
+		});
+	}
+
+	/**
+	 * One bash process and the thread pumping its output.
+	 */
+	private final class ShellSession {
+
+		private final String key;
+
+		private final Process process;
+
+		private final Writer stdin;
+
+		// Printed after each command, followed by its exit code
+		private final String marker = "__jmanus_done_" + UUID.randomUUID().toString().replace("-", "") + "__";
+
+		private final ReentrantLock lock = new ReentrantLock();
+
+		private final Object monitor = new Object();
+
+		private final StringBuilder output = new StringBuilder();
+
+		private long truncatedChars;
+
+		private Integer exitCode;
+
+		private boolean eof;
+
+		private volatile long lastUsed = System.nanoTime();
+
+		private ShellSession(String key, String workingDir) throws IOException {
+			this.key = key;
+			ProcessBuilder pb = new ProcessBuilder(SHELL, "--noprofile", "--norc");
+			if (workingDir != null && !workingDir.isEmpty()) {
+				pb.directory(new File(workingDir));
+			}
+			pb.environment().put("LANG", "en_US.UTF-8");
+			pb.environment().put("SHELL", SHELL);
+			pb.environment().put("PATH", System.getenv("PATH") + ":/usr/local/bin");
+			pb.redirectErrorStream(true);
+			this.process = pb.start();
+			this.stdin = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8);
+			Thread pump = new Thread(this::pumpOutput, "shell-session-" + key);
+			pump.setDaemon(true);
+			pump.start();
+			log.info("Started shell session {} (pid {})", key, process.pid());
+		}
+
+		private boolean isOpen() {
+			return process.isAlive();
+		}
+
+		private Result run(String command, Duration timeout) throws IOException, InterruptedException {
+			Set<Long> running = descendantPids();
+			synchronized (monitor) {
+				exitCode = null;
+			}
+			try {
+				// The command reads /dev/null rather than the rest of the protocol
+				stdin.write("eval '" + command.replace("'", "'\\''") + "' < /dev/null\n");
+				stdin.write("printf '" + marker + "%d\\n' \"$?\"\n");
+				stdin.flush();
+			}
+			catch (IOException e) {
+				// The shell ended, its output and exit code are collected below
+				log.warn("Shell session {} closed its input: {}", key, e.getMessage());
+			}
+			try {
+				if (awaitEnd(timeout.toMillis())) {
+					return takeResult(false);
+				}
+			}
+			catch (InterruptedException e) {
+				// The marker of the abandoned command would end the next one
+				close();
+				throw e;
+			}
+			log.warn("Command timed out in shell session {}, killing its processes", key);
+			killDescendants(running);
+			if (!awaitEnd(KILL_GRACE_MILLIS)) {
+				// The command hangs in the shell itself, only closing it helps
+				close();
+				awaitEnd(KILL_GRACE_MILLIS);
+			}
+			return takeResult(true);
+		}
+
+		private boolean awaitEnd(long timeoutMillis) throws InterruptedException {
+			long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+			synchronized (monitor) {
+				while (exitCode == null && !eof) {
+					long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+					if (remaining <= 0) {
+						return false;
+					}
+					monitor.wait(remaining);
+				}
+				return true;
+			}
+		}
+
+		private Result takeResult(boolean timedOut) throws InterruptedException {
+			int code;
+			String text;
+			synchronized (monitor) {
+				if (exitCode != null) {
+					code = exitCode;
+				}
+				else {
+					process.waitFor(KILL_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+					code = process.isAlive() ? -1 : process.exitValue();
+				}
+				if (truncatedChars > 0) {
+					output.append("\n... [").append(truncatedChars).append(" characters truncated]\n");
+				}
+				text = output.toString();
+				output.setLength(0);
+				truncatedChars = 0;
+			}
+			return new Result(code, text, timedOut, !process.isAlive());
+		}
+
+		private void pumpOutput() {
+			try (BufferedReader reader = new BufferedReader(
+					new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					int end = line.indexOf(marker);
+					synchronized (monitor) {
+						if (end < 0) {
+							append(line + "\n");
+							continue;
+						}
+						append(line.substring(0, end));
+						exitCode = parseExitCode(line.substring(end + marker.length()));
+						monitor.notifyAll();
+					}
+					if (end > 0) {
+						log.debug("[{}] {}", key, line.substring(0, end));
+					}
+				}
+			}
+			catch (IOException e) {
+				log.debug("Output of shell session {} closed: {}", key, e.getMessage());
+			}
+			finally {
+				synchronized (monitor) {
+					eof = true;
+					monitor.notifyAll();
+				}
+			}
+		}
+
+		private void append(String text) {
+			int room = maxOutputChars - output.length();
+			if (room >= text.length()) {
+				output.append(text);
+			}
+			else {
+				output.append(text, 0, Math.max(room, 0));
+				truncatedChars += text.length() - Math.max(room, 0);
+			}
+		}
+
+		private int parseExitCode(String text) {
+			try {
+				return Integer.parseInt(text.trim());
+			}
+			catch (NumberFormatException e) {
+				return -1;
+			}
+		}
+
+		private Set<Long> descendantPids() {
+			return process.descendants().map(ProcessHandle::pid).collect(Collectors.toSet());
+		}
+
+		/**
+		 * Terminates the processes of the session except the given ones, forcibly when
+		 * they ignore the request.
+		 */
+		private void killDescendants(Set<Long> keep) {
+			List<ProcessHandle> targets = process.descendants().filter(handle -> !keep.contains(handle.pid())).toList();
+			targets.forEach(ProcessHandle::destroy);
+			for (ProcessHandle target : targets) {
+				try {
+					target.onExit().get(500, TimeUnit.MILLISECONDS);
+				}
+				catch (Exception e) {
+					target.destroyForcibly();
+				}
+			}
+		}
+
+		private void close() {
+			try {
+				stdin.close();
+			}
+			catch (IOException e) {
+				// The shell already ended
+			}
+			killDescendants(Set.of());
+			process.destroy();
+			try {
+				if (!process.waitFor(1, TimeUnit.SECONDS)) {
+					process.destroyForcibly();
+				}
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				process.destroyForcibly();
+			}
+			log.info("Closed shell session {}", key);
+		}
+
+	}
+
+}
@@ -0,0 +1,520 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.tool.browser;
+
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.Page;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Pool of long-lived browser processes shared by all plans.
+ * <p>
+ * Each plan gets its own {@link BrowserContext}, so cookies and storage stay isolated
+ * between plans while the cost of starting Chromium is only paid once per browser
+ * process. A new context always starts empty; sharing cookies across plans is left to the
+ * explicit cookie export and import of {@link ChromeDriverService}.
+ * <p>
+ * A browser hosts at most {@code maxContextsPerBrowser} contexts and at most
+ * {@code maxBrowsers} browsers are started. The context of a plan is only closed when the
+ * plan releases it, so when all browsers are full a new plan waits up to
+ * {@code capacityWait} for another plan to release its context, and then starts an extra
+ * browser. At most {@value #MAX_EXTRA_BROWSERS} extra browsers run at a time; beyond that
+ * a plan waits another {@code capacityWait} and then fails. An extra browser is closed as
+ * soon as its last context is released and no plan is waiting. Browsers are started
+ * outside of the pool lock. A browser that crashed or disconnected is dropped together
+ * with its contexts, and the affected plans get a fresh context on their next access.
+ * <p>
+ * Playwright objects are not thread safe, so every call into a browser, including the
+ * ones made by browser actions, must hold the lock of that browser, exposed through
+ * {@link DriverWrapper#getBrowserLock()}.
+ */
+class BrowserContextPool implements AutoCloseable {
+
+	private static final Logger log = LoggerFactory.getLogger(BrowserContextPool.class);
+
+	static final int MAX_EXTRA_BROWSERS = 2;
+
+	/**
+	 * Starts a new browser process.
+	 */
+	@FunctionalInterface
+	interface BrowserLauncher {
+
+		LaunchedBrowser launch();
+
+	}
+
+	/**
+	 * A started browser and the handle releasing every resource behind it, typically the
+	 * Playwright instance that launched it.
+	 */
+	record LaunchedBrowser(Browser browser, AutoCloseable owner) {
+	}
+
+	private final BrowserLauncher launcher;
+
+	private final Supplier<Browser.NewContextOptions> contextOptions;
+
+	private final IntSupplier maxBrowsers;
+
+	private final IntSupplier maxContextsPerBrowser;
+
+	private final long capacityWaitNanos;
+
+	// Guards the fields below, waited on by plans waiting for a free context
+	private final Object lock = new Object();
+
+	private final List<Slot> slots = new ArrayList<>();
+
+	private final List<Slot> retired = new ArrayList<>();
+
+	private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+
+	private final AtomicLong launches = new AtomicLong();
+
+	// Browsers being started outside of the lock, counted against maxBrowsers
+	private int launching;
+
+	// Plans waiting in awaitSlot for a context to be released
+	private int waiting;
+
+	private boolean closed;
+
+	BrowserContextPool(BrowserLauncher launcher, Supplier<Browser.NewContextOptions> contextOptions,
+			IntSupplier maxBrowsers, IntSupplier maxContextsPerBrowser, Duration capacityWait) {
+		this.launcher = launcher;
+		this.contextOptions = contextOptions;
+		this.maxBrowsers = maxBrowsers;
+		this.maxContextsPerBrowser = maxContextsPerBrowser;
+		this.capacityWaitNanos = capacityWait.toNanos();
+	}
+
+	/**
+	 * Returns the driver of the given plan, creating a context for it when the plan has
+	 * none yet or its previous context was lost with a crashed browser.
+	 */
+	DriverWrapper acquire(String planId) {
+		Lease lease = leases.get(planId);
+		if (lease != null && lease.isReady() && lease.slot.browser.isConnected()) {
+			return lease.ready.join();
+		}
+		// A crashed browser is detected at most twice before giving up
+		for (int attempt = 0;; attempt++) {
+			try {
+				return createOrAwait(planId);
+			}
+			catch (BrowserCrashedException e) {
+				if (attempt >= 1) {
+					throw new IllegalStateException("Browser crashed while creating context for plan " + planId,
+							e.getCause());
+				}
+				log.warn("Browser crashed while creating context for plan {}, retrying on a new browser", planId);
+			}
+		}
+	}
+
+	/**
+	 * Closes the context of the given plan, making room for a waiting plan.
+	 */
+	void release(String planId) {
+		Lease lease;
+		synchronized (lock) {
+			lease = leases.remove(planId);
+			if (lease == null) {
+				return;
+			}
+			if (lease.slot != null) {
+				lease.slot.leases.remove(lease);
+				closeIfExtra(lease.slot);
+			}
+			lock.notifyAll();
+		}
+		closeLease(lease);
+		closeRetired();
+	}
+
+	/**
+	 * Drivers of every plan currently holding a context.
+	 */
+	List<DriverWrapper> activeDrivers() {
+		return leases.values().stream().filter(Lease::isReady).map(lease -> lease.ready.join()).toList();
+	}
+
+	int browserCount() {
+		synchronized (lock) {
+			return slots.size();
+		}
+	}
+
+	int contextCount() {
+		return leases.size();
+	}
+
+	long launchCount() {
+		return launches.get();
+	}
+
+	@Override
+	public void close() {
+		List<Lease> open;
+		synchronized (lock) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			open = new ArrayList<>(leases.values());
+			leases.clear();
+			retired.addAll(slots);
+			slots.clear();
+			lock.notifyAll();
+		}
+		for (Lease lease : open) {
+			closeLease(lease);
+		}
+		closeRetired();
+	}
+
+	private DriverWrapper createOrAwait(String planId) {
+		Lease lease;
+		boolean created = false;
+		boolean launch = false;
+		synchronized (lock) {
+			if (closed) {
+				throw new IllegalStateException("Browser pool is closed");
+			}
+			retireDisconnected();
+			lease = leases.get(planId);
+			if (lease == null) {
+				lease = new Lease(planId);
+				leases.put(planId, lease);
+				created = true;
+				Slot slot = awaitSlot(lease);
+				if (slot != null) {
+					assign(lease, slot);
+				}
+				else {
+					launch = true;
+				}
+			}
+		}
+		if (!created) {
+			try {
+				return lease.ready.join();
+			}
+			catch (CompletionException e) {
+				// The creator failed and removed the lease, so retry from scratch
+				if (e.getCause() instanceof BrowserCrashedException crashed) {
+					throw crashed;
+				}
+				throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+			}
+		}
+		closeRetired();
+		if (launch) {
+			launchFor(lease);
+		}
+		try {
+			DriverWrapper driver = openContext(lease.slot);
+			lease.ready.complete(driver);
+			return driver;
+		}
+		catch (RuntimeException e) {
+			synchronized (lock) {
+				leases.remove(planId, lease);
+				lease.slot.leases.remove(lease);
+				if (!lease.slot.browser.isConnected()) {
+					retire(lease.slot);
+				}
+				lock.notifyAll();
+			}
+			RuntimeException failure = lease.slot.browser.isConnected() ? e : new BrowserCrashedException(e);
+			lease.ready.completeExceptionally(failure);
+			throw failure;
+		}
+	}
+
+	/**
+	 * Called with the pool lock held. Returns a browser with room for one more context,
+	 * or null after reserving the launch of a new browser, waiting for another plan to
+	 * release its context while every browser is full.
+	 */
+	private Slot awaitSlot(Lease lease) {
+		long deadline = System.nanoTime() + capacityWaitNanos;
+		boolean extraRefused = false;
+		while (true) {
+			int perBrowser = Math.max(1, maxContextsPerBrowser.getAsInt());
+			Slot best = slots.stream()
+				.filter(slot -> slot.leases.size() < perBrowser)
+				.min(Comparator.comparingInt(slot -> slot.leases.size()))
+				.orElse(null);
+			if (best != null) {
+				return best;
+			}
+			int max = Math.max(1, maxBrowsers.getAsInt());
+			if (slots.size() + launching < max) {
+				launching++;
+				return null;
+			}
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) {
+				if (slots.size() + launching < max + MAX_EXTRA_BROWSERS) {
+					log.warn("All {} browsers are full, starting an extra browser for plan {}", slots.size(),
+							lease.planId);
+					launching++;
+					return null;
+				}
+				if (extraRefused) {
+					leases.remove(lease.planId, lease);
+					IllegalStateException failure = new IllegalStateException(
+							"No browser context became available for plan " + lease.planId);
+					lease.ready.completeExceptionally(failure);
+					throw failure;
+				}
+				log.warn("All {} browsers, including the extra ones, are full, plan {} keeps waiting", slots.size(),
+						lease.planId);
+				extraRefused = true;
+				deadline = System.nanoTime() + capacityWaitNanos;
+				remaining = capacityWaitNanos;
+			}
+			waiting++;
+			try {
+				TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				leases.remove(lease.planId, lease);
+				lease.ready.completeExceptionally(e);
+				throw new IllegalStateException("Interrupted while waiting for a browser context", e);
+			}
+			finally {
+				waiting--;
+			}
+			if (closed) {
+				leases.remove(lease.planId, lease);
+				IllegalStateException failure = new IllegalStateException("Browser pool is closed");
+				lease.ready.completeExceptionally(failure);
+				throw failure;
+			}
+			retireDisconnected();
+		}
+	}
+
+	// Called with the pool lock held. Closes a browser started above maxBrowsers once
+	// its last context is gone, unless a waiting plan can take its place.
+	private void closeIfExtra(Slot slot) {
+		if (slot.leases.isEmpty() && waiting == 0 && slots.size() > Math.max(1, maxBrowsers.getAsInt())) {
+			log.info("Closing idle extra browser, {} remain", slots.size() - 1);
+			retire(slot);
+		}
+	}
+
+	// Called with the pool lock held
+	private void assign(Lease lease, Slot slot) {
+		lease.slot = slot;
+		slot.leases.add(lease);
+	}
+
+	/**
+	 * Starts the browser reserved by {@link #awaitSlot} without holding the pool lock and
+	 * publishes it under the lock.
+	 */
+	private void launchFor(Lease lease) {
+		Slot slot;
+		try {
+			slot = launch();
+		}
+		catch (RuntimeException e) {
+			synchronized (lock) {
+				launching--;
+				leases.remove(lease.planId, lease);
+				lock.notifyAll();
+			}
+			lease.ready.completeExceptionally(e);
+			throw e;
+		}
+		synchronized (lock) {
+			launching--;
+			if (closed) {
+				retired.add(slot);
+			}
+			else {
+				slots.add(slot);
+				assign(lease, slot);
+			}
+			// The new browser may have room for waiting plans
+			lock.notifyAll();
+		}
+		if (lease.slot == null) {
+			closeRetired();
+			IllegalStateException failure = new IllegalStateException("Browser pool is closed");
+			lease.ready.completeExceptionally(failure);
+			throw failure;
+		}
+	}
+
+	private Slot launch() {
+		long start = System.currentTimeMillis();
+		LaunchedBrowser launched = launcher.launch();
+		Slot slot = new Slot(launched.browser(), launched.owner());
+		launched.browser().onDisconnected(browser -> onDisconnected(slot));
+		long count = launches.incrementAndGet();
+		log.info("Launched shared browser #{} in {} ms", count, System.currentTimeMillis() - start);
+		return slot;
+	}
+
+	private DriverWrapper openContext(Slot slot) {
+		slot.browserLock.lock();
+		try {
+			BrowserContext context = slot.browser.newContext(contextOptions.get());
+			Page page = context.newPage();
+			return new DriverWrapper(context, page, slot.browserLock);
+		}
+		finally {
+			slot.browserLock.unlock();
+		}
+	}
+
+	private void closeLease(Lease lease) {
+		DriverWrapper driver;
+		try {
+			driver = lease.ready.join();
+		}
+		catch (Exception e) {
+			return;
+		}
+		lease.slot.browserLock.lock();
+		try {
+			driver.close();
+		}
+		finally {
+			lease.slot.browserLock.unlock();
+		}
+	}
+
+	private void onDisconnected(Slot slot) {
+		synchronized (lock) {
+			if (slots.contains(slot)) {
+				log.warn("Shared browser disconnected, dropping its {} context(s)", slot.leases.size());
+				retire(slot);
+			}
+		}
+	}
+
+	// Called with the pool lock held
+	private void retireDisconnected() {
+		for (Slot slot : new ArrayList<>(slots)) {
+			if (!slot.browser.isConnected()) {
+				log.warn("Shared browser is no longer connected, dropping its {} context(s)", slot.leases.size());
+				retire(slot);
+			}
+		}
+	}
+
+	// Called with the pool lock held; the browser itself is closed later by
+	// closeRetired, outside of any Playwright callback
+	private void retire(Slot slot) {
+		slots.remove(slot);
+		for (Lease lease : slot.leases) {
+			leases.remove(lease.planId, lease);
+		}
+		slot.leases.clear();
+		if (!retired.contains(slot)) {
+			retired.add(slot);
+		}
+		lock.notifyAll();
+	}
+
+	private void closeRetired() {
+		List<Slot> toClose;
+		synchronized (lock) {
+			toClose = new ArrayList<>(retired);
+			retired.clear();
+		}
+		for (Slot slot : toClose) {
+			slot.browserLock.lock();
+			try {
+				slot.owner.close();
+			}
+			catch (Exception e) {
+				log.info("Error closing shared browser: {}", e.getMessage());
+			}
+			finally {
+				slot.browserLock.unlock();
+			}
+		}
+	}
+
+	private static final class Slot {
+
+		private final Browser browser;
+
+		private final AutoCloseable owner;
+
+		private final ReentrantLock browserLock = new ReentrantLock();
+
+		private final List<Lease> leases = new ArrayList<>();
+
+		private Slot(Browser browser, AutoCloseable owner) {
+			this.browser = browser;
+			this.owner = owner;
+		}
+
+	}
+
+	private static final class Lease {
+
+		private final String planId;
+
+		private final CompletableFuture<DriverWrapper> ready = new CompletableFuture<>();
+
+		// Null while the browser of the lease is being started
+		private volatile Slot slot;
+
+		private Lease(String planId) {
+			this.planId = planId;
+		}
+
+		private boolean isReady() {
+			return ready.isDone() && !ready.isCompletedExceptionally();
+		}
+
+	}
+
+	private static final class BrowserCrashedException extends RuntimeException {
+
+		private BrowserCrashedException(Throwable cause) {
+			super(cause);
+		}
+
+	}
+
+}
@@ -41,6 +41,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.locks.Lock;
 import java.util.HashMap;
 
 import org.springframework.ai.openai.api.OpenAiApi;
@@ -62,6 +63,22 @@ public class BrowserUseTool extends AbstractBaseTool<BrowserRequestVO> {
 		return chromeDriverService.getDriver(currentPlanId);
 	}
 
+	/**
+	 * Locks the shared browser hosting the current plan's context. If the plan released
+	 * the context while waiting for the lock, the plan's new context is locked instead.
+	 */
+	private Lock lockDriver() {
+		while (true) {
+			DriverWrapper driver = getDriver();
+			Lock browserLock = driver.getBrowserLock();
+			browserLock.lock();
+			if (!driver.isClosed()) {
+				return browserLock;
+			}
+			browserLock.unlock();
+		}
+	}
+
 	/**
 	 * Get browser operation timeout configuration
 	 * @return Timeout in seconds, returns default value of 30 seconds if not configured
@@ -330,10 +347,12 @@ public class BrowserUseTool extends AbstractBaseTool<BrowserRequestVO> {
 
 		// Get parameters from RequestVO
 		String action = requestVO.getAction();
+		if (action == null) {
+			return new ToolExecuteResult("Action parameter is required");
+		}
+		Lock browserLock = null;
 		try {
-			if (action == null) {
-				return new ToolExecuteResult("Action parameter is required");
-			}
+			browserLock = lockDriver();
 
 			ToolExecuteResult result;
 			switch (action) {
@@ -420,6 +439,11 @@ public class BrowserUseTool extends AbstractBaseTool<BrowserRequestVO> {
 			log.error("Browser action '" + action + "' failed", e);
 			return new ToolExecuteResult("Browser action '" + action + "' failed: " + e.getMessage());
 		}
+		finally {
+			if (browserLock != null) {
+				browserLock.unlock();
+			}
+		}
 	}
 
 	private List<Map<String, Object>> getTabsInfo(Page page) {
@@ -499,8 +523,14 @@ public class BrowserUseTool extends AbstractBaseTool<BrowserRequestVO> {
 
 	@Override
 	public String getCurrentToolStateString() {
-		DriverWrapper driver = getDriver();
-		Map<String, Object> state = getCurrentState(driver.getCurrentPage());
+		Map<String, Object> state;
+		Lock browserLock = lockDriver();
+		try {
+			state = getCurrentState(getDriver().getCurrentPage());
+		}
+		finally {
+			browserLock.unlock();
+		}
 		// Build URL and title information
 		String urlInfo = String.format("\n   URL: %s\n   Title: %s", state.get("url"), state.get("title"));
 
@@ -15,12 +15,10 @@
  */
 package com.alibaba.cloud.ai.example.manus.tool.browser;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
 import com.alibaba.cloud.ai.example.manus.config.ManusProperties;
 import com.alibaba.cloud.ai.example.manus.tool.innerStorage.SmartContentSavingService;
@@ -30,6 +28,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.microsoft.playwright.Playwright;
 import com.microsoft.playwright.Browser;
 import com.microsoft.playwright.BrowserType;
+import com.microsoft.playwright.options.Cookie;
 
 import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
@@ -44,9 +43,7 @@ public class ChromeDriverService {
 
 	private static final Logger log = LoggerFactory.getLogger(ChromeDriverService.class);
 
-	private final ConcurrentHashMap<String, DriverWrapper> drivers = new ConcurrentHashMap<>();
-
-	private final Lock driverLock = new ReentrantLock();
+	private final BrowserContextPool browserPool;
 
 	private ManusProperties manusProperties;
 
@@ -58,8 +55,11 @@ public class ChromeDriverService {
 	private static final ObjectMapper objectMapper = new ObjectMapper();
 
 	/**
-	 * Shared directory for storing cookies
+	 * How long a new plan waits for a context to be released when every browser is full,
+	 * before an extra browser is started
 	 */
+	private static final Duration BROWSER_CAPACITY_WAIT = Duration.ofSeconds(30);
+
 	/**
 	 * Shared directory for storing cookies
 	 */
@@ -77,13 +77,14 @@ public class ChromeDriverService {
 	 */
 	public void saveCookiesToSharedDir() {
 		// Get the first available driver
-		DriverWrapper driver = drivers.values().stream().findFirst().orElse(null);
+		DriverWrapper driver = browserPool.activeDrivers().stream().findFirst().orElse(null);
 		if (driver == null) {
 			log.warn("No driver found for saving cookies");
 			return;
 		}
+		driver.getBrowserLock().lock();
 		try {
-			List<com.microsoft.playwright.options.Cookie> cookies = driver.getCurrentPage().context().cookies();
+			List<Cookie> cookies = driver.getBrowserContext().cookies();
 			String cookieFile = sharedDir + "/cookies.json";
 			try (java.io.FileWriter writer = new java.io.FileWriter(cookieFile)) {
 				writer.write(objectMapper.writeValueAsString(cookies));
@@ -93,6 +94,9 @@ public class ChromeDriverService {
 		catch (Exception e) {
 			log.error("Failed to save cookies", e);
 		}
+		finally {
+			driver.getBrowserLock().unlock();
+		}
 	}
 
 	/**
@@ -107,11 +111,16 @@ public class ChromeDriverService {
 		}
 		try (java.io.FileReader reader = new java.io.FileReader(cookieFile)) {
 			// Replace FastJSON's JSON.parseArray with Jackson's objectMapper.readValue
-			List<com.microsoft.playwright.options.Cookie> cookies = objectMapper.readValue(reader,
-					new TypeReference<List<com.microsoft.playwright.options.Cookie>>() {
-					});
-			for (DriverWrapper driver : drivers.values()) {
-				driver.getCurrentPage().context().addCookies(cookies);
+			List<Cookie> cookies = objectMapper.readValue(reader, new TypeReference<List<Cookie>>() {
+			});
+			for (DriverWrapper driver : browserPool.activeDrivers()) {
+				driver.getBrowserLock().lock();
+				try {
+					driver.getBrowserContext().addCookies(cookies);
+				}
+				finally {
+					driver.getBrowserLock().unlock();
+				}
 			}
 			log.info("Cookies loaded from {} to all drivers", cookieFile);
 		}
@@ -135,53 +144,30 @@ public class ChromeDriverService {
 			log.error("Failed to create playwright directory", e);
 			this.sharedDir = unifiedDirectoryManager.getWorkingDirectory().resolve("playwright").toString();
 		}
+		this.browserPool = new BrowserContextPool(this::launchBrowser, this::newContextOptions,
+				() -> this.manusProperties.getBrowserMaxBrowsers(),
+				() -> this.manusProperties.getBrowserMaxContextsPerBrowser(), BROWSER_CAPACITY_WAIT);
 		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
 			log.info("JVM shutting down - cleaning up Playwright processes");
 			cleanupAllPlaywrightProcesses();
 		}));
 	}
 
+	/**
+	 * Returns the browser context of the given plan. Contexts live in a small number of
+	 * shared browser processes, so only the first plans pay the browser startup.
+	 */
 	public DriverWrapper getDriver(String planId) {
 		if (planId == null) {
 			throw new IllegalArgumentException("planId cannot be null");
 		}
-
-		DriverWrapper currentDriver = drivers.get(planId);
-		if (currentDriver != null) {
-			return currentDriver;
-		}
-
-		try {
-			driverLock.lock();
-			currentDriver = drivers.get(planId);
-			if (currentDriver != null) {
-				return currentDriver;
-			}
-			log.info("Creating new Playwright Browser instance for planId: {}", planId);
-			currentDriver = createNewDriver(); // createNewDriver will now pass sharedDir
-			if (currentDriver != null) { // Check if driver creation was successful
-				drivers.put(planId, currentDriver);
-			}
-			else {
-				// Handle the case where driver creation failed, e.g., log an error or
-				// throw an exception
-				log.error("Failed to create new driver for planId: {}. createNewDriver returned null.", planId);
-				// Optionally throw an exception to indicate failure to the caller
-				// throw new RuntimeException("Failed to create new driver for planId: " +
-				// planId);
-			}
-		}
-		finally {
-			driverLock.unlock();
-		}
-
-		return currentDriver;
+		return browserPool.acquire(planId);
 	}
 
 	private void cleanupAllPlaywrightProcesses() {
 		try {
-			drivers.clear();
-			log.info("Successfully cleaned up all Playwright processes	");
+			browserPool.close();
+			log.info("Successfully cleaned up all Playwright processes");
 		}
 		catch (Exception e) {
 			log.error("Error cleaning up Browser processes", e);
@@ -189,27 +175,20 @@ public class ChromeDriverService {
 	}
 
 	public void closeDriverForPlan(String planId) {
-		DriverWrapper driver = drivers.remove(planId);
-		if (driver != null) {
-			driver.close();
-		}
+		browserPool.release(planId);
 	}
 
-	private DriverWrapper createNewDriver() {
+	private BrowserContextPool.LaunchedBrowser launchBrowser() {
 		Playwright playwright = null;
 		try {
-
-			if (playwright == null) {
-				playwright = Playwright.create();
-			}
+			playwright = Playwright.create();
 			BrowserType.LaunchOptions options = new BrowserType.LaunchOptions();
 
-			// Basic configuration
+			// Basic configuration; the user agent is chosen per context
 			options.setArgs(Arrays.asList("--remote-allow-origins=*", "--disable-blink-features=AutomationControlled",
 					"--disable-infobars", "--disable-notifications", "--disable-dev-shm-usage",
-					"--lang=zh-CN,zh,en-US,en", "--user-agent=" + getRandomUserAgent(), "--window-size=1920,1080" // Default
-																													// window
-																													// size
+					"--lang=zh-CN,zh,en-US,en", "--window-size=1920,1080" // Default
+																			// window size
 			));
 
 			// Decide whether to use headless mode based on configuration
@@ -223,9 +202,8 @@ public class ChromeDriverService {
 			}
 
 			Browser browser = playwright.chromium().launch(options);
-			log.info("Created new Playwright Browser instance with anti-detection");
-			// Pass the sharedDir to the DriverWrapper constructor
-			return new DriverWrapper(playwright, browser, browser.newPage(), this.sharedDir);
+			log.info("Created new shared Playwright Browser instance with anti-detection");
+			return new BrowserContextPool.LaunchedBrowser(browser, playwright);
 		}
 		catch (Exception e) {
 			if (playwright != null) {
@@ -241,6 +219,10 @@ public class ChromeDriverService {
 		}
 	}
 
+	private Browser.NewContextOptions newContextOptions() {
+		return new Browser.NewContextOptions().setUserAgent(getRandomUserAgent());
+	}
+
 	private String getRandomUserAgent() {
 		List<String> userAgents = Arrays.asList(
 				"Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36",
@@ -44,6 +44,9 @@ public class InteractiveElement {
 	// HTML structure information
 	private String outerHtml;
 
+	// Rendered form given to the model, computed on first use
+	private String description;
+
 	/**
 	 * Construct an InteractiveElement instance
 	 * @param index Global index
@@ -111,6 +114,13 @@ public class InteractiveElement {
 	 */
 	@Override
 	public String toString() {
+		if (description == null) {
+			description = describe();
+		}
+		return description;
+	}
+
+	private String describe() {
 		String content = text.isEmpty() ? outerHtml : text;
 
 		// If using outerHtml, remove jmanus-id attribute and style attribute
@@ -22,15 +22,23 @@ import com.microsoft.playwright.options.LoadState;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 /**
  * A class that manages a collection of interactive elements on a page, providing global
  * index access.
+ * <p>
+ * In incremental mode a {@code MutationObserver} installed in each frame records the
+ * regions changed between refreshes, and only those regions are extracted again. Elements
+ * keep their index for as long as they stay in the document, and the rendered element
+ * list is reused until an element is added, changed or removed.
  */
 public class InteractiveElementRegistry {
 
@@ -40,14 +48,12 @@ public class InteractiveElementRegistry {
 	 * JavaScript code for selecting interactive elements
 	 */
 	private static final String EXTRACT_INTERACTIVE_ELEMENTS_JS = """
-			((index) => {
+			((options) => {
 
 			const TMP = []
-			const ID = {"count": index}
 			const COMPUTED_STYLES = new WeakMap();
 			const XPATH_CACHE = new WeakMap();
 			const INTERACTIVE_ELEMENT_CACHE = new WeakMap();
-			const CURRENT_TIMESTAMP = Date.now();
 			const INTERACTIVE_ELEMENT_TAG = new Set([
 				"a",          // Links
 				"button",     // Buttons
@@ -62,11 +68,123 @@ public class InteractiveElementRegistry {
 				"fieldset",   // Form fieldsets (can be interactive with legend)
 				"legend",     // Fieldset legends
 			]);
+			// Beyond this many dirty regions the whole document is rescanned
+			const MAX_DIRTY_ROOTS = 200;
 
-			extract(document.body)
-			return parseElement()
+			let state = options.incremental ? window.__jmanusIndex : undefined;
+			if (!state || state.document !== document) {
+				state = createState()
+				return scan(true)
+			}
+			if (options.complete || state.overflow) {
+				return scan(true)
+			}
+			return scan(false)
+
+			function createState() {
+				const created = {
+				token: Date.now().toString(36) + Math.random().toString(36).slice(2, 8),
+				document: document,
+				seq: 0,
+				tracked: new Map(),
+				dirty: new Set(),
+				overflow: false
+				}
+				if (!options.incremental) {
+				return created
+				}
+				if (window.__jmanusIndex && window.__jmanusIndex.observer) {
+				window.__jmanusIndex.observer.disconnect()
+				}
+				created.observer = new MutationObserver((mutations) => {
+				for (const mutation of mutations) {
+					if (mutation.type === "attributes" && mutation.attributeName === "jmanus-id") {
+					continue
+					}
+					let node = mutation.target.nodeType === Node.ELEMENT_NODE ? mutation.target : mutation.target.parentElement
+					// The parent decides whether a changed element hides its interactive children
+					if (node && node.parentElement) {
+					node = node.parentElement
+					}
+					if (node) {
+					created.dirty.add(node)
+					}
+				}
+				if (created.dirty.size > MAX_DIRTY_ROOTS) {
+					created.overflow = true
+					created.dirty.clear()
+				}
+				})
+				created.observer.observe(document, {subtree: true, childList: true, attributes: true, characterData: true})
+				window.__jmanusIndex = created
+				return created
+			}
+
+			function dirtyRoots() {
+				const roots = new Set()
+				for (const node of state.dirty) {
+				if (node === document.documentElement) {
+					roots.add(document.body)
+				} else if (node.isConnected && document.body.contains(node)) {
+					roots.add(node)
+				}
+				}
+				const candidates = Array.from(roots)
+				// Drop regions nested in another dirty region
+				return candidates.filter((node) => !candidates.some((other) => other !== node && other.contains(node)))
+			}
+
+			/**
+			 * Extracts the interactive elements below the dirty regions, or the whole document
+			 * when complete. Returns the new and changed elements (every element when complete)
+			 * and the ids of tracked elements that disappeared.
+			 */
+			function scan(complete) {
+				if (!document.body) {
+				return {token: state.token, complete, elements: [], removed: []}
+				}
+				const roots = complete ? [document.body] : dirtyRoots()
+				state.dirty.clear()
+				state.overflow = false
+				if (roots.length === 0) {
+				return {token: state.token, complete, elements: [], removed: []}
+				}
+				for (const root of roots) {
+				extract(root)
+				}
+				const candidates = filterElements()
+				const candidateSet = new Set(candidates)
+				const removed = []
+				for (const [id, entry] of state.tracked) {
+				const element = entry.element
+				if (!element.isConnected || (!candidateSet.has(element) && roots.some((root) => root.contains(element)))) {
+					state.tracked.delete(id)
+					removed.push(id)
+				}
+				}
+				const elements = []
+				for (const element of candidates) {
+				const existingId = element.getAttribute("jmanus-id")
+				const entry = existingId ? state.tracked.get(existingId) : undefined
+				const known = entry !== undefined && entry.element === element
+				let jManusId = existingId
+				if (!known) {
+					jManusId = state.token + "-" + state.seq++
+					element.setAttribute("jmanus-id", jManusId)
+				}
+				const text = element.innerText
+				const outerHtml = element.outerHTML
+				if (complete || !known || entry.text !== text || entry.outerHtml !== outerHtml) {
+					state.tracked.set(jManusId, {element, text, outerHtml})
+					const tagName = element.tagName.toLowerCase()
+					const xpath = getXPathTree(element)
+					elements.push({tagName, text, outerHtml, xpath, jManusId})
+				}
+				}
+				return {token: state.token, complete, elements, removed}
+			}
 
-			function parseElement() {
+			function filterElements() {
 				const RES = []
 				for (const element of TMP) {
 				// Filter sub elements can be clicked
@@ -82,16 +200,7 @@ public class InteractiveElementRegistry {
 				if (skip && !INTERACTIVE_ELEMENT_TAG.has(tagName)) {
 					continue
 				}
-				const index = ID.count++
-				let jManusId
-				if (element.setAttribute) {
-					jManusId = CURRENT_TIMESTAMP + "-" + index;
-					element.setAttribute("jmanus-id", jManusId)
-				}
-				const text = element.innerText
-				const outerHtml = element.outerHTML
-				const xpath = getXPathTree(element)
-				RES.push({tagName, text, outerHtml, index, xpath, jManusId})
+				RES.push(element)
 				}
 				return RES
 			}
@@ -410,32 +519,81 @@ public class InteractiveElementRegistry {
 	// Removed the static initialization block, directly using string constants
 
 	/**
-	 * A list of all interactive elements, sorted by global index
+	 * Every this many incremental refreshes all frames are rescanned completely, to pick
+	 * up changes no DOM mutation reports, such as elements scrolled or resized into view
+	 */
+	private static final int COMPLETE_SCAN_INTERVAL = 10;
+
+	/**
+	 * Whether refreshes only re-extract the regions changed since the previous refresh
+	 */
+	private final boolean incremental;
+
+	/**
+	 * A quick lookup from index to element, sorted by global index
+	 */
+	private final ConcurrentSkipListMap<Integer, InteractiveElement> indexToElementMap = new ConcurrentSkipListMap<>();
+
+	/**
+	 * Global index of each element, by its jmanus-id
+	 */
+	private final Map<String, Integer> idToIndexMap = new HashMap<>();
+
+	/**
+	 * Document token of each frame scanned so far; element ids start with the token of
+	 * their document
+	 */
+	private final Map<Frame, String> frameTokens = new HashMap<>();
+
+	private Page currentPage;
+
+	private int nextIndex;
+
+	private int refreshCount;
+
+	/**
+	 * Rendered element list, reused until the elements change
 	 */
-	private final List<InteractiveElement> interactiveElements = new CopyOnWriteArrayList<>();
+	private String elementsInfoText;
+
+	public InteractiveElementRegistry() {
+		this(true);
+	}
 
 	/**
-	 * A quick lookup from index to element
+	 * @param incremental whether to track DOM mutations and only re-extract changed
+	 * regions, keeping element indices stable across refreshes; otherwise every refresh
+	 * extracts the whole page and renumbers the elements
 	 */
-	private final Map<Integer, InteractiveElement> indexToElementMap = new ConcurrentHashMap<>();
+	public InteractiveElementRegistry(boolean incremental) {
+		this.incremental = incremental;
+	}
 
 	/**
 	 * Refresh all interactive elements on the specified page
 	 * @param page The page to process
 	 */
-	public void refresh(Page page) {
-		clearCache();
+	public synchronized void refresh(Page page) {
+		if (!incremental || page != currentPage) {
+			clearCache();
+			currentPage = page;
+		}
 		waitForPageLoad(page);
-		processPageElements(page);
-		log.info("Loaded {} interactive elements", interactiveElements.size());
+		boolean complete = refreshCount++ % COMPLETE_SCAN_INTERVAL == 0;
+		processPageElements(page, complete);
+		log.info("Loaded {} interactive elements", indexToElementMap.size());
 	}
 
 	/**
 	 * Clear the current cache
 	 */
 	private void clearCache() {
-		interactiveElements.clear();
 		indexToElementMap.clear();
+		idToIndexMap.clear();
+		frameTokens.clear();
+		nextIndex = 0;
+		refreshCount = 0;
+		elementsInfoText = null;
 	}
 
 	/**
@@ -453,38 +611,103 @@ public class InteractiveElementRegistry {
 	}
 
 	/**
-	 * Process interactive elements in a single iframe
+	 * Process interactive elements of every frame, main frame first
 	 * @param page current browser page
+	 * @param complete whether to rescan every frame completely
 	 */
+	private void processPageElements(Page page, boolean complete) {
+		List<Frame> frames = new ArrayList<>(page.frames());
+		Frame mainFrame = page.mainFrame();
+		if (frames.remove(mainFrame)) {
+			frames.add(0, mainFrame);
+		}
+		// Frames that went away take their elements with them
+		for (Frame frame : new ArrayList<>(frameTokens.keySet())) {
+			if (!frames.contains(frame)) {
+				removeDocument(frameTokens.remove(frame));
+			}
+		}
+		for (Frame frame : frames) {
+			try {
+				processFrameElements(frame, frame == mainFrame, complete || !frameTokens.containsKey(frame));
+			}
+			catch (Exception e) {
+				// The next refresh rescans this frame completely
+				frameTokens.remove(frame);
+				log.warn("Error processing page elements: {}", e.getMessage());
+			}
+		}
+	}
+
 	@SuppressWarnings("unchecked")
-	private void processPageElements(Page page) {
-		try {
-			int index = 0;
-			for (Frame frame : page.frames()) {
-				List<Map<String, Object>> elementMapList = (List<Map<String, Object>>) frame
-					.evaluate(EXTRACT_INTERACTIVE_ELEMENTS_JS, index);
-				for (Map<String, Object> elementMap : elementMapList) {
-					Integer globalIndex = (Integer) elementMap.get("index");
-					InteractiveElement element = new InteractiveElement(globalIndex, frame, elementMap);
-					interactiveElements.add(element);
-					indexToElementMap.put(globalIndex, element);
-				}
-				index = interactiveElements.size();
+	private void processFrameElements(Frame frame, boolean mainFrame, boolean complete) {
+		Map<String, Object> result = (Map<String, Object>) frame.evaluate(EXTRACT_INTERACTIVE_ELEMENTS_JS,
+				Map.of("incremental", incremental, "complete", complete));
+		String token = (String) result.get("token");
+		String previousToken = frameTokens.put(frame, token);
+		if (previousToken != null && !previousToken.equals(token)) {
+			// The frame navigated to a new document
+			if (mainFrame) {
+				clearCache();
+				frameTokens.put(frame, token);
+			}
+			else {
+				removeDocument(previousToken);
+			}
+		}
+		List<Map<String, Object>> elementMapList = (List<Map<String, Object>>) result.get("elements");
+		if (Boolean.TRUE.equals(result.get("complete"))) {
+			Set<String> present = new HashSet<>();
+			for (Map<String, Object> elementMap : elementMapList) {
+				present.add((String) elementMap.get("jManusId"));
+			}
+			for (String id : new ArrayList<>(idToIndexMap.keySet())) {
+				if (id.startsWith(token + "-") && !present.contains(id)) {
+					removeElement(id);
+				}
 			}
+		}
+		for (String id : (List<String>) result.get("removed")) {
+			removeElement(id);
+		}
+		for (Map<String, Object> elementMap : elementMapList) {
+			String id = (String) elementMap.get("jManusId");
+			Integer globalIndex = idToIndexMap.get(id);
+			if (globalIndex == null) {
+				globalIndex = nextIndex++;
+				idToIndexMap.put(id, globalIndex);
+			}
+			indexToElementMap.put(globalIndex, new InteractiveElement(globalIndex, frame, elementMap));
+			elementsInfoText = null;
+		}
+	}
 
+	private void removeDocument(String token) {
+		if (token == null) {
+			return;
 		}
-		catch (Exception e) {
-			log.warn("Error processing page elements: {}", e.getMessage());
+		for (String id : new ArrayList<>(idToIndexMap.keySet())) {
+			if (id.startsWith(token + "-")) {
+				removeElement(id);
+			}
+		}
+	}
+
+	private void removeElement(String id) {
+		Integer globalIndex = idToIndexMap.remove(id);
+		if (globalIndex != null) {
+			indexToElementMap.remove(globalIndex);
+			elementsInfoText = null;
 		}
 	}
 
 	/**
 	 * Get all interactive elements list
-	 * @return Interactive elements list
+	 * @return Interactive elements list, sorted by global index
 	 */
 	public List<InteractiveElement> getAllElements(Page page) {
 		refresh(page);
-		return new CopyOnWriteArrayList<>(interactiveElements);
+		return new ArrayList<>(indexToElementMap.values());
 	}
 
 	/**
@@ -501,19 +724,26 @@ public class InteractiveElementRegistry {
 	 * @return Number of elements
 	 */
 	public int size() {
-		return interactiveElements.size();
+		return indexToElementMap.size();
 	}
 
 	/**
 	 * Generate detailed information text for all elements
 	 * @return Formatted element information string
 	 */
-	public String generateElementsInfoText(Page page) {
+	public synchronized String generateElementsInfoText(Page page) {
+		List<InteractiveElement> elements = getAllElements(page);
+		String cached = elementsInfoText;
+		if (cached != null) {
+			return cached;
+		}
 		StringBuilder result = new StringBuilder();
-		for (InteractiveElement element : getAllElements(page)) {
+		for (InteractiveElement element : elements) {
 			result.append(element.toString().replace("\n", "")).append("\n");
 		}
-		return result.toString();
+		cached = result.toString();
+		elementsInfoText = cached;
+		return cached;
 	}
 
 	/**
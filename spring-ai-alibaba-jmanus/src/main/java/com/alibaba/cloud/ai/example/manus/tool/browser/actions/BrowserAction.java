@@ -16,6 +16,7 @@
 package com.alibaba.cloud.ai.example.manus.tool.browser.actions;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.Random;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -26,6 +27,7 @@ import org.slf4j.LoggerFactory;
 import com.alibaba.cloud.ai.example.manus.tool.browser.BrowserUseTool;
 import com.alibaba.cloud.ai.example.manus.tool.browser.DriverWrapper;
 import com.alibaba.cloud.ai.example.manus.tool.browser.InteractiveElement;
+import com.alibaba.cloud.ai.example.manus.tool.browser.InteractiveElementRegistry;
 import com.alibaba.cloud.ai.example.manus.tool.code.ToolExecuteResult;
 import com.microsoft.playwright.BrowserContext;
 import com.microsoft.playwright.ElementHandle;
@@ -109,6 +111,18 @@ public abstract class BrowserAction {
 		return driverWrapper.getInteractiveElementRegistry().getAllElements(page);
 	}
 
+	/**
+	 * Get the interactive element shown to the model with the given index
+	 * @param page Playwright Page instance
+	 * @param index Global element index
+	 * @return The element, or empty if no element has this index
+	 */
+	protected Optional<InteractiveElement> getInteractiveElement(Page page, int index) {
+		InteractiveElementRegistry registry = browserUseTool.getDriver().getInteractiveElementRegistry();
+		registry.refresh(page);
+		return registry.getElementById(index);
+	}
+
 	protected String clickAndSwitchToNewTabIfOpened(Page pageToClickOn, Runnable clickLambda) {
 		Page newPageFromPopup = null;
 		String originalPageUrl = pageToClickOn.url();
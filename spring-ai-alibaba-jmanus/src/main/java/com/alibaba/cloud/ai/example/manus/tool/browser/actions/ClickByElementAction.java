@@ -15,7 +15,7 @@
  */
 package com.alibaba.cloud.ai.example.manus.tool.browser.actions;
 
-import java.util.List;
+import java.util.Optional;
 
 import com.microsoft.playwright.Page;
 import com.alibaba.cloud.ai.example.manus.tool.browser.BrowserUseTool;
@@ -39,14 +39,13 @@ public class ClickByElementAction extends BrowserAction {
 
 		Page page = getCurrentPage(); // Get Playwright Page instance
 
-		// Get interactive elements (InteractiveElement)
-		List<InteractiveElement> interactiveElements = getInteractiveElements(page);
-
-		if (index < 0 || index >= interactiveElements.size()) {
+		// Get interactive element (InteractiveElement) by its index
+		Optional<InteractiveElement> elementOpt = getInteractiveElement(page, index);
+		if (elementOpt.isEmpty()) {
 			return new ToolExecuteResult("Element with index " + index + " not found");
 		}
 
-		InteractiveElement element = interactiveElements.get(index);
+		InteractiveElement element = elementOpt.get();
 		log.info("Clicking element: {}", element.getText());
 
 		String clickResultMessage = clickAndSwitchToNewTabIfOpened(page, () -> {
@@ -15,7 +15,7 @@
  */
 package com.alibaba.cloud.ai.example.manus.tool.browser.actions;
 
-import java.util.List;
+import java.util.Optional;
 
 import com.microsoft.playwright.Locator;
 import com.microsoft.playwright.Page;
@@ -39,17 +39,14 @@ public class InputTextAction extends BrowserAction {
 			return new ToolExecuteResult("Index and text are required for 'input_text' action");
 		}
 
-		// Get interactive elements (InteractiveElement), supports all frames (including
-		// iframe)
-		List<InteractiveElement> interactiveElements = getInteractiveElements(page); // Already
-																						// supports
-																						// recursion
-																						// frame
-		if (index < 0 || index >= interactiveElements.size()) {
+		// Get interactive element (InteractiveElement) by its index, supports all frames
+		// (including iframe)
+		Optional<InteractiveElement> elementOpt = getInteractiveElement(page, index);
+		if (elementOpt.isEmpty()) {
 			return new ToolExecuteResult("Element with index " + index + " not found");
 		}
 
-		InteractiveElement inputElement = interactiveElements.get(index);
+		InteractiveElement inputElement = elementOpt.get();
 
 		String tagName = inputElement.getTagName();
 		if (!"input".equals(tagName) && !"textarea".equals(tagName)) {
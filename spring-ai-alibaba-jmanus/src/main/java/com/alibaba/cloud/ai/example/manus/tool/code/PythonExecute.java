@@ -22,6 +22,7 @@ import com.alibaba.cloud.ai.example.manus.tool.AbstractBaseTool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 import org.springframework.ai.openai.api.OpenAiApi;
@@ -54,6 +55,8 @@ public class PythonExecute extends AbstractBaseTool<PythonExecute.PythonInput> {
 
 	}
 
+	private static final Duration CELL_TIMEOUT = Duration.ofMinutes(5);
+
 	private Boolean arm64 = true;
 
 	public static final String LLMMATH_PYTHON_CODE = """
@@ -83,6 +86,7 @@ public class PythonExecute extends AbstractBaseTool<PythonExecute.PythonInput> {
 
 	private static final String description = """
 			Executes Python code string. Note: Only print outputs are visible, function return values are not captured. Use print statements to see results.
+			Code runs in a persistent interpreter for the current plan: variables, functions and imports defined by previous calls remain available. numpy (as np) and pandas (as pd) are imported when installed.
 			""";
 
 	public static OpenAiApi.FunctionTool getToolDefinition() {
@@ -218,14 +222,30 @@ public class PythonExecute extends AbstractBaseTool<PythonExecute.PythonInput> {
 		this.lastExecutionLogId = "tmp_" + LogIdGenerator.generateUniqueId();
 
 		try {
-			CodeExecutionResult codeExecutionResult = CodeUtils.executeCode(code, "python", lastExecutionLogId + ".py",
-					arm64, new HashMap<>());
-			String result = codeExecutionResult.getLogs();
+			String result;
+			boolean failed = false;
+			if (currentPlanId != null) {
+				// Cells of a plan share a warm kernel and its variables; output is
+				// logged as the cell prints it
+				String planId = currentPlanId;
+				PythonKernelPool.Result cell = PythonKernelPool.shared()
+					.execute(planId, null, code, CELL_TIMEOUT, line -> log.info("[python {}] {}", planId, line));
+				result = cell.timedOut()
+						? "Execution timed out after " + CELL_TIMEOUT.toSeconds()
+								+ " seconds and was interrupted. Output before the interrupt:\n" + cell.output()
+						: cell.output();
+				failed = cell.status() != 0;
+			}
+			else {
+				CodeExecutionResult codeExecutionResult = CodeUtils.executeCode(code, "python",
+						lastExecutionLogId + ".py", arm64, new HashMap<>());
+				result = codeExecutionResult.getLogs();
+			}
 			this.lastExecutionResult = result;
 
 			// Check if the execution result contains Python error information
-			if (result.contains("SyntaxError") || result.contains("IndentationError") || result.contains("NameError")
-					|| result.contains("TypeError") || result.contains("ValueError")
+			if (failed || result.contains("SyntaxError") || result.contains("IndentationError")
+					|| result.contains("NameError") || result.contains("TypeError") || result.contains("ValueError")
 					|| result.contains("ImportError")) {
 				this.hasError = true;
 				this.lastError = extractErrorMessage(result);
@@ -247,7 +267,7 @@ public class PythonExecute extends AbstractBaseTool<PythonExecute.PythonInput> {
 
 	@Override
 	public void cleanup(String planId) {
-		// do nothing
+		PythonKernelPool.shared().close(planId);
 	}
 
 	@Override
@@ -0,0 +1,655 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.tool.code;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Long-lived Python interpreters, one per plan, that run the code of the python tool.
+ * <p>
+ * Each kernel runs a small driver that executes the cells it reads from stdin in one
+ * namespace, so variables, functions and imports of a cell are visible to the next one.
+ * Common libraries are imported when the kernel starts, and one started kernel is kept as
+ * a spare so that the first cell of a plan does not pay for the imports either. stdout
+ * and stderr are merged and end with a marker holding a random token and the status of
+ * the cell. Each line is streamed to the caller's listener as the cell prints it, and the
+ * whole output is returned when the cell ends.
+ * <p>
+ * A cell running longer than its timeout gets a SIGINT, which raises
+ * {@code KeyboardInterrupt} in the cell and keeps the namespace. A kernel ignoring the
+ * interrupt, or whose resident memory grows above the memory limit, is killed and the
+ * next cell of the plan starts with a fresh namespace. Kernels idle for longer than the
+ * idle timeout are closed.
+ */
+public final class PythonKernelPool implements AutoCloseable {
+
+	private static final Logger log = LoggerFactory.getLogger(PythonKernelPool.class);
+
+	private static final String PYTHON = "python3";
+
+	// Imported into the namespace of every kernel when it starts, skipped when missing
+	static final List<String> PRELOADED_MODULES = List.of("math", "json", "re", "os", "sys", "datetime", "numpy as np",
+			"pandas as pd");
+
+	// Time a cell gets to print its marker once interrupted
+	private static final long INTERRUPT_GRACE_MILLIS = 2000;
+
+	private static final long MEMORY_CHECK_INTERVAL_MILLIS = 200;
+
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+
+	private static final String DRIVER = """
+			import json, os, sys, traceback
+			marker = sys.argv[1]
+			requests = os.fdopen(os.dup(0), "r", encoding="utf-8")
+			os.dup2(os.open(os.devnull, os.O_RDONLY), 0)
+			sys.stdin = open(os.devnull)
+			sys.stdout.reconfigure(line_buffering=True)
+			sys.stderr.reconfigure(line_buffering=True)
+			namespace = {"__name__": "__main__"}
+			for module in sys.argv[2:]:
+			    try:
+			        exec("import " + module, namespace)
+			    except Exception:
+			        pass
+			while True:
+			    try:
+			        line = requests.readline()
+			    except KeyboardInterrupt:
+			        continue
+			    if not line:
+			        break
+			    status = 0
+			    try:
+			        exec(compile(json.loads(line)["code"], "<cell>", "exec"), namespace)
+			    except KeyboardInterrupt:
+			        traceback.print_exc()
+			        status = 130
+			    except SystemExit as e:
+			        status = e.code if isinstance(e.code, int) else (0 if e.code is None else 1)
+			    except BaseException:
+			        traceback.print_exc()
+			        status = 1
+			    sys.stderr.flush()
+			    sys.stdout.write("%s%d\\n" % (marker, status))
+			    sys.stdout.flush()
+			""";
+
+	private static final PythonKernelPool SHARED = new PythonKernelPool(Duration.ofMinutes(10), 16, 2048L << 20,
+			64 * 1024);
+
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread(SHARED::close, "python-kernel-pool-shutdown"));
+	}
+
+	/**
+	 * Outcome of one cell.
+	 *
+	 * @param status 0 when the cell completed, 130 when it was interrupted, the code
+	 * passed to {@code sys.exit}, or 1 for any other exception
+	 * @param output merged stdout and stderr, cut after the output limit
+	 * @param timedOut whether the cell was interrupted after its timeout
+	 * @param kernelLost whether the kernel died or was killed, losing the namespace
+	 */
+	public record Result(int status, String output, boolean timedOut, boolean kernelLost) {
+	}
+
+	private final Duration idleTimeout;
+
+	private final int maxKernels;
+
+	private final long memoryLimitBytes;
+
+	private final int maxOutputChars;
+
+	private final Map<String, Kernel> kernels = new ConcurrentHashMap<>();
+
+	private final ScheduledExecutorService reaper;
+
+	private final ExecutorService spareStarter;
+
+	private final Object spareLock = new Object();
+
+	private CompletableFuture<Kernel> spare;
+
+	private volatile boolean closed;
+
+	PythonKernelPool(Duration idleTimeout, int maxKernels, long memoryLimitBytes, int maxOutputChars) {
+		this.idleTimeout = idleTimeout;
+		this.maxKernels = maxKernels;
+		this.memoryLimitBytes = memoryLimitBytes;
+		this.maxOutputChars = maxOutputChars;
+		this.reaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "python-kernel-reaper");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.spareStarter = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "python-kernel-spare");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long period = Math.max(100, Math.min(idleTimeout.toMillis() / 2, 30_000));
+		reaper.scheduleWithFixedDelay(this::reapIdleKernels, period, period, TimeUnit.MILLISECONDS);
+	}
+
+	public static PythonKernelPool shared() {
+		return SHARED;
+	}
+
+	/**
+	 * Runs a cell in the kernel of the given key, taking the spare kernel or starting one
+	 * in the given working directory when the key has none.
+	 */
+	public Result execute(String key, String workingDir, String code, Duration timeout)
+			throws IOException, InterruptedException {
+		return execute(key, workingDir, code, timeout, line -> {
+		});
+	}
+
+	/**
+	 * Runs a cell like {@link #execute(String, String, String, Duration)}, passing each
+	 * line of its output to the listener while the cell runs. The listener sees the
+	 * output before it is cut at the output limit and is called on the thread reading the
+	 * kernel's output.
+	 */
+	public Result execute(String key, String workingDir, String code, Duration timeout, Consumer<String> listener)
+			throws IOException, InterruptedException {
+		for (int attempt = 0;; attempt++) {
+			Kernel kernel = kernelFor(key, workingDir);
+			kernel.lock.lockInterruptibly();
+			try {
+				if (kernel.isOpen()) {
+					return kernel.run(code, timeout, listener);
+				}
+			}
+			finally {
+				kernel.lastUsed = System.nanoTime();
+				kernel.lock.unlock();
+				if (!kernel.isOpen()) {
+					kernels.remove(key, kernel);
+				}
+			}
+			if (attempt >= 1) {
+				throw new IOException("Python kernel for " + key + " closed before the cell started");
+			}
+		}
+	}
+
+	/**
+	 * Interrupts the cell running in the kernel of the given key.
+	 * @return whether the key had a kernel
+	 */
+	public boolean interrupt(String key) {
+		Kernel kernel = kernels.get(key);
+		if (kernel == null) {
+			return false;
+		}
+		kernel.interrupt();
+		return true;
+	}
+
+	/**
+	 * Closes the kernel of the given key, if any.
+	 */
+	public void close(String key) {
+		Kernel kernel = kernels.remove(key);
+		if (kernel != null) {
+			kernel.close();
+		}
+	}
+
+	int size() {
+		return kernels.size();
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		reaper.shutdownNow();
+		spareStarter.shutdown();
+		for (String key : kernels.keySet()) {
+			close(key);
+		}
+		CompletableFuture<Kernel> idle;
+		synchronized (spareLock) {
+			idle = spare;
+			spare = null;
+		}
+		if (idle != null) {
+			idle.thenAccept(Kernel::close);
+		}
+	}
+
+	private Kernel kernelFor(String key, String workingDir) {
+		Kernel existing = kernels.get(key);
+		if (existing != null && existing.isOpen()) {
+			return existing;
+		}
+		if (kernels.size() >= maxKernels) {
+			evictLeastRecentlyUsed();
+		}
+		try {
+			return kernels.compute(key, (k, current) -> {
+				if (current != null && current.isOpen()) {
+					return current;
+				}
+				Kernel kernel = takeSpare(workingDir);
+				if (kernel == null) {
+					kernel = startKernel(workingDir);
+				}
+				kernel.key = k;
+				return kernel;
+			});
+		}
+		catch (UncheckedIOException e) {
+			log.error("Failed to start Python kernel for {}", key, e.getCause());
+			throw e;
+		}
+		finally {
+			prepareSpare(workingDir);
+		}
+	}
+
+	/**
+	 * Returns the spare kernel when it started in the given working directory.
+	 */
+	private Kernel takeSpare(String workingDir) {
+		CompletableFuture<Kernel> candidate;
+		synchronized (spareLock) {
+			candidate = spare;
+			if (candidate == null || !candidate.isDone()) {
+				return null;
+			}
+			spare = null;
+		}
+		Kernel kernel = candidate.getNow(null);
+		if (kernel == null || !kernel.isOpen() || !Objects.equals(kernel.workingDir, workingDir)) {
+			if (kernel != null) {
+				kernel.close();
+			}
+			return null;
+		}
+		return kernel;
+	}
+
+	private void prepareSpare(String workingDir) {
+		synchronized (spareLock) {
+			if (spare != null || closed) {
+				return;
+			}
+			spare = CompletableFuture.supplyAsync(() -> startKernel(workingDir), spareStarter);
+			spare.exceptionally(e -> {
+				synchronized (spareLock) {
+					spare = null;
+				}
+				return null;
+			});
+		}
+	}
+
+	private Kernel startKernel(String workingDir) {
+		try {
+			return new Kernel(workingDir);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void evictLeastRecentlyUsed() {
+		kernels.entrySet()
+			.stream()
+			.filter(entry -> !entry.getValue().lock.isLocked())
+			.min((a, b) -> Long.compare(a.getValue().lastUsed, b.getValue().lastUsed))
+			.ifPresent(entry -> {
+				if (kernels.remove(entry.getKey(), entry.getValue())) {
+					log.info("Closing least recently used Python kernel {}", entry.getKey());
+					entry.getValue().close();
+				}
+			});
+	}
+
+	private void reapIdleKernels() {
+		long now = System.nanoTime();
+		kernels.forEach((key, kernel) -> {
+			if (now - kernel.lastUsed < idleTimeout.toNanos() || !kernel.lock.tryLock()) {
+				return;
+			}
+			try {
+				if (kernels.remove(key, kernel)) {
+					log.info("Closing Python kernel {} after {} of inactivity", key, idleTimeout);
+					kernel.close();
+				}
+			}
+			finally {
+				kernel.lock.unlock();
+			}
+		});
+	}
+
+	/**
+	 * One Python process and the thread pumping its output.
+	 */
+	private final class Kernel {
+
+		private volatile String key = "spare";
+
+		private final String workingDir;
+
+		private final Process process;
+
+		private final Writer stdin;
+
+		// Printed after each cell, followed by its status
+		private final String marker = "__jmanus_cell_" + UUID.randomUUID().toString().replace("-", "") + "__";
+
+		private final ReentrantLock lock = new ReentrantLock();
+
+		private final Object monitor = new Object();
+
+		private final StringBuilder output = new StringBuilder();
+
+		private long truncatedChars;
+
+		private Integer status;
+
+		private boolean eof;
+
+		// Receives the output lines of the running cell
+		private volatile Consumer<String> listener;
+
+		private volatile long lastUsed = System.nanoTime();
+
+		private Kernel(String workingDir) throws IOException {
+			this.workingDir = workingDir;
+			List<String> command = new ArrayList<>(List.of(PYTHON, "-u", "-c", DRIVER, marker));
+			command.addAll(PRELOADED_MODULES);
+			ProcessBuilder pb = new ProcessBuilder(command);
+			if (workingDir != null && !workingDir.isEmpty()) {
+				pb.directory(new File(workingDir));
+			}
+			pb.environment().put("PYTHONIOENCODING", "utf-8");
+			pb.redirectErrorStream(true);
+			this.process = pb.start();
+			this.stdin = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8);
+			Thread pump = new Thread(this::pumpOutput, "python-kernel-" + process.pid());
+			pump.setDaemon(true);
+			pump.start();
+			log.info("Started Python kernel (pid {})", process.pid());
+		}
+
+		private boolean isOpen() {
+			return process.isAlive();
+		}
+
+		private Result run(String code, Duration timeout, Consumer<String> listener)
+				throws IOException, InterruptedException {
+			synchronized (monitor) {
+				status = null;
+			}
+			this.listener = listener;
+			try {
+				return runCell(code, timeout);
+			}
+			finally {
+				this.listener = null;
+			}
+		}
+
+		private Result runCell(String code, Duration timeout) throws IOException, InterruptedException {
+			try {
+				stdin.write(objectMapper.writeValueAsString(Map.of("code", code)) + "\n");
+				stdin.flush();
+			}
+			catch (JsonProcessingException e) {
+				throw new IllegalArgumentException("Cannot encode cell", e);
+			}
+			catch (IOException e) {
+				log.warn("Python kernel {} closed its input: {}", key, e.getMessage());
+			}
+			try {
+				String failure = awaitEnd(timeout.toMillis());
+				if (failure == null) {
+					return takeResult(false, false);
+				}
+				if (!failure.isEmpty()) {
+					close();
+					return takeResult(false, true, failure);
+				}
+				log.warn("Cell timed out in Python kernel {}, interrupting it", key);
+				interrupt();
+				failure = awaitEnd(INTERRUPT_GRACE_MILLIS);
+				if (failure == null) {
+					return takeResult(true, false);
+				}
+				close();
+				return takeResult(true, true, failure.isEmpty() ? "Kernel did not respond to the interrupt" : failure);
+			}
+			catch (InterruptedException e) {
+				// The marker of the abandoned cell would end the next one
+				close();
+				throw e;
+			}
+		}
+
+		/**
+		 * Waits for the end of the cell.
+		 * @return null when the cell ended, an empty string on timeout, or why the kernel
+		 * has to be killed
+		 */
+		private String awaitEnd(long timeoutMillis) throws InterruptedException {
+			long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+			synchronized (monitor) {
+				while (status == null && !eof) {
+					long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+					if (remaining <= 0) {
+						return "";
+					}
+					monitor.wait(Math.min(remaining, MEMORY_CHECK_INTERVAL_MILLIS));
+					long resident = residentBytes();
+					if (resident > memoryLimitBytes) {
+						return "Memory limit of " + (memoryLimitBytes >> 20) + " MB exceeded (resident "
+								+ (resident >> 20) + " MB)";
+					}
+				}
+				return null;
+			}
+		}
+
+		private Result takeResult(boolean timedOut, boolean killed) throws InterruptedException {
+			return takeResult(timedOut, killed, null);
+		}
+
+		private Result takeResult(boolean timedOut, boolean killed, String reason) throws InterruptedException {
+			boolean lost;
+			synchronized (monitor) {
+				lost = status == null || killed;
+			}
+			int code = -1;
+			if (lost && process.waitFor(INTERRUPT_GRACE_MILLIS, TimeUnit.MILLISECONDS)) {
+				code = process.exitValue();
+			}
+			String text;
+			synchronized (monitor) {
+				if (!lost) {
+					code = status;
+				}
+				if (truncatedChars > 0) {
+					output.append("\n... [").append(truncatedChars).append(" characters truncated]\n");
+				}
+				if (lost) {
+					output.append("\nPython kernel was restarted, variables of previous cells are lost");
+					output.append(reason != null ? ": " + reason + "\n" : "\n");
+				}
+				text = output.toString();
+				output.setLength(0);
+				truncatedChars = 0;
+			}
+			return new Result(code, text, timedOut, lost);
+		}
+
+		private void pumpOutput() {
+			try (BufferedReader reader = new BufferedReader(
+					new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					int end = line.indexOf(marker);
+					String text = end < 0 ? line : line.substring(0, end);
+					if (end < 0 || !text.isEmpty()) {
+						publish(text);
+					}
+					synchronized (monitor) {
+						if (end < 0) {
+							append(line + "\n");
+							continue;
+						}
+						append(text);
+						status = parseStatus(line.substring(end + marker.length()));
+						monitor.notifyAll();
+					}
+				}
+			}
+			catch (IOException e) {
+				log.debug("Output of Python kernel {} closed: {}", key, e.getMessage());
+			}
+			finally {
+				synchronized (monitor) {
+					eof = true;
+					monitor.notifyAll();
+				}
+			}
+		}
+
+		private void publish(String line) {
+			Consumer<String> current = listener;
+			if (current == null) {
+				return;
+			}
+			try {
+				current.accept(line);
+			}
+			catch (RuntimeException e) {
+				log.warn("Output listener of Python kernel {} failed: {}", key, e.getMessage());
+			}
+		}
+
+		private void append(String text) {
+			int room = maxOutputChars - output.length();
+			if (room >= text.length()) {
+				output.append(text);
+			}
+			else {
+				output.append(text, 0, Math.max(room, 0));
+				truncatedChars += text.length() - Math.max(room, 0);
+			}
+		}
+
+		private int parseStatus(String text) {
+			try {
+				return Integer.parseInt(text.trim());
+			}
+			catch (NumberFormatException e) {
+				return 1;
+			}
+		}
+
+		/**
+		 * Resident set size of the kernel, read from procfs, or 0 where it is
+		 * unavailable.
+		 */
+		private long residentBytes() {
+			Path statusFile = Path.of("/proc", String.valueOf(process.pid()), "status");
+			try {
+				for (String line : Files.readAllLines(statusFile)) {
+					if (line.startsWith("VmRSS:")) {
+						return Long.parseLong(line.replaceAll("\\D", "")) * 1024;
+					}
+				}
+			}
+			catch (IOException | NumberFormatException e) {
+				// Not Linux, or the kernel just ended
+			}
+			return 0;
+		}
+
+		private void interrupt() {
+			if (!process.isAlive()) {
+				return;
+			}
+			try {
+				new ProcessBuilder("kill", "-INT", String.valueOf(process.pid())).start().waitFor(1, TimeUnit.SECONDS);
+			}
+			catch (IOException e) {
+				log.warn("Failed to interrupt Python kernel {}: {}", key, e.getMessage());
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		private void close() {
+			try {
+				stdin.close();
+			}
+			catch (IOException e) {
+				// The kernel already ended
+			}
+			process.destroy();
+			try {
+				if (!process.waitFor(1, TimeUnit.SECONDS)) {
+					process.destroyForcibly();
+					process.waitFor(1, TimeUnit.SECONDS);
+				}
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				process.destroyForcibly();
+			}
+			log.info("Closed Python kernel {}", key);
+		}
+
+	}
+
+}
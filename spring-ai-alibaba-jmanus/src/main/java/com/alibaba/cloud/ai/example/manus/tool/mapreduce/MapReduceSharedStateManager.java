@@ -15,16 +15,22 @@
  */
 package com.alibaba.cloud.ai.example.manus.tool.mapreduce;
 
+import com.alibaba.cloud.ai.example.manus.tool.mapreduce.entity.MapTaskStateEntity;
+import com.alibaba.cloud.ai.example.manus.tool.mapreduce.repository.MapTaskStateRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * MapReduce工具共享状态管理器 用于管理不同Agent实例之间的共享状态信息，确保MapReduce流程的一致性
+ * <p>
+ * Map任务状态同时写入数据库（map_task_state表），进程重启后再次执行同一计划时可以跳过已完成的Map任务
  */
 @Component
 public class MapReduceSharedStateManager {
@@ -36,6 +42,18 @@ public class MapReduceSharedStateManager {
 	 */
 	private final Map<String, PlanState> planStates = new ConcurrentHashMap<>();
 
+	// 为空时只在内存中保存状态
+	private final MapTaskStateRepository mapTaskStateRepository;
+
+	public MapReduceSharedStateManager() {
+		this(null);
+	}
+
+	@Autowired
+	public MapReduceSharedStateManager(MapTaskStateRepository mapTaskStateRepository) {
+		this.mapTaskStateRepository = mapTaskStateRepository;
+	}
+
 	/**
 	 * 计划状态内部类 包含单个计划的所有共享状态信息
 	 */
@@ -211,6 +229,144 @@ public class MapReduceSharedStateManager {
 		PlanState planState = getOrCreatePlanState(planId);
 		planState.getMapTaskStatuses().put(taskId, taskStatus);
 		log.debug("为计划 {} 记录任务 {} 状态: {}", planId, taskId, taskStatus.status);
+		persistMapTaskState(planId, taskId, entity -> entity.setStatus(taskStatus.status));
+	}
+
+	/**
+	 * 加载计划已持久化的Map任务进度
+	 * @param planId 计划ID
+	 * @return Key: taskId, Value: 持久化的任务状态；未配置数据库时为空
+	 */
+	public Map<String, MapTaskStateEntity> loadPersistedMapTaskStates(String planId) {
+		Map<String, MapTaskStateEntity> states = new HashMap<>();
+		if (mapTaskStateRepository == null) {
+			return states;
+		}
+		try {
+			for (MapTaskStateEntity entity : mapTaskStateRepository.findByPlanId(planId)) {
+				states.put(entity.getTaskId(), entity);
+			}
+		}
+		catch (RuntimeException e) {
+			log.warn("加载计划 {} 的Map任务进度失败，所有任务将重新执行", planId, e);
+		}
+		return states;
+	}
+
+	/**
+	 * 按恢复键查找已完成的Map任务，可以来自任意计划，同一恢复键取最近完成的一条
+	 * @param resumeKeys 恢复键
+	 * @return Key: 恢复键, Value: 已完成的任务状态；未配置数据库时为空
+	 */
+	public Map<String, MapTaskStateEntity> loadCompletedMapTasks(Collection<String> resumeKeys) {
+		Map<String, MapTaskStateEntity> states = new HashMap<>();
+		if (mapTaskStateRepository == null || resumeKeys.isEmpty()) {
+			return states;
+		}
+		try {
+			for (MapTaskStateEntity entity : mapTaskStateRepository.findByResumeKeyInAndStatus(resumeKeys,
+					"completed")) {
+				states.merge(entity.getResumeKey(), entity, (current,
+						candidate) -> candidate.getGmtModified().after(current.getGmtModified()) ? candidate : current);
+			}
+		}
+		catch (RuntimeException e) {
+			log.warn("加载已完成的Map任务失败，所有任务将重新执行", e);
+		}
+		return states;
+	}
+
+	/**
+	 * 记录Map任务开始一次新的执行尝试
+	 * @param planId 计划ID
+	 * @param taskId 任务ID
+	 * @param taskDirectory 任务目录
+	 * @param inputDigest input.md的摘要
+	 * @param resumeKey 恢复键，之后的执行据此复用任务输出
+	 */
+	public void markMapTaskRunning(String planId, String taskId, String taskDirectory, String inputDigest,
+			String resumeKey) {
+		persistMapTaskState(planId, taskId, entity -> {
+			entity.setStatus("running");
+			entity.setTaskDirectory(taskDirectory);
+			entity.setInputDigest(inputDigest);
+			entity.setResumeKey(resumeKey);
+			entity.setAttempts(entity.getAttempts() + 1);
+		});
+	}
+
+	/**
+	 * 记录Map任务复用了之前执行的输出
+	 * @param planId 计划ID
+	 * @param taskId 任务ID
+	 * @param taskDirectory 任务目录
+	 * @param source 被复用的已完成任务
+	 */
+	public void markMapTaskResumed(String planId, String taskId, String taskDirectory, MapTaskStateEntity source) {
+		persistMapTaskState(planId, taskId, entity -> {
+			entity.setStatus("completed");
+			entity.setTaskDirectory(taskDirectory);
+			entity.setInputDigest(source.getInputDigest());
+			entity.setResumeKey(source.getResumeKey());
+			entity.setOutputCharacters(source.getOutputCharacters());
+			entity.setOutputTokens(source.getOutputTokens());
+			entity.setDurationMillis(0L);
+		});
+	}
+
+	/**
+	 * 记录Map任务完成
+	 * @param planId 计划ID
+	 * @param taskId 任务ID
+	 * @param outputCharacters output.md的字符数
+	 * @param outputTokens output.md的Token数，Reduce阶段据此分批
+	 * @param durationMillis 首次尝试开始到完成的耗时
+	 */
+	public void markMapTaskCompleted(String planId, String taskId, long outputCharacters, int outputTokens,
+			long durationMillis) {
+		persistMapTaskState(planId, taskId, entity -> {
+			entity.setStatus("completed");
+			entity.setOutputCharacters(outputCharacters);
+			entity.setOutputTokens(outputTokens);
+			entity.setDurationMillis(durationMillis);
+		});
+	}
+
+	/**
+	 * 记录Map任务所有尝试均失败
+	 * @param planId 计划ID
+	 * @param taskId 任务ID
+	 */
+	public void markMapTaskFailed(String planId, String taskId) {
+		persistMapTaskState(planId, taskId, entity -> entity.setStatus("failed"));
+	}
+
+	/**
+	 * 更新持久化的任务状态，持久化失败只记录日志，不影响任务执行
+	 */
+	private void persistMapTaskState(String planId, String taskId, Consumer<MapTaskStateEntity> update) {
+		if (mapTaskStateRepository == null) {
+			return;
+		}
+		try {
+			// 同一计划的写入串行化，避免推测执行的两次尝试同时插入同一行
+			synchronized (getOrCreatePlanState(planId)) {
+				MapTaskStateEntity entity = mapTaskStateRepository.findByPlanIdAndTaskId(planId, taskId)
+					.orElseGet(() -> {
+						MapTaskStateEntity created = new MapTaskStateEntity();
+						created.setPlanId(planId);
+						created.setTaskId(taskId);
+						created.setStatus("pending");
+						return created;
+					});
+				update.accept(entity);
+				entity.setGmtModified(new Date());
+				mapTaskStateRepository.save(entity);
+			}
+		}
+		catch (RuntimeException e) {
+			log.warn("持久化计划 {} 任务 {} 的状态失败", planId, taskId, e);
+		}
 	}
 
 	/**
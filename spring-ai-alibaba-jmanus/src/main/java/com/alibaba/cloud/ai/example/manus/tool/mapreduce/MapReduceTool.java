@@ -26,6 +26,8 @@ import com.alibaba.cloud.ai.example.manus.tool.AbstractBaseTool;
 import com.alibaba.cloud.ai.example.manus.tool.TerminableTool;
 import com.alibaba.cloud.ai.example.manus.tool.code.ToolExecuteResult;
 import com.alibaba.cloud.ai.example.manus.tool.filesystem.UnifiedDirectoryManager;
+import com.alibaba.cloud.ai.example.manus.tool.textOperator.LineOffsetIndex;
+import com.alibaba.cloud.ai.example.manus.tool.textOperator.StreamingTextEditor;
 import com.alibaba.cloud.ai.example.manus.config.ManusProperties;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
@@ -478,6 +480,12 @@ public class MapReduceTool extends AbstractBaseTool<MapReduceTool.MapReduceInput
 		return TOOL_NAME;
 	}
 
+	@Override
+	public String getDefinitionCacheKey() {
+		// Parameters depend on the terminate columns
+		return TOOL_NAME + ":" + terminateColumns;
+	}
+
 	@Override
 	public String getDescription() {
 		return TOOL_DESCRIPTION;
@@ -683,10 +691,8 @@ public class MapReduceTool extends AbstractBaseTool<MapReduceTool.MapReduceInput
 			boolean isDirectory = Files.isDirectory(path);
 
 			// Determine output directory - store to
-			// inner_storage/{rootPlanId}/{currentPlanId}/tasks directory
-			// This creates a hierarchical structure where sub-plan data is stored under
-			// the
-			// root plan
+			// inner_storage/{rootPlanId}/{currentPlanId}/tasks directory.
+			// Sub-plan data is stored under its root plan.
 			Path rootPlanDir = getPlanDirectory(rootPlanId);
 			Path currentPlanDir = rootPlanDir.resolve(currentPlanId);
 			Path tasksPath = currentPlanDir.resolve(TASKS_DIRECTORY_NAME);
@@ -942,6 +948,20 @@ public class MapReduceTool extends AbstractBaseTool<MapReduceTool.MapReduceInput
 		return new ArrayList<>();
 	}
 
+	/**
+	 * Get the shared state manager holding and persisting the task states of this plan
+	 */
+	public MapReduceSharedStateManager getSharedStateManager() {
+		return sharedStateManager;
+	}
+
+	/**
+	 * Get the plan ID the task states are recorded under
+	 */
+	public String getCurrentPlanId() {
+		return currentPlanId;
+	}
+
 	/**
 	 * Get inner storage root directory path
 	 */
@@ -986,54 +1006,13 @@ public class MapReduceTool extends AbstractBaseTool<MapReduceTool.MapReduceInput
 				return new ToolExecuteResult("Error: Task directory does not exist: " + taskId);
 			}
 
-			// Create output.md file
-			Path outputFile = taskDir.resolve(TASK_OUTPUT_FILE_NAME);
-			// Write processing content directly without adding extra metadata information
-			Files.write(outputFile, content.getBytes());
-			String outputFilePath = outputFile.toAbsolutePath().toString();
-			// Update task status file
-			Path statusFile = taskDir.resolve(TASK_STATUS_FILE_NAME);
-			TaskStatus taskStatus;
-
-			if (Files.exists(statusFile)) {
-				// Read existing status
-				String existingStatusJson = new String(Files.readAllBytes(statusFile));
-				taskStatus = objectMapper.readValue(existingStatusJson, TaskStatus.class);
+			// A speculative backup attempt may record the same task
+			// concurrently, the first completed output wins
+			Object taskLock = sharedStateManager != null ? sharedStateManager.getOrCreatePlanState(currentPlanId)
+					: this;
+			synchronized (taskLock) {
+				return writeMapTaskOutput(taskDir, content, taskId, status);
 			}
-			else {
-				// Create new status
-				taskStatus = new TaskStatus();
-				taskStatus.taskId = taskId;
-				taskStatus.inputFile = taskDir.resolve(TASK_INPUT_FILE_NAME).toAbsolutePath().toString();
-			}
-
-			// Update status information
-			taskStatus.outputFilePath = outputFilePath;
-			taskStatus.status = status;
-			taskStatus.timestamp = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-
-			// Store in shared state manager
-			if (sharedStateManager != null) {
-				MapReduceSharedStateManager.TaskStatus sharedTaskStatus = new MapReduceSharedStateManager.TaskStatus();
-				sharedTaskStatus.taskId = taskStatus.taskId;
-				sharedTaskStatus.inputFile = taskStatus.inputFile;
-				sharedTaskStatus.outputFilePath = taskStatus.outputFilePath;
-				sharedTaskStatus.status = taskStatus.status;
-				sharedTaskStatus.timestamp = taskStatus.timestamp;
-				sharedStateManager.recordMapTaskStatus(currentPlanId, taskId, sharedTaskStatus);
-			}
-
-			// Write updated status file
-			String statusJson = objectMapper.writeValueAsString(taskStatus);
-			Files.write(statusFile, statusJson.getBytes());
-
-			// Mark that map output has been recorded, allowing termination
-			this.mapOutputRecorded = true;
-
-			String result = String.format("Task %s status recorded: %s, output file: %s", taskId, status,
-					TASK_OUTPUT_FILE_NAME);
-			log.info(result);
-			return new ToolExecuteResult(result);
 
 		}
 		catch (Exception e) {
@@ -1043,6 +1022,67 @@ public class MapReduceTool extends AbstractBaseTool<MapReduceTool.MapReduceInput
 		}
 	}
 
+	private ToolExecuteResult writeMapTaskOutput(Path taskDir, String content, String taskId, String status)
+			throws IOException {
+		Path statusFile = taskDir.resolve(TASK_STATUS_FILE_NAME);
+		TaskStatus taskStatus;
+
+		if (Files.exists(statusFile)) {
+			// Read existing status
+			String existingStatusJson = new String(Files.readAllBytes(statusFile));
+			taskStatus = objectMapper.readValue(existingStatusJson, TaskStatus.class);
+			if (TASK_STATUS_COMPLETED.equals(taskStatus.status)) {
+				this.mapOutputRecorded = true;
+				String result = String.format("Task %s was already completed by another attempt, output kept", taskId);
+				log.info(result);
+				return new ToolExecuteResult(result);
+			}
+		}
+		else {
+			// Create new status
+			taskStatus = new TaskStatus();
+			taskStatus.taskId = taskId;
+			taskStatus.inputFile = taskDir.resolve(TASK_INPUT_FILE_NAME).toAbsolutePath().toString();
+		}
+
+		// Create output.md file, replaced atomically so that reducers never
+		// read a partial output
+		Path outputFile = taskDir.resolve(TASK_OUTPUT_FILE_NAME);
+		Path tempOutputFile = taskDir.resolve(TASK_OUTPUT_FILE_NAME + ".tmp");
+		// Write processing content directly without adding extra metadata information
+		Files.write(tempOutputFile, content.getBytes());
+		Files.move(tempOutputFile, outputFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		String outputFilePath = outputFile.toAbsolutePath().toString();
+
+		// Update status information
+		taskStatus.outputFilePath = outputFilePath;
+		taskStatus.status = status;
+		taskStatus.timestamp = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+
+		// Store in shared state manager
+		if (sharedStateManager != null) {
+			MapReduceSharedStateManager.TaskStatus sharedTaskStatus = new MapReduceSharedStateManager.TaskStatus();
+			sharedTaskStatus.taskId = taskStatus.taskId;
+			sharedTaskStatus.inputFile = taskStatus.inputFile;
+			sharedTaskStatus.outputFilePath = taskStatus.outputFilePath;
+			sharedTaskStatus.status = taskStatus.status;
+			sharedTaskStatus.timestamp = taskStatus.timestamp;
+			sharedStateManager.recordMapTaskStatus(currentPlanId, taskId, sharedTaskStatus);
+		}
+
+		// Write updated status file
+		String statusJson = objectMapper.writeValueAsString(taskStatus);
+		Files.write(statusFile, statusJson.getBytes());
+
+		// Mark that map output has been recorded, allowing termination
+		this.mapOutputRecorded = true;
+
+		String result = String.format("Task %s status recorded: %s, output file: %s", taskId, status,
+				TASK_OUTPUT_FILE_NAME);
+		log.info(result);
+		return new ToolExecuteResult(result);
+	}
+
 	/**
 	 * Get specified line range content from files in root plan directory Similar to
 	 * InnerStorageTool.getFileLines() but reads from root plan directory instead of
@@ -1062,18 +1102,21 @@ public class MapReduceTool extends AbstractBaseTool<MapReduceTool.MapReduceInput
 				return new ToolExecuteResult("Error: File does not exist: " + fileName);
 			}
 
-			List<String> lines = Files.readAllLines(filePath);
+			// Seek to the requested lines through the cached line offset index instead of
+			// reading the whole file
+			LineOffsetIndex index = LineOffsetIndex.of(filePath);
+			long totalLines = index.getLineCount();
 
-			if (lines.isEmpty()) {
+			if (totalLines == 0) {
 				return new ToolExecuteResult("File is empty");
 			}
 
 			// Set default values
-			int start = (startLine != null && startLine > 0) ? startLine - 1 : 0;
-			int end = (endLine != null && endLine > 0) ? Math.min(endLine, lines.size()) : lines.size();
+			long start = (startLine != null && startLine > 0) ? startLine - 1 : 0;
+			long end = (endLine != null && endLine > 0) ? Math.min(endLine, totalLines) : totalLines;
 
 			// Validate range
-			if (start >= lines.size()) {
+			if (start >= totalLines) {
 				return new ToolExecuteResult("Start line number exceeds file range");
 			}
 
@@ -1082,7 +1125,7 @@ public class MapReduceTool extends AbstractBaseTool<MapReduceTool.MapReduceInput
 			}
 
 			// Check lines limit
-			int requestedLines = end - start;
+			long requestedLines = end - start;
 			if (requestedLines > MAX_LINES_LIMIT) {
 				return new ToolExecuteResult(String.format(
 						"Requested lines %d exceeds maximum limit %d lines. Please reduce line range or use multiple calls to get content.",
@@ -1091,7 +1134,7 @@ public class MapReduceTool extends AbstractBaseTool<MapReduceTool.MapReduceInput
 
 			StringBuilder result = new StringBuilder();
 			result.append(
-					String.format("File: %s (lines %d-%d, total %d lines)\n", fileName, start + 1, end, lines.size()));
+					String.format("File: %s (lines %d-%d, total %d lines)\n", fileName, start + 1, end, totalLines));
 			result.append("=".repeat(50)).append("\n");
 
 			// Smart content truncation based on context size
@@ -1099,8 +1142,9 @@ public class MapReduceTool extends AbstractBaseTool<MapReduceTool.MapReduceInput
 			int currentLength = result.length();
 			boolean truncated = false;
 
-			for (int i = start; i < end; i++) {
-				String lineContent = String.format("%4d: %s\n", i + 1, lines.get(i));
+			List<String> lines = index.readLines(start, end);
+			for (int i = 0; i < lines.size(); i++) {
+				String lineContent = String.format("%4d: %s\n", start + i + 1, lines.get(i));
 				if (currentLength + lineContent.length() > contextSizeLimit) {
 					truncated = true;
 					break;
@@ -1146,30 +1190,20 @@ public class MapReduceTool extends AbstractBaseTool<MapReduceTool.MapReduceInput
 			String resultMessage;
 			// If file doesn't exist, create new file
 			if (!Files.exists(filePath)) {
-				Files.writeString(filePath, content);
+				StreamingTextEditor.append(filePath, content);
 				log.info("File created and content added: {}", fileName);
 				resultMessage = String.format("File created successfully and content added: %s", fileName);
 			}
 			else {
 				// Append content (add newline)
-				Files.writeString(filePath, "\n" + content, StandardOpenOption.APPEND);
+				StreamingTextEditor.append(filePath, "\n" + content);
 				log.info("Content appended to file: {}", fileName);
 				resultMessage = String.format("Content appended successfully: %s", fileName);
 			}
 
-			// Read the file and get last 3 lines with line numbers
-			List<String> lines = Files.readAllLines(filePath);
 			StringBuilder result = new StringBuilder();
 			result.append(resultMessage).append("\n\n");
-			result.append("Last 3 lines of file:\n");
-			result.append("-".repeat(30)).append("\n");
-
-			int totalLines = lines.size();
-			int startLine = Math.max(0, totalLines - 3);
-
-			for (int i = startLine; i < totalLines; i++) {
-				result.append(String.format("%4d: %s\n", i + 1, lines.get(i)));
-			}
+			appendLastLines(result, filePath);
 
 			return new ToolExecuteResult(result.toString());
 
@@ -1201,25 +1235,14 @@ public class MapReduceTool extends AbstractBaseTool<MapReduceTool.MapReduceInput
 				return new ToolExecuteResult("Error: File does not exist: " + fileName);
 			}
 
-			String fileContent = Files.readString(filePath);
-			String newContent = fileContent.replace(sourceText, targetText);
-			Files.writeString(filePath, newContent);
+			// Stream the file and only rewrite it from the first changed line
+			StreamingTextEditor.replace(filePath, sourceText, targetText);
 
 			log.info("Text replaced in file: {}", fileName);
 
-			// Read the file and get last 3 lines with line numbers
-			List<String> lines = Files.readAllLines(filePath);
 			StringBuilder result = new StringBuilder();
 			result.append(String.format("Text replacement successful: %s", fileName)).append("\n\n");
-			result.append("Last 3 lines of file:\n");
-			result.append("-".repeat(30)).append("\n");
-
-			int totalLines = lines.size();
-			int startLine = Math.max(0, totalLines - 3);
-
-			for (int i = startLine; i < totalLines; i++) {
-				result.append(String.format("%4d: %s\n", i + 1, lines.get(i)));
-			}
+			appendLastLines(result, filePath);
 
 			return new ToolExecuteResult(result.toString());
 
@@ -1230,6 +1253,23 @@ public class MapReduceTool extends AbstractBaseTool<MapReduceTool.MapReduceInput
 		}
 	}
 
+	/**
+	 * Append the last 3 lines of the file with line numbers, read through the line offset
+	 * index
+	 */
+	private void appendLastLines(StringBuilder result, Path filePath) throws IOException {
+		result.append("Last 3 lines of file:\n");
+		result.append("-".repeat(30)).append("\n");
+
+		LineOffsetIndex index = LineOffsetIndex.of(filePath);
+		long totalLines = index.getLineCount();
+		long startLine = Math.max(0, totalLines - 3);
+		List<String> lines = index.readLines(startLine, totalLines);
+		for (int i = 0; i < lines.size(); i++) {
+			result.append(String.format("%4d: %s\n", startLine + i + 1, lines.get(i)));
+		}
+	}
+
 	/**
 	 * Task status internal class
 	 */
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.tool.mapreduce.entity;
+
+import jakarta.persistence.*;
+
+import java.util.Date;
+
+/**
+ * Persisted progress of one map task. Rows survive a restart, so a later run with the
+ * same map steps, request and execution params skips the map tasks that already completed
+ * on the same input.
+ */
+@Entity
+@Table(name = "map_task_state",
+		uniqueConstraints = @UniqueConstraint(name = "uk_map_task_state_plan_task",
+				columnNames = { "plan_id", "task_id" }),
+		indexes = { @Index(name = "idx_map_task_state_plan_id", columnList = "plan_id"),
+				@Index(name = "idx_map_task_state_resume_key", columnList = "resume_key") })
+public class MapTaskStateEntity {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "plan_id", nullable = false)
+	private String planId;
+
+	@Column(name = "task_id", nullable = false, length = 64)
+	private String taskId;
+
+	@Column(name = "task_directory", length = 1024)
+	private String taskDirectory;
+
+	// pending, running, completed or failed
+	@Column(name = "status", nullable = false, length = 16)
+	private String status;
+
+	@Column(name = "attempts", nullable = false)
+	private int attempts;
+
+	// SHA-256 of input.md, a completed task is only reused for the same input
+	@Column(name = "input_digest", length = 64)
+	private String inputDigest;
+
+	// SHA-256 of the map steps, request, execution params and input digest, stable across
+	// runs, so a new plan ID can still reuse the output of a completed task
+	@Column(name = "resume_key", length = 64)
+	private String resumeKey;
+
+	@Column(name = "output_characters")
+	private Long outputCharacters;
+
+	@Column(name = "output_tokens")
+	private Integer outputTokens;
+
+	@Column(name = "duration_millis")
+	private Long durationMillis;
+
+	@Column(name = "gmt_modified", nullable = false)
+	private Date gmtModified;
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getPlanId() {
+		return planId;
+	}
+
+	public void setPlanId(String planId) {
+		this.planId = planId;
+	}
+
+	public String getTaskId() {
+		return taskId;
+	}
+
+	public void setTaskId(String taskId) {
+		this.taskId = taskId;
+	}
+
+	public String getTaskDirectory() {
+		return taskDirectory;
+	}
+
+	public void setTaskDirectory(String taskDirectory) {
+		this.taskDirectory = taskDirectory;
+	}
+
+	public String getStatus() {
+		return status;
+	}
+
+	public void setStatus(String status) {
+		this.status = status;
+	}
+
+	public int getAttempts() {
+		return attempts;
+	}
+
+	public void setAttempts(int attempts) {
+		this.attempts = attempts;
+	}
+
+	public String getInputDigest() {
+		return inputDigest;
+	}
+
+	public void setInputDigest(String inputDigest) {
+		this.inputDigest = inputDigest;
+	}
+
+	public String getResumeKey() {
+		return resumeKey;
+	}
+
+	public void setResumeKey(String resumeKey) {
+		this.resumeKey = resumeKey;
+	}
+
+	public Long getOutputCharacters() {
+		return outputCharacters;
+	}
+
+	public void setOutputCharacters(Long outputCharacters) {
+		this.outputCharacters = outputCharacters;
+	}
+
+	public Integer getOutputTokens() {
+		return outputTokens;
+	}
+
+	public void setOutputTokens(Integer outputTokens) {
+		this.outputTokens = outputTokens;
+	}
+
+	public Long getDurationMillis() {
+		return durationMillis;
+	}
+
+	public void setDurationMillis(Long durationMillis) {
+		this.durationMillis = durationMillis;
+	}
+
+	public Date getGmtModified() {
+		return gmtModified;
+	}
+
+	public void setGmtModified(Date gmtModified) {
+		this.gmtModified = gmtModified;
+	}
+
+}
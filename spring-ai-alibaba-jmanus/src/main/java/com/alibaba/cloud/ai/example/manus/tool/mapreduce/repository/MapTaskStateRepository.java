@@ -0,0 +1,56 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.tool.mapreduce.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.alibaba.cloud.ai.example.manus.tool.mapreduce.entity.MapTaskStateEntity;
+
+/**
+ * The data access interface for persisted map task progress
+ */
+@Repository
+public interface MapTaskStateRepository extends JpaRepository<MapTaskStateEntity, Long> {
+
+	/**
+	 * Find the map tasks of a plan
+	 * @param planId the plan ID
+	 * @return the map task states of the plan
+	 */
+	List<MapTaskStateEntity> findByPlanId(String planId);
+
+	/**
+	 * Find one map task of a plan
+	 * @param planId the plan ID
+	 * @param taskId the task ID
+	 * @return the map task state
+	 */
+	Optional<MapTaskStateEntity> findByPlanIdAndTaskId(String planId, String taskId);
+
+	/**
+	 * Find the map tasks with the given resume keys and status, across plans
+	 * @param resumeKeys the resume keys
+	 * @param status the task status
+	 * @return the matching map task states
+	 */
+	List<MapTaskStateEntity> findByResumeKeyInAndStatus(Collection<String> resumeKeys, String status);
+
+}
@@ -76,7 +76,15 @@ public class GoogleSearch extends AbstractBaseTool<GoogleSearch.GoogleSearchInpu
 	private Integer lastNumResults = 0;
 
 	public GoogleSearch() {
-		service = new SerpApiService(new SerpApiProperties(SERP_API_KEY, "google"));
+		this(null);
+	}
+
+	/**
+	 * @param searchResultCache cache shared by the searches of all plans, or null to
+	 * always call the search API
+	 */
+	public GoogleSearch(SearchResultCache searchResultCache) {
+		service = new SerpApiService(new SerpApiProperties(SERP_API_KEY, "google"), searchResultCache);
 	}
 
 	public ToolExecuteResult run(String toolInput) {
@@ -182,6 +190,12 @@ public class GoogleSearch extends AbstractBaseTool<GoogleSearch.GoogleSearchInpu
 		return GoogleSearchInput.class;
 	}
 
+	@Override
+	public boolean isConcurrencySafe() {
+		// Searches only read remote results
+		return true;
+	}
+
 	@Override
 	public ToolExecuteResult run(GoogleSearchInput input) {
 		String query = input.getQuery();
@@ -0,0 +1,329 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.tool.searchAPI;
+
+import com.alibaba.cloud.ai.example.manus.config.ManusProperties;
+import com.alibaba.cloud.ai.example.manus.tool.searchAPI.entity.SearchResultCacheEntity;
+import com.alibaba.cloud.ai.example.manus.tool.searchAPI.repository.SearchResultCacheRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Cache of search responses shared by all plans.
+ * <p>
+ * Responses are keyed on the engine and the normalized query, so searches differing only
+ * in case or whitespace share an entry. Entries expire after
+ * {@code manus.search.cacheTtlMinutes}, the least recently used ones are dropped above
+ * {@code manus.search.cacheMaxEntries}, and with {@code manus.search.cachePersistent}
+ * they are also written to the {@code search_result_cache} table and read back after a
+ * restart; expired rows are purged every {@value #PURGE_INTERVAL_MINUTES} minutes.
+ * Concurrent lookups of the same missing key wait for a single request instead of each
+ * calling the search API. Failed searches and error responses are not cached.
+ * <p>
+ * The {@code jmanus.search.cache.requests} counter is tagged with the outcome of each
+ * lookup, and {@code jmanus.search.cache.hit.ratio} gives the share of lookups served
+ * without a request of their own.
+ */
+@Component
+public class SearchResultCache {
+
+	private static final Logger log = LoggerFactory.getLogger(SearchResultCache.class);
+
+	static final long PURGE_INTERVAL_MINUTES = 10;
+
+	/**
+	 * A cached response and when it stops being served.
+	 */
+	private record Entry(String response, long expiresAtMillis) {
+	}
+
+	private final ManusProperties manusProperties;
+
+	private final SearchResultCacheRepository repository;
+
+	private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+	private final Counter hits;
+
+	private final Counter storedHits;
+
+	private final Counter coalesced;
+
+	private final Counter misses;
+
+	private final ScheduledExecutorService purgeScheduler;
+
+	public SearchResultCache(ManusProperties manusProperties, ObjectProvider<SearchResultCacheRepository> repository,
+			ObjectProvider<MeterRegistry> meterRegistry) {
+		this.manusProperties = manusProperties;
+		this.repository = repository.getIfAvailable();
+		MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+		this.hits = requests(registry, "hit");
+		this.storedHits = requests(registry, "stored_hit");
+		this.coalesced = requests(registry, "coalesced");
+		this.misses = requests(registry, "miss");
+		Gauge.builder("jmanus.search.cache.hit.ratio", this, SearchResultCache::hitRatio)
+			.description("Share of search lookups served without a request of their own")
+			.register(registry);
+		Gauge.builder("jmanus.search.cache.entries", this, SearchResultCache::size).register(registry);
+		if (this.repository != null) {
+			this.purgeScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "search-result-cache-purge");
+				thread.setDaemon(true);
+				return thread;
+			});
+			this.purgeScheduler.scheduleWithFixedDelay(this::purgeExpired, PURGE_INTERVAL_MINUTES,
+					PURGE_INTERVAL_MINUTES, TimeUnit.MINUTES);
+		}
+		else {
+			this.purgeScheduler = null;
+		}
+	}
+
+	/**
+	 * Returns the cached response of a search, or calls the loader once for all the
+	 * concurrent lookups of the same search.
+	 * @param loader performs the search, returning null when it failed
+	 * @return the response, or null when the search failed
+	 */
+	public String get(String engine, String query, Supplier<String> loader) {
+		return get(engine, query, loader, response -> true);
+	}
+
+	/**
+	 * Returns the cached response of a search, or calls the loader once for all the
+	 * concurrent lookups of the same search. A loaded response is only cached when it is
+	 * accepted, so error responses reach the waiting lookups but not the cache.
+	 * @param loader performs the search, returning null when it failed
+	 * @param cacheable accepts the responses worth caching
+	 * @return the response, or null when the search failed
+	 */
+	public String get(String engine, String query, Supplier<String> loader, Predicate<String> cacheable) {
+		if (!Boolean.TRUE.equals(manusProperties.getSearchCacheEnabled())) {
+			return loader.get();
+		}
+		String normalizedQuery = normalizeQuery(query);
+		String key = cacheKey(engine, normalizedQuery);
+		String cached = lookup(key);
+		if (cached != null) {
+			hits.increment();
+			return cached;
+		}
+		CompletableFuture<String> pending = new CompletableFuture<>();
+		CompletableFuture<String> leader = inFlight.putIfAbsent(key, pending);
+		if (leader != null) {
+			coalesced.increment();
+			return leader.join();
+		}
+		try {
+			// The previous leader may have finished since the lookup above
+			String response = lookup(key);
+			if (response != null) {
+				hits.increment();
+			}
+			else if ((response = lookupStored(key)) != null) {
+				storedHits.increment();
+			}
+			else {
+				misses.increment();
+				response = loader.get();
+				if (response != null && cacheable.test(response)) {
+					store(key, engine, normalizedQuery, response);
+				}
+			}
+			pending.complete(response);
+			return response;
+		}
+		catch (RuntimeException e) {
+			pending.completeExceptionally(e);
+			throw e;
+		}
+		finally {
+			inFlight.remove(key, pending);
+		}
+	}
+
+	/**
+	 * Drops every cached response, including the persisted ones.
+	 */
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+		}
+		if (repository != null) {
+			repository.deleteAll();
+		}
+	}
+
+	/**
+	 * Deletes the persisted responses that have expired.
+	 */
+	void purgeExpired() {
+		try {
+			long deleted = repository.deleteByExpiresAtBefore(new Date());
+			if (deleted > 0) {
+				log.debug("Purged {} expired search responses", deleted);
+			}
+		}
+		catch (RuntimeException e) {
+			log.warn("Failed to purge expired search responses: {}", e.getMessage());
+		}
+	}
+
+	@PreDestroy
+	public void destroy() {
+		if (purgeScheduler != null) {
+			purgeScheduler.shutdown();
+		}
+	}
+
+	int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	double hitRatio() {
+		double served = hits.count() + storedHits.count() + coalesced.count();
+		double total = served + misses.count();
+		return total == 0 ? 0 : served / total;
+	}
+
+	/**
+	 * Lower cases the query and collapses its whitespace, after folding compatibility
+	 * characters such as full-width letters.
+	 */
+	static String normalizeQuery(String query) {
+		String folded = Normalizer.normalize(query == null ? "" : query, Normalizer.Form.NFKC);
+		return folded.toLowerCase(Locale.ROOT).trim().replaceAll("\\s+", " ");
+	}
+
+	private String lookup(String key) {
+		synchronized (entries) {
+			Entry entry = entries.get(key);
+			if (entry == null) {
+				return null;
+			}
+			if (entry.expiresAtMillis() <= System.currentTimeMillis()) {
+				entries.remove(key);
+				return null;
+			}
+			return entry.response();
+		}
+	}
+
+	private String lookupStored(String key) {
+		if (repository == null || !Boolean.TRUE.equals(manusProperties.getSearchCachePersistent())) {
+			return null;
+		}
+		try {
+			SearchResultCacheEntity entity = repository.findByCacheKey(key).orElse(null);
+			if (entity == null) {
+				return null;
+			}
+			if (entity.getExpiresAt().getTime() <= System.currentTimeMillis()) {
+				repository.delete(entity);
+				return null;
+			}
+			remember(key, entity.getResponse(), entity.getExpiresAt().getTime());
+			return entity.getResponse();
+		}
+		catch (RuntimeException e) {
+			log.warn("Failed to read cached search response: {}", e.getMessage());
+			return null;
+		}
+	}
+
+	private void store(String key, String engine, String normalizedQuery, String response) {
+		long expiresAt = System.currentTimeMillis() + manusProperties.getSearchCacheTtlMinutes() * 60_000L;
+		remember(key, response, expiresAt);
+		if (repository == null || !Boolean.TRUE.equals(manusProperties.getSearchCachePersistent())) {
+			return;
+		}
+		try {
+			SearchResultCacheEntity entity = repository.findByCacheKey(key).orElseGet(SearchResultCacheEntity::new);
+			entity.setCacheKey(key);
+			entity.setEngine(engine);
+			entity.setQuery(normalizedQuery.length() > 2048 ? normalizedQuery.substring(0, 2048) : normalizedQuery);
+			entity.setResponse(response);
+			entity.setExpiresAt(new Date(expiresAt));
+			entity.setGmtCreate(new Date());
+			repository.save(entity);
+		}
+		catch (RuntimeException e) {
+			log.warn("Failed to persist search response: {}", e.getMessage());
+		}
+	}
+
+	private void remember(String key, String response, long expiresAtMillis) {
+		int maxEntries = Math.max(1, manusProperties.getSearchCacheMaxEntries());
+		synchronized (entries) {
+			entries.put(key, new Entry(response, expiresAtMillis));
+			Iterator<String> eldest = entries.keySet().iterator();
+			while (entries.size() > maxEntries && eldest.hasNext()) {
+				eldest.next();
+				eldest.remove();
+			}
+		}
+	}
+
+	private static String cacheKey(String engine, String normalizedQuery) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(String.valueOf(engine).getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+			return HexFormat.of().formatHex(digest.digest(normalizedQuery.getBytes(StandardCharsets.UTF_8)));
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 not available", e);
+		}
+	}
+
+	private static Counter requests(MeterRegistry registry, String result) {
+		return Counter.builder("jmanus.search.cache.requests")
+			.description("Search cache lookups by outcome")
+			.tag("result", result)
+			.register(registry);
+	}
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.tool.searchAPI.entity;
+
+import jakarta.persistence.*;
+
+import java.util.Date;
+
+/**
+ * Persisted search response, so cached searches survive a restart when
+ * {@code manus.search.cachePersistent} is enabled.
+ */
+@Entity
+@Table(name = "search_result_cache",
+		uniqueConstraints = @UniqueConstraint(name = "uk_search_result_cache_key", columnNames = { "cache_key" }),
+		indexes = @Index(name = "idx_search_result_cache_expires_at", columnList = "expires_at"))
+public class SearchResultCacheEntity {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	// SHA-256 of the engine and the normalized query
+	@Column(name = "cache_key", nullable = false, length = 64)
+	private String cacheKey;
+
+	@Column(name = "engine", nullable = false, length = 64)
+	private String engine;
+
+	@Column(name = "query", nullable = false, length = 2048)
+	private String query;
+
+	@Column(name = "response", columnDefinition = "text", nullable = false)
+	private String response;
+
+	@Column(name = "expires_at", nullable = false)
+	private Date expiresAt;
+
+	@Column(name = "gmt_create", nullable = false)
+	private Date gmtCreate;
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getCacheKey() {
+		return cacheKey;
+	}
+
+	public void setCacheKey(String cacheKey) {
+		this.cacheKey = cacheKey;
+	}
+
+	public String getEngine() {
+		return engine;
+	}
+
+	public void setEngine(String engine) {
+		this.engine = engine;
+	}
+
+	public String getQuery() {
+		return query;
+	}
+
+	public void setQuery(String query) {
+		this.query = query;
+	}
+
+	public String getResponse() {
+		return response;
+	}
+
+	public void setResponse(String response) {
+		this.response = response;
+	}
+
+	public Date getExpiresAt() {
+		return expiresAt;
+	}
+
+	public void setExpiresAt(Date expiresAt) {
+		this.expiresAt = expiresAt;
+	}
+
+	public Date getGmtCreate() {
+		return gmtCreate;
+	}
+
+	public void setGmtCreate(Date gmtCreate) {
+		this.gmtCreate = gmtCreate;
+	}
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.tool.searchAPI.repository;
+
+import java.util.Date;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.alibaba.cloud.ai.example.manus.tool.searchAPI.entity.SearchResultCacheEntity;
+
+/**
+ * The data access interface for persisted search responses
+ */
+@Repository
+public interface SearchResultCacheRepository extends JpaRepository<SearchResultCacheEntity, Long> {
+
+	/**
+	 * Find the cached response of a search
+	 * @param cacheKey the hash of the engine and the normalized query
+	 * @return the cached response
+	 */
+	Optional<SearchResultCacheEntity> findByCacheKey(String cacheKey);
+
+	/**
+	 * Delete the responses that expired before the given time
+	 * @param time the expiry time
+	 * @return the number of deleted responses
+	 */
+	@Transactional
+	long deleteByExpiresAtBefore(Date time);
+
+}
@@ -22,14 +22,21 @@ public class SerpApiProperties {
 	public static final String USER_AGENT_VALUE = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/131.0.0.0 Safari/537.36";
 
 	public SerpApiProperties(String apikey, String engine) {
+		this(apikey, engine, SERP_API_URL);
+	}
+
+	public SerpApiProperties(String apikey, String engine, String url) {
 		this.apikey = apikey;
 		this.engine = engine;
+		this.url = url;
 	}
 
 	private String apikey;
 
 	private String engine;
 
+	private String url;
+
 	public String getApikey() {
 		return apikey;
 	}
@@ -46,4 +53,12 @@ public class SerpApiProperties {
 		this.engine = engine;
 	}
 
+	public String getUrl() {
+		return url;
+	}
+
+	public void setUrl(String url) {
+		this.url = url;
+	}
+
 }
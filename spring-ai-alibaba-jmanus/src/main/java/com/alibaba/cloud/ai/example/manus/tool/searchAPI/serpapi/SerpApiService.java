@@ -15,7 +15,6 @@
  */
 package com.alibaba.cloud.ai.example.manus.tool.searchAPI.serpapi;
 
-import static com.alibaba.cloud.ai.example.manus.tool.searchAPI.serpapi.SerpApiProperties.SERP_API_URL;
 import static com.alibaba.cloud.ai.example.manus.tool.searchAPI.serpapi.SerpApiProperties.USER_AGENT_VALUE;
 
 import java.util.List;
@@ -26,6 +25,9 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyDescription;
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Mono;
@@ -35,6 +37,8 @@ import org.springframework.http.HttpMethod;
 import org.springframework.util.StringUtils;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import com.alibaba.cloud.ai.example.manus.tool.searchAPI.SearchResultCache;
+
 public class SerpApiService {
 
 	private static final Logger logger = LoggerFactory.getLogger(SerpApiService.class);
@@ -45,6 +49,8 @@ public class SerpApiService {
 
 	private final String engine;
 
+	private final SearchResultCache cache;
+
 	private static final int MEMORY_SIZE = 5;
 
 	private static final int BYTE_SIZE = 1024;
@@ -52,10 +58,19 @@ public class SerpApiService {
 	private static final int MAX_MEMORY_SIZE = MEMORY_SIZE * BYTE_SIZE * BYTE_SIZE;
 
 	public SerpApiService(SerpApiProperties properties) {
+		this(properties, null);
+	}
+
+	/**
+	 * @param cache cache shared by the searches of all plans, or null to always call
+	 * SerpAPI
+	 */
+	public SerpApiService(SerpApiProperties properties, SearchResultCache cache) {
 		this.apikey = properties.getApikey();
 		this.engine = properties.getEngine();
+		this.cache = cache;
 		this.webClient = WebClient.builder()
-			.baseUrl(SERP_API_URL)
+			.baseUrl(properties.getUrl())
 			.defaultHeader(HttpHeaders.USER_AGENT, USER_AGENT_VALUE)
 			.codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(MAX_MEMORY_SIZE))
 			.build();
@@ -70,18 +85,29 @@ public class SerpApiService {
 		if (request == null || !StringUtils.hasText(request.query)) {
 			return null;
 		}
+		String response = cache != null
+				? cache.get(engine, request.query, () -> search(request.query), SerpApiService::isSuccessful)
+				: search(request.query);
+		return response != null ? parseJson(response) : null;
+	}
+
+	/**
+	 * Calls SerpAPI
+	 * @return the raw response, or null when the call failed
+	 */
+	private String search(String query) {
 		try {
 			Mono<String> responseMono = webClient.method(HttpMethod.GET)
 				.uri(uriBuilder -> uriBuilder.queryParam("api_key", apikey)
 					.queryParam("engine", engine)
-					.queryParam("q", request.query)
+					.queryParam("q", query)
 					.build())
 				.retrieve()
 				.bodyToMono(String.class);
 			String response = responseMono.block();
 			assert response != null;
-			logger.info("serpapi search: {},result:{}", request.query, response);
-			return parseJson(response);
+			logger.info("serpapi search: {},result:{}", query, response);
+			return response;
 		}
 		catch (Exception e) {
 			logger.error("failed to invoke serpapi search, caused by:{}", e.getMessage());
@@ -89,6 +115,20 @@ public class SerpApiService {
 		}
 	}
 
+	/**
+	 * SerpAPI reports errors such as an invalid key or an exhausted quota with HTTP 200
+	 * and an {@code error} field, those responses must not be cached.
+	 */
+	static boolean isSuccessful(String response) {
+		try {
+			JsonElement json = JsonParser.parseString(response);
+			return json.isJsonObject() && !json.getAsJsonObject().has("error");
+		}
+		catch (JsonParseException e) {
+			return false;
+		}
+	}
+
 	private Map<String, Object> parseJson(String jsonResponse) {
 		Gson gson = new Gson();
 		return gson.fromJson(jsonResponse, Map.class);
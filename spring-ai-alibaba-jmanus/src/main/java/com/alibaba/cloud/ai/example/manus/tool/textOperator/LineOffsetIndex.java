@@ -0,0 +1,245 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.tool.textOperator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Byte offsets of the lines of a text file, so that a range of lines can be read without
+ * scanning the file from its start.
+ * <p>
+ * The offset of every {@value #STRIDE}th line is recorded, which keeps the index small
+ * for files with millions of lines; reading a line seeks to the closest recorded line
+ * before it and skips at most {@value #STRIDE} - 1 lines. Lines end with {@code \n} or
+ * {@code \r\n}, and the file is read as UTF-8.
+ * <p>
+ * Indexes are cached per file and revalidated against the file size and modification
+ * time. Code writing a file calls {@link #invalidateFrom(Path, long)} with the first
+ * offset it changed, so the next lookup only rescans the file from there.
+ */
+public final class LineOffsetIndex {
+
+	static final int STRIDE = 64;
+
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	private static final int MAX_CACHED_FILES = 64;
+
+	private static final Map<Path, LineOffsetIndex> CACHE = new LinkedHashMap<>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Path, LineOffsetIndex> eldest) {
+			return size() > MAX_CACHED_FILES;
+		}
+	};
+
+	private final Path file;
+
+	private final long size;
+
+	private final long lastModified;
+
+	// checkpoints[k] is the byte offset of line k * STRIDE
+	private final long[] checkpoints;
+
+	private final int checkpointCount;
+
+	private final long lineCount;
+
+	// False for the prefix kept by invalidateFrom, which only has valid checkpoints
+	private final boolean complete;
+
+	private LineOffsetIndex(Path file, long size, long lastModified, long[] checkpoints, int checkpointCount,
+			long lineCount, boolean complete) {
+		this.file = file;
+		this.size = size;
+		this.lastModified = lastModified;
+		this.checkpoints = checkpoints;
+		this.checkpointCount = checkpointCount;
+		this.lineCount = lineCount;
+		this.complete = complete;
+	}
+
+	/**
+	 * Returns the index of the given file, building or extending it when the file changed
+	 * since it was last indexed.
+	 */
+	public static LineOffsetIndex of(Path file) throws IOException {
+		Path key = file.toAbsolutePath().normalize();
+		long size = Files.size(key);
+		long lastModified = Files.getLastModifiedTime(key).toMillis();
+		LineOffsetIndex cached;
+		synchronized (CACHE) {
+			cached = CACHE.get(key);
+		}
+		if (cached != null && cached.complete && cached.size == size && cached.lastModified == lastModified) {
+			return cached;
+		}
+		LineOffsetIndex index = build(key, cached != null && !cached.complete ? cached : null, size, lastModified);
+		synchronized (CACHE) {
+			CACHE.put(key, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Records that the given file was modified at and after the given byte offset. Lines
+	 * starting before the offset keep their cached offsets.
+	 */
+	public static void invalidateFrom(Path file, long offset) {
+		Path key = file.toAbsolutePath().normalize();
+		synchronized (CACHE) {
+			LineOffsetIndex cached = CACHE.get(key);
+			if (cached == null) {
+				return;
+			}
+			int kept = 0;
+			while (kept < cached.checkpointCount && cached.checkpoints[kept] <= offset) {
+				kept++;
+			}
+			if (kept == 0) {
+				CACHE.remove(key);
+				return;
+			}
+			CACHE.put(key, new LineOffsetIndex(key, -1, -1, Arrays.copyOf(cached.checkpoints, kept), kept, -1, false));
+		}
+	}
+
+	/**
+	 * Drops the cached index of the given file.
+	 */
+	public static void invalidate(Path file) {
+		synchronized (CACHE) {
+			CACHE.remove(file.toAbsolutePath().normalize());
+		}
+	}
+
+	public long getLineCount() {
+		return lineCount;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * Returns the byte offset where the given line starts.
+	 * @param line zero-based line number, at most the line count
+	 */
+	public long offsetOfLine(long line) throws IOException {
+		if (line < 0 || line > lineCount) {
+			throw new IndexOutOfBoundsException("Line " + line + " outside of file with " + lineCount + " lines");
+		}
+		if (line == lineCount) {
+			return size;
+		}
+		int checkpoint = (int) (line / STRIDE);
+		long offset = checkpoints[checkpoint];
+		long toSkip = line - (long) checkpoint * STRIDE;
+		if (toSkip == 0) {
+			return offset;
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+			long position = offset;
+			while (channel.read(buffer, position) > 0) {
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					position++;
+					if (buffer.get() == '\n' && --toSkip == 0) {
+						return position;
+					}
+				}
+				buffer.clear();
+			}
+		}
+		throw new IOException("File changed while reading: " + file);
+	}
+
+	/**
+	 * Reads a range of lines, without their line terminators.
+	 * @param fromLine zero-based first line to read
+	 * @param toLine zero-based line to stop before
+	 */
+	public List<String> readLines(long fromLine, long toLine) throws IOException {
+		long from = Math.max(0, fromLine);
+		long to = Math.min(toLine, lineCount);
+		List<String> lines = new ArrayList<>();
+		if (from >= to) {
+			return lines;
+		}
+		int checkpoint = (int) (from / STRIDE);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			channel.position(checkpoints[checkpoint]);
+			BufferedReader reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8));
+			for (long line = (long) checkpoint * STRIDE; line < to; line++) {
+				String text = reader.readLine();
+				if (text == null) {
+					break;
+				}
+				if (line >= from) {
+					lines.add(text);
+				}
+			}
+		}
+		return lines;
+	}
+
+	private static LineOffsetIndex build(Path file, LineOffsetIndex prefix, long size, long lastModified)
+			throws IOException {
+		long[] checkpoints = prefix != null ? Arrays.copyOf(prefix.checkpoints, Math.max(16, prefix.checkpointCount))
+				: new long[16];
+		int count = prefix != null ? prefix.checkpointCount : 1;
+		long line = (long) (count - 1) * STRIDE;
+		long position = checkpoints[count - 1];
+		long lineStart = position;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+			while (position < size && channel.read(buffer, position) > 0) {
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					position++;
+					if (buffer.get() == '\n') {
+						line++;
+						lineStart = position;
+						if (line % STRIDE == 0) {
+							if (count == checkpoints.length) {
+								checkpoints = Arrays.copyOf(checkpoints, count * 2);
+							}
+							checkpoints[count++] = position;
+						}
+					}
+				}
+				buffer.clear();
+			}
+		}
+		long lineCount = line + (position > lineStart ? 1 : 0);
+		return new LineOffsetIndex(file, position, lastModified, checkpoints, count, lineCount, true);
+	}
+
+}
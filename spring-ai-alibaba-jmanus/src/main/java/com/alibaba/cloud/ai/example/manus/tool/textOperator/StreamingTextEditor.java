@@ -0,0 +1,199 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.tool.textOperator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Edits text files without loading them into memory.
+ * <p>
+ * A replacement streams the file once to find the first occurrence, then rewrites the
+ * file only from the start of the line holding it, so the unchanged head of a large file
+ * is neither read twice nor written. Both operations keep {@link LineOffsetIndex} valid
+ * for the unchanged part of the file.
+ */
+public final class StreamingTextEditor {
+
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	private StreamingTextEditor() {
+	}
+
+	/**
+	 * Replaces every occurrence of the source text.
+	 * @return the number of occurrences replaced
+	 */
+	public static long replace(Path file, String sourceText, String targetText) throws IOException {
+		byte[] pattern = sourceText.getBytes(StandardCharsets.UTF_8);
+		if (pattern.length == 0) {
+			return 0;
+		}
+		byte[] replacement = targetText.getBytes(StandardCharsets.UTF_8);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			long rewriteFrom = startOfLineWithFirstMatch(channel, pattern);
+			if (rewriteFrom < 0) {
+				return 0;
+			}
+			Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+			try {
+				long replaced;
+				try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+					replaced = copyReplacing(channel, rewriteFrom, out, pattern, replacement);
+				}
+				channel.truncate(rewriteFrom);
+				try (FileChannel in = FileChannel.open(temp, StandardOpenOption.READ)) {
+					long size = in.size();
+					long copied = 0;
+					while (copied < size) {
+						copied += channel.transferFrom(in, rewriteFrom + copied, size - copied);
+					}
+				}
+				channel.force(true);
+				return replaced;
+			}
+			finally {
+				LineOffsetIndex.invalidateFrom(file, rewriteFrom);
+				Files.deleteIfExists(temp);
+			}
+		}
+	}
+
+	/**
+	 * Appends content to the file, creating it when missing.
+	 */
+	public static void append(Path file, String content) throws IOException {
+		long previousSize = Files.exists(file) ? Files.size(file) : 0;
+		Files.writeString(file, content, StandardOpenOption.APPEND, StandardOpenOption.CREATE);
+		LineOffsetIndex.invalidateFrom(file, previousSize);
+	}
+
+	/**
+	 * Counts the whitespace separated words of the file.
+	 */
+	public static long countWords(Path file) throws IOException {
+		long words = 0;
+		boolean inWord = false;
+		char[] buffer = new char[8192];
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			int read;
+			while ((read = reader.read(buffer)) > 0) {
+				for (int i = 0; i < read; i++) {
+					boolean whitespace = Character.isWhitespace(buffer[i]);
+					if (!whitespace && !inWord) {
+						words++;
+					}
+					inWord = !whitespace;
+				}
+			}
+		}
+		return words;
+	}
+
+	/**
+	 * Returns the offset of the line holding the first occurrence of the pattern, or -1.
+	 */
+	private static long startOfLineWithFirstMatch(FileChannel channel, byte[] pattern) throws IOException {
+		byte[] buffer = new byte[BUFFER_SIZE + pattern.length];
+		long bufferStart = 0;
+		long lineStart = 0;
+		int length = 0;
+		boolean eof = false;
+		while (!eof) {
+			int read = channel.read(ByteBuffer.wrap(buffer, length, buffer.length - length), bufferStart + length);
+			eof = read <= 0;
+			length += Math.max(read, 0);
+			int limit = length - pattern.length + 1;
+			int i = 0;
+			for (; i < limit; i++) {
+				if (matches(buffer, i, pattern)) {
+					return lineStart;
+				}
+				if (buffer[i] == '\n') {
+					lineStart = bufferStart + i + 1;
+				}
+			}
+			// Keep the bytes that may start a match completed by the next read
+			int keep = length - Math.max(i, 0);
+			System.arraycopy(buffer, length - keep, buffer, 0, keep);
+			bufferStart += length - keep;
+			length = keep;
+		}
+		return -1;
+	}
+
+	private static long copyReplacing(FileChannel in, long from, FileChannel out, byte[] pattern, byte[] replacement)
+			throws IOException {
+		byte[] buffer = new byte[BUFFER_SIZE + pattern.length];
+		long position = from;
+		long replaced = 0;
+		int length = 0;
+		boolean eof = false;
+		while (!eof) {
+			int read = in.read(ByteBuffer.wrap(buffer, length, buffer.length - length), position);
+			eof = read <= 0;
+			if (read > 0) {
+				position += read;
+				length += read;
+			}
+			int limit = length - pattern.length + 1;
+			int copyFrom = 0;
+			int i = 0;
+			while (i < limit) {
+				if (matches(buffer, i, pattern)) {
+					write(out, buffer, copyFrom, i - copyFrom);
+					write(out, replacement, 0, replacement.length);
+					replaced++;
+					i += pattern.length;
+					copyFrom = i;
+				}
+				else {
+					i++;
+				}
+			}
+			// Bytes after the last position a match fits in may start a match completed
+			// by the next read
+			int keepFrom = eof ? length : Math.max(copyFrom, limit);
+			write(out, buffer, copyFrom, keepFrom - copyFrom);
+			System.arraycopy(buffer, keepFrom, buffer, 0, length - keepFrom);
+			length -= keepFrom;
+		}
+		return replaced;
+	}
+
+	private static boolean matches(byte[] buffer, int offset, byte[] pattern) {
+		for (int j = 0; j < pattern.length; j++) {
+			if (buffer[offset + j] != pattern[j]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static void write(FileChannel out, byte[] bytes, int offset, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+		while (buffer.hasRemaining()) {
+			out.write(buffer);
+		}
+	}
+
+}
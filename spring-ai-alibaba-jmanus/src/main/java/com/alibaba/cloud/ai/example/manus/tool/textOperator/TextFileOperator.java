@@ -448,18 +448,16 @@ public class TextFileOperator extends AbstractBaseTool<TextFileOperator.TextFile
 				return openResult;
 			}
 
+			// Stream the file and only rewrite it from the first changed line
 			Path absolutePath = unifiedDirectoryManager.getWorkingDirectory().resolve(filePath);
-			String content = Files.readString(absolutePath);
-			String newContent = content.replace(sourceText, targetText);
-			Files.writeString(absolutePath, newContent);
-
-			// Automatically save file
-			try (FileChannel channel = FileChannel.open(absolutePath, StandardOpenOption.WRITE)) {
-				channel.force(true);
+			long replaced = StreamingTextEditor.replace(absolutePath, sourceText, targetText);
+			if (replaced == 0) {
+				textFileService.updateFileState(planId, filePath, "Success: Source text not found, file unchanged");
+				return new ToolExecuteResult("Source text not found, file unchanged");
 			}
 
 			textFileService.updateFileState(planId, filePath, "Success: Text replaced and saved");
-			return new ToolExecuteResult("Text replaced and saved successfully");
+			return new ToolExecuteResult("Text replaced and saved successfully (" + replaced + " occurrence(s))");
 		}
 		catch (IOException e) {
 			textFileService.updateFileState(planId, filePath, "Error: " + e.getMessage());
@@ -489,36 +487,39 @@ public class TextFileOperator extends AbstractBaseTool<TextFileOperator.TextFile
 				return openResult;
 			}
 
+			// Seek to the requested lines through the cached line offset index
 			Path absolutePath = unifiedDirectoryManager.getWorkingDirectory().resolve(filePath);
-			java.util.List<String> lines = Files.readAllLines(absolutePath);
+			LineOffsetIndex index = LineOffsetIndex.of(absolutePath);
+			long totalLines = index.getLineCount();
 
-			if (lines.isEmpty()) {
+			if (totalLines == 0) {
 				textFileService.updateFileState(planId, filePath, "Success: File is empty");
 				return new ToolExecuteResult("文件为空");
 			}
 
 			// Validate line number range
-			if (startLine > lines.size()) {
-				return new ToolExecuteResult("错误：起始行号超出文件范围（文件共" + lines.size() + "行）");
+			if (startLine > totalLines) {
+				return new ToolExecuteResult("错误：起始行号超出文件范围（文件共" + totalLines + "行）");
 			}
 
 			// Adjust end line number (not exceeding total file lines)
-			int actualEndLine = Math.min(endLine, lines.size());
+			long actualEndLine = Math.min(endLine, totalLines);
+			java.util.List<String> lines = index.readLines(startLine - 1, actualEndLine);
 
 			StringBuilder result = new StringBuilder();
-			result.append(String.format("文件: %s (第%d-%d行，共%d行)\n", filePath, startLine, actualEndLine, lines.size()));
+			result.append(String.format("文件: %s (第%d-%d行，共%d行)\n", filePath, startLine, actualEndLine, totalLines));
 			result.append("=".repeat(50)).append("\n");
 
-			for (int i = startLine - 1; i < actualEndLine; i++) {
-				result.append(String.format("%4d: %s\n", i + 1, lines.get(i)));
+			for (int i = 0; i < lines.size(); i++) {
+				result.append(String.format("%4d: %s\n", startLine + i, lines.get(i)));
 			}
 
 			// If file has more content, prompt user
-			if (actualEndLine < lines.size()) {
+			if (actualEndLine < totalLines) {
 				result.append("\n提示：文件还有更多内容（第")
 					.append(actualEndLine + 1)
 					.append("-")
-					.append(lines.size())
+					.append(totalLines)
 					.append("行），可继续调用get_text获取。");
 			}
 
@@ -541,6 +542,7 @@ public class TextFileOperator extends AbstractBaseTool<TextFileOperator.TextFile
 
 			// Read file content
 			Path absolutePath = unifiedDirectoryManager.getWorkingDirectory().resolve(filePath);
+			textFileService.checkFullReadSize(absolutePath);
 			String content = Files.readString(absolutePath);
 
 			// Force flush to disk to ensure data consistency
@@ -576,7 +578,7 @@ public class TextFileOperator extends AbstractBaseTool<TextFileOperator.TextFile
 			}
 
 			Path absolutePath = unifiedDirectoryManager.getWorkingDirectory().resolve(filePath);
-			Files.writeString(absolutePath, "\n" + content, StandardOpenOption.APPEND, StandardOpenOption.CREATE);
+			StreamingTextEditor.append(absolutePath, "\n" + content);
 
 			// Automatically save file
 			try (FileChannel channel = FileChannel.open(absolutePath, StandardOpenOption.WRITE)) {
@@ -601,8 +603,7 @@ public class TextFileOperator extends AbstractBaseTool<TextFileOperator.TextFile
 			}
 
 			Path absolutePath = unifiedDirectoryManager.getWorkingDirectory().resolve(filePath);
-			String content = Files.readString(absolutePath);
-			int wordCount = content.isEmpty() ? 0 : content.split("\\s+").length;
+			long wordCount = StreamingTextEditor.countWords(absolutePath);
 
 			textFileService.updateFileState(planId, filePath, "Success: Counted words");
 			return new ToolExecuteResult(String.format("Total word count (including Markdown symbols): %d", wordCount));
@@ -113,11 +113,17 @@ public class TextFileService implements ApplicationRunner {
 		if (!absolutePath.startsWith(workingDir)) {
 			throw new IOException("Access denied: File path must be within working directory");
 		}
+	}
 
-		// Check file size (if file exists)
+	/**
+	 * Check that a file is small enough to be loaded into memory as a whole. Line range
+	 * reads, replacements and appends stream the file and are not limited.
+	 */
+	public void checkFullReadSize(Path absolutePath) throws IOException {
 		if (Files.exists(absolutePath) && Files.size(absolutePath) > 10 * 1024 * 1024) { // 10MB
 																							// limit
-			throw new IOException("File is too large (>10MB). For safety reasons, please use a smaller file.");
+			throw new IOException(
+					"File is too large (>10MB) to read at once. Please use get_text to read it by line range.");
 		}
 	}
 
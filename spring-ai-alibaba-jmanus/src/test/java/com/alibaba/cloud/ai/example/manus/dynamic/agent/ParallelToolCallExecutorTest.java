@@ -0,0 +1,233 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.dynamic.agent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.AssistantMessage.ToolCall;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage.ToolResponse;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+
+import com.alibaba.cloud.ai.example.manus.planning.PlanningFactory.ToolCallBackContext;
+import com.alibaba.cloud.ai.example.manus.tool.ToolCallBiFunctionDef;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ParallelToolCallExecutorTest {
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+	private final Map<String, ToolCallBackContext> tools = new HashMap<>();
+
+	private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void safeCallsRunTogetherAndResponsesKeepCallOrder() {
+		// Both searches only return once the other one started
+		CountDownLatch bothStarted = new CountDownLatch(2);
+		addTool("search", true, arguments -> {
+			bothStarted.countDown();
+			try {
+				return bothStarted.await(5, TimeUnit.SECONDS) ? "found " + arguments : "serialized";
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return "interrupted";
+			}
+		});
+
+		ToolExecutionResult result = execute(5000, call("1", "search", "a"), call("2", "search", "b"));
+
+		assertEquals(List.of("found a", "found b"), responseData(result));
+		assertEquals(List.of("1", "2"), responseIds(result));
+		assertEquals(3, result.conversationHistory().size());
+		assertInstanceOf(AssistantMessage.class, result.conversationHistory().get(1));
+		assertFalse(result.returnDirect());
+	}
+
+	@Test
+	void unsafeCallsWaitForEarlierCallsAndRunOnTheAgentThread() {
+		Thread agentThread = Thread.currentThread();
+		addTool("search", true, arguments -> {
+			sleep(100);
+			events.add("search " + arguments);
+			return arguments;
+		});
+		addTool("write", false, arguments -> {
+			events.add("write " + arguments + (Thread.currentThread() == agentThread ? " on agent" : " on pool"));
+			return arguments;
+		});
+
+		ToolExecutionResult result = execute(5000, call("1", "search", "a"), call("2", "search", "b"),
+				call("3", "write", "c"), call("4", "search", "d"), call("5", "write", "e"));
+
+		assertEquals(List.of("a", "b", "c", "d", "e"), responseData(result));
+		assertEquals(5, events.size());
+		assertTrue(events.subList(0, 2).containsAll(List.of("search a", "search b")));
+		assertEquals(List.of("write c on agent", "search d", "write e on agent"), events.subList(2, 5));
+	}
+
+	@Test
+	void slowAndFailingCallsBecomeErrorResponses() {
+		addTool("search", true, arguments -> {
+			if ("slow".equals(arguments)) {
+				sleep(10_000);
+			}
+			if ("bad".equals(arguments)) {
+				throw new IllegalStateException("search failed");
+			}
+			return arguments;
+		});
+
+		long start = System.nanoTime();
+		ToolExecutionResult result = execute(200, call("1", "search", "slow"), call("2", "search", "bad"),
+				call("3", "search", "ok"), call("4", "missing", "x"));
+
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+		List<String> data = responseData(result);
+		assertEquals("Error: tool search timed out after 200 ms", data.get(0));
+		assertEquals("search failed", data.get(1));
+		assertEquals("ok", data.get(2));
+		assertEquals("Error: tool missing is not available", data.get(3));
+	}
+
+	@Test
+	void queueWaitDoesNotCountAndRejectedCallsKeepTheirTimeout() {
+		ExecutorService saturated = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+		addTool("search", true, arguments -> {
+			events.add(arguments + " on " + Thread.currentThread().getName());
+			sleep("slow".equals(arguments) ? 10_000 : 300);
+			return arguments;
+		});
+		try {
+			AssistantMessage assistantMessage = new AssistantMessage("", Map.of(),
+					List.of(call("1", "search", "a"), call("2", "search", "b"), call("3", "search", "slow")));
+			ToolExecutionResult result = new ParallelToolCallExecutor(saturated, tools::get, 500)
+				.executeToolCalls(new Prompt(List.of(new UserMessage("do it"))), assistantMessage);
+
+			// b waits 300 ms in the queue and then runs for 300 ms, within its 500 ms
+			List<String> data = responseData(result);
+			assertEquals(List.of("a", "b", "Error: tool search timed out after 500 ms"), data);
+			assertTrue(events.contains("slow on tool-call-overflow"));
+		}
+		finally {
+			saturated.shutdownNow();
+		}
+	}
+
+	@Test
+	void callsDispatchedEarlyAreCollectedInsteadOfRunAgain() throws InterruptedException {
+		CountDownLatch started = new CountDownLatch(1);
+		addTool("search", true, arguments -> {
+			events.add("search " + arguments);
+			started.countDown();
+			return arguments;
+		});
+		addTool("write", false, arguments -> {
+			events.add("write " + arguments);
+			return arguments;
+		});
+		ToolCall[] toolCalls = { call("1", "search", "a"), call("2", "write", "b"), call("3", "search", "c") };
+		ParallelToolCallExecutor toolCallExecutor = new ParallelToolCallExecutor(executor, tools::get, 5000);
+
+		// The write closes early dispatch, so the last search waits for it
+		for (ToolCall toolCall : toolCalls) {
+			toolCallExecutor.dispatchEarly(toolCall);
+		}
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		assertTrue(toolCallExecutor.hasDispatchedCalls());
+
+		ToolExecutionResult result = toolCallExecutor.executeToolCalls(new Prompt(List.of(new UserMessage("do it"))),
+				new AssistantMessage("", Map.of(), List.of(toolCalls)));
+
+		assertEquals(List.of("a", "b", "c"), responseData(result));
+		assertEquals(List.of("search a", "write b", "search c"), events);
+		assertFalse(toolCallExecutor.hasDispatchedCalls());
+	}
+
+	private ToolExecutionResult execute(long timeoutMillis, ToolCall... toolCalls) {
+		AssistantMessage assistantMessage = new AssistantMessage("", Map.of(), List.of(toolCalls));
+		Prompt prompt = new Prompt(List.of(new UserMessage("do it")));
+		return new ParallelToolCallExecutor(executor, tools::get, timeoutMillis).executeToolCalls(prompt,
+				assistantMessage);
+	}
+
+	private void addTool(String name, boolean concurrencySafe, Function<String, String> body) {
+		ToolCallback toolCallback = mock(ToolCallback.class);
+		when(toolCallback.getToolMetadata()).thenReturn(ToolMetadata.builder().build());
+		when(toolCallback.call(anyString())).thenAnswer(invocation -> body.apply(invocation.getArgument(0)));
+		ToolCallBiFunctionDef<?> functionInstance = mock(ToolCallBiFunctionDef.class);
+		when(functionInstance.isConcurrencySafe()).thenReturn(concurrencySafe);
+		tools.put(name, new ToolCallBackContext(toolCallback, functionInstance));
+	}
+
+	private ToolCall call(String id, String name, String arguments) {
+		return new ToolCall(id, "function", name, arguments);
+	}
+
+	private List<String> responseData(ToolExecutionResult result) {
+		return responses(result).stream().map(ToolResponse::responseData).toList();
+	}
+
+	private List<String> responseIds(ToolExecutionResult result) {
+		return responses(result).stream().map(ToolResponse::id).toList();
+	}
+
+	private List<ToolResponse> responses(ToolExecutionResult result) {
+		List<?> history = result.conversationHistory();
+		return ((ToolResponseMessage) history.get(history.size() - 1)).getResponses();
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
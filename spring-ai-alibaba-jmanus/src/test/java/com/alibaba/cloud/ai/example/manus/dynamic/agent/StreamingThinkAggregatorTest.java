@@ -0,0 +1,214 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.dynamic.agent;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.AssistantMessage.ToolCall;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.openai.OpenAiChatModel;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.ai.openai.api.OpenAiApi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the blocking think call with the streamed one against a local stub model that
+ * generates its reasoning in {@value #TEXT_CHUNKS} chunks, then a tool call, then the
+ * usage, like OpenAI compatible servers do.
+ */
+class StreamingThinkAggregatorTest {
+
+	private static final int TEXT_CHUNKS = 5;
+
+	private static final long CHUNK_DELAY_MILLIS = 100;
+
+	private static final long USAGE_DELAY_MILLIS = 100;
+
+	private static final String ARGUMENTS = "{\"query\":\"jmanus\"}";
+
+	private HttpServer server;
+
+	private ChatClient chatClient;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/v1/chat/completions", this::handle);
+		server.start();
+		OpenAiApi openAiApi = OpenAiApi.builder()
+			.baseUrl("http://127.0.0.1:" + server.getAddress().getPort())
+			.apiKey("key")
+			.build();
+		OpenAiChatModel chatModel = OpenAiChatModel.builder()
+			.openAiApi(openAiApi)
+			.defaultOptions(OpenAiChatOptions.builder().model("stub-model").build())
+			.build();
+		chatClient = ChatClient.create(chatModel);
+	}
+
+	@AfterEach
+	void tearDown() {
+		server.stop(0);
+	}
+
+	@Test
+	void streamingReportsReasoningAndDispatchesToolCallBeforeTheResponseCompletes() {
+		// Warm up both HTTP clients so connection setup is not measured
+		chatClient.prompt(prompt()).call().chatResponse();
+		chatClient.prompt(prompt()).stream().chatResponse().blockLast();
+
+		long blockingStart = System.nanoTime();
+		ChatResponse blocking = chatClient.prompt(prompt()).call().chatResponse();
+		long blockingMillis = millisSince(blockingStart);
+
+		List<String> partialTexts = new ArrayList<>();
+		List<ToolCall> dispatched = new ArrayList<>();
+		long[] firstPartialMillis = { -1 };
+		long[] dispatchMillis = { -1 };
+		long streamStart = System.nanoTime();
+		StreamingThinkAggregator aggregator = new StreamingThinkAggregator(text -> {
+			if (firstPartialMillis[0] < 0) {
+				firstPartialMillis[0] = millisSince(streamStart);
+			}
+			partialTexts.add(text);
+		}, 0, toolCall -> {
+			dispatchMillis[0] = millisSince(streamStart);
+			dispatched.add(toolCall);
+		});
+		ChatResponse streamed = aggregator.aggregate(chatClient.prompt(prompt()).stream().chatResponse());
+		long streamMillis = millisSince(streamStart);
+
+		// The aggregated response matches the blocking one
+		AssistantMessage expected = blocking.getResult().getOutput();
+		AssistantMessage actual = streamed.getResult().getOutput();
+		assertEquals(expected.getText(), actual.getText());
+		assertEquals(expected.getToolCalls(), actual.getToolCalls());
+		assertEquals("stub-model", streamed.getMetadata().getModel());
+		assertEquals(42, streamed.getMetadata().getUsage().getTotalTokens());
+
+		assertEquals(TEXT_CHUNKS, partialTexts.size());
+		assertEquals(expected.getText(), partialTexts.get(TEXT_CHUNKS - 1));
+		assertEquals(List.of(new ToolCall("call-1", "function", "google_search", ARGUMENTS)), dispatched);
+
+		// Reasoning shows up long before the blocking call returns. The OpenAI client
+		// releases a chunk once the next one arrived, so the tool call is dispatched with
+		// the usage chunk rather than right after its own.
+		assertTrue(firstPartialMillis[0] < blockingMillis / 2,
+				"first partial after " + firstPartialMillis[0] + " ms, blocking call took " + blockingMillis + " ms");
+		assertTrue(dispatchMillis[0] <= streamMillis,
+				"tool dispatched after " + dispatchMillis[0] + " ms, stream completed after " + streamMillis + " ms");
+	}
+
+	private Prompt prompt() {
+		return new Prompt(List.of(new UserMessage("search")),
+				ToolCallingChatOptions.builder().internalToolExecutionEnabled(false).build());
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		String request = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+		if (!request.contains("\"stream\":true")) {
+			sleep(TEXT_CHUNKS * CHUNK_DELAY_MILLIS + USAGE_DELAY_MILLIS);
+			byte[] body = ("""
+					{"id":"c1","object":"chat.completion","created":1,"model":"stub-model",
+					"choices":[{"index":0,"message":{"role":"assistant","content":"%s","tool_calls":[%s]},
+					"finish_reason":"tool_calls"}],"usage":{"prompt_tokens":30,"completion_tokens":12,"total_tokens":42}}
+					"""
+				.formatted(reasoning(TEXT_CHUNKS), toolCallJson())).getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+			return;
+		}
+		exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+		exchange.sendResponseHeaders(200, 0);
+		try (OutputStream out = exchange.getResponseBody()) {
+			for (int i = 0; i < TEXT_CHUNKS; i++) {
+				sleep(CHUNK_DELAY_MILLIS);
+				send(out, chunk("{\"role\":\"assistant\",\"content\":\"" + reasoningChunk(i) + "\"}", null));
+			}
+			send(out, chunk("{\"role\":\"assistant\",\"tool_calls\":[" + toolCallJson() + "]}", "\"tool_calls\""));
+			sleep(USAGE_DELAY_MILLIS);
+			send(out, """
+					{"id":"c1","object":"chat.completion.chunk","created":1,"model":"stub-model","choices":[],
+					"usage":{"prompt_tokens":30,"completion_tokens":12,"total_tokens":42}}""".replace("\n", ""));
+			out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	private static String chunk(String delta, String finishReason) {
+		return "{\"id\":\"c1\",\"object\":\"chat.completion.chunk\",\"created\":1,\"model\":\"stub-model\","
+				+ "\"choices\":[{\"index\":0,\"delta\":" + delta + ",\"finish_reason\":" + finishReason + "}]}";
+	}
+
+	private static String toolCallJson() {
+		return "{\"index\":0,\"id\":\"call-1\",\"type\":\"function\",\"function\":{\"name\":\"google_search\","
+				+ "\"arguments\":" + quote(ARGUMENTS) + "}}";
+	}
+
+	private static String quote(String value) {
+		return "\"" + value.replace("\"", "\\\"") + "\"";
+	}
+
+	private static String reasoning(int chunks) {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < chunks; i++) {
+			text.append(reasoningChunk(i));
+		}
+		return text.toString();
+	}
+
+	private static String reasoningChunk(int i) {
+		return "step " + i + ". ";
+	}
+
+	private static void send(OutputStream out, String json) throws IOException {
+		out.write(("data: " + json + "\n\n").getBytes(StandardCharsets.UTF_8));
+		out.flush();
+	}
+
+	private static long millisSince(long startNanos) {
+		return (System.nanoTime() - startNanos) / 1_000_000;
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
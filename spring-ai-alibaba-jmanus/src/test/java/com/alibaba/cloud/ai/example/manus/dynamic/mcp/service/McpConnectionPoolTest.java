@@ -0,0 +1,172 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.dynamic.mcp.service;
+
+import com.alibaba.cloud.ai.example.manus.dynamic.mcp.model.po.McpConfigEntity;
+import com.alibaba.cloud.ai.example.manus.dynamic.mcp.model.po.McpConfigType;
+import com.alibaba.cloud.ai.example.manus.dynamic.mcp.model.vo.McpServiceEntity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class McpConnectionPoolTest {
+
+	private final Map<String, AtomicInteger> connects = new ConcurrentHashMap<>();
+
+	private final List<McpServiceEntity> closed = new CopyOnWriteArrayList<>();
+
+	private final Set<String> unhealthy = ConcurrentHashMap.newKeySet();
+
+	private final Set<String> unreachable = ConcurrentHashMap.newKeySet();
+
+	private final CountDownLatch hung = new CountDownLatch(1);
+
+	private final McpConnectionPool pool = new McpConnectionPool(config -> {
+		connects.computeIfAbsent(config.getMcpServerName(), name -> new AtomicInteger()).incrementAndGet();
+		if (unreachable.contains(config.getMcpServerName())) {
+			return null;
+		}
+		if ("hung".equals(config.getConnectionConfig())) {
+			hung.await();
+		}
+		return new McpServiceEntity(null, null, config.getMcpServerName());
+	}, entity -> !unhealthy.contains(entity.getServiceGroup()), closed::add, Duration.ofMillis(50),
+			Duration.ofMillis(200));
+
+	@AfterEach
+	void tearDown() {
+		hung.countDown();
+		pool.close();
+	}
+
+	@Test
+	void connectionsAreSharedAcrossPlans() {
+		pool.refresh(List.of(config("search", "{}"), config("files", "{}")));
+
+		List<McpServiceEntity> first = pool.acquire("plan-1");
+		List<McpServiceEntity> again = pool.acquire("plan-1");
+		List<McpServiceEntity> second = pool.acquire("plan-2");
+
+		assertEquals(2, first.size());
+		assertSame(first.get(0), second.get(0));
+		assertSame(first.get(1), again.get(1));
+		assertEquals(1, connects.get("search").get());
+		assertEquals(2, pool.referenceCount("search"));
+
+		pool.release("plan-1");
+		pool.release("plan-2");
+		assertEquals(0, pool.referenceCount("search"));
+		assertTrue(closed.isEmpty(), "idle connections stay warm");
+	}
+
+	@Test
+	void onlyChangedServersAreReconnectedAndOldOnesCloseWhenReleased() {
+		pool.refresh(List.of(config("search", "{}"), config("files", "{\"command\":\"v1\"}")));
+		List<McpServiceEntity> running = pool.acquire("plan-1");
+		McpServiceEntity oldFiles = running.get(1);
+
+		pool.refresh(List.of(config("search", "{}"), config("files", "{\"command\":\"v2\"}")));
+		assertEquals(1, connects.get("search").get());
+		assertTrue(closed.isEmpty(), "connection in use must not be closed");
+
+		List<McpServiceEntity> next = pool.acquire("plan-2");
+		assertSame(running.get(0), next.get(0));
+		assertNotSame(oldFiles, next.get(1));
+
+		pool.release("plan-1");
+		assertEquals(List.of(oldFiles), closed);
+	}
+
+	@Test
+	void unhealthyConnectionsAreReplacedAndIdleLeasesExpire() throws Exception {
+		pool.refresh(List.of(config("search", "{}")));
+		McpServiceEntity original = pool.acquire("plan-1").get(0);
+
+		Thread.sleep(60);
+		unhealthy.add("search");
+		pool.checkHealth();
+		assertEquals(List.of(original), closed);
+
+		unhealthy.clear();
+		McpServiceEntity replacement = pool.acquire("plan-2").get(0);
+		assertNotSame(original, replacement);
+		assertEquals(2, connects.get("search").get());
+		assertEquals(1, pool.referenceCount("search"));
+	}
+
+	@Test
+	void acquireDoesNotWaitPastTheConnectTimeout() {
+		pool.refresh(List.of(config("search", "{}"), config("stuck", "hung")));
+
+		long start = System.nanoTime();
+		List<McpServiceEntity> entities = pool.acquire("plan-1");
+
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+		assertEquals(List.of("search"), entities.stream().map(McpServiceEntity::getServiceGroup).toList());
+
+		// The reconnect runs on the connect executor
+		pool.checkHealth();
+		awaitCondition(() -> connects.get("stuck").get() == 2);
+	}
+
+	@Test
+	void replacingOneServerKeepsTheLeasesOfOthers() {
+		unreachable.add("flaky");
+		pool.refresh(List.of(config("search", "{}"), config("flaky", "{}")));
+		List<McpServiceEntity> first = pool.acquire("plan-1");
+		assertEquals(1, first.size());
+
+		// The replacement is still connecting, the lease is unaffected
+		unreachable.clear();
+		pool.refresh(List.of(config("search", "{}"), config("flaky", "hung")));
+		assertSame(first.get(0), pool.acquire("plan-1").get(0));
+		assertEquals(1, pool.referenceCount("search"));
+
+		hung.countDown();
+		awaitCondition(() -> pool.acquire("plan-1").size() == 2);
+		assertEquals(1, pool.referenceCount("search"));
+	}
+
+	private static void awaitCondition(BooleanSupplier condition) {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.nanoTime() < deadline, "condition not met in time");
+			Thread.onSpinWait();
+		}
+	}
+
+	private static McpConfigEntity config(String name, String connectionConfig) {
+		return new McpConfigEntity().setMcpServerName(name)
+			.setConnectionType(McpConfigType.STUDIO)
+			.setConnectionConfig(connectionConfig);
+	}
+
+}
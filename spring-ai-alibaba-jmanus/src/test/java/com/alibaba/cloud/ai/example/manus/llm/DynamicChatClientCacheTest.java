@@ -0,0 +1,99 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.llm;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class DynamicChatClientCacheTest {
+
+	private static final String COMPLETION = """
+			{"id":"chatcmpl-1","object":"chat.completion","created":1,"model":"stub-model",
+			"choices":[{"index":0,"message":{"role":"assistant","content":"pong"},"finish_reason":"stop"}]}
+			""";
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private HttpServer server;
+
+	private DynamicChatClientCache cache;
+
+	private String baseUrl;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/v1/chat/completions", exchange -> {
+			exchange.getRequestBody().readAllBytes();
+			byte[] body = COMPLETION.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		server.start();
+		baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+		cache = new DynamicChatClientCache(10, 5, meterRegistry);
+	}
+
+	@AfterEach
+	void tearDown() {
+		cache.close();
+		server.stop(0);
+	}
+
+	@Test
+	void stepsReuseClientAndConnection() {
+		ChatClient first = cache.get(baseUrl, "key", "stub-model");
+		ChatClient second = cache.get(baseUrl, "key", "stub-model");
+		assertSame(first, second);
+
+		for (int step = 0; step < 5; step++) {
+			assertEquals("pong", cache.get(baseUrl, "key", "stub-model").prompt("ping").call().content());
+		}
+
+		assertEquals(5, meterRegistry.counter("jmanus.llm.http.requests").count());
+		assertEquals(1, meterRegistry.counter("jmanus.llm.http.connections.opened").count());
+	}
+
+	@Test
+	void changedModelGetsNewClient() {
+		ChatClient original = cache.get(baseUrl, "key", "stub-model");
+		assertNotSame(original, cache.get(baseUrl, "rotated-key", "stub-model"));
+		assertEquals(2, cache.size());
+
+		cache.evict(baseUrl, "stub-model");
+
+		assertEquals(0, cache.size());
+		assertNotSame(original, cache.get(baseUrl, "key", "stub-model"));
+	}
+
+}
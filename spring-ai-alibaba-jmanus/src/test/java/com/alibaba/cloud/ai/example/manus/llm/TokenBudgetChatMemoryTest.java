@@ -0,0 +1,138 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.llm;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBudgetChatMemoryTest {
+
+	private static final int BUDGET = 2000;
+
+	private final List<Runnable> pendingCompactions = new ArrayList<>();
+
+	private final Executor deferred = pendingCompactions::add;
+
+	private final List<String> previousSummaries = new ArrayList<>();
+
+	private final TokenBudgetChatMemory.Summarizer summarizer = (previousSummary, messages) -> {
+		previousSummaries.add(previousSummary);
+		return "summary of " + messages.size() + " messages";
+	};
+
+	@Test
+	void plansAreIsolated() {
+		TokenBudgetChatMemory memory = memory(Runnable::run);
+		memory.add("plan-1", step(1, 10));
+		memory.add("plan-2", step(2, 10));
+
+		memory.clear("plan-1");
+
+		assertTrue(memory.get("plan-1").isEmpty());
+		assertEquals(2, memory.get("plan-2").size());
+	}
+
+	@Test
+	void readsStayWithinBudgetAndKeepToolCallsWithTheirResponses() {
+		TokenBudgetChatMemory memory = memory(deferred);
+		for (int i = 0; i < 20; i++) {
+			memory.add("plan", step(i, 300));
+		}
+
+		List<Message> messages = memory.get("plan");
+
+		int tokens = messages.stream().mapToInt(memory::estimateTokens).sum();
+		assertTrue(tokens <= BUDGET, "memory of " + tokens + " tokens exceeds the budget");
+		assertInstanceOf(AssistantMessage.class, messages.get(0));
+		for (int i = 0; i < messages.size(); i += 2) {
+			String callId = ((AssistantMessage) messages.get(i)).getToolCalls().get(0).id();
+			assertEquals(callId, ((ToolResponseMessage) messages.get(i + 1)).getResponses().get(0).id());
+		}
+		assertEquals("call-19", ((AssistantMessage) messages.get(messages.size() - 2)).getToolCalls().get(0).id());
+	}
+
+	@Test
+	void oldTurnsAreReplacedBySummary() {
+		TokenBudgetChatMemory memory = memory(deferred);
+		int turns = 0;
+		while (pendingCompactions.isEmpty()) {
+			memory.add("plan", step(turns++, 200));
+		}
+		// Turns added while the summary is written are kept
+		memory.add("plan", step(turns++, 200));
+		pendingCompactions.remove(0).run();
+
+		List<Message> messages = memory.get("plan");
+		assertInstanceOf(UserMessage.class, messages.get(0));
+		assertTrue(messages.get(0).getText().startsWith(TokenBudgetChatMemory.SUMMARY_PREFIX + "summary of "));
+		assertEquals("call-" + (turns - 1),
+				((AssistantMessage) messages.get(messages.size() - 2)).getToolCalls().get(0).id());
+		assertNull(previousSummaries.get(0));
+
+		// The next compaction extends the summary
+		while (pendingCompactions.isEmpty()) {
+			memory.add("plan", step(turns++, 200));
+		}
+		pendingCompactions.remove(0).run();
+		assertTrue(previousSummaries.get(1).startsWith("summary of "));
+	}
+
+	@Test
+	void summaryOfClearedPlanIsDiscarded() {
+		TokenBudgetChatMemory memory = memory(deferred);
+		int turns = 0;
+		while (pendingCompactions.isEmpty()) {
+			memory.add("plan", step(turns++, 200));
+		}
+
+		memory.clear("plan");
+		memory.add("plan", step(0, 10));
+		pendingCompactions.remove(0).run();
+
+		assertEquals(2, memory.get("plan").size());
+	}
+
+	private TokenBudgetChatMemory memory(Executor executor) {
+		return new TokenBudgetChatMemory(new JTokkitTokenCountEstimator(), () -> BUDGET, 1000, summarizer, executor);
+	}
+
+	/**
+	 * One think-act step: a tool call and its response of roughly the given tokens.
+	 */
+	private List<Message> step(int index, int resultWords) {
+		String id = "call-" + index;
+		AssistantMessage call = new AssistantMessage("step " + index, Map.of(),
+				List.of(new AssistantMessage.ToolCall(id, "function", "bash", "{\"command\":\"ls\"}")));
+		ToolResponseMessage response = new ToolResponseMessage(
+				List.of(new ToolResponseMessage.ToolResponse(id, "bash", "file ".repeat(resultWords))));
+		return List.of(call, response);
+	}
+
+}
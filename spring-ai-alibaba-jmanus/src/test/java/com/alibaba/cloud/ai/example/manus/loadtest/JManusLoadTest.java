@@ -0,0 +1,44 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Entry point of the {@code loadtest} Maven profile, running every selected scenario with
+ * {@link LoadTestDriver}.
+ * <p>
+ * Settings are read from system properties: {@code loadtest.scenario} (comma separated,
+ * all by default), {@code loadtest.plans}, {@code loadtest.concurrency},
+ * {@code loadtest.llmLatencyMs}, {@code loadtest.llmJitterMs} and
+ * {@code loadtest.planTimeoutSeconds}.
+ */
+class JManusLoadTest {
+
+	@Test
+	void scenariosCompleteUnderLoad() throws Exception {
+		assumeTrue(Boolean.getBoolean("loadtest.enabled"), "Run with -Ploadtest");
+		for (LoadScenario scenario : LoadScenario.fromSystemProperty()) {
+			LoadTestReport report = new LoadTestDriver(LoadTestDriver.Options.fromSystemProperties(scenario)).run();
+			System.out.println(report.format());
+			assertEquals(report.submitted(), report.completed(), scenario.id() + " plans did not all complete");
+		}
+	}
+
+}
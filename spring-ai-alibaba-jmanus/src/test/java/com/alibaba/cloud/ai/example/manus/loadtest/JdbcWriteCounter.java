@@ -0,0 +1,139 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.loadtest;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+/**
+ * Counts the statements writing to the database and the rows they change, by wrapping the
+ * application's data source.
+ * <p>
+ * Both JPA and plain JDBC writes are counted. A batch counts as one statement, and rows
+ * of batch entries reported without a count as one row each.
+ */
+final class JdbcWriteCounter implements BeanPostProcessor {
+
+	private final AtomicLong statements = new AtomicLong();
+
+	private final AtomicLong rows = new AtomicLong();
+
+	long getStatements() {
+		return statements.get();
+	}
+
+	long getRows() {
+		return rows.get();
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		if (bean instanceof DataSource dataSource) {
+			return proxy(DataSource.class, dataSource, (method, result, args) -> {
+				if (result instanceof Connection connection) {
+					return proxy(Connection.class, connection, this::wrapStatement);
+				}
+				return result;
+			});
+		}
+		return bean;
+	}
+
+	private Object wrapStatement(Method method, Object result, Object[] args) {
+		if (result instanceof Statement statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+			// Prepared statements get their SQL when created, plain ones when executed
+			String preparedSql = args != null && args.length > 0 && args[0] instanceof String sql ? sql : null;
+			return proxy(method.getReturnType(), statement,
+					(executed, count, executeArgs) -> countWrite(preparedSql, executed, count, executeArgs, statement));
+		}
+		return result;
+	}
+
+	private Object countWrite(String preparedSql, Method method, Object result, Object[] args, Statement statement)
+			throws Exception {
+		String sql = preparedSql != null ? preparedSql
+				: args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+		if (sql == null || !isWrite(sql)) {
+			return result;
+		}
+		switch (method.getName()) {
+			case "executeUpdate", "executeLargeUpdate" -> {
+				statements.incrementAndGet();
+				rows.addAndGet(((Number) result).longValue());
+			}
+			case "execute" -> {
+				statements.incrementAndGet();
+				rows.addAndGet(Math.max(0, statement.getUpdateCount()));
+			}
+			case "executeBatch" -> {
+				statements.incrementAndGet();
+				for (int count : (int[]) result) {
+					rows.addAndGet(count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(0, count));
+				}
+			}
+			case "executeLargeBatch" -> {
+				statements.incrementAndGet();
+				for (long count : (long[]) result) {
+					rows.addAndGet(count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(0, count));
+				}
+			}
+			default -> {
+			}
+		}
+		return result;
+	}
+
+	private static boolean isWrite(String sql) {
+		String statement = sql.stripLeading().toLowerCase(Locale.ROOT);
+		return statement.startsWith("insert") || statement.startsWith("update") || statement.startsWith("delete")
+				|| statement.startsWith("merge");
+	}
+
+	@FunctionalInterface
+	private interface ResultHandler {
+
+		Object handle(Method method, Object result, Object[] args) throws Exception;
+
+	}
+
+	/**
+	 * Wraps the target so that the handler sees the result of every call.
+	 */
+	private static Object proxy(Class<?> type, Object target, ResultHandler handler) {
+		InvocationHandler invocation = (proxy, method, args) -> {
+			Object result;
+			try {
+				result = method.invoke(target, args);
+			}
+			catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+			return handler.handle(method, result, args);
+		};
+		return Proxy.newProxyInstance(LoadTestDriver.class.getClassLoader(), new Class<?>[] { type }, invocation);
+	}
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.loadtest;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plans run by the load test, together with the tool calls the stub model answers their
+ * steps with.
+ * <p>
+ * Steps are scripted by their index, and map tasks additionally by their task id, so each
+ * agent makes the listed calls and then terminates. None of the scenarios needs a browser
+ * or network access besides the stub model.
+ */
+enum LoadScenario {
+
+	/**
+	 * Planned by the model, with shell commands run by the default agent.
+	 */
+	BROWSER_FREE("browser-free") {
+		@Override
+		List<String> planSteps() {
+			return List.of("[DEFAULT_AGENT] Print the current date with a shell command",
+					"[DEFAULT_AGENT] Count the entries of the working directory");
+		}
+
+		@Override
+		List<ToolCall> stepActions(int stepIndex, String taskId, Path dataDir) {
+			return switch (stepIndex) {
+				case 0 -> List.of(new ToolCall("bash", Map.of("command", "date")));
+				default -> List.of(new ToolCall("bash", Map.of("command", "ls | wc -l")));
+			};
+		}
+	},
+
+	/**
+	 * Planned by the model, with text file edits made by the text file agent.
+	 */
+	FILE("file") {
+		@Override
+		List<String> planSteps() {
+			return List.of("[TEXT_FILE_AGENT] Write the findings to report.md",
+					"[TEXT_FILE_AGENT] Update the status in report.md and count its words");
+		}
+
+		@Override
+		List<ToolCall> stepActions(int stepIndex, String taskId, Path dataDir) {
+			return switch (stepIndex) {
+				case 0 -> List.of(
+						new ToolCall("text_file_operator",
+								Map.of("action", "append", "file_path", "report.md", "content",
+										"# Report\n\nstatus: draft\n")),
+						new ToolCall("text_file_operator", Map.of("action", "append", "file_path", "report.md",
+								"content", "- the stub model answered every step\n")));
+				default -> List.of(
+						new ToolCall("text_file_operator",
+								Map.of("action", "replace", "file_path", "report.md", "source_text", "status: draft",
+										"target_text", "status: final")),
+						new ToolCall("text_file_operator", Map.of("action", "count_words", "file_path", "report.md")));
+			};
+		}
+	},
+
+	/**
+	 * A saved map-reduce plan template, executed without a planning call since the
+	 * planner does not create map-reduce plans. The data preparation step splits the
+	 * input file, every map task records one row and the reduce step terminates.
+	 */
+	MAP_REDUCE("map-reduce") {
+		@Override
+		List<String> planSteps() {
+			return List.of();
+		}
+
+		@Override
+		List<ToolCall> stepActions(int stepIndex, String taskId, Path dataDir) {
+			if (taskId != null) {
+				return List.of(new ToolCall("map_reduce_tool",
+						Map.of("action", "record_map_output", "terminate_columns", List.of("content"), "data",
+								List.of(List.of("lines of " + taskId)), "task_id", taskId, "status", "completed")));
+			}
+			if (stepIndex == 0) {
+				return List.of(new ToolCall("map_reduce_tool", Map.of("action", "split_data", "file_path",
+						dataDir.resolve(INPUT_FILE).toAbsolutePath().toString())));
+			}
+			return List.of();
+		}
+	};
+
+	static final String INPUT_FILE = "loadtest-input.txt";
+
+	private final String id;
+
+	LoadScenario(String id) {
+		this.id = id;
+	}
+
+	String id() {
+		return id;
+	}
+
+	/**
+	 * The user request of the plan with the given index.
+	 */
+	String request(int planIndex) {
+		return "Load test plan " + planIndex + " (" + id + ")";
+	}
+
+	/**
+	 * The steps returned by the stub model for the planning call.
+	 */
+	abstract List<String> planSteps();
+
+	/**
+	 * The tool calls made for a step before the agent terminates.
+	 * @param stepIndex zero-based index of the step
+	 * @param taskId id of the map task, or null outside of map tasks
+	 * @param dataDir directory holding the input data of the scenario
+	 */
+	abstract List<ToolCall> stepActions(int stepIndex, String taskId, Path dataDir);
+
+	static LoadScenario of(String id) {
+		for (LoadScenario scenario : values()) {
+			if (scenario.id.equalsIgnoreCase(id) || scenario.name().equalsIgnoreCase(id)) {
+				return scenario;
+			}
+		}
+		throw new IllegalArgumentException("Unknown load test scenario: " + id);
+	}
+
+	/**
+	 * The scenarios listed in the comma separated {@code loadtest.scenario} system
+	 * property, all of them by default.
+	 */
+	static List<LoadScenario> fromSystemProperty() {
+		String ids = System.getProperty("loadtest.scenario", "");
+		if (ids.isBlank()) {
+			return List.of(values());
+		}
+		return Arrays.stream(ids.split(",")).map(String::trim).map(LoadScenario::of).toList();
+	}
+
+	/**
+	 * A tool call returned by the stub model.
+	 */
+	record ToolCall(String name, Map<String, Object> arguments) {
+	}
+
+}
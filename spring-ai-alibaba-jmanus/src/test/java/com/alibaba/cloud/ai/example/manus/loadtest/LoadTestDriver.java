@@ -0,0 +1,310 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.loadtest;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.alibaba.cloud.ai.example.manus.OpenManusSpringBootApplication;
+import com.alibaba.cloud.ai.example.manus.planning.model.vo.ExecutionStep;
+import com.alibaba.cloud.ai.example.manus.planning.model.vo.mapreduce.MapReduceExecutionPlan;
+import com.alibaba.cloud.ai.example.manus.planning.model.vo.mapreduce.MapReduceNode;
+import com.alibaba.cloud.ai.example.manus.recorder.PlanExecutionRecorder;
+import com.alibaba.cloud.ai.example.manus.recorder.entity.AgentExecutionRecord;
+import com.alibaba.cloud.ai.example.manus.recorder.entity.PlanExecutionRecord;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Runs concurrent plans against a jmanus instance backed by an in-memory H2 database and
+ * the {@link StubLlmServer}, and reports throughput, latencies, database writes and
+ * thread counts.
+ * <p>
+ * Plans are submitted and polled through the REST API like the UI does, so the scheduler,
+ * recorder, agents and tools all take part. The driver keeps {@code concurrency} plans in
+ * flight until {@code plans} plans were submitted.
+ */
+final class LoadTestDriver {
+
+	private static final String TEMPLATE_ID = "loadtest-map-reduce";
+
+	private static final Duration POLL_INTERVAL = Duration.ofMillis(50);
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+	private final Options options;
+
+	LoadTestDriver(Options options) {
+		this.options = options;
+	}
+
+	/**
+	 * Settings of a load test run.
+	 *
+	 * @param scenario plans to run
+	 * @param plans plans submitted in total
+	 * @param concurrency plans in flight at a time, also the scheduler's limit of
+	 * concurrently executing plans
+	 * @param llmLatency delay of every stub model response
+	 * @param llmJitter random deviation from the delay
+	 * @param planTimeout time a plan may take before it counts as not completed
+	 */
+	record Options(LoadScenario scenario, int plans, int concurrency, Duration llmLatency, Duration llmJitter,
+			Duration planTimeout) {
+
+		/**
+		 * Reads the options of the given scenario from the {@code loadtest.*} system
+		 * properties.
+		 */
+		static Options fromSystemProperties(LoadScenario scenario) {
+			return new Options(scenario, Integer.getInteger("loadtest.plans", 20),
+					Integer.getInteger("loadtest.concurrency", 4),
+					Duration.ofMillis(Long.getLong("loadtest.llmLatencyMs", 200)),
+					Duration.ofMillis(Long.getLong("loadtest.llmJitterMs", 50)),
+					Duration.ofSeconds(Long.getLong("loadtest.planTimeoutSeconds", 120)));
+		}
+
+	}
+
+	LoadTestReport run() throws Exception {
+		Path baseDir = Files.createTempDirectory("jmanus-loadtest");
+		Path workingDir = Files.createDirectories(baseDir.resolve("extensions"));
+		writeInputFile(workingDir);
+		try (StubLlmServer llm = new StubLlmServer(options.scenario(), workingDir, options.llmLatency(),
+				options.llmJitter())) {
+			JdbcWriteCounter writes = new JdbcWriteCounter();
+			ConfigurableApplicationContext app = startApplication(baseDir, llm.getBaseUrl(), writes);
+			try {
+				String baseUrl = "http://localhost:" + app.getEnvironment().getProperty("local.server.port");
+				if (options.scenario() == LoadScenario.MAP_REDUCE) {
+					saveMapReduceTemplate(baseUrl);
+				}
+				return runPlans(app, baseUrl, llm, writes);
+			}
+			finally {
+				app.close();
+			}
+		}
+	}
+
+	private ConfigurableApplicationContext startApplication(Path baseDir, String llmBaseUrl, JdbcWriteCounter writes) {
+		Map<String, Object> properties = new HashMap<>();
+		properties.put("server.port", 0);
+		properties.put("spring.profiles.active", "h2");
+		properties.put("spring.datasource.url",
+				"jdbc:h2:mem:jmanus-loadtest;MODE=MYSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+		properties.put("spring.datasource.hikari.maximum-pool-size", Math.max(10, options.concurrency() * 2));
+		properties.put("spring.ai.openai.base-url", llmBaseUrl);
+		properties.put("spring.ai.openai.api-key", "stub");
+		properties.put("spring.ai.openai.chat.options.model", "stub-model");
+		properties.put("logging.file.name", baseDir.resolve("jmanus.log").toString());
+		properties.put("logging.level.root", "WARN");
+		// Read once when the configuration table is created
+		properties.put("manus.baseDir", baseDir.toString());
+		properties.put("manus.openBrowserAuto", false);
+		properties.put("manus.scheduler.maxConcurrentPlans", options.concurrency());
+		properties.put("manus.scheduler.queueCapacity", Math.max(100, options.plans()));
+		// Passed as arguments to take precedence over application.yml
+		String[] args = properties.entrySet()
+			.stream()
+			.map(property -> "--" + property.getKey() + "=" + property.getValue())
+			.toArray(String[]::new);
+		return new SpringApplicationBuilder(OpenManusSpringBootApplication.class)
+			.initializers(context -> context.getBeanFactory().addBeanPostProcessor(writes))
+			.run(args);
+	}
+
+	private LoadTestReport runPlans(ConfigurableApplicationContext app, String baseUrl, StubLlmServer llm,
+			JdbcWriteCounter writes) throws InterruptedException {
+		long statementsBefore = writes.getStatements();
+		long rowsBefore = writes.getRows();
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		int threadsBefore = threads.getThreadCount();
+		threads.resetPeakThreadCount();
+		long llmCallsBefore = llm.getTotalCalls();
+
+		List<String> completedPlans = Collections.synchronizedList(new ArrayList<>());
+		List<Duration> planLatencies = Collections.synchronizedList(new ArrayList<>());
+		AtomicInteger submitted = new AtomicInteger();
+		AtomicInteger rejected = new AtomicInteger();
+		AtomicInteger next = new AtomicInteger();
+		ExecutorService clients = Executors.newFixedThreadPool(options.concurrency());
+		long started = System.nanoTime();
+		for (int i = 0; i < options.concurrency(); i++) {
+			clients.execute(() -> {
+				for (int plan = next.getAndIncrement(); plan < options.plans(); plan = next.getAndIncrement()) {
+					long submittedAt = System.nanoTime();
+					String planId = submit(baseUrl, plan);
+					submitted.incrementAndGet();
+					if (planId == null) {
+						rejected.incrementAndGet();
+					}
+					else if (awaitCompletion(baseUrl, planId)) {
+						completedPlans.add(planId);
+						planLatencies.add(Duration.ofNanos(System.nanoTime() - submittedAt));
+					}
+				}
+			});
+		}
+		clients.shutdown();
+		clients.awaitTermination((long) options.plans() * options.planTimeout().toSeconds(), TimeUnit.SECONDS);
+		Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+		int threadsPeak = threads.getPeakThreadCount();
+		int threadsAfter = threads.getThreadCount();
+		long statements = writes.getStatements() - statementsBefore;
+		long rows = writes.getRows() - rowsBefore;
+
+		PlanExecutionRecorder recorder = app.getBean(PlanExecutionRecorder.class);
+		List<Duration> stepLatencies = new ArrayList<>();
+		for (String planId : completedPlans) {
+			stepLatencies.addAll(stepLatencies(recorder.getExecutionDetails(planId)));
+		}
+		return new LoadTestReport(options.scenario().id(), submitted.get(), completedPlans.size(), rejected.get(),
+				elapsed, planLatencies, stepLatencies, llm.getTotalCalls() - llmCallsBefore, statements, rows,
+				threadsBefore, threadsPeak, threadsAfter);
+	}
+
+	/**
+	 * Submits the plan with the given index and returns its id, or null when it was not
+	 * accepted.
+	 */
+	private String submit(String baseUrl, int planIndex) {
+		try {
+			JsonNode response;
+			if (options.scenario() == LoadScenario.MAP_REDUCE) {
+				response = post(baseUrl + "/api/plan-template/executePlanByTemplateId",
+						Map.of("planTemplateId", TEMPLATE_ID, "rawParam", options.scenario().request(planIndex)));
+			}
+			else {
+				response = post(baseUrl + "/api/executor/execute",
+						Map.of("query", options.scenario().request(planIndex)));
+			}
+			return response != null && response.hasNonNull("planId") ? response.get("planId").asText() : null;
+		}
+		catch (IOException e) {
+			return null;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+	}
+
+	private boolean awaitCompletion(String baseUrl, String planId) {
+		long deadline = System.nanoTime() + options.planTimeout().toNanos();
+		HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/executor/details/" + planId))
+			.GET()
+			.build();
+		try {
+			while (System.nanoTime() < deadline) {
+				HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+				if (response.statusCode() == 200
+						&& objectMapper.readTree(response.body()).path("completed").asBoolean()) {
+					return true;
+				}
+				Thread.sleep(POLL_INTERVAL.toMillis());
+			}
+		}
+		catch (IOException e) {
+			return false;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return false;
+	}
+
+	private JsonNode post(String url, Map<String, String> body) throws IOException, InterruptedException {
+		HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+			.header("Content-Type", "application/json")
+			.POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+			.build();
+		HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+		return response.statusCode() == 200 ? objectMapper.readTree(response.body()) : null;
+	}
+
+	private void saveMapReduceTemplate(String baseUrl) throws IOException, InterruptedException {
+		MapReduceExecutionPlan plan = new MapReduceExecutionPlan(TEMPLATE_ID, TEMPLATE_ID, "Load test map-reduce");
+		plan.addMapReduceNode(new MapReduceNode(
+				List.of(step("[MAPREDUCE_DATA_PREPARE_AGENT] Split " + LoadScenario.INPUT_FILE + " into tasks")),
+				List.of(step("[MAPREDUCE_MAP_TASK_AGENT] Record the lines of the task")),
+				List.of(step("[MAPREDUCE_REDUCE_TASK_AGENT] Merge the recorded lines"))));
+		JsonNode response = post(baseUrl + "/api/plan-template/save",
+				Map.of("planId", TEMPLATE_ID, "planJson", objectMapper.writeValueAsString(plan)));
+		if (response == null) {
+			throw new IllegalStateException("Failed to save the map-reduce plan template");
+		}
+	}
+
+	private static ExecutionStep step(String requirement) {
+		ExecutionStep step = new ExecutionStep();
+		step.setStepRequirement(requirement);
+		return step;
+	}
+
+	private static List<Duration> stepLatencies(PlanExecutionRecord record) {
+		List<Duration> latencies = new ArrayList<>();
+		if (record == null || record.getAgentExecutionSequence() == null) {
+			return latencies;
+		}
+		for (AgentExecutionRecord agent : record.getAgentExecutionSequence()) {
+			LocalDateTime start = agent.getStartTime();
+			LocalDateTime end = agent.getEndTime();
+			if (start != null && end != null) {
+				latencies.add(Duration.between(start, end));
+			}
+		}
+		return latencies;
+	}
+
+	private static void writeInputFile(Path workingDir) throws IOException {
+		StringBuilder content = new StringBuilder();
+		for (int line = 1; line <= 200; line++) {
+			content.append("line ").append(line).append(" of the load test input\n");
+		}
+		Files.writeString(workingDir.resolve(LoadScenario.INPUT_FILE), content);
+	}
+
+	public static void main(String[] args) throws Exception {
+		for (LoadScenario scenario : LoadScenario.fromSystemProperty()) {
+			System.out.println(new LoadTestDriver(Options.fromSystemProperties(scenario)).run().format());
+		}
+	}
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Results of a load test run.
+ *
+ * @param scenario the scenario that was run
+ * @param submitted plans submitted
+ * @param completed plans that completed within the timeout
+ * @param rejected plans the scheduler did not accept
+ * @param elapsed time from the first submission to the last completion
+ * @param planLatencies submission to completion time of the completed plans
+ * @param stepLatencies execution time of the steps of the completed plans
+ * @param llmCalls calls answered by the stub model
+ * @param dbWriteStatements statements writing to the database during the run
+ * @param dbRowsWritten rows inserted, updated or deleted during the run
+ * @param threadsBefore live threads before the run
+ * @param threadsPeak most live threads during the run
+ * @param threadsAfter live threads after the run
+ */
+record LoadTestReport(String scenario, int submitted, int completed, int rejected, Duration elapsed,
+		List<Duration> planLatencies, List<Duration> stepLatencies, long llmCalls, long dbWriteStatements,
+		long dbRowsWritten, int threadsBefore, int threadsPeak, int threadsAfter) {
+
+	double plansPerSecond() {
+		long millis = elapsed.toMillis();
+		return millis > 0 ? completed * 1000.0 / millis : 0;
+	}
+
+	/**
+	 * Returns the given percentile of the durations, using the nearest rank.
+	 */
+	static Duration percentile(List<Duration> durations, double percentile) {
+		if (durations.isEmpty()) {
+			return Duration.ZERO;
+		}
+		List<Duration> sorted = new ArrayList<>(durations);
+		Collections.sort(sorted);
+		int rank = (int) Math.ceil(percentile / 100 * sorted.size());
+		return sorted.get(Math.min(sorted.size() - 1, Math.max(0, rank - 1)));
+	}
+
+	String format() {
+		StringBuilder report = new StringBuilder();
+		report.append("=== jmanus load test: ").append(scenario).append(" ===\n");
+		report.append(
+				String.format("plans       submitted %d, completed %d, rejected %d%n", submitted, completed, rejected));
+		report.append(
+				String.format("throughput  %.2f plans/s over %.1f s%n", plansPerSecond(), elapsed.toMillis() / 1000.0));
+		report.append("plan ms     ").append(percentiles(planLatencies)).append('\n');
+		report.append("step ms     ").append(percentiles(stepLatencies)).append('\n');
+		report.append(String.format("llm calls   %d%n", llmCalls));
+		report.append(String.format("db writes   %d statements, %d rows (%.1f statements per plan)%n",
+				dbWriteStatements, dbRowsWritten, completed > 0 ? (double) dbWriteStatements / completed : 0));
+		report.append(
+				String.format("threads     before %d, peak %d, after %d%n", threadsBefore, threadsPeak, threadsAfter));
+		return report.toString();
+	}
+
+	private static String percentiles(List<Duration> durations) {
+		return String.format("n=%d p50=%d p90=%d p99=%d max=%d", durations.size(), percentile(durations, 50).toMillis(),
+				percentile(durations, 90).toMillis(), percentile(durations, 99).toMillis(),
+				percentile(durations, 100).toMillis());
+	}
+
+}
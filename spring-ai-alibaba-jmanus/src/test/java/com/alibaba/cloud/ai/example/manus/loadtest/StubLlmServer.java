@@ -0,0 +1,292 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local OpenAI compatible chat completions endpoint answering jmanus with scripted
+ * responses, so plans run end to end without a real model.
+ * <p>
+ * The response depends on the tools offered by the request. The planning call gets a
+ * {@code planning} tool call with the steps of the scenario, an agent think call gets the
+ * next scripted tool call of its step, or {@code terminate} once they were all made, and
+ * calls without tools, such as the summary, get plain text. Every response is delayed by
+ * the configured latency plus a random jitter, and streaming requests are answered with
+ * server-sent events.
+ */
+final class StubLlmServer implements AutoCloseable {
+
+	static final String COMPLETIONS_PATH = "/v1/chat/completions";
+
+	private static final Pattern STEP_INDEX = Pattern.compile("STEP (\\d+) :");
+
+	private static final Pattern MAP_TASK_ID = Pattern.compile("(?m)^任务ID: (\\S+)\\s*$");
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final LoadScenario scenario;
+
+	private final Path dataDir;
+
+	private final Duration latency;
+
+	private final Duration jitter;
+
+	private final HttpServer server;
+
+	private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "stub-llm");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final AtomicLong planningCalls = new AtomicLong();
+
+	private final AtomicLong toolCalls = new AtomicLong();
+
+	private final AtomicLong textCalls = new AtomicLong();
+
+	StubLlmServer(LoadScenario scenario, Path dataDir, Duration latency, Duration jitter) throws IOException {
+		this.scenario = scenario;
+		this.dataDir = dataDir;
+		this.latency = latency;
+		this.jitter = jitter;
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		this.server.createContext(COMPLETIONS_PATH, this::handle);
+		this.server.setExecutor(executor);
+		this.server.start();
+	}
+
+	/**
+	 * The base URL to configure as {@code spring.ai.openai.base-url}.
+	 */
+	String getBaseUrl() {
+		return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+	}
+
+	long getPlanningCalls() {
+		return planningCalls.get();
+	}
+
+	long getToolCalls() {
+		return toolCalls.get();
+	}
+
+	long getTextCalls() {
+		return textCalls.get();
+	}
+
+	long getTotalCalls() {
+		return planningCalls.get() + toolCalls.get() + textCalls.get();
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			JsonNode request;
+			try (InputStream body = exchange.getRequestBody()) {
+				request = objectMapper.readTree(body);
+			}
+			ObjectNode message = respond(request);
+			sleepLatency();
+			String model = request.path("model").asText("stub");
+			if (request.path("stream").asBoolean(false)) {
+				writeStream(exchange, model, message);
+			}
+			else {
+				writeCompletion(exchange, model, message);
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Returns the assistant message answering the given request.
+	 */
+	ObjectNode respond(JsonNode request) {
+		List<String> tools = new ArrayList<>();
+		request.path("tools").forEach(tool -> tools.add(tool.path("function").path("name").asText()));
+		if (tools.contains("planning")) {
+			planningCalls.incrementAndGet();
+			return toolCallMessage("call_plan_" + shortId(), new LoadScenario.ToolCall("planning",
+					Map.of("command", "create", "title", "Load test " + scenario.id(), "steps", scenario.planSteps())));
+		}
+		if (tools.contains("terminate")) {
+			toolCalls.incrementAndGet();
+			return nextStepAction(request.path("messages"));
+		}
+		textCalls.incrementAndGet();
+		ObjectNode message = objectMapper.createObjectNode();
+		message.put("role", "assistant");
+		message.put("content", "The " + scenario.id() + " load test plan completed.");
+		return message;
+	}
+
+	private ObjectNode nextStepAction(JsonNode messages) {
+		// The last step and map task mentioned in the prompt are the current ones
+		int stepIndex = 0;
+		String taskId = null;
+		for (JsonNode message : messages) {
+			String content = message.path("content").isTextual() ? message.path("content").asText() : "";
+			Matcher step = STEP_INDEX.matcher(content);
+			while (step.find()) {
+				stepIndex = Integer.parseInt(step.group(1));
+			}
+			Matcher task = MAP_TASK_ID.matcher(content);
+			while (task.find()) {
+				taskId = task.group(1);
+			}
+		}
+		// Tool call ids name their step, so the calls already answered can be counted in
+		// the history of the plan
+		String prefix = "call_s" + stepIndex + (taskId != null ? "_t" + taskId.replaceAll("\\W", "") : "") + "_";
+		int made = 0;
+		for (JsonNode message : messages) {
+			if ("tool".equals(message.path("role").asText())
+					&& message.path("tool_call_id").asText().startsWith(prefix)) {
+				made++;
+			}
+		}
+		List<LoadScenario.ToolCall> actions = scenario.stepActions(stepIndex, taskId, dataDir);
+		LoadScenario.ToolCall call = made < actions.size() ? actions.get(made) : new LoadScenario.ToolCall("terminate",
+				Map.of("columns", List.of("message"), "data", List.of(List.of("step " + stepIndex + " done"))));
+		return toolCallMessage(prefix + made + "_" + shortId(), call);
+	}
+
+	private ObjectNode toolCallMessage(String id, LoadScenario.ToolCall call) {
+		ObjectNode message = objectMapper.createObjectNode();
+		message.put("role", "assistant");
+		message.put("content", "");
+		ObjectNode toolCall = message.putArray("tool_calls").addObject();
+		toolCall.put("id", id);
+		toolCall.put("type", "function");
+		toolCall.putObject("function")
+			.put("name", call.name())
+			.put("arguments", objectMapper.valueToTree(call.arguments()).toString());
+		return message;
+	}
+
+	private void writeCompletion(HttpExchange exchange, String model, ObjectNode message) throws IOException {
+		ObjectNode completion = objectMapper.createObjectNode();
+		completion.put("id", "chatcmpl-" + shortId());
+		completion.put("object", "chat.completion");
+		completion.put("created", System.currentTimeMillis() / 1000);
+		completion.put("model", model);
+		ObjectNode choice = completion.putArray("choices").addObject();
+		choice.put("index", 0);
+		choice.set("message", message);
+		choice.put("finish_reason", message.has("tool_calls") ? "tool_calls" : "stop");
+		completion.set("usage", usage());
+		byte[] body = objectMapper.writeValueAsBytes(completion);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(200, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	private void writeStream(HttpExchange exchange, String model, ObjectNode message) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+		exchange.sendResponseHeaders(200, 0);
+		String id = "chatcmpl-" + shortId();
+		try (OutputStream out = exchange.getResponseBody()) {
+			ObjectNode delta = message.deepCopy();
+			if (delta.has("tool_calls")) {
+				((ArrayNode) delta.get("tool_calls")).forEach(call -> ((ObjectNode) call).put("index", 0));
+			}
+			writeEvent(out, chunk(id, model, delta, null));
+			ObjectNode last = chunk(id, model, objectMapper.createObjectNode(),
+					message.has("tool_calls") ? "tool_calls" : "stop");
+			last.set("usage", usage());
+			writeEvent(out, last);
+			out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	private ObjectNode chunk(String id, String model, ObjectNode delta, String finishReason) {
+		ObjectNode chunk = objectMapper.createObjectNode();
+		chunk.put("id", id);
+		chunk.put("object", "chat.completion.chunk");
+		chunk.put("created", System.currentTimeMillis() / 1000);
+		chunk.put("model", model);
+		ObjectNode choice = chunk.putArray("choices").addObject();
+		choice.put("index", 0);
+		choice.set("delta", delta);
+		choice.put("finish_reason", finishReason);
+		return chunk;
+	}
+
+	private void writeEvent(OutputStream out, ObjectNode data) throws IOException {
+		out.write(("data: " + objectMapper.writeValueAsString(data) + "\n\n").getBytes(StandardCharsets.UTF_8));
+		out.flush();
+	}
+
+	private ObjectNode usage() {
+		ObjectNode usage = objectMapper.createObjectNode();
+		usage.put("prompt_tokens", 100);
+		usage.put("completion_tokens", 20);
+		usage.put("total_tokens", 120);
+		return usage;
+	}
+
+	private void sleepLatency() throws InterruptedException {
+		long millis = latency.toMillis();
+		long jitterMillis = jitter.toMillis();
+		if (jitterMillis > 0) {
+			millis += ThreadLocalRandom.current().nextLong(-jitterMillis, jitterMillis + 1);
+		}
+		if (millis > 0) {
+			Thread.sleep(millis);
+		}
+	}
+
+	private static String shortId() {
+		return UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+	}
+
+}
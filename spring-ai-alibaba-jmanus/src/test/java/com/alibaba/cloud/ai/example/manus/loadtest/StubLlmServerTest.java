@@ -0,0 +1,138 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StubLlmServerTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private StubLlmServer server;
+
+	@AfterEach
+	void tearDown() {
+		if (server != null) {
+			server.close();
+		}
+	}
+
+	@Test
+	void planningCallGetsTheScenarioSteps() throws Exception {
+		server = new StubLlmServer(LoadScenario.FILE, Path.of("data"), Duration.ZERO, Duration.ZERO);
+
+		JsonNode call = server.respond(request("planning", "Load test plan 0")).get("tool_calls").get(0);
+
+		assertEquals("planning", call.path("function").path("name").asText());
+		JsonNode arguments = objectMapper.readTree(call.path("function").path("arguments").asText());
+		assertEquals("create", arguments.path("command").asText());
+		assertEquals(LoadScenario.FILE.planSteps().size(), arguments.path("steps").size());
+		assertEquals(1, server.getPlanningCalls());
+	}
+
+	@Test
+	void stepMakesItsScriptedCallsAndThenTerminates() throws Exception {
+		server = new StubLlmServer(LoadScenario.FILE, Path.of("data"), Duration.ZERO, Duration.ZERO);
+		ObjectNode request = request("terminate", "STEP 1 :[TEXT_FILE_AGENT] Update the status");
+
+		JsonNode first = server.respond(request).get("tool_calls").get(0);
+		answer(request, first);
+		JsonNode second = server.respond(request).get("tool_calls").get(0);
+		answer(request, second);
+		JsonNode third = server.respond(request).get("tool_calls").get(0);
+
+		assertEquals("text_file_operator", first.path("function").path("name").asText());
+		assertTrue(first.path("function").path("arguments").asText().contains("replace"));
+		assertTrue(second.path("function").path("arguments").asText().contains("count_words"));
+		assertEquals("terminate", third.path("function").path("name").asText());
+		assertEquals(3, server.getToolCalls());
+	}
+
+	@Test
+	void mapTasksAreScriptedByTaskId() throws Exception {
+		server = new StubLlmServer(LoadScenario.MAP_REDUCE, Path.of("data"), Duration.ZERO, Duration.ZERO);
+
+		JsonNode call = server
+			.respond(request("terminate", "STEP 1 :[MAPREDUCE_MAP_TASK_AGENT] Record\n任务ID: task_003\n文件内容: x"))
+			.get("tool_calls")
+			.get(0);
+
+		JsonNode arguments = objectMapper.readTree(call.path("function").path("arguments").asText());
+		assertEquals("record_map_output", arguments.path("action").asText());
+		assertEquals("task_003", arguments.path("task_id").asText());
+	}
+
+	@Test
+	void servesCompletionsAndStreamsOverHttpAfterTheLatency() throws Exception {
+		server = new StubLlmServer(LoadScenario.FILE, Path.of("data"), Duration.ofMillis(100), Duration.ZERO);
+		HttpClient client = HttpClient.newHttpClient();
+		ObjectNode request = objectMapper.createObjectNode();
+		request.put("model", "stub-model");
+		request.putArray("messages").addObject().put("role", "user").put("content", "Summarize");
+
+		long started = System.nanoTime();
+		HttpResponse<String> completion = client.send(post(request), HttpResponse.BodyHandlers.ofString());
+		long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+		request.put("stream", true);
+		HttpResponse<String> stream = client.send(post(request), HttpResponse.BodyHandlers.ofString());
+
+		assertTrue(elapsedMillis >= 100, "responded after " + elapsedMillis + " ms");
+		JsonNode choice = objectMapper.readTree(completion.body()).path("choices").get(0);
+		assertEquals("stop", choice.path("finish_reason").asText());
+		assertTrue(choice.path("message").path("content").asText().contains("completed"));
+		assertTrue(stream.headers().firstValue("Content-Type").orElse("").startsWith("text/event-stream"));
+		assertTrue(stream.body().contains("chat.completion.chunk"));
+		assertTrue(stream.body().endsWith("data: [DONE]\n\n"));
+		assertEquals(2, server.getTextCalls());
+	}
+
+	private HttpRequest post(JsonNode body) {
+		return HttpRequest.newBuilder(URI.create(server.getBaseUrl() + StubLlmServer.COMPLETIONS_PATH))
+			.header("Content-Type", "application/json")
+			.POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+			.build();
+	}
+
+	private ObjectNode request(String tool, String prompt) {
+		ObjectNode request = objectMapper.createObjectNode();
+		request.put("model", "stub-model");
+		request.putArray("messages").addObject().put("role", "user").put("content", prompt);
+		request.putArray("tools").addObject().put("type", "function").putObject("function").put("name", tool);
+		return request;
+	}
+
+	private void answer(ObjectNode request, JsonNode toolCall) {
+		ArrayNode messages = (ArrayNode) request.get("messages");
+		messages.addObject().put("role", "assistant").putArray("tool_calls").add(toolCall);
+		messages.addObject().put("role", "tool").put("tool_call_id", toolCall.path("id").asText()).put("content", "ok");
+	}
+
+}
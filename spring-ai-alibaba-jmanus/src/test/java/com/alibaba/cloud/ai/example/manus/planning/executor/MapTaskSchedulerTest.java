@@ -0,0 +1,161 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.planning.executor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MapTaskSchedulerTest {
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+	private final List<String> completed = Collections.synchronizedList(new ArrayList<>());
+
+	private final List<String> failed = Collections.synchronizedList(new ArrayList<>());
+
+	private final MapTaskScheduler.Listener listener = new MapTaskScheduler.Listener() {
+
+		@Override
+		public void onCompleted(String taskDirectory, long durationMillis) {
+			completed.add(taskDirectory);
+		}
+
+		@Override
+		public void onFailed(String taskDirectory, Throwable error) {
+			failed.add(taskDirectory);
+		}
+
+	};
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void idleWorkersStealTasksQueuedBehindSlowTask() throws Exception {
+		CountDownLatch slowTaskRelease = new CountDownLatch(1);
+		MapTaskScheduler scheduler = new MapTaskScheduler(executor, 2, false, 0, taskDirectory -> {
+			if (taskDirectory.equals("task_000")) {
+				slowTaskRelease.await();
+			}
+			return null;
+		}, listener);
+
+		// task_000, task_002 and task_004 are dealt to the worker blocked by task_000
+		var done = scheduler.start(tasks(6));
+
+		waitUntil(() -> completed.size() == 5);
+		assertTrue(completed.containsAll(List.of("task_002", "task_004")));
+		slowTaskRelease.countDown();
+		assertNull(done.get(5, TimeUnit.SECONDS));
+		assertEquals(6, completed.size());
+	}
+
+	@Test
+	void backupAttemptFinishesStraggler() throws Exception {
+		CountDownLatch firstAttemptRelease = new CountDownLatch(1);
+		Map<String, AtomicInteger> attempts = new ConcurrentHashMap<>();
+		MapTaskScheduler scheduler = new MapTaskScheduler(executor, 2, true, 50, taskDirectory -> {
+			int attempt = attempts.computeIfAbsent(taskDirectory, key -> new AtomicInteger()).incrementAndGet();
+			if (taskDirectory.equals("task_000") && attempt == 1) {
+				firstAttemptRelease.await();
+			}
+			return null;
+		}, listener);
+
+		var done = scheduler.start(tasks(3));
+
+		done.get(5, TimeUnit.SECONDS);
+		assertEquals(1, scheduler.getBackupAttempts());
+		assertEquals(2, attempts.get("task_000").get());
+		assertEquals(3, completed.size());
+
+		// The first attempt finishing late does not complete the task a second time
+		firstAttemptRelease.countDown();
+		Thread.sleep(100);
+		assertEquals(3, completed.size());
+	}
+
+	@Test
+	void idleWorkersReleaseTheirThreadsWhileTheLastTaskRuns() throws Exception {
+		CountDownLatch slowTaskRelease = new CountDownLatch(1);
+		ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+		MapTaskScheduler scheduler = new MapTaskScheduler(executor, 4, true, 60_000, taskDirectory -> {
+			if (taskDirectory.equals("task_000")) {
+				slowTaskRelease.await();
+			}
+			return null;
+		}, listener);
+
+		var done = scheduler.start(tasks(4));
+
+		// Only the slow task keeps a thread, the straggler checks run briefly
+		waitUntil(() -> completed.size() == 3 && pool.getActiveCount() <= 1);
+		assertEquals(0, scheduler.getBackupAttempts());
+		slowTaskRelease.countDown();
+		assertNull(done.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void failedTasksAreReportedAndDoNotStopOthers() throws Exception {
+		MapTaskScheduler scheduler = new MapTaskScheduler(executor, 3, true, 50, taskDirectory -> {
+			if (taskDirectory.equals("task_001")) {
+				throw new IllegalStateException("task did not complete");
+			}
+			return null;
+		}, listener);
+
+		scheduler.start(tasks(4)).get(5, TimeUnit.SECONDS);
+
+		assertEquals(List.of("task_001"), failed);
+		assertEquals(3, completed.size());
+	}
+
+	private List<String> tasks(int count) {
+		List<String> tasks = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			tasks.add(String.format("task_%03d", i));
+		}
+		return tasks;
+	}
+
+	private void waitUntil(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertTrue(condition.getAsBoolean());
+	}
+
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.planning.executor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TreeReducerTest {
+
+	private static final int FAN_IN = 8;
+
+	private static final int MAX_BATCH_TOKENS = 2000;
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+	private final AtomicInteger running = new AtomicInteger();
+
+	private final AtomicInteger maxRunning = new AtomicInteger();
+
+	@TempDir
+	Path tempDir;
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void thousandsOfMapOutputsReduceToOneBatch() throws IOException {
+		List<TreeReducer.ReduceInput> leaves = writeMapOutputs(3000);
+		List<Integer> combineLevels = new ArrayList<>();
+		TreeReducer reducer = new TreeReducer(executor, FAN_IN, MAX_BATCH_TOKENS, tempDir.resolve("reduce"),
+				(level, inputs) -> {
+					synchronized (combineLevels) {
+						combineLevels.add(level);
+					}
+					return stubCombine(inputs);
+				});
+
+		leaves.forEach(reducer::add);
+		List<TreeReducer.ReduceInput> remaining = reducer.finish();
+
+		assertEquals(1, TreeReducer.group(remaining, Integer.MAX_VALUE, MAX_BATCH_TOKENS).size());
+		assertEquals("covers 0-2999", coveredRange(remaining));
+		// 3000 -> 375 -> 47 -> 6 inputs, the last level fits into the final reduce batch
+		assertEquals(3, combineLevels.stream().mapToInt(Integer::intValue).max().orElse(0));
+		assertTrue(maxRunning.get() > 1, "combines of a level should run in parallel");
+	}
+
+	@Test
+	void oversizedInputIsPassedOnWithoutCombining() throws IOException {
+		List<TreeReducer.ReduceInput> leaves = writeMapOutputs(20);
+		leaves.set(5, new TreeReducer.ReduceInput(leaves.get(5).directory(), MAX_BATCH_TOKENS + 1));
+		TreeReducer reducer = new TreeReducer(executor, FAN_IN, MAX_BATCH_TOKENS, tempDir.resolve("reduce"),
+				(level, inputs) -> stubCombine(inputs));
+
+		leaves.forEach(reducer::add);
+		List<TreeReducer.ReduceInput> remaining = reducer.finish();
+
+		assertTrue(remaining.contains(leaves.get(5)));
+		assertEquals("covers 0-19", coveredRange(remaining));
+	}
+
+	@Test
+	void failedCombinePassesItsInputsOn() throws IOException {
+		List<TreeReducer.ReduceInput> leaves = writeMapOutputs(16);
+		TreeReducer reducer = new TreeReducer(executor, FAN_IN, MAX_BATCH_TOKENS, tempDir.resolve("reduce"),
+				(level, inputs) -> {
+					if (inputs.contains(leaves.get(0))) {
+						throw new IllegalStateException("model unavailable");
+					}
+					return stubCombine(inputs);
+				});
+
+		leaves.forEach(reducer::add);
+		List<TreeReducer.ReduceInput> remaining = reducer.finish();
+
+		assertTrue(remaining.containsAll(leaves.subList(0, FAN_IN)));
+		assertEquals("covers 0-15", coveredRange(remaining));
+	}
+
+	/**
+	 * Writes map outputs of varying size, each starting with the range of leaves it
+	 * covers.
+	 */
+	private List<TreeReducer.ReduceInput> writeMapOutputs(int count) throws IOException {
+		List<TreeReducer.ReduceInput> leaves = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Path taskDirectory = tempDir.resolve("tasks").resolve(String.format("task_%04d", i));
+			Files.createDirectories(taskDirectory);
+			String output = "covers " + i + "-" + i + "\n" + "synthetic map result line\n".repeat(10 + i % 40);
+			Files.writeString(taskDirectory.resolve("output.md"), output);
+			leaves.add(new TreeReducer.ReduceInput(taskDirectory.toString(), TreeReducer.estimateTokens(output)));
+		}
+		return leaves;
+	}
+
+	/**
+	 * Stands in for the model: checks the batch and summarizes it as the range of leaves
+	 * it covers.
+	 */
+	private String stubCombine(List<TreeReducer.ReduceInput> inputs) throws Exception {
+		int now = running.incrementAndGet();
+		maxRunning.accumulateAndGet(now, Math::max);
+		try {
+			assertTrue(inputs.size() <= FAN_IN);
+			assertTrue(inputs.stream().mapToInt(TreeReducer.ReduceInput::tokens).sum() <= MAX_BATCH_TOKENS);
+			Thread.sleep(2);
+			return coveredRange(inputs) + "\nsummary\n";
+		}
+		finally {
+			running.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Returns the range covered by the inputs, failing unless they cover consecutive
+	 * leaves in order.
+	 */
+	private String coveredRange(List<TreeReducer.ReduceInput> inputs) throws IOException {
+		int first = -1;
+		int last = -1;
+		for (TreeReducer.ReduceInput input : inputs) {
+			String header = Files.readAllLines(input.outputFile()).get(0);
+			String[] range = header.substring("covers ".length()).split("-");
+			int from = Integer.parseInt(range[0]);
+			if (first < 0) {
+				first = from;
+			}
+			else {
+				assertEquals(last + 1, from, "inputs must cover consecutive leaves");
+			}
+			last = Integer.parseInt(range[1]);
+		}
+		return "covers " + first + "-" + last;
+	}
+
+}
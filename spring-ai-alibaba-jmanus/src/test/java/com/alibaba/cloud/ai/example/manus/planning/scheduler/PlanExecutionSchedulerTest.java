@@ -0,0 +1,147 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.planning.scheduler;
+
+import com.alibaba.cloud.ai.example.manus.config.ManusProperties;
+import com.alibaba.cloud.ai.example.manus.planning.scheduler.PlanExecutionScheduler.Admission;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PlanExecutionSchedulerTest {
+
+	private final ManusProperties properties = mock(ManusProperties.class);
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	private final List<String> started = new CopyOnWriteArrayList<>();
+
+	private PlanExecutionScheduler scheduler;
+
+	@BeforeEach
+	void setUp() {
+		when(properties.getSchedulerMaxConcurrentPlans()).thenReturn(1);
+		when(properties.getSchedulerMaxPlansPerTenant()).thenReturn(1);
+		when(properties.getSchedulerQueueCapacity()).thenReturn(2);
+		when(properties.getInfiniteContextParallelThreads()).thenReturn(2);
+		scheduler = new PlanExecutionScheduler(properties, meterRegistry);
+	}
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		scheduler.destroy();
+	}
+
+	@Test
+	void queuesByPriorityAndRejectsWhenFull() throws Exception {
+		assertEquals(0, scheduler.submit("plan-1", null, 0, blocking("plan-1")).queuePosition());
+		assertEquals(1, scheduler.submit("plan-2", null, 0, blocking("plan-2")).queuePosition());
+		assertEquals(1, scheduler.submit("plan-3", null, 5, blocking("plan-3")).queuePosition());
+		assertEquals(2, scheduler.getQueuePosition("plan-2"));
+
+		Admission rejected = scheduler.submit("plan-4", null, 9, blocking("plan-4"));
+		assertFalse(rejected.accepted());
+		assertEquals(1.0, meterRegistry.get("jmanus.plan.rejected").counter().count());
+		assertEquals(2.0, meterRegistry.get("jmanus.plan.queue.depth").gauge().value());
+
+		release.countDown();
+		awaitStarted(3);
+		assertEquals(List.of("plan-1", "plan-3", "plan-2"), started);
+		assertEquals(3, meterRegistry.get("jmanus.plan.queue.wait").timer().count());
+	}
+
+	@Test
+	void resumedPlansAreQueuedEvenWhenTheQueueIsFull() throws Exception {
+		scheduler.submit("plan-1", null, 0, blocking("plan-1"));
+		scheduler.submit("plan-2", null, 0, blocking("plan-2"));
+		scheduler.submit("plan-3", null, 0, blocking("plan-3"));
+		assertFalse(scheduler.submit("plan-4", null, 0, blocking("plan-4")).accepted());
+
+		Admission resumed = scheduler.resume("plan-0", null, 0, blocking("plan-0"));
+		assertTrue(resumed.accepted());
+		assertEquals(3, resumed.queuePosition());
+
+		release.countDown();
+		awaitStarted(4);
+		assertEquals(List.of("plan-1", "plan-2", "plan-3", "plan-0"), started);
+	}
+
+	@Test
+	void tenantAtItsLimitDoesNotBlockOtherTenants() throws Exception {
+		when(properties.getSchedulerMaxConcurrentPlans()).thenReturn(2);
+		scheduler.submit("a-1", "tenant-a", 0, blocking("a-1"));
+		assertEquals(1, scheduler.submit("a-2", "tenant-a", 0, blocking("a-2")).queuePosition());
+		assertEquals(0, scheduler.submit("b-1", "tenant-b", 0, blocking("b-1")).queuePosition());
+		awaitStarted(2);
+		assertEquals(2, scheduler.runningCount());
+		assertEquals(1, scheduler.getQueuePosition("a-2"));
+
+		release.countDown();
+		awaitStarted(3);
+		assertEquals("a-2", started.get(2));
+	}
+
+	@Test
+	void mapTasksShareOneResizableExecutor() {
+		ThreadPoolExecutor executor = (ThreadPoolExecutor) scheduler.getMapTaskExecutor();
+		assertEquals(2, executor.getMaximumPoolSize());
+
+		when(properties.getInfiniteContextParallelThreads()).thenReturn(6);
+		assertSame(executor, scheduler.getMapTaskExecutor());
+		assertEquals(6, executor.getCorePoolSize());
+
+		scheduler.destroy();
+		assertTrue(executor.isShutdown());
+	}
+
+	private Runnable blocking(String planId) {
+		return () -> {
+			started.add(planId);
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		};
+	}
+
+	private void awaitStarted(int count) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (started.size() < count && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(count, started.size());
+	}
+
+}
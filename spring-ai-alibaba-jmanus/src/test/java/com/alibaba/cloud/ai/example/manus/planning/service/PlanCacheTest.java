@@ -0,0 +1,132 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.planning.service;
+
+import com.alibaba.cloud.ai.example.manus.planning.model.vo.ExecutionPlan;
+import com.alibaba.cloud.ai.example.manus.planning.model.vo.ExecutionStep;
+import com.alibaba.cloud.ai.example.manus.planning.model.vo.PlanInterface;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PlanCacheTest {
+
+	@Test
+	void fingerprintTakesOutParameters() {
+		PlanRequestFingerprint fingerprint = PlanRequestFingerprint
+			.of("Search  \"spring ai\" and save the top 5 results to /tmp/out.md, don't use https://example.com/a?b=1");
+
+		assertEquals("search {} and save the top {} results to {}, don't use {}", fingerprint.strippedRequest());
+		assertEquals(List.of("spring ai", "5", "/tmp/out.md", "https://example.com/a?b=1"), fingerprint.parameters());
+		assertEquals(fingerprint.strippedRequest(),
+				PlanRequestFingerprint
+					.of("search \"jmanus\" and save the top 10 results to /data/x.md, don't use " + "http://other.org")
+					.strippedRequest());
+		// Digits inside words are not parameters
+		assertEquals(List.of(), PlanRequestFingerprint.of("convert the mp3 with utf8 and/or gbk").parameters());
+	}
+
+	@Test
+	void cachedPlanIsReusedWithTheNewParameters() {
+		PlanCache cache = new PlanCache(() -> 60, () -> 10);
+		PlanRequestFingerprint first = PlanRequestFingerprint
+			.of("Search \"spring ai\" and save the results to /tmp/out.md");
+		cache.put("key", first, plan("Search for spring ai",
+				"Save the results of spring ai to /tmp/out.md, not /tmp/out.md.bak", "plan-1"));
+
+		PlanInterface reused = cache.get("key",
+				PlanRequestFingerprint.of("Search \"jmanus\" and save the results to /data/x.md"));
+
+		assertInstanceOf(ExecutionPlan.class, reused);
+		assertEquals("Search for jmanus", reused.getTitle());
+		assertEquals("Save the results of jmanus to /data/x.md, not /tmp/out.md.bak",
+				reused.getAllSteps().get(0).getStepRequirement());
+		assertNull(reused.getCurrentPlanId());
+		assertNull(reused.getUserRequest());
+	}
+
+	@Test
+	void requestsWithOtherParametersOrRepeatedValuesMiss() {
+		PlanCache cache = new PlanCache(() -> 60, () -> 10);
+		cache.put("key", PlanRequestFingerprint.of("Summarize \"spring ai\""),
+				plan("Summary", "Summarize spring ai", "p"));
+
+		assertNull(cache.get("key", PlanRequestFingerprint.of("Summarize the page")));
+		assertNull(cache.get("other", PlanRequestFingerprint.of("Summarize \"jmanus\"")));
+		assertNotNull(cache.get("key", PlanRequestFingerprint.of("Summarize \"jmanus\"")));
+
+		cache.put("repeated", PlanRequestFingerprint.of("Compare \"spring\" and \"spring\""),
+				plan("Compare", "Compare spring and spring", "p"));
+		assertNull(cache.get("repeated", PlanRequestFingerprint.of("Compare \"spring\" and \"jmanus\"")));
+	}
+
+	@Test
+	void requestsWithNumbersOrShortValuesAreNeverTemplated() {
+		PlanCache cache = new PlanCache(() -> 60, () -> 10);
+		cache.put("numbers", PlanRequestFingerprint.of("List the top 5 results"), plan("Top 5", "List 5 results", "p"));
+		cache.put("short", PlanRequestFingerprint.of("Translate \"a\" to French"),
+				plan("Translate a", "Translate a word, then write a note", "p"));
+
+		assertEquals(0, cache.size());
+		assertNull(cache.get("numbers", PlanRequestFingerprint.of("List the top 7 results")));
+		assertNull(cache.get("short", PlanRequestFingerprint.of("Translate \"b\" to French")));
+	}
+
+	@Test
+	void plansWhosePlaceholdersDoNotRoundTripAreNotStored() {
+		PlanCache cache = new PlanCache(() -> 60, () -> 10);
+		cache.put("key", PlanRequestFingerprint.of("Summarize \"spring ai\""),
+				plan("Summary", "Write {{plan_param_0}} about spring ai", "p"));
+
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	void entriesExpireAndLeastRecentlyUsedAreEvicted() {
+		AtomicInteger ttlMinutes = new AtomicInteger(0);
+		PlanCache cache = new PlanCache(ttlMinutes::get, () -> 2);
+		PlanRequestFingerprint fingerprint = PlanRequestFingerprint.of("Summarize the page");
+		cache.put("expired", fingerprint, plan("Summary", "Summarize", "p"));
+		assertNull(cache.get("expired", fingerprint));
+
+		ttlMinutes.set(60);
+		cache.put("a", fingerprint, plan("A", "a", "p"));
+		cache.put("b", fingerprint, plan("B", "b", "p"));
+		cache.get("a", fingerprint);
+		cache.put("c", fingerprint, plan("C", "c", "p"));
+
+		assertEquals(2, cache.size());
+		assertNotNull(cache.get("a", fingerprint));
+		assertNull(cache.get("b", fingerprint));
+		assertNotNull(cache.get("c", fingerprint));
+	}
+
+	private ExecutionPlan plan(String title, String stepRequirement, String planId) {
+		ExecutionPlan plan = new ExecutionPlan(planId, planId, title);
+		plan.setUserRequest(title);
+		ExecutionStep step = new ExecutionStep();
+		step.setStepRequirement(stepRequirement);
+		plan.addStep(step);
+		return plan;
+	}
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.planning.service;
+
+import com.alibaba.cloud.ai.example.manus.tool.FormInputTool;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserInputServiceTest {
+
+	private final UserInputService service = new UserInputService();
+
+	@Test
+	void submissionCompletesTheWait() throws Exception {
+		FormInputTool tool = formAwaitingInput();
+		CompletableFuture<FormInputTool.InputState> input = service.awaitUserInput("plan-1", tool, 60);
+		assertFalse(input.isDone());
+		assertNotNull(service.getWaitState("plan-1"));
+
+		assertTrue(service.submitUserInputs("plan-1", Map.of("name", "jmanus")));
+
+		assertEquals(FormInputTool.InputState.INPUT_RECEIVED, input.get(1, TimeUnit.SECONDS));
+		assertEquals("jmanus", tool.getLatestUserFormInput().getInputs().get(0).getValue());
+		assertNull(service.getWaitState("plan-1"));
+		// The form only takes one submission
+		assertFalse(service.submitUserInputs("plan-1", Map.of("name", "again")));
+	}
+
+	@Test
+	void timeoutCompletesTheWaitAndRejectsLateInput() throws Exception {
+		FormInputTool tool = formAwaitingInput();
+		CompletableFuture<FormInputTool.InputState> input = service.awaitUserInput("plan-1", tool, 1);
+
+		assertEquals(FormInputTool.InputState.INPUT_TIMEOUT, input.get(5, TimeUnit.SECONDS));
+		assertEquals(FormInputTool.InputState.INPUT_TIMEOUT, tool.getInputState());
+		assertFalse(service.submitUserInputs("plan-1", Map.of("name", "late")));
+	}
+
+	@Test
+	void removingTheFormCancelsTheWait() {
+		CompletableFuture<FormInputTool.InputState> input = service.awaitUserInput("plan-1", formAwaitingInput(), 60);
+
+		service.removeFormInputTool("plan-1");
+
+		assertTrue(input.isCancelled());
+	}
+
+	private FormInputTool formAwaitingInput() {
+		FormInputTool tool = new FormInputTool();
+		tool.run(new FormInputTool.UserFormInput(List.of(new FormInputTool.InputItem("name", null)), "Who are you?"));
+		return tool;
+	}
+
+}
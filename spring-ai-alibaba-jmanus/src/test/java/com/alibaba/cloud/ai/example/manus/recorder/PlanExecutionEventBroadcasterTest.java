@@ -0,0 +1,219 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.recorder;
+
+import com.alibaba.cloud.ai.example.manus.recorder.PlanExecutionEventBroadcaster.EventSink;
+import com.alibaba.cloud.ai.example.manus.recorder.PlanExecutionEventBroadcaster.StreamEvent;
+import com.alibaba.cloud.ai.example.manus.recorder.PlanExecutionEventBroadcaster.Subscription;
+import com.alibaba.cloud.ai.example.manus.recorder.entity.AgentExecutionRecord;
+import com.alibaba.cloud.ai.example.manus.recorder.entity.PlanExecutionRecord;
+import com.alibaba.cloud.ai.example.manus.recorder.entity.ThinkActRecord;
+import com.alibaba.cloud.ai.example.manus.recorder.repository.PlanExecutionEventStore;
+import com.alibaba.cloud.ai.example.manus.recorder.repository.PlanExecutionRecordRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the server-sent event push of plan execution events, including resume and the
+ * bounded per-subscriber buffer.
+ */
+class PlanExecutionEventBroadcasterTest {
+
+	private JdbcTemplate jdbcTemplate;
+
+	private RepositoryPlanExecutionRecorder recorder;
+
+	private PlanExecutionEventBroadcaster broadcaster;
+
+	@BeforeEach
+	void setUp() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MYSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE plan_execution_event (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+				+ "root_plan_id VARCHAR(255) NOT NULL, plan_id VARCHAR(255), event_type VARCHAR(16) NOT NULL, "
+				+ "record_id BIGINT, parent_id BIGINT, payload TEXT, gmt_create TIMESTAMP NOT NULL)");
+		PlanExecutionEventStore eventStore = new PlanExecutionEventStore(jdbcTemplate);
+		recorder = new RepositoryPlanExecutionRecorder(eventStore, (PlanExecutionRecordRepository) null);
+		broadcaster = new PlanExecutionEventBroadcaster(recorder, eventStore, new ObjectMapper(), 4);
+	}
+
+	@AfterEach
+	void tearDown() {
+		broadcaster.destroy();
+		recorder.destroy();
+		jdbcTemplate.execute("SHUTDOWN");
+	}
+
+	@Test
+	void pushesEventsAsTheyAreRecordedAndCompletesWithThePlan() throws Exception {
+		PlanExecutionRecord plan = recorder.getOrCreatePlanExecutionRecord("plan-1", "plan-1", null);
+		CollectingSink sink = new CollectingSink();
+		broadcaster.subscribe("plan-1", 0L, sink);
+
+		Long agentId = recorder.recordAgentExecution(plan, new AgentExecutionRecord("plan-1", "browser", "browses"));
+		ThinkActRecord step = new ThinkActRecord(agentId);
+		step.startThinking("look up");
+		recorder.recordThinkActExecution(plan, agentId, step);
+		recorder.flush();
+		sink.awaitEvents(3);
+		assertEquals(List.of("PLAN", "AGENT", "THINK_ACT"), sink.types());
+		assertEquals(agentId, sink.events.get(2).parentId());
+
+		recorder.recordPlanCompletion(plan, "done");
+		assertTrue(sink.completed.await(5, TimeUnit.SECONDS));
+		StreamEvent last = sink.events.get(sink.events.size() - 1);
+		assertTrue(last.record().path("completed").asBoolean());
+		assertEquals("done", last.record().path("summary").asText());
+		assertSequencesIncrease(sink.events);
+		assertEquals(0, broadcaster.subscriberCount("plan-1"));
+	}
+
+	@Test
+	void resumesAfterTheLastReceivedSequence() throws Exception {
+		PlanExecutionRecord plan = recorder.getOrCreatePlanExecutionRecord("plan-2", "plan-2", null);
+		Long agentId = recorder.recordAgentExecution(plan, new AgentExecutionRecord("plan-2", "browser", "browses"));
+		recorder.recordThinkActExecution(plan, agentId, new ThinkActRecord(agentId));
+		recorder.flush();
+
+		CollectingSink first = new CollectingSink();
+		broadcaster.subscribe("plan-2", 0L, first);
+		first.awaitEvents(3);
+		long resumeAfter = first.events.get(1).sequence();
+
+		CollectingSink resumed = new CollectingSink();
+		broadcaster.subscribe("plan-2", resumeAfter, resumed);
+		resumed.awaitEvents(1);
+		assertEquals(List.of("THINK_ACT"), resumed.types());
+		assertEquals(first.events.get(2).sequence(), resumed.events.get(0).sequence());
+	}
+
+	@Test
+	void slowSubscriberCatchesUpFromTheStoreWithABoundedBuffer() throws Exception {
+		PlanExecutionRecord plan = recorder.getOrCreatePlanExecutionRecord("plan-3", "plan-3", null);
+		recorder.flush();
+
+		CountDownLatch release = new CountDownLatch(1);
+		CollectingSink slow = new CollectingSink() {
+			@Override
+			public void send(StreamEvent event) {
+				super.send(event);
+				await(release);
+			}
+		};
+		Subscription subscription = broadcaster.subscribe("plan-3", 0L, slow);
+		slow.awaitEvents(1);
+
+		Long agentId = recorder.recordAgentExecution(plan, new AgentExecutionRecord("plan-3", "browser", "browses"));
+		for (int i = 0; i < 10; i++) {
+			recorder.recordThinkActExecution(plan, agentId, new ThinkActRecord(agentId));
+		}
+		recorder.flush();
+		Thread.sleep(100);
+		assertEquals(4, subscription.buffered());
+
+		release.countDown();
+		slow.awaitEvents(12);
+		assertEquals("AGENT", slow.events.get(1).type());
+		assertSequencesIncrease(slow.events);
+	}
+
+	@Test
+	void subscriptionsRacingTheRemovalOfAnIdleChannelStayAttached() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			List<Future<?>> churn = new CopyOnWriteArrayList<>();
+			for (int t = 0; t < 2; t++) {
+				churn.add(executor.submit(() -> {
+					for (int i = 0; i < 200; i++) {
+						Subscription subscription = broadcaster.subscribe("plan-4", 0L, new CollectingSink());
+						assertTrue(broadcaster.subscriberCount("plan-4") > 0);
+						subscription.close();
+					}
+				}));
+			}
+			for (Future<?> future : churn) {
+				future.get(30, TimeUnit.SECONDS);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		assertEquals(0, broadcaster.subscriberCount("plan-4"));
+	}
+
+	private static void assertSequencesIncrease(List<StreamEvent> events) {
+		for (int i = 1; i < events.size(); i++) {
+			assertTrue(events.get(i).sequence() > events.get(i - 1).sequence());
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static class CollectingSink implements EventSink {
+
+		final List<StreamEvent> events = new CopyOnWriteArrayList<>();
+
+		final CountDownLatch completed = new CountDownLatch(1);
+
+		@Override
+		public void send(StreamEvent event) {
+			events.add(event);
+		}
+
+		@Override
+		public void complete() {
+			completed.countDown();
+		}
+
+		void awaitEvents(int count) throws InterruptedException {
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (events.size() < count && System.nanoTime() < deadline) {
+				Thread.sleep(10);
+			}
+			assertEquals(count, events.size());
+		}
+
+		List<String> types() {
+			return events.stream().map(StreamEvent::type).toList();
+		}
+
+	}
+
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.recorder;
+
+import com.alibaba.cloud.ai.example.manus.recorder.entity.AgentExecutionRecord;
+import com.alibaba.cloud.ai.example.manus.recorder.entity.PlanExecutionEventEntity;
+import com.alibaba.cloud.ai.example.manus.recorder.entity.PlanExecutionRecord;
+import com.alibaba.cloud.ai.example.manus.recorder.entity.ThinkActRecord;
+import com.alibaba.cloud.ai.example.manus.recorder.repository.PlanExecutionEventStore;
+import com.alibaba.cloud.ai.example.manus.recorder.repository.PlanExecutionRecordRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.util.json.JsonParser;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the append-only persistence of RepositoryPlanExecutionRecorder against an
+ * in-memory H2 database, including a benchmark of the per-step write cost.
+ */
+class RepositoryPlanExecutionRecorderTest {
+
+	private static final Logger log = LoggerFactory.getLogger(RepositoryPlanExecutionRecorderTest.class);
+
+	private JdbcTemplate jdbcTemplate;
+
+	private PlanExecutionEventStore eventStore;
+
+	private RepositoryPlanExecutionRecorder recorder;
+
+	@BeforeEach
+	void setUp() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MYSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE plan_execution_event (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+				+ "root_plan_id VARCHAR(255) NOT NULL, plan_id VARCHAR(255), event_type VARCHAR(16) NOT NULL, "
+				+ "record_id BIGINT, parent_id BIGINT, payload TEXT, gmt_create TIMESTAMP NOT NULL)");
+		jdbcTemplate
+			.execute("CREATE INDEX idx_plan_execution_event_root_plan_id ON plan_execution_event (root_plan_id)");
+		eventStore = new PlanExecutionEventStore(jdbcTemplate);
+		recorder = new RepositoryPlanExecutionRecorder(eventStore, (PlanExecutionRecordRepository) null);
+	}
+
+	@AfterEach
+	void tearDown() {
+		recorder.destroy();
+		jdbcTemplate.execute("SHUTDOWN");
+	}
+
+	@Test
+	void reconstructsPlanTreeFromEvents() {
+		PlanExecutionRecord plan = recorder.getOrCreatePlanExecutionRecord("plan-1", "plan-1", null);
+		plan.setTitle("research");
+		plan.setCurrentStepIndex(0);
+		recorder.recordPlanExecution(plan);
+
+		AgentExecutionRecord agent = new AgentExecutionRecord("plan-1", "browser", "browses");
+		Long agentId = recorder.recordAgentExecution(plan, agent);
+		ThinkActRecord step = new ThinkActRecord(agentId);
+		step.startThinking("look up");
+		recorder.recordThinkActExecution(plan, agentId, step);
+		step.finishThinking("use the browser");
+		step.finishAction("page loaded", "SUCCESS");
+		recorder.recordThinkActExecution(plan, agentId, step);
+
+		PlanExecutionRecord subPlan = recorder.getOrCreatePlanExecutionRecord("plan-1-sub", "plan-1", step.getId());
+		subPlan.setCurrentStepIndex(0);
+		AgentExecutionRecord subAgent = new AgentExecutionRecord("plan-1-sub", "writer", "writes");
+		Long subAgentId = recorder.recordAgentExecution(subPlan, subAgent);
+		recorder.recordThinkActExecution(subPlan, subAgentId, new ThinkActRecord(subAgentId));
+
+		agent.setStatus("COMPLETED");
+		recorder.recordAgentExecution(plan, agent);
+		recorder.recordPlanCompletion(plan, "done");
+
+		PlanExecutionRecord details = recorder.getExecutionDetails("plan-1");
+		assertNotNull(details);
+		assertTrue(details != plan, "details should be a snapshot");
+		assertEquals("research", details.getTitle());
+		assertTrue(details.isCompleted());
+		assertEquals("done", details.getSummary());
+		assertEquals(1, details.getAgentExecutionSequence().size());
+		AgentExecutionRecord storedAgent = details.getAgentExecutionSequence().get(0);
+		assertEquals("COMPLETED", storedAgent.getStatus());
+		assertEquals(1, storedAgent.getThinkActSteps().size());
+		ThinkActRecord storedStep = storedAgent.getThinkActSteps().get(0);
+		assertEquals("page loaded", storedStep.getActionResult());
+		PlanExecutionRecord storedSubPlan = storedStep.getSubPlanExecutionRecord();
+		assertNotNull(storedSubPlan);
+		assertEquals("plan-1-sub", storedSubPlan.getCurrentPlanId());
+		assertEquals(1, storedSubPlan.getAgentExecutionSequence().size());
+		assertEquals(1, storedSubPlan.getAgentExecutionSequence().get(0).getThinkActSteps().size());
+
+		// A plan picked up again is rebuilt from its events
+		PlanExecutionRecord reloaded = recorder.getExecutionRecord("plan-1", "plan-1", null);
+		assertEquals("writer",
+				recorder.getExecutionRecord("plan-1-sub", "plan-1", step.getId())
+					.getAgentExecutionSequence()
+					.get(0)
+					.getAgentName());
+		assertEquals(1, reloaded.getAgentExecutionSequence().size());
+
+		recorder.removeExecutionRecord("plan-1");
+		assertNull(recorder.getExecutionDetails("plan-1"));
+	}
+
+	@Test
+	void concurrentFirstAccessCreatesThePlanOnce() throws Exception {
+		int threads = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<PlanExecutionRecord>> plans = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				plans.add(executor.submit(() -> {
+					start.await();
+					return recorder.getOrCreatePlanExecutionRecord("plan-c", "plan-c", null);
+				}));
+			}
+			start.countDown();
+			PlanExecutionRecord first = plans.get(0).get(10, TimeUnit.SECONDS);
+			for (Future<PlanExecutionRecord> plan : plans) {
+				assertSame(first, plan.get(10, TimeUnit.SECONDS));
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		recorder.flush();
+		assertEquals(1, eventStore.findByRootPlanId("plan-c").size());
+	}
+
+	@Test
+	void perStepWriteCostStaysConstant() {
+		int windows = 8;
+		int stepsPerWindow = 250;
+		String input = "x".repeat(2048);
+
+		PlanExecutionRecord plan = recorder.getOrCreatePlanExecutionRecord("bench", "bench", null);
+		plan.setCurrentStepIndex(0);
+		AgentExecutionRecord agent = new AgentExecutionRecord("bench", "agent", "benchmark");
+		Long agentId = recorder.recordAgentExecution(plan, agent);
+
+		long[] windowNanos = new long[windows];
+		int[] fullRecordBytes = new int[windows];
+		for (int window = 0; window < windows; window++) {
+			long start = System.nanoTime();
+			for (int i = 0; i < stepsPerWindow; i++) {
+				ThinkActRecord step = new ThinkActRecord(agentId);
+				step.startThinking(input);
+				recorder.recordThinkActExecution(plan, agentId, step);
+				step.finishThinking("think " + i);
+				step.startAction("act", "tool", "{}");
+				step.finishAction("result " + i, "SUCCESS");
+				recorder.recordThinkActExecution(plan, agentId, step);
+			}
+			recorder.flush();
+			windowNanos[window] = System.nanoTime() - start;
+			// what the single-row recorder re-serialized on every step
+			fullRecordBytes[window] = JsonParser.toJson(plan).length();
+		}
+
+		List<PlanExecutionEventEntity> events = eventStore.findByRootPlanId("bench");
+		List<PlanExecutionEventEntity> stepEvents = events.stream()
+			.filter(event -> event.getEventType() == PlanExecutionEventEntity.EventType.THINK_ACT)
+			.toList();
+		assertEquals(2 * windows * stepsPerWindow, stepEvents.size());
+
+		int eventsPerWindow = 2 * stepsPerWindow;
+		long firstWindowBytes = payloadBytes(stepEvents.subList(0, eventsPerWindow));
+		long lastWindowBytes = payloadBytes(stepEvents.subList(stepEvents.size() - eventsPerWindow, stepEvents.size()));
+		for (int window = 0; window < windows; window++) {
+			log.info("window {}: {} us/step, single-row record would be {} KB", window,
+					windowNanos[window] / 1000 / stepsPerWindow, fullRecordBytes[window] / 1024);
+		}
+		log.info("bytes written per step: first window {}, last window {}", firstWindowBytes / stepsPerWindow,
+				lastWindowBytes / stepsPerWindow);
+
+		assertTrue(lastWindowBytes <= firstWindowBytes * 1.1, "per-step payload should not grow with the plan");
+		// skip the first window, which includes JIT warm-up
+		assertTrue(windowNanos[windows - 1] <= windowNanos[1] * 3, "per-step write time should not grow with the plan");
+	}
+
+	private static long payloadBytes(List<PlanExecutionEventEntity> events) {
+		return events.stream().mapToLong(event -> event.getPayload().length()).sum();
+	}
+
+}
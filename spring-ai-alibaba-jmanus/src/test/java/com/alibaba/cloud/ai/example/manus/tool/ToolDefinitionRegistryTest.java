@@ -0,0 +1,77 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.tool;
+
+import com.alibaba.cloud.ai.example.manus.dynamic.mcp.model.vo.McpServiceEntity;
+import com.alibaba.cloud.ai.example.manus.tool.bash.Bash;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.mcp.AsyncMcpToolCallbackProvider;
+import org.springframework.ai.tool.ToolCallback;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ToolDefinitionRegistryTest {
+
+	private final ToolDefinitionRegistry registry = new ToolDefinitionRegistry();
+
+	@Test
+	void instancesOfOneToolShareTheirDefinition() {
+		ToolCallback first = registry.toolCallback(new Bash(null));
+		ToolCallback second = registry.toolCallback(new Bash(null));
+
+		assertNotSame(first, second);
+		assertSame(first.getToolDefinition(), second.getToolDefinition());
+		assertEquals("bash", first.getToolDefinition().name());
+	}
+
+	@Test
+	void definitionsDependingOnTerminateColumnsAreKeptApart() {
+		ToolCallback message = registry.toolCallback(new TerminateTool("plan-1", List.of("message")));
+		ToolCallback sameColumns = registry.toolCallback(new TerminateTool("plan-2", List.of("message")));
+		ToolCallback table = registry.toolCallback(new TerminateTool("plan-3", List.of("name", "age")));
+
+		assertSame(message.getToolDefinition(), sameColumns.getToolDefinition());
+		assertNotSame(message.getToolDefinition(), table.getToolDefinition());
+		assertTrue(table.getToolDefinition().inputSchema().contains("age"));
+		assertTrue(table.getToolMetadata().returnDirect());
+	}
+
+	@Test
+	void mcpToolsAreListedOncePerConnection() {
+		AsyncMcpToolCallbackProvider provider = mock(AsyncMcpToolCallbackProvider.class);
+		ToolCallback[] tools = { mock(ToolCallback.class) };
+		when(provider.getToolCallbacks()).thenReturn(tools);
+		McpServiceEntity connection = new McpServiceEntity(null, provider, "server");
+		McpServiceEntity reconnected = new McpServiceEntity(null, provider, "server");
+
+		assertSame(tools, registry.mcpToolCallbacks(connection));
+		assertSame(tools, registry.mcpToolCallbacks(connection));
+		verify(provider, times(1)).getToolCallbacks();
+
+		registry.mcpToolCallbacks(reconnected);
+		verify(provider, times(2)).getToolCallbacks();
+	}
+
+}
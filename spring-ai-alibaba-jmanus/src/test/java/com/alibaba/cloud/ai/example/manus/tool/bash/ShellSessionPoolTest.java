@@ -0,0 +1,163 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.tool.bash;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisabledOnOs(OS.WINDOWS)
+class ShellSessionPoolTest {
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+	private final ShellSessionPool pool = new ShellSessionPool(Duration.ofMinutes(1), 4, 1000);
+
+	@TempDir
+	Path workingDir;
+
+	@AfterEach
+	void tearDown() {
+		pool.close();
+	}
+
+	@Test
+	void stateCarriesOverBetweenCommands() throws Exception {
+		run("mkdir sub && cd sub && export GREETING='it'\\''s me'");
+
+		assertEquals(workingDir.resolve("sub").toRealPath() + "\n", run("pwd").output());
+		assertEquals("it's me\n", run("echo \"$GREETING\"").output());
+		assertEquals("no newline", run("printf 'no newline'").output());
+	}
+
+	@Test
+	void exitCodesAndStderrAreCaptured() throws Exception {
+		ShellSessionPool.Result result = run("echo out; echo err >&2; exit_with() { return $1; }; exit_with 3");
+
+		assertEquals(3, result.exitCode());
+		assertEquals("out\nerr\n", result.output());
+		assertEquals(2, run("if then").exitCode());
+		assertEquals(0, run("true").exitCode());
+	}
+
+	@Test
+	void timeoutKillsOnlyTheRunningCommand() throws Exception {
+		run("cd " + workingDir + " && MARK=kept");
+
+		ShellSessionPool.Result result = pool.execute("plan", workingDir.toString(), "echo started; sleep 30",
+				Duration.ofMillis(300));
+
+		assertTrue(result.timedOut());
+		assertFalse(result.sessionClosed());
+		assertTrue(result.output().startsWith("started\n"), result.output());
+		assertEquals("kept\n", run("echo $MARK").output());
+		assertEquals(1, pool.size());
+	}
+
+	@Test
+	void commandHangingInTheShellCostsTheSession() throws Exception {
+		ShellSessionPool.Result result = pool.execute("plan", workingDir.toString(), "while true; do :; done",
+				Duration.ofMillis(300));
+
+		assertTrue(result.timedOut());
+		assertTrue(result.sessionClosed());
+		assertEquals("fresh\n", run("echo fresh").output());
+	}
+
+	@Test
+	void exitEndsTheSessionAndTheNextCommandGetsANewOne() throws Exception {
+		assertEquals(7, run("exit 7").exitCode());
+		assertEquals("again\n", run("echo again").output());
+	}
+
+	@Test
+	void outputIsCutAtTheLimit() throws Exception {
+		String output = run("head -c 5000 /dev/zero | tr '\\0' 'x'").output();
+
+		assertTrue(output.startsWith("x".repeat(1000)));
+		assertTrue(output.endsWith("... [4000 characters truncated]\n"), output);
+		assertEquals("small\n", run("echo small").output());
+	}
+
+	@Test
+	void backgroundOutputIsReturnedWithTheNextCommand() throws Exception {
+		run("(sleep 0.2; echo from background) &");
+		Thread.sleep(500);
+
+		assertEquals("from background\n", run(":").output());
+	}
+
+	@Test
+	void idleSessionsAreReaped() throws Exception {
+		try (ShellSessionPool reaping = new ShellSessionPool(Duration.ofMillis(200), 4, 1000)) {
+			reaping.execute("plan", workingDir.toString(), "true", TIMEOUT);
+			assertEquals(1, reaping.size());
+
+			long deadline = System.currentTimeMillis() + 5000;
+			while (reaping.size() > 0 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(50);
+			}
+			assertEquals(0, reaping.size());
+		}
+	}
+
+	@Test
+	void leastRecentlyUsedSessionIsClosedAtTheLimit() throws Exception {
+		for (int i = 0; i < 5; i++) {
+			pool.execute("plan-" + i, workingDir.toString(), "true", TIMEOUT);
+		}
+
+		assertEquals(4, pool.size());
+		assertFalse(pool.interrupt("plan-0"));
+	}
+
+	@Test
+	void sessionsAreFasterThanAProcessPerCommand() throws Exception {
+		LinuxShellExecutor perProcess = new LinuxShellExecutor();
+		for (int i = 0; i < 5; i++) {
+			run("echo warm-up");
+			perProcess.execute(List.of("echo warm-up"), workingDir.toString());
+		}
+
+		long start = System.nanoTime();
+		for (int i = 0; i < 50; i++) {
+			run("echo " + i);
+		}
+		long session = System.nanoTime() - start;
+		start = System.nanoTime();
+		for (int i = 0; i < 50; i++) {
+			perProcess.execute(List.of("echo " + i), workingDir.toString());
+		}
+		long process = System.nanoTime() - start;
+
+		assertTrue(session < process, "session " + session / 1_000_000 + " ms, process " + process / 1_000_000 + " ms");
+	}
+
+	private ShellSessionPool.Result run(String command) throws Exception {
+		return pool.execute("plan", workingDir.toString(), command, TIMEOUT);
+	}
+
+}
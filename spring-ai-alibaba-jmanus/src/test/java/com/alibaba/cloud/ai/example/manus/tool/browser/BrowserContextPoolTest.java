@@ -0,0 +1,290 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.tool.browser;
+
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.BrowserType;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Playwright;
+import com.microsoft.playwright.options.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BrowserContextPoolTest {
+
+	private final List<FakeBrowser> launched = new ArrayList<>();
+
+	private final List<Browser.NewContextOptions> contextOptions = new ArrayList<>();
+
+	private BrowserContextPool pool;
+
+	@AfterEach
+	void tearDown() {
+		if (pool != null) {
+			pool.close();
+		}
+	}
+
+	@Test
+	void plansShareBrowsersAndWaitForAReleasedContext() throws Exception {
+		pool = fakePool(1, 2, Duration.ofSeconds(5));
+
+		DriverWrapper first = pool.acquire("plan-1");
+		DriverWrapper second = pool.acquire("plan-2");
+		assertSame(first, pool.acquire("plan-1"));
+		assertNotSame(first.getBrowserContext(), second.getBrowserContext());
+		assertSame(first.getBrowserLock(), second.getBrowserLock());
+
+		// The only browser is full, plan-3 waits until a plan releases its context
+		CompletableFuture<DriverWrapper> third = CompletableFuture.supplyAsync(() -> pool.acquire("plan-3"));
+		Thread.sleep(100);
+		assertFalse(third.isDone());
+		assertFalse(first.isClosed());
+		assertFalse(second.isClosed());
+
+		pool.release("plan-2");
+
+		assertFalse(third.get(5, TimeUnit.SECONDS).isClosed());
+		assertTrue(second.isClosed());
+		assertFalse(first.isClosed());
+		assertEquals(1, pool.launchCount());
+		assertEquals(2, pool.contextCount());
+	}
+
+	@Test
+	void extraBrowserStartsWhenNoContextIsReleasedInTime() {
+		pool = fakePool(1, 1, Duration.ofMillis(50));
+
+		DriverWrapper first = pool.acquire("plan-1");
+		DriverWrapper second = pool.acquire("plan-2");
+
+		assertFalse(first.isClosed());
+		assertNotSame(first.getBrowserLock(), second.getBrowserLock());
+		assertEquals(2, pool.launchCount());
+	}
+
+	@Test
+	void extraBrowsersAreCapped() {
+		pool = fakePool(1, 1, Duration.ofMillis(50));
+		int plans = 1 + BrowserContextPool.MAX_EXTRA_BROWSERS;
+		for (int i = 0; i < plans; i++) {
+			pool.acquire("plan-" + i);
+		}
+
+		assertThrows(IllegalStateException.class, () -> pool.acquire("plan-" + plans));
+		assertEquals(plans, pool.launchCount());
+		assertEquals(plans, pool.browserCount());
+	}
+
+	@Test
+	void idleExtraBrowserIsClosed() {
+		pool = fakePool(1, 1, Duration.ofMillis(50));
+		pool.acquire("plan-1");
+		pool.acquire("plan-2");
+		assertEquals(2, pool.browserCount());
+
+		pool.release("plan-2");
+
+		assertEquals(1, pool.browserCount());
+		assertFalse(launched.get(0).ownerClosed.get());
+		assertTrue(launched.get(1).ownerClosed.get());
+
+		// Releasing the last plan keeps the browser within maxBrowsers
+		pool.release("plan-1");
+		assertEquals(1, pool.browserCount());
+		assertFalse(launched.get(0).ownerClosed.get());
+	}
+
+	@Test
+	void browserStartsOutsideOfThePoolLock() throws Exception {
+		CountDownLatch launchRelease = new CountDownLatch(1);
+		pool = new BrowserContextPool(() -> {
+			try {
+				launchRelease.await();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			FakeBrowser browser = new FakeBrowser();
+			return new BrowserContextPool.LaunchedBrowser(browser.browser, () -> browser.ownerClosed.set(true));
+		}, Browser.NewContextOptions::new, () -> 1, () -> 4, Duration.ofSeconds(5));
+
+		CompletableFuture<DriverWrapper> first = CompletableFuture.supplyAsync(() -> pool.acquire("plan-1"));
+		Thread.sleep(100);
+
+		// Would block on the pool lock if the launch held it
+		assertEquals(0, CompletableFuture.supplyAsync(pool::browserCount).get(1, TimeUnit.SECONDS));
+		launchRelease.countDown();
+		assertFalse(first.get(5, TimeUnit.SECONDS).isClosed());
+		assertEquals(1, pool.browserCount());
+	}
+
+	@Test
+	void crashedBrowserIsReplaced() {
+		pool = fakePool(2, 4);
+		DriverWrapper before = pool.acquire("plan-1");
+
+		launched.get(0).crash();
+		DriverWrapper after = pool.acquire("plan-1");
+
+		assertNotSame(before, after);
+		assertEquals(2, pool.launchCount());
+		assertEquals(1, pool.browserCount());
+		assertTrue(launched.get(0).ownerClosed.get());
+		assertFalse(launched.get(1).ownerClosed.get());
+	}
+
+	@Test
+	void newContextsStartWithoutStorageOfOtherPlans() {
+		pool = fakePool(1, 4);
+		pool.acquire("plan-1");
+		pool.release("plan-1");
+		pool.acquire("plan-2");
+
+		assertNull(contextOptions.get(0).storageState);
+		assertNull(contextOptions.get(1).storageState);
+	}
+
+	@Test
+	void contextsAreIsolatedInRealBrowser() throws Exception {
+		pool = new BrowserContextPool(this::launchChromium, Browser.NewContextOptions::new, () -> 1, () -> 4,
+				Duration.ofSeconds(5));
+		DriverWrapper first;
+		try {
+			first = pool.acquire("plan-1");
+		}
+		catch (RuntimeException e) {
+			Assumptions.abort("Chromium is not available: " + e.getMessage());
+			return;
+		}
+		DriverWrapper second = pool.acquire("plan-2");
+		Path fixture = Paths.get(getClass().getResource("/browser/pool-fixture.html").toURI());
+
+		Page page = first.getCurrentPage();
+		page.navigate(fixture.toUri().toString());
+		page.fill("#query", "jmanus");
+		page.click("#submit");
+		assertEquals("jmanus", page.textContent("#result"));
+		assertEquals("Browser Pool Fixture", page.title());
+		assertEquals("about:blank", second.getCurrentPage().url());
+
+		first.getBrowserContext()
+			.addCookies(List.of(new Cookie("session", "plan-1").setDomain("fixture.local").setPath("/")));
+		assertTrue(second.getBrowserContext().cookies().isEmpty());
+
+		pool.release("plan-1");
+		long start = System.nanoTime();
+		DriverWrapper third = pool.acquire("plan-3");
+		long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+		assertEquals(1, pool.launchCount());
+		assertTrue(third.getBrowserContext().cookies().isEmpty(), "cookies of plan-1 must not leak");
+		assertTrue(elapsedMillis < 2000, "context creation took " + elapsedMillis + " ms");
+	}
+
+	private BrowserContextPool fakePool(int maxBrowsers, int maxContextsPerBrowser) {
+		return fakePool(maxBrowsers, maxContextsPerBrowser, Duration.ofSeconds(5));
+	}
+
+	private BrowserContextPool fakePool(int maxBrowsers, int maxContextsPerBrowser, Duration capacityWait) {
+		return new BrowserContextPool(() -> {
+			FakeBrowser browser = new FakeBrowser();
+			launched.add(browser);
+			return new BrowserContextPool.LaunchedBrowser(browser.browser, () -> browser.ownerClosed.set(true));
+		}, () -> {
+			Browser.NewContextOptions options = new Browser.NewContextOptions();
+			contextOptions.add(options);
+			return options;
+		}, () -> maxBrowsers, () -> maxContextsPerBrowser, capacityWait);
+	}
+
+	private BrowserContextPool.LaunchedBrowser launchChromium() {
+		// Fail fast instead of downloading browsers when they are not installed
+		Playwright playwright = Playwright
+			.create(new Playwright.CreateOptions().setEnv(Map.of("PLAYWRIGHT_SKIP_BROWSER_DOWNLOAD", "1")));
+		try {
+			Browser browser = playwright.chromium().launch(new BrowserType.LaunchOptions().setHeadless(true));
+			return new BrowserContextPool.LaunchedBrowser(browser, playwright);
+		}
+		catch (RuntimeException e) {
+			playwright.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Mocked browser whose contexts can be created and closed, and which can be made to
+	 * crash.
+	 */
+	private static final class FakeBrowser {
+
+		private final Browser browser = mock(Browser.class);
+
+		private final AtomicBoolean connected = new AtomicBoolean(true);
+
+		private final AtomicBoolean ownerClosed = new AtomicBoolean();
+
+		private Consumer<Browser> onDisconnected;
+
+		@SuppressWarnings("unchecked")
+		private FakeBrowser() {
+			when(browser.isConnected()).thenAnswer(invocation -> connected.get());
+			doAnswer(invocation -> {
+				onDisconnected = invocation.getArgument(0);
+				return null;
+			}).when(browser).onDisconnected(any(Consumer.class));
+			when(browser.newContext(any(Browser.NewContextOptions.class))).thenAnswer(invocation -> {
+				BrowserContext context = mock(BrowserContext.class);
+				when(context.newPage()).thenReturn(mock(Page.class));
+				when(context.storageState()).thenReturn("{\"cookies\":[],\"origins\":[]}");
+				return context;
+			});
+		}
+
+		private void crash() {
+			connected.set(false);
+			onDisconnected.accept(browser);
+		}
+
+	}
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.tool.browser;
+
+import com.microsoft.playwright.Frame;
+import com.microsoft.playwright.Page;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InteractiveElementRegistryTest {
+
+	private final Page page = mock(Page.class);
+
+	private final Frame mainFrame = mock(Frame.class);
+
+	private final Frame childFrame = mock(Frame.class);
+
+	@BeforeEach
+	void setUp() {
+		when(page.mainFrame()).thenReturn(mainFrame);
+		when(page.frames()).thenReturn(List.of(mainFrame));
+	}
+
+	@Test
+	void indicesStayStableAcrossIncrementalRefreshes() {
+		InteractiveElementRegistry registry = new InteractiveElementRegistry();
+		when(mainFrame.evaluate(anyString(), any())).thenReturn(
+				result("a", true, List.of(element("a-0", "Home"), element("a-1", "Search"), element("a-2", "Login")),
+						List.of()),
+				result("a", false, List.of(), List.of()),
+				result("a", false, List.of(element("a-2", "Logout"), element("a-3", "Profile")), List.of("a-1")),
+				result("a", false, List.of(), List.of()));
+
+		String initial = registry.generateElementsInfoText(page);
+		String unchanged = registry.generateElementsInfoText(page);
+		String changed = registry.generateElementsInfoText(page);
+
+		assertSame(initial, unchanged);
+		assertNotSame(initial, changed);
+		assertEquals(List.of(0, 2, 3), indices(registry.getAllElements(page)));
+		assertEquals("Logout", registry.getElementById(2).orElseThrow().getText());
+		assertEquals("Profile", registry.getElementById(3).orElseThrow().getText());
+		assertTrue(registry.getElementById(1).isEmpty());
+
+		ArgumentCaptor<Object> options = ArgumentCaptor.forClass(Object.class);
+		verify(mainFrame, times(4)).evaluate(anyString(), options.capture());
+		assertEquals(Map.of("incremental", true, "complete", true), options.getAllValues().get(0));
+		assertEquals(Map.of("incremental", true, "complete", false), options.getAllValues().get(1));
+	}
+
+	@Test
+	void newDocumentsAndDetachedFramesDropTheirElements() {
+		InteractiveElementRegistry registry = new InteractiveElementRegistry();
+		when(page.frames()).thenReturn(List.of(mainFrame, childFrame), List.of(mainFrame), List.of(mainFrame));
+		when(mainFrame.evaluate(anyString(), any())).thenReturn(
+				result("a", true, List.of(element("a-0", "Home")), List.of()), result("a", false, List.of(), List.of()),
+				result("b", true, List.of(element("b-0", "Next page")), List.of()));
+		when(childFrame.evaluate(anyString(), any()))
+			.thenReturn(result("c", true, List.of(element("c-0", "Embedded")), List.of()));
+
+		registry.refresh(page);
+		assertEquals(2, registry.size());
+		assertEquals("Embedded", registry.getElementById(1).orElseThrow().getText());
+
+		// The iframe was removed
+		registry.refresh(page);
+		assertEquals(1, registry.size());
+		assertEquals("Home", registry.getElementById(0).orElseThrow().getText());
+
+		// The main frame navigated, so numbering starts again
+		registry.refresh(page);
+		assertEquals(1, registry.size());
+		assertEquals("Next page", registry.getElementById(0).orElseThrow().getText());
+	}
+
+	@Test
+	void fullModeRenumbersEveryRefresh() {
+		InteractiveElementRegistry registry = new InteractiveElementRegistry(false);
+		when(mainFrame.evaluate(anyString(), any())).thenReturn(
+				result("a", true, List.of(element("a-0", "Home"), element("a-1", "Search")), List.of()),
+				result("b", true, List.of(element("b-0", "Search")), List.of()));
+
+		registry.refresh(page);
+		registry.refresh(page);
+
+		assertEquals(1, registry.size());
+		assertEquals("Search", registry.getElementById(0).orElseThrow().getText());
+	}
+
+	private List<Integer> indices(List<InteractiveElement> elements) {
+		List<Integer> indices = new ArrayList<>();
+		for (InteractiveElement element : elements) {
+			indices.add(element.getIndex());
+		}
+		return indices;
+	}
+
+	private Map<String, Object> result(String token, boolean complete, List<Map<String, Object>> elements,
+			List<String> removed) {
+		return Map.of("token", token, "complete", complete, "elements", elements, "removed", removed);
+	}
+
+	private Map<String, Object> element(String id, String text) {
+		return Map.of("tagName", "button", "text", text, "outerHtml", "<button>" + text + "</button>", "xpath",
+				"html/body/button", "jManusId", id);
+	}
+
+}
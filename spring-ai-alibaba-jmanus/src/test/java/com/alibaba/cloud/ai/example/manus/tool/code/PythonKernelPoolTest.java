@@ -0,0 +1,194 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.tool.code;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+@DisabledOnOs(OS.WINDOWS)
+class PythonKernelPoolTest {
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(20);
+
+	private final PythonKernelPool pool = new PythonKernelPool(Duration.ofMinutes(1), 4, 256L << 20, 1000);
+
+	@BeforeAll
+	static void requirePython() throws Exception {
+		boolean available;
+		try {
+			available = new ProcessBuilder("python3", "--version").start().waitFor() == 0;
+		}
+		catch (Exception e) {
+			available = false;
+		}
+		assumeTrue(available, "python3 is not installed");
+	}
+
+	@AfterEach
+	void tearDown() {
+		pool.close();
+	}
+
+	@Test
+	void namespaceCarriesOverBetweenCells() throws Exception {
+		run("import collections\ncounts = collections.Counter('hello')");
+
+		PythonKernelPool.Result result = run("print(counts['l'], json.dumps({'a': 1}))");
+
+		assertEquals(0, result.status());
+		assertEquals("2 {\"a\": 1}\n", result.output());
+	}
+
+	@Test
+	void outputIsStreamedWhileTheCellRuns() throws Exception {
+		List<String> lines = new CopyOnWriteArrayList<>();
+		CountDownLatch firstLine = new CountDownLatch(1);
+		CompletableFuture<PythonKernelPool.Result> cell = CompletableFuture.supplyAsync(() -> {
+			try {
+				return pool.execute("plan", null, "import time\nprint('first')\ntime.sleep(30)", TIMEOUT, line -> {
+					lines.add(line);
+					firstLine.countDown();
+				});
+			}
+			catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+
+		assertTrue(firstLine.await(10, TimeUnit.SECONDS));
+		assertFalse(cell.isDone());
+		assertEquals(List.of("first"), lines);
+
+		pool.interrupt("plan");
+		assertEquals(130, cell.get(10, TimeUnit.SECONDS).status());
+	}
+
+	@Test
+	void exceptionsAreReportedAndKeepTheNamespace() throws Exception {
+		run("x = 41");
+
+		PythonKernelPool.Result failed = run("print('before')\nundefined_name");
+
+		assertEquals(1, failed.status());
+		assertTrue(failed.output().startsWith("before\n"), failed.output());
+		assertTrue(failed.output().contains("NameError"), failed.output());
+		assertFalse(failed.kernelLost());
+		assertEquals("42\n", run("print(x + 1)").output());
+		assertEquals(3, run("import sys\nsys.exit(3)").status());
+		assertEquals("42\n", run("print(x + 1)").output());
+	}
+
+	@Test
+	void timeoutInterruptsTheCellAndKeepsTheNamespace() throws Exception {
+		run("x = 'kept'");
+
+		PythonKernelPool.Result result = pool.execute("plan", null, "print('started')\nwhile True:\n    pass",
+				Duration.ofMillis(500));
+
+		assertTrue(result.timedOut());
+		assertFalse(result.kernelLost());
+		assertEquals(130, result.status());
+		assertTrue(result.output().contains("KeyboardInterrupt"), result.output());
+		assertEquals("kept\n", run("print(x)").output());
+	}
+
+	@Test
+	void kernelIgnoringTheInterruptIsRestarted() throws Exception {
+		run("import signal\nsignal.signal(signal.SIGINT, signal.SIG_IGN)\nx = 1");
+
+		PythonKernelPool.Result result = pool.execute("plan", null, "while True:\n    pass", Duration.ofMillis(300));
+
+		assertTrue(result.timedOut());
+		assertTrue(result.kernelLost());
+		assertEquals(1, run("print(x)").status());
+	}
+
+	@Test
+	void kernelAboveTheMemoryLimitIsRestarted() throws Exception {
+		assumeTrue(Files.exists(Path.of("/proc/self/status")), "needs procfs");
+
+		PythonKernelPool.Result result = run("import time\nblock = bytearray(512 << 20)\ntime.sleep(30)");
+
+		assertTrue(result.kernelLost());
+		assertFalse(result.timedOut());
+		assertTrue(result.output().contains("Memory limit of 256 MB exceeded"), result.output());
+		assertEquals("fresh\n", run("print('fresh')").output());
+	}
+
+	@Test
+	void outputIsCutAtTheLimit() throws Exception {
+		String output = run("print('x' * 5000)").output();
+
+		assertTrue(output.startsWith("x".repeat(1000)));
+		assertTrue(output.endsWith("... [4001 characters truncated]\n"), output);
+	}
+
+	@Test
+	void idleKernelsAreEvicted() throws Exception {
+		try (PythonKernelPool evicting = new PythonKernelPool(Duration.ofMillis(200), 4, 256L << 20, 1000)) {
+			evicting.execute("plan", null, "pass", TIMEOUT);
+			assertEquals(1, evicting.size());
+
+			long deadline = System.currentTimeMillis() + 5000;
+			while (evicting.size() > 0 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(50);
+			}
+			assertEquals(0, evicting.size());
+		}
+	}
+
+	@Test
+	void warmKernelIsFasterThanAFreshInterpreter() throws Exception {
+		run("pass");
+		// Let the spare kernel finish its imports
+		Thread.sleep(1000);
+
+		long start = System.nanoTime();
+		for (int i = 0; i < 10; i++) {
+			assertEquals(0, pool.execute("plan-" + (i % 2), null, "print(" + i + ")", TIMEOUT).status());
+		}
+		long warm = System.nanoTime() - start;
+		start = System.nanoTime();
+		for (int i = 0; i < 10; i++) {
+			assertEquals(0, new ProcessBuilder("python3", "-c", "print(" + i + ")").start().waitFor());
+		}
+		long fresh = System.nanoTime() - start;
+
+		assertTrue(warm < fresh, "warm " + warm / 1_000_000 + " ms, fresh " + fresh / 1_000_000 + " ms");
+	}
+
+	private PythonKernelPool.Result run(String code) throws Exception {
+		return pool.execute("plan", null, code, TIMEOUT);
+	}
+
+}
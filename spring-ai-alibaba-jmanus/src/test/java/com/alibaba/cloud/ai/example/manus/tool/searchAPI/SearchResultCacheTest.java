@@ -0,0 +1,281 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.tool.searchAPI;
+
+import com.alibaba.cloud.ai.example.manus.config.ManusProperties;
+import com.alibaba.cloud.ai.example.manus.tool.searchAPI.entity.SearchResultCacheEntity;
+import com.alibaba.cloud.ai.example.manus.tool.searchAPI.repository.SearchResultCacheRepository;
+import com.alibaba.cloud.ai.example.manus.tool.searchAPI.serpapi.SerpApiProperties;
+import com.alibaba.cloud.ai.example.manus.tool.searchAPI.serpapi.SerpApiService;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SearchResultCacheTest {
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final ManusProperties manusProperties = mock(ManusProperties.class);
+
+	private final List<String> queries = new CopyOnWriteArrayList<>();
+
+	private final AtomicInteger failures = new AtomicInteger();
+
+	private volatile long delayMillis;
+
+	private HttpServer server;
+
+	private String url;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		when(manusProperties.getSearchCacheEnabled()).thenReturn(true);
+		when(manusProperties.getSearchCacheTtlMinutes()).thenReturn(60);
+		when(manusProperties.getSearchCacheMaxEntries()).thenReturn(100);
+		when(manusProperties.getSearchCachePersistent()).thenReturn(false);
+
+		// Stub of the SerpAPI search endpoint answering with the query it received
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.createContext("/search", exchange -> {
+			String query = URLDecoder.decode(exchange.getRequestURI().getRawQuery().replaceAll(".*[?&]?q=", ""),
+					StandardCharsets.UTF_8);
+			queries.add(query);
+			try {
+				Thread.sleep(delayMillis);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			int status = failures.getAndUpdate(n -> Math.max(0, n - 1)) > 0 ? 500 : 200;
+			// SerpAPI reports errors with HTTP 200 and an error field
+			String json = query.startsWith("error") ? "{\"error\":\"Invalid API key.\"}"
+					: "{\"organic_results\":[{\"snippet\":\"result for " + query + "\"}]}";
+			byte[] body = json.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(status, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		server.start();
+		url = "http://127.0.0.1:" + server.getAddress().getPort() + "/search";
+	}
+
+	@AfterEach
+	void tearDown() {
+		server.stop(0);
+	}
+
+	@Test
+	void nearIdenticalQueriesShareOneRequest() {
+		SearchResultCache cache = cache(null);
+		SerpApiService service = service(cache);
+
+		assertEquals("result for Spring AI  Alibaba", snippet(service.apply(request("Spring AI  Alibaba"))));
+		assertEquals("result for Spring AI  Alibaba", snippet(service.apply(request("  spring ai alibaba "))));
+		assertEquals("result for Spring AI  Alibaba", snippet(service.apply(request("ＳＰＲＩＮＧ AI Alibaba"))));
+		snippet(service.apply(request("jmanus")));
+
+		assertEquals(List.of("Spring AI  Alibaba", "jmanus"), queries);
+		assertEquals(2, requests("hit"));
+		assertEquals(2, requests("miss"));
+		assertEquals(0.5, meterRegistry.get("jmanus.search.cache.hit.ratio").gauge().value());
+	}
+
+	@Test
+	void concurrentIdenticalQueriesAreCoalesced() throws Exception {
+		delayMillis = 300;
+		SerpApiService service = service(cache(null));
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<String>> results = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				results.add(executor.submit(() -> {
+					start.await();
+					return snippet(service.apply(request("same query")));
+				}));
+			}
+			start.countDown();
+			for (Future<String> result : results) {
+				assertEquals("result for same query", result.get());
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(1, queries.size());
+		assertEquals(7, requests("coalesced") + requests("hit"));
+	}
+
+	@Test
+	void expiredAndFailedSearchesAreRequestedAgain() {
+		SerpApiService service = service(cache(null));
+		failures.set(1);
+
+		assertNull(service.apply(request("flaky")));
+		assertEquals("result for flaky", snippet(service.apply(request("flaky"))));
+		assertEquals(2, queries.size());
+
+		when(manusProperties.getSearchCacheTtlMinutes()).thenReturn(0);
+		snippet(service.apply(request("expiring")));
+		snippet(service.apply(request("expiring")));
+		assertEquals(4, queries.size());
+	}
+
+	@Test
+	void leastRecentlyUsedEntriesAreDroppedAboveTheLimit() {
+		when(manusProperties.getSearchCacheMaxEntries()).thenReturn(2);
+		SearchResultCache cache = cache(null);
+		SerpApiService service = service(cache);
+
+		service.apply(request("a"));
+		service.apply(request("b"));
+		service.apply(request("a"));
+		service.apply(request("c"));
+		service.apply(request("a"));
+		service.apply(request("b"));
+
+		assertEquals(2, cache.size());
+		assertEquals(List.of("a", "b", "c", "b"), queries);
+	}
+
+	@Test
+	void persistedResponsesSurviveARestart() {
+		when(manusProperties.getSearchCachePersistent()).thenReturn(true);
+		SearchResultCacheRepository repository = inMemoryRepository();
+
+		service(cache(repository)).apply(request("durable"));
+		SearchResultCache restarted = cache(repository);
+		assertEquals("result for durable", snippet(service(restarted).apply(request("Durable"))));
+
+		assertEquals(List.of("durable"), queries);
+		assertEquals(1, requests("stored_hit"));
+	}
+
+	@Test
+	void errorResponsesAreNotCached() {
+		when(manusProperties.getSearchCachePersistent()).thenReturn(true);
+		SearchResultCacheRepository repository = inMemoryRepository();
+		SerpApiService service = service(cache(repository));
+
+		assertEquals("Invalid API key.", service.apply(request("error quota")).get("error"));
+		assertEquals("Invalid API key.", service.apply(request("error quota")).get("error"));
+
+		assertEquals(2, queries.size());
+		verify(repository, never()).save(any(SearchResultCacheEntity.class));
+	}
+
+	@Test
+	void expiredResponsesArePurgedOnScheduleInsteadOfOnEveryStore() {
+		when(manusProperties.getSearchCachePersistent()).thenReturn(true);
+		SearchResultCacheRepository repository = inMemoryRepository();
+		SearchResultCache cache = cache(repository);
+
+		service(cache).apply(request("a"));
+		service(cache).apply(request("b"));
+		verify(repository, never()).deleteByExpiresAtBefore(any());
+
+		cache.purgeExpired();
+		verify(repository, times(1)).deleteByExpiresAtBefore(any());
+		cache.destroy();
+	}
+
+	@Test
+	void disabledCacheAlwaysSearches() {
+		when(manusProperties.getSearchCacheEnabled()).thenReturn(false);
+		SerpApiService service = service(cache(null));
+
+		service.apply(request("q"));
+		service.apply(request("q"));
+
+		assertEquals(2, queries.size());
+	}
+
+	private SearchResultCache cache(SearchResultCacheRepository repository) {
+		StaticListableBeanFactory beans = new StaticListableBeanFactory();
+		beans.addBean("meterRegistry", meterRegistry);
+		if (repository != null) {
+			beans.addBean("searchResultCacheRepository", repository);
+		}
+		return new SearchResultCache(manusProperties, beans.getBeanProvider(SearchResultCacheRepository.class),
+				beans.getBeanProvider(MeterRegistry.class));
+	}
+
+	private SerpApiService service(SearchResultCache cache) {
+		return new SerpApiService(new SerpApiProperties("test-key", "google", url), cache);
+	}
+
+	private SerpApiService.Request request(String query) {
+		return new SerpApiService.Request(query);
+	}
+
+	@SuppressWarnings("unchecked")
+	private String snippet(Map<String, Object> response) {
+		return ((List<Map<String, Object>>) response.get("organic_results")).get(0).get("snippet").toString();
+	}
+
+	private double requests(String result) {
+		return meterRegistry.counter("jmanus.search.cache.requests", "result", result).count();
+	}
+
+	private SearchResultCacheRepository inMemoryRepository() {
+		Map<String, SearchResultCacheEntity> rows = new ConcurrentHashMap<>();
+		SearchResultCacheRepository repository = mock(SearchResultCacheRepository.class);
+		when(repository.findByCacheKey(anyString()))
+			.thenAnswer(invocation -> Optional.ofNullable(rows.get(invocation.getArgument(0, String.class))));
+		when(repository.save(any(SearchResultCacheEntity.class))).thenAnswer(invocation -> {
+			SearchResultCacheEntity entity = invocation.getArgument(0);
+			rows.put(entity.getCacheKey(), entity);
+			return entity;
+		});
+		return repository;
+	}
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.manus.tool.textOperator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class LineOffsetIndexTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void readsLineRangesAcrossCheckpoints() throws IOException {
+		Path file = tempDir.resolve("lines.txt");
+		List<String> lines = numberedLines(1000);
+		Files.writeString(file, String.join("\r\n", lines) + "\r\n");
+
+		LineOffsetIndex index = LineOffsetIndex.of(file);
+
+		assertEquals(1000, index.getLineCount());
+		assertSame(index, LineOffsetIndex.of(file));
+		assertEquals(lines.subList(60, 200), index.readLines(60, 200));
+		assertEquals(lines.subList(997, 1000), index.readLines(997, 2000));
+		assertEquals("第 129 行", readLine(file, index.offsetOfLine(129)));
+	}
+
+	@Test
+	void appendExtendsTheCachedIndex() throws IOException {
+		Path file = tempDir.resolve("append.txt");
+		Files.writeString(file, String.join("\n", numberedLines(300)));
+		assertEquals(300, LineOffsetIndex.of(file).getLineCount());
+
+		StreamingTextEditor.append(file, "\nlast line");
+
+		LineOffsetIndex index = LineOffsetIndex.of(file);
+		assertEquals(301, index.getLineCount());
+		assertEquals(List.of("第 299 行", "last line"), index.readLines(299, 301));
+	}
+
+	@Test
+	void replaceRewritesOnlyFromTheFirstChangedLine() throws IOException {
+		Path file = tempDir.resolve("replace.txt");
+		List<String> lines = numberedLines(5000);
+		lines.set(4000, "needle here");
+		lines.set(4500, "another needle");
+		Files.writeString(file, String.join("\n", lines) + "\n");
+		byte[] head = Arrays.copyOf(Files.readAllBytes(file), 1000);
+		LineOffsetIndex.of(file);
+
+		long replaced = StreamingTextEditor.replace(file, "needle", "needle-with-a-longer-name");
+
+		String expected = (String.join("\n", lines) + "\n").replace("needle", "needle-with-a-longer-name");
+		assertEquals(2, replaced);
+		assertEquals(expected, Files.readString(file));
+		assertArrayEquals(head, Arrays.copyOf(Files.readAllBytes(file), 1000));
+		assertEquals(List.of("needle-with-a-longer-name here"), LineOffsetIndex.of(file).readLines(4000, 4001));
+		assertEquals(0, StreamingTextEditor.replace(file, "missing", "x"));
+	}
+
+	@Test
+	void replaceFindsMatchesSpanningReadBuffers() throws IOException {
+		Path file = tempDir.resolve("large.txt");
+		StringBuilder content = new StringBuilder();
+		while (content.length() < (1 << 20) - 3) {
+			content.append("abcdefg\n");
+		}
+		content.setLength((1 << 20) - 3);
+		content.append("KEY-VALUE\n");
+		Files.writeString(file, content);
+
+		assertEquals(1, StreamingTextEditor.replace(file, "KEY-VALUE", "kv"));
+		assertEquals(content.toString().replace("KEY-VALUE", "kv"), Files.readString(file));
+	}
+
+	@Test
+	void countsWordsWithoutLeadingEmptyToken() throws IOException {
+		Path file = tempDir.resolve("words.txt");
+		Files.writeString(file, "  one two\n three  ");
+
+		assertEquals(3, StreamingTextEditor.countWords(file));
+	}
+
+	private String readLine(Path file, long offset) throws IOException {
+		byte[] bytes = Files.readAllBytes(file);
+		int end = (int) offset;
+		while (bytes[end] != '\r') {
+			end++;
+		}
+		return new String(bytes, (int) offset, end - (int) offset, StandardCharsets.UTF_8);
+	}
+
+	private List<String> numberedLines(int count) {
+		List<String> lines = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			lines.add("第 " + i + " 行");
+		}
+		return lines;
+	}
+
+}